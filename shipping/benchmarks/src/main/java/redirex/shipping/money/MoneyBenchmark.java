@@ -0,0 +1,76 @@
+package redirex.shipping.money;
+
+import org.openjdk.jmh.annotations.*;
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+// Precificação do depósito (taxa, valor em BRL, centavos do Stripe) e desconto de cupom no frete:
+// cálculo antigo em BigDecimal contra o Money em unidades mínimas
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+    private static final BigDecimal FEE_PERCENTAGE = new BigDecimal("0.05");
+    private static final BigDecimal ONE_HUNDRED = new BigDecimal("100");
+    private static final long FEE_BASIS_POINTS = 500;
+
+    @Param({"100.00", "1234.56"})
+    public String amount;
+
+    private BigDecimal targetAmount;
+    private Money targetMoney;
+    private BigDecimal brlToCnyRate;
+    private BigDecimal couponPercentage;
+    private BigDecimal maxDiscount;
+    private Money maxDiscountMoney;
+
+    @Setup
+    public void setUp() {
+        targetAmount = new BigDecimal(amount);
+        targetMoney = Money.of(targetAmount, CurrencyEnum.CNY);
+        brlToCnyRate = new BigDecimal("1.2734");
+        couponPercentage = new BigDecimal("12.5");
+        maxDiscount = new BigDecimal("80.00");
+        maxDiscountMoney = Money.of(maxDiscount, CurrencyEnum.CNY);
+    }
+
+    // Antes: calculateFee + calculateAmountInBRL + multiply(100).longValue() do processStripePayment
+    @Benchmark
+    public long depositPricingBigDecimal() {
+        BigDecimal fee = targetAmount.multiply(FEE_PERCENTAGE).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal charge = targetAmount.divide(brlToCnyRate, 2, RoundingMode.CEILING);
+        return charge.multiply(ONE_HUNDRED).longValue() + fee.unscaledValue().longValue();
+    }
+
+    @Benchmark
+    public long depositPricingMoney() {
+        Money fee = targetMoney.percentage(FEE_BASIS_POINTS, PricingRounding.FEE);
+        Money charge = targetMoney.divideByRate(brlToCnyRate, CurrencyEnum.BRL, PricingRounding.FX_CHARGE);
+        return charge.minorUnits() + fee.minorUnits();
+    }
+
+    // Antes: ShipmentEntity.applyCoupon com percentual, teto e piso zero
+    @Benchmark
+    public BigDecimal couponDiscountBigDecimal() {
+        BigDecimal discount = targetAmount.multiply(
+                couponPercentage.divide(ONE_HUNDRED, 4, RoundingMode.HALF_UP));
+        if (discount.compareTo(maxDiscount) > 0) {
+            discount = maxDiscount;
+        }
+        BigDecimal total = targetAmount.subtract(discount);
+        return total.compareTo(BigDecimal.ZERO) < 0 ? BigDecimal.ZERO : total;
+    }
+
+    @Benchmark
+    public Money couponDiscountMoney() {
+        Money discount = targetMoney.percentage(couponPercentage, PricingRounding.DISCOUNT).min(maxDiscountMoney);
+        return targetMoney.minus(discount).max(Money.zero(CurrencyEnum.CNY));
+    }
+}
@@ -0,0 +1,104 @@
+package redirex.shipping.security;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+import redirex.shipping.repositories.AdminRepository;
+import redirex.shipping.repositories.UserRepository;
+import redirex.shipping.security.CustomUnifiedUserDetailsService.CustomUserDetails;
+import redirex.shipping.service.TokenBlacklistService;
+import redirex.shipping.service.TokenGenerationService;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+
+// Monta os componentes de autenticação fora do Spring. Repositórios são mocks do Mockito (nunca chamados no caminho
+// medido); os serviços chamados a cada requisição são stubs simples, para não medir o custo do próprio Mockito.
+final class AuthFixtures {
+
+    static final String SECRET = "benchmark-secret-key-with-at-least-sixty-four-bytes-for-hs512-signing!!";
+
+    static final CustomUserDetails USER = new CustomUserDetails(
+            UUID.fromString("6f1c3a8e-2b7d-4c39-9a51-0d2e8f4b7c61"),
+            "user@redirex.com",
+            "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BzJ4E0yKJYbVSQ8YQn3ZcTnZB7xG",
+            List.of(new SimpleGrantedAuthority("ROLE_USER")),
+            "USER");
+
+    static final CustomUserDetails ADMIN = new CustomUserDetails(
+            UUID.fromString("0b9e4f27-5d13-4a6c-8e02-7f3a1c9d5e48"),
+            "admin@redirex.com",
+            "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BzJ4E0yKJYbVSQ8YQn3ZcTnZB7xG",
+            List.of(new SimpleGrantedAuthority("ROLE_ADMIN")),
+            "ADMIN");
+
+    private AuthFixtures() {
+    }
+
+    static JwtUtil jwtUtil(long claimsCacheMaxSize) {
+        JwtUtil jwtUtil = new JwtUtil(mock(UserRepository.class), mock(AdminRepository.class), new FixedGenerationService());
+        ReflectionTestUtils.setField(jwtUtil, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 900L);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxSize", claimsCacheMaxSize);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    static JwtAuthenticationFilter filter(JwtUtil jwtUtil, boolean statelessPrincipal, IdentityContext identityContext) {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(
+                jwtUtil,
+                new InMemoryUserDetailsService(),
+                new EmptyBlacklistService(),
+                new FixedGenerationService(),
+                identityContext);
+        ReflectionTestUtils.setField(filter, "statelessPrincipalEnabled", statelessPrincipal);
+        return filter;
+    }
+
+    static IdentityContext identityContext() {
+        return new IdentityContext(mock(UserRepository.class), mock(AdminRepository.class));
+    }
+
+    // Todos os usuários na geração 0
+    static final class FixedGenerationService extends TokenGenerationService {
+        FixedGenerationService() {
+            super(null, null, 30);
+        }
+
+        @Override
+        public long currentGeneration(UUID userId) {
+            return 0L;
+        }
+
+        @Override
+        public boolean isCurrent(UUID userId, long tokenGeneration) {
+            return true;
+        }
+    }
+
+    // Blacklist já sincronizada e vazia: equivale ao caminho local do near-cache
+    static final class EmptyBlacklistService extends TokenBlacklistService {
+        EmptyBlacklistService() {
+            super(null, null);
+        }
+
+        @Override
+        public boolean isTokenBlacklisted(String tokenId) {
+            return false;
+        }
+    }
+
+    // Substitui o findByEmail do banco, devolvendo sempre o mesmo usuário
+    static final class InMemoryUserDetailsService extends CustomUnifiedUserDetailsService {
+        InMemoryUserDetailsService() {
+            super(null, null);
+        }
+
+        @Override
+        public UserDetails loadUserByUsername(String username) {
+            return USER.getEmail().equals(username) ? USER : ADMIN;
+        }
+    }
+}
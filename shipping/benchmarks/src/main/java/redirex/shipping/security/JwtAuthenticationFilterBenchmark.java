@@ -0,0 +1,61 @@
+package redirex.shipping.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+// Uma requisição autenticada atravessando o JwtAuthenticationFilter, com repositórios simulados.
+// statelessPrincipal=false corresponde ao caminho que carrega o UserDetails (stub em memória, sem banco).
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"false", "true"})
+    public boolean statelessPrincipal;
+
+    @Param({"0", "10000"})
+    public long claimsCacheMaxSize;
+
+    private JwtAuthenticationFilter filter;
+    private String authorizationHeader;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = AuthFixtures.jwtUtil(claimsCacheMaxSize);
+        filter = AuthFixtures.filter(jwtUtil, statelessPrincipal, AuthFixtures.identityContext());
+        authorizationHeader = "Bearer " + jwtUtil.generateToken(AuthFixtures.USER);
+    }
+
+    @Benchmark
+    public int authenticatedRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/6f1c3a8e-2b7d-4c39-9a51-0d2e8f4b7c61");
+        request.setServletPath("/api/user/6f1c3a8e-2b7d-4c39-9a51-0d2e8f4b7c61");
+        request.addHeader("Authorization", authorizationHeader);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        try {
+            filter.doFilterInternal(request, response, new MockFilterChain());
+            return response.getStatus();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Benchmark
+    public int requestWithoutToken() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/orders");
+        request.setServletPath("/api/user/orders");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilterInternal(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,51 @@
+package redirex.shipping.security;
+
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Custo de emitir e verificar tokens. claimsCacheMaxSize=0 desliga o cache de claims verificados,
+// medindo o parse + verificação HMAC completos a cada chamada.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    @Param({"0", "10000"})
+    public long claimsCacheMaxSize;
+
+    private JwtUtil jwtUtil;
+    private String token;
+    private Claims claims;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = AuthFixtures.jwtUtil(claimsCacheMaxSize);
+        token = jwtUtil.generateToken(AuthFixtures.USER);
+        claims = jwtUtil.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(AuthFixtures.USER);
+    }
+
+    @Benchmark
+    public Claims extractAllClaims() {
+        return jwtUtil.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public Boolean validateTokenFromString() {
+        return jwtUtil.validateToken(token, AuthFixtures.USER);
+    }
+
+    @Benchmark
+    public Boolean validateTokenFromClaims() {
+        return jwtUtil.validateToken(claims, AuthFixtures.USER);
+    }
+}
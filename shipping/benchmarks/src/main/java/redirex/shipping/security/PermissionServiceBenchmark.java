@@ -0,0 +1,50 @@
+package redirex.shipping.security;
+
+import org.openjdk.jmh.annotations.*;
+import redirex.shipping.repositories.AddressRepository;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+// Checagens usadas pelos @PreAuthorize, com a identidade já resolvida pelo filtro
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PermissionServiceBenchmark {
+
+    @Param({"USER", "ADMIN"})
+    public String principal;
+
+    private PermissionService permissionService;
+    private UUID ownerId;
+    private UUID otherId;
+
+    @Setup
+    public void setUp() {
+        IdentityContext identityContext = AuthFixtures.identityContext();
+        identityContext.populate("ADMIN".equals(principal) ? AuthFixtures.ADMIN : AuthFixtures.USER);
+        permissionService = new PermissionService(mock(AddressRepository.class), identityContext);
+        ownerId = AuthFixtures.USER.getId();
+        otherId = UUID.randomUUID();
+    }
+
+    @Benchmark
+    public boolean isOwner() {
+        return permissionService.isOwner(ownerId);
+    }
+
+    @Benchmark
+    public boolean isOwnerOrAdminForeignResource() {
+        return permissionService.isOwnerOrAdmin(otherId);
+    }
+
+    @Benchmark
+    public boolean isAdmin() {
+        return permissionService.isAdmin();
+    }
+}
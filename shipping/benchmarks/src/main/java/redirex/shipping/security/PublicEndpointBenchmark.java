@@ -0,0 +1,30 @@
+package redirex.shipping.security;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Classificação de rotas públicas feita em toda requisição (doFilterInternal e shouldNotFilter)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PublicEndpointBenchmark {
+
+    @Param({"/public/auth/v1/user/login", "/api/user/6f1c3a8e-2b7d-4c39-9a51-0d2e8f4b7c61/orders", "/error"})
+    public String path;
+
+    private JwtAuthenticationFilter filter;
+
+    @Setup
+    public void setUp() {
+        filter = AuthFixtures.filter(AuthFixtures.jwtUtil(0), false, AuthFixtures.identityContext());
+    }
+
+    @Benchmark
+    public boolean isPublicEndpoint() {
+        return filter.isPublicEndpoint(path);
+    }
+}
@@ -0,0 +1,121 @@
+package redirex.shipping.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.enums.IdempotencyStatusEnum;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// O Hibernate cria um CHECK com os valores do enum nas colunas @Enumerated, mas o ddl-auto=update não o altera
+// depois: sem isto, tabelas já existentes recusariam um valor novo (ex.: USD, RETRYABLE). Recria só os que estão
+// desatualizados; roda antes dos demais listeners de ApplicationReadyEvent, que já gravam cotações.
+@Component
+public class EnumCheckConstraintUpdater {
+    private static final Logger logger = LoggerFactory.getLogger(EnumCheckConstraintUpdater.class);
+
+    // Colunas de moeda são reconhecidas pelo nome; as demais são listadas aqui (tabela.coluna)
+    private static final Map<String, Class<? extends Enum<?>>> ENUM_COLUMNS = Map.of(
+            "idempotency_records.status", IdempotencyStatusEnum.class);
+
+    private static final String ENUM_CHECKS_SQL = """
+            SELECT c.conrelid::regclass::text AS table_name, quote_ident(c.conname) AS constraint_name,
+                   a.attname AS column_name, pg_get_constraintdef(c.oid) AS definition
+              FROM pg_constraint c
+              JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[1]
+             WHERE c.contype = 'c'
+               AND c.connamespace = current_schema()::regnamespace
+               AND array_length(c.conkey, 1) = 1
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public EnumCheckConstraintUpdater(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void updateEnumChecks() {
+        try {
+            List<EnumCheck> checks = jdbcTemplate.query(ENUM_CHECKS_SQL, (rs, rowNum) -> new EnumCheck(
+                    rs.getString("table_name"), rs.getString("constraint_name"),
+                    rs.getString("column_name"), rs.getString("definition")));
+            for (EnumCheck check : checks) {
+                List<String> values = enumValues(check);
+                // NOT VALID com os valores certos: só falta a validação
+                if (values.isEmpty() || (allows(check.definition(), values) && !check.definition().contains("NOT VALID"))) {
+                    continue;
+                }
+                replace(check, values);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not update enum check constraints: {}", e.getMessage());
+        }
+    }
+
+    // A troca do CHECK entra NOT VALID (lock exclusivo só pelo tempo do ALTER, sem varrer a tabela); a validação
+    // vem depois, em outra transação, com um lock que não bloqueia leituras nem escritas. Nós subindo juntos se
+    // serializam pelo advisory lock e o segundo encontra o CHECK já atualizado.
+    private void replace(EnumCheck check, List<String> values) {
+        Boolean replaced = transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(hashtextextended('enum_check_update', 0))",
+                    Object.class);
+            List<String> current = jdbcTemplate.queryForList(
+                    "SELECT pg_get_constraintdef(oid) FROM pg_constraint WHERE conrelid = CAST(? AS regclass)"
+                            + " AND quote_ident(conname) = ?", String.class, check.table(), check.constraint());
+            if (current.isEmpty()) {
+                return null;
+            }
+            if (allows(current.get(0), values)) {
+                return false;
+            }
+            String allowed = values.stream().map(name -> "'" + name + "'").collect(Collectors.joining(", "));
+            jdbcTemplate.execute("ALTER TABLE " + check.table() + " DROP CONSTRAINT " + check.constraint()
+                    + ", ADD CONSTRAINT " + check.constraint()
+                    + " CHECK (" + quoteIdent(check.column()) + " IN (" + allowed + ")) NOT VALID");
+            return true;
+        });
+        if (replaced == null) {
+            return;
+        }
+        // Também conclui uma validação interrompida (ex.: queda do nó depois do ALTER)
+        jdbcTemplate.execute("ALTER TABLE " + check.table() + " VALIDATE CONSTRAINT " + check.constraint());
+        if (replaced) {
+            logger.info("Enum check {} on {} updated to {}", check.constraint(), check.table(), values);
+        }
+    }
+
+    private static boolean allows(String definition, List<String> values) {
+        return values.stream().allMatch(name -> definition.contains("'" + name + "'"));
+    }
+
+    // Vazio quando o CHECK não é de uma coluna de enum conhecida
+    private static List<String> enumValues(EnumCheck check) {
+        Class<? extends Enum<?>> type = check.column().contains("currency") && check.definition().contains("'BRL'")
+                ? CurrencyEnum.class
+                : ENUM_COLUMNS.get(check.table() + "." + check.column());
+        if (type == null) {
+            return List.of();
+        }
+        return Arrays.stream(type.getEnumConstants()).map(Enum::name).toList();
+    }
+
+    private static String quoteIdent(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    private record EnumCheck(String table, String constraint, String column, String definition) {}
+}
@@ -0,0 +1,60 @@
+package redirex.shipping.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.util.Map;
+
+// Colunas Money criadas antes do tipo existir podem ter valores com 4 casas, mas Money guarda só as casas da moeda.
+// Em vez de o MoneyConverter arredondar na leitura (e o próximo save regravar o valor sem aviso), os valores são
+// arredondados aqui, uma vez e de forma explícita, com cada alteração no log.
+@Component
+public class MoneyColumnScaleMigration {
+    private static final Logger logger = LoggerFactory.getLogger(MoneyColumnScaleMigration.class);
+
+    // tabela.coluna -> moeda do Money mapeado nela
+    private static final Map<String, CurrencyEnum> MONEY_COLUMNS = Map.of(
+            "shipments.total_shipping_paid", CurrencyEnum.CNY);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public MoneyColumnScaleMigration(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Uma falha aqui impede a subida: com valores fora da escala, a leitura exata do MoneyConverter falharia depois
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateMoneyColumns() {
+        MONEY_COLUMNS.forEach((qualified, currency) -> {
+            String[] parts = qualified.split("\\.");
+            transactionTemplate.executeWithoutResult(status -> migrate(parts[0], parts[1], currency.fractionDigits()));
+        });
+    }
+
+    private void migrate(String table, String column, int digits) {
+        // Nós subindo juntos não registram as mesmas linhas duas vezes
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(hashtextextended('money_column_scale', 0))",
+                Object.class);
+        // round() do Postgres arredonda metade para longe do zero, como PricingRounding.INPUT
+        String rounded = "round(" + column + ", " + digits + ")";
+        jdbcTemplate.query("WITH changed AS (SELECT id, " + column + " AS amount FROM " + table
+                        + " WHERE " + column + " <> " + rounded + " FOR UPDATE)"
+                        + " UPDATE " + table + " t SET " + column + " = round(t." + column + ", " + digits + ")"
+                        + " FROM changed WHERE t.id = changed.id RETURNING t.id, changed.amount, t." + column,
+                rs -> {
+                    logger.warn("Rounded {}.{} of {} from {} to {}", table, column, rs.getObject(1),
+                            rs.getBigDecimal(2), rs.getBigDecimal(3));
+                });
+    }
+}
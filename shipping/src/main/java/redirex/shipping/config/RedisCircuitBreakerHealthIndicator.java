@@ -0,0 +1,36 @@
+package redirex.shipping.config;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+import redirex.shipping.service.RedisCircuitBreaker;
+
+import java.time.Instant;
+
+// Mostra no /actuator/health se a autenticação está operando em modo degradado (circuito do Redis aberto)
+@Component("authRedisCircuit")
+public class RedisCircuitBreakerHealthIndicator implements HealthIndicator {
+
+    public static final Status DEGRADED = new Status("DEGRADED");
+
+    private final RedisCircuitBreaker circuitBreaker;
+
+    public RedisCircuitBreakerHealthIndicator(RedisCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public Health health() {
+        RedisCircuitBreaker.State state = circuitBreaker.getState();
+        Health.Builder builder = state == RedisCircuitBreaker.State.CLOSED ? Health.up() : Health.status(DEGRADED);
+        builder.withDetail("state", state)
+                .withDetail("failurePolicy", circuitBreaker.getFailurePolicy())
+                .withDetail("consecutiveFailures", circuitBreaker.getConsecutiveFailures())
+                .withDetail("rejectedCalls", circuitBreaker.getRejectedCalls());
+        if (state != RedisCircuitBreaker.State.CLOSED) {
+            builder.withDetail("openedAt", Instant.ofEpochMilli(circuitBreaker.getOpenedAt()));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,36 @@
+package redirex.shipping.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import redirex.shipping.service.TokenBlacklistService;
+import redirex.shipping.service.TokenGenerationService;
+import redirex.shipping.service.WalletBalanceCache;
+import redirex.shipping.service.velocity.DepositVelocityEngine;
+
+@Configuration
+public class RedisPubSubConfig {
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       TokenBlacklistService tokenBlacklistService,
+                                                                       TokenGenerationService tokenGenerationService,
+                                                                       WalletBalanceCache walletBalanceCache,
+                                                                       DepositVelocityEngine depositVelocityEngine) {
+        // Iniciado pelo RedisPubSubWatchdog: sem Redis no boot, a aplicação sobe em modo degradado
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public boolean isAutoStartup() {
+                return false;
+            }
+        };
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(tokenBlacklistService, new ChannelTopic(TokenBlacklistService.EVENTS_CHANNEL));
+        container.addMessageListener(tokenGenerationService, new ChannelTopic(TokenGenerationService.EVENTS_CHANNEL));
+        container.addMessageListener(walletBalanceCache, new ChannelTopic(WalletBalanceCache.EVENTS_CHANNEL));
+        container.addMessageListener(depositVelocityEngine, new ChannelTopic(DepositVelocityEngine.EVENTS_CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,61 @@
+package redirex.shipping.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import redirex.shipping.service.TokenBlacklistService;
+import redirex.shipping.service.WalletBalanceCache;
+import redirex.shipping.service.velocity.DepositVelocityEngine;
+
+// Mantém as assinaturas de pub/sub ativas. Se o Redis estiver fora no boot (ou a assinatura cair),
+// tenta de novo periodicamente e, ao conseguir, ressincroniza a blacklist e os limites de depósito e descarta
+// os saldos em cache para cobrir os eventos perdidos.
+@Component
+public class RedisPubSubWatchdog {
+    private static final Logger logger = LoggerFactory.getLogger(RedisPubSubWatchdog.class);
+
+    private final RedisMessageListenerContainer container;
+    private final TokenBlacklistService tokenBlacklistService;
+    private final WalletBalanceCache walletBalanceCache;
+    private final DepositVelocityEngine depositVelocityEngine;
+
+    public RedisPubSubWatchdog(RedisMessageListenerContainer container,
+                               TokenBlacklistService tokenBlacklistService,
+                               WalletBalanceCache walletBalanceCache,
+                               DepositVelocityEngine depositVelocityEngine) {
+        this.container = container;
+        this.tokenBlacklistService = tokenBlacklistService;
+        this.walletBalanceCache = walletBalanceCache;
+        this.depositVelocityEngine = depositVelocityEngine;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startListening() {
+        ensureListening();
+    }
+
+    @Scheduled(fixedDelayString = "${security.redis-pubsub.retry-interval-ms:30000}",
+            initialDelayString = "${security.redis-pubsub.retry-interval-ms:30000}")
+    public void ensureListening() {
+        if (container.isRunning() && container.isListening()) {
+            return;
+        }
+        try {
+            if (container.isRunning()) {
+                container.stop();
+            }
+            container.start();
+            logger.info("Assinaturas de pub/sub do Redis ativas");
+            tokenBlacklistService.resyncFromRedis();
+            walletBalanceCache.invalidateAll();
+            depositVelocityEngine.reloadLimits();
+        } catch (Exception e) {
+            container.stop();
+            logger.warn("Redis indisponível para pub/sub; nova tentativa em background: {}", e.getMessage());
+        }
+    }
+}
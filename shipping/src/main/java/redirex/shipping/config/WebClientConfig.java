@@ -18,9 +18,12 @@ import java.util.concurrent.TimeUnit;
 @Configuration
 public class WebClientConfig {
 
-    @Value("${api.bacen.base-url:https://api.bcb.gov.br}")
+    @Value("${api.bacen.base-url:https://olinda.bcb.gov.br}")
     private String baseUrl;
 
+    @Value("${exchange-rate.cross.base-url:https://api.frankfurter.app}")
+    private String crossRateBaseUrl;
+
     @Value("${webclient.timeout.connect:5000}")
     private int connectTimeout;
 
@@ -35,6 +38,16 @@ public class WebClientConfig {
 
     @Bean
     public WebClient bacenWebClient() {
+        return webClient(baseUrl);
+    }
+
+    // Cotações de moedas que a PTAX não publica (ex.: CNY), trianguladas em USD pelo ExchangeRateProvider
+    @Bean
+    public WebClient crossRateWebClient() {
+        return webClient(crossRateBaseUrl);
+    }
+
+    private WebClient webClient(String url) {
         HttpClient httpClient = HttpClient.create()
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
                 .responseTimeout(Duration.ofMillis(responseTimeout))
@@ -43,11 +56,11 @@ public class WebClientConfig {
                                 .addHandlerLast(new WriteTimeoutHandler(writeTimeout, TimeUnit.MILLISECONDS)));
 
         return WebClient.builder()
-                .baseUrl(baseUrl)
+                .baseUrl(url)
                 .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                 .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
                 .defaultHeader("User-Agent", "Redirex Shipping Service/1.0")
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -3,17 +3,24 @@ package redirex.shipping.controller.Admin;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import redirex.shipping.dto.request.AuthAdminRequest;
+import redirex.shipping.dto.request.RefreshTokenRequest;
 import redirex.shipping.dto.request.RegisterAdminRequest;
 import redirex.shipping.dto.request.UpdateAdminRequest;
 import redirex.shipping.dto.response.*;
+import redirex.shipping.security.CustomUnifiedUserDetailsService.CustomUserDetails;
+import redirex.shipping.exception.InvalidRefreshTokenException;
+import redirex.shipping.exception.LoginThrottledException;
 import redirex.shipping.security.JwtUtil;
+import redirex.shipping.security.LoginAuthenticationExecutor;
+import redirex.shipping.service.RefreshTokenService;
 import redirex.shipping.service.admin.AdminServiceImpl;
 
 import java.util.UUID;
@@ -22,18 +29,21 @@ import java.util.UUID;
 public class AuthAdminController {
     private static final Logger log = LoggerFactory.getLogger(AuthAdminController.class);
 
-    private final AuthenticationManager authenticationManager;
+    private final LoginAuthenticationExecutor loginAuthenticationExecutor;
     private final AdminServiceImpl adminService;
     private final JwtUtil jwtUtil;
+    private final RefreshTokenService refreshTokenService;
 
     public AuthAdminController(
-            AuthenticationManager authenticationManager,
+            LoginAuthenticationExecutor loginAuthenticationExecutor,
             AdminServiceImpl adminService,
-            JwtUtil jwtUtil
+            JwtUtil jwtUtil,
+            RefreshTokenService refreshTokenService
     ) {
-        this.authenticationManager = authenticationManager;
+        this.loginAuthenticationExecutor = loginAuthenticationExecutor;
         this.adminService = adminService;
         this.jwtUtil = jwtUtil;
+        this.refreshTokenService = refreshTokenService;
     }
 
     @PostMapping("public/admin/auth/v1/create/admin")
@@ -47,16 +57,25 @@ public class AuthAdminController {
     @PostMapping("public/admin/auth/login")
     public ResponseEntity<ApiResponse<AuthAdminResponse>> login(@Valid @RequestBody AuthAdminRequest authRequest) {
         try {
-            authenticationManager.authenticate(
+            Authentication authentication = loginAuthenticationExecutor.authenticate(
                     new UsernamePasswordAuthenticationToken(authRequest.email(), authRequest.password())
             );
 
-            UUID adminId = adminService.findAdminIdByEmail(authRequest.email());
-            String token = jwtUtil.generateToken(authRequest.email(), adminId);
+            CustomUserDetails principal = (CustomUserDetails) authentication.getPrincipal();
+            String token = jwtUtil.generateToken(principal);
+            String refreshToken = refreshTokenService.issue(principal);
 
-            AuthAdminResponse data = new AuthAdminResponse(authRequest.fullname(), authRequest.email(), token);
+            AuthAdminResponse data = new AuthAdminResponse(authRequest.fullname(), authRequest.email(), token,
+                    refreshToken, jwtUtil.getAccessTokenExpiration());
             return ResponseEntity.ok(ApiResponse.success(data));
 
+        } catch (LoginThrottledException e) {
+            log.warn("Admin login rejected due to load: {}", e.getMessage());
+            ApiErrorResponse error = ApiErrorResponse.create(HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts, try again shortly");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error(error));
+
         } catch (BadCredentialsException e) {
             ApiErrorResponse error = ApiErrorResponse.create(HttpStatus.UNAUTHORIZED, "Invalid email or password");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -64,6 +83,25 @@ public class AuthAdminController {
         }
     }
 
+    @PostMapping("public/admin/auth/refresh")
+    public ResponseEntity<ApiResponse<AuthAdminResponse>> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        try {
+            RefreshTokenService.RotationResult rotation = refreshTokenService.rotate(request.refreshToken(), "ADMIN");
+            CustomUserDetails principal = rotation.userDetails();
+
+            String token = jwtUtil.generateToken(principal);
+            AuthAdminResponse data = new AuthAdminResponse(null, principal.getEmail(), token,
+                    rotation.refreshToken(), jwtUtil.getAccessTokenExpiration());
+            return ResponseEntity.ok(ApiResponse.success(data));
+
+        } catch (InvalidRefreshTokenException e) {
+            log.warn("Admin refresh token rejected: {}", e.getMessage());
+            ApiErrorResponse error = ApiErrorResponse.create(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error(error));
+        }
+    }
+
     @PutMapping("update/auth/admin/{id}")
     public ResponseEntity<UpdateAdminResponse> updateAdmin(
             @PathVariable UUID id,
@@ -0,0 +1,33 @@
+package redirex.shipping.controller.Admin;
+
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import redirex.shipping.service.velocity.DepositVelocityEngine;
+import redirex.shipping.service.velocity.DepositVelocityLimits;
+
+@RestController
+@RequestMapping("/private/api/v1/admin/wallets/deposit-velocity")
+public class DepositVelocityController {
+    private static final Logger logger = LoggerFactory.getLogger(DepositVelocityController.class);
+
+    private final DepositVelocityEngine depositVelocityEngine;
+
+    public DepositVelocityController(DepositVelocityEngine depositVelocityEngine) {
+        this.depositVelocityEngine = depositVelocityEngine;
+    }
+
+    @GetMapping("/limits")
+    public ResponseEntity<DepositVelocityLimits> getLimits() {
+        return ResponseEntity.ok(depositVelocityEngine.getLimits());
+    }
+
+    // Vale para todos os nós sem restart
+    @PutMapping("/limits")
+    public ResponseEntity<DepositVelocityLimits> updateLimits(@Valid @RequestBody DepositVelocityLimits limits) {
+        logger.info("Updating deposit velocity limits: {}", limits);
+        return ResponseEntity.ok(depositVelocityEngine.updateLimits(limits));
+    }
+}
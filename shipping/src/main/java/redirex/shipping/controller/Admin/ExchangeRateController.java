@@ -0,0 +1,36 @@
+package redirex.shipping.controller.Admin;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import redirex.shipping.dto.response.ExchangeRateHistoryResponse;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.enums.RateBucketEnum;
+import redirex.shipping.service.ExchangeRateService;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/private/api/v1/admin/exchange-rates")
+public class ExchangeRateController {
+
+    private final ExchangeRateService exchangeRateService;
+
+    public ExchangeRateController(ExchangeRateService exchangeRateService) {
+        this.exchangeRateService = exchangeRateService;
+    }
+
+    // Ex.: /history?from=BRL&to=CNY&start=2025-01-01T00:00:00&end=2026-01-01T00:00:00&bucket=DAY
+    @GetMapping("/history")
+    public ResponseEntity<ExchangeRateHistoryResponse> getHistory(
+            @RequestParam CurrencyEnum from,
+            @RequestParam CurrencyEnum to,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "HOUR") RateBucketEnum bucket) {
+        return ResponseEntity.ok(exchangeRateService.getExchangeRateHistory(from, to, bucket, start, end));
+    }
+}
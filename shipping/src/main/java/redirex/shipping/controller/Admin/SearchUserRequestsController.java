@@ -5,14 +5,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import redirex.shipping.dto.response.OrderItemResponse;
 import redirex.shipping.entity.OrderItemEntity;
-import redirex.shipping.security.JwtUtil;
+import redirex.shipping.security.IdentityContext;
 import redirex.shipping.service.admin.OrdersMadeByCustomersService;
 
 import java.util.UUID;
@@ -23,22 +22,20 @@ public class SearchUserRequestsController {
     private static final Logger logger = LoggerFactory.getLogger(SearchUserRequestsController.class);
 
     private final OrdersMadeByCustomersService ordersMadeByCustomersService;
-    private final JwtUtil jwtUtil;
+    private final IdentityContext identityContext;
 
-    public SearchUserRequestsController(OrdersMadeByCustomersService ordersMadeByCustomersService, JwtUtil jwtUtil) {
+    public SearchUserRequestsController(OrdersMadeByCustomersService ordersMadeByCustomersService,
+                                        IdentityContext identityContext) {
         this.ordersMadeByCustomersService = ordersMadeByCustomersService;
-        this.jwtUtil = jwtUtil;
+        this.identityContext = identityContext;
     }
 
     @GetMapping("/{adminId}/search/orders")
     public ResponseEntity<Page<OrderItemResponse>> getOrdersAssignedToAdmin(
             @PathVariable UUID adminId,
-            Pageable pageable,
-            Authentication authentication
+            Pageable pageable
     ) {
-        UUID authenticatedAdminId = jwtUtil.getAdminIdFromUsername(authentication.getName());
-
-        if (!adminId.equals(authenticatedAdminId)) {
+        if (!identityContext.isAdmin(adminId)) {
             return ResponseEntity.badRequest().build();
         }
 
@@ -60,7 +57,7 @@ public class SearchUserRequestsController {
                 entity.getSize(),
                 entity.getCategory(),
                 entity.getQuantity(),
-                entity.getProductValue(),
+                entity.getProductValue() != null ? entity.getProductValue().toBigDecimal() : null,
                 entity.getStatus(),
                 entity.getCreatedAt(),
                 entity.getPaidProductAt(),
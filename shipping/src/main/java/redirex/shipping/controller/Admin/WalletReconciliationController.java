@@ -0,0 +1,44 @@
+package redirex.shipping.controller.Admin;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import redirex.shipping.dto.response.WalletReconciliationDriftResponse;
+import redirex.shipping.dto.response.WalletReconciliationRunResponse;
+import redirex.shipping.service.WalletReconciliationService;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/private/api/v1/admin/wallets/reconciliation")
+public class WalletReconciliationController {
+    private static final Logger logger = LoggerFactory.getLogger(WalletReconciliationController.class);
+
+    private final WalletReconciliationService walletReconciliationService;
+
+    public WalletReconciliationController(WalletReconciliationService walletReconciliationService) {
+        this.walletReconciliationService = walletReconciliationService;
+    }
+
+    // Roda em background; o resultado fica disponível em /runs
+    @PostMapping("/runs")
+    public ResponseEntity<WalletReconciliationRunResponse> triggerRun(@RequestParam(defaultValue = "false") boolean full) {
+        logger.info("Wallet reconciliation requested (full: {})", full);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(walletReconciliationService.triggerRun(full));
+    }
+
+    @GetMapping("/runs")
+    public ResponseEntity<List<WalletReconciliationRunResponse>> listRuns() {
+        return ResponseEntity.ok(walletReconciliationService.listRuns());
+    }
+
+    @GetMapping("/runs/{runId}/drifts")
+    public ResponseEntity<Page<WalletReconciliationDriftResponse>> listDrifts(@PathVariable UUID runId, Pageable pageable) {
+        return ResponseEntity.ok(walletReconciliationService.listDrifts(runId, pageable));
+    }
+}
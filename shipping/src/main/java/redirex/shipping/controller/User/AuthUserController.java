@@ -1,25 +1,33 @@
 package redirex.shipping.controller.User;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.SecurityException;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.*;
 import redirex.shipping.dto.request.AuthUserRequest;
+import redirex.shipping.dto.request.RefreshTokenRequest;
 import redirex.shipping.dto.response.ApiErrorResponse;
 import redirex.shipping.dto.response.ApiResponse;
 import redirex.shipping.dto.response.AuthUserResponse;
+import redirex.shipping.security.CustomUnifiedUserDetailsService.CustomUserDetails;
+import redirex.shipping.exception.InvalidRefreshTokenException;
+import redirex.shipping.exception.LoginThrottledException;
 import redirex.shipping.security.JwtUtil;
+import redirex.shipping.security.LoginAuthenticationExecutor;
+import redirex.shipping.service.RefreshTokenService;
 import redirex.shipping.service.TokenBlacklistService;
-import redirex.shipping.service.UserServiceImpl;
+import redirex.shipping.service.TokenGenerationService;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -29,21 +37,24 @@ import java.util.UUID;
 public class AuthUserController {
     private static final Logger logger = LoggerFactory.getLogger(AuthUserController.class);
 
-    private final AuthenticationManager authenticationManager;
+    private final LoginAuthenticationExecutor loginAuthenticationExecutor;
     private final JwtUtil jwtUtil;
     private final TokenBlacklistService tokenBlacklistService;
-    private final UserServiceImpl userService;
+    private final TokenGenerationService tokenGenerationService;
+    private final RefreshTokenService refreshTokenService;
 
     public AuthUserController(
-            AuthenticationManager authenticationManager,
+            LoginAuthenticationExecutor loginAuthenticationExecutor,
             JwtUtil jwtUtil,
             TokenBlacklistService tokenBlacklistService,
-            UserServiceImpl userService
+            TokenGenerationService tokenGenerationService,
+            RefreshTokenService refreshTokenService
     ) {
-        this.authenticationManager = authenticationManager;
+        this.loginAuthenticationExecutor = loginAuthenticationExecutor;
         this.jwtUtil = jwtUtil;
         this.tokenBlacklistService = tokenBlacklistService;
-        this.userService = userService;
+        this.tokenGenerationService = tokenGenerationService;
+        this.refreshTokenService = refreshTokenService;
     }
 
     @PostMapping("/user/login")
@@ -53,8 +64,8 @@ public class AuthUserController {
         logger.info("Tentativa de login para email: {}", authRequest.email());
 
         try {
-            // Autentica o usuário - não precisa armazenar em variável, pois a exceção é lançada se falhar
-            authenticationManager.authenticate(
+            // Autentica o usuário no pool dedicado de BCrypt - a exceção é lançada se falhar
+            Authentication authentication = loginAuthenticationExecutor.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             authRequest.email(),
                             authRequest.password()
@@ -63,20 +74,30 @@ public class AuthUserController {
 
             logger.debug("Autenticação bem-sucedida para: {}", authRequest.email());
 
-            // Busca o ID do usuário
-            UUID userId = userService.findUserIdByEmail(authRequest.email());
+            // O principal autenticado já traz id, tipo e papel do usuário
+            CustomUserDetails principal = (CustomUserDetails) authentication.getPrincipal();
+            UUID userId = principal.getId();
 
-            // Gera o token JWT
-            String token = jwtUtil.generateToken(authRequest.email(), userId);
+            // Gera o access token (curto) e o refresh token
+            String token = jwtUtil.generateToken(principal);
+            String refreshToken = refreshTokenService.issue(principal);
 
             // Cria a resposta
-            AuthUserResponse response = new AuthUserResponse(token, userId);
+            AuthUserResponse response = new AuthUserResponse(token, userId, refreshToken,
+                    jwtUtil.getAccessTokenExpiration());
 
             logger.info("Login realizado com sucesso para: {}", authRequest.email());
 
             return ResponseEntity.status(HttpStatus.CREATED)
                     .body(ApiResponse.success(response));
 
+        } catch (LoginThrottledException e) {
+            logger.warn("Login recusado por sobrecarga para {}: {}", authRequest.email(), e.getMessage());
+            ApiErrorResponse error = ApiErrorResponse.create(HttpStatus.TOO_MANY_REQUESTS, "Muitas tentativas de login, tente novamente em instantes");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error(error));
+
         } catch (BadCredentialsException e) {
             logger.warn("Credenciais inválidas para: {}", authRequest.email());
             return buildErrorResponse(HttpStatus.UNAUTHORIZED, "Email ou senha incorretos");
@@ -95,45 +116,72 @@ public class AuthUserController {
         }
     }
 
+    @PostMapping("/user/refresh")
+    public ResponseEntity<ApiResponse<AuthUserResponse>> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        try {
+            RefreshTokenService.RotationResult rotation = refreshTokenService.rotate(request.refreshToken(), "USER");
+            CustomUserDetails principal = rotation.userDetails();
+
+            String token = jwtUtil.generateToken(principal);
+            AuthUserResponse response = new AuthUserResponse(token, principal.getId(), rotation.refreshToken(),
+                    jwtUtil.getAccessTokenExpiration());
+
+            return ResponseEntity.ok(ApiResponse.success(response));
+
+        } catch (InvalidRefreshTokenException e) {
+            logger.warn("Refresh token rejeitado: {}", e.getMessage());
+            return buildErrorResponse(HttpStatus.UNAUTHORIZED, e.getMessage());
+
+        } catch (TokenBlacklistService.RedisOperationException e) {
+            logger.error("Falha na comunicação com Redis durante refresh: {}", e.getMessage(), e);
+            return buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, "Serviço temporariamente indisponível");
+
+        } catch (Exception e) {
+            logger.error("Erro inesperado durante refresh: {}", e.getMessage(), e);
+            return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Erro interno durante refresh");
+        }
+    }
+
     @PostMapping("/user/logout")
     public ResponseEntity<ApiResponse<String>> logout(
-            @RequestHeader(value = "Authorization", required = false) String authorizationHeader) {
+            @RequestHeader(value = "Authorization", required = false) String authorizationHeader,
+            @RequestBody(required = false) RefreshTokenRequest refreshTokenRequest) {
 
         logger.info("Solicitação de logout recebida");
 
-        // Valida o header Authorization
-        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
-            logger.warn("Header Authorization ausente ou malformado");
+        String token = extractBearerToken(authorizationHeader);
+        if (token == null) {
+            logger.warn("Header Authorization ausente, malformado ou sem token");
             return buildErrorResponse(HttpStatus.UNAUTHORIZED, "Header Authorization inválido");
         }
 
-        String token = authorizationHeader.substring(7).trim(); // Remove "Bearer "
-
-        if (token.isEmpty()) {
-            logger.warn("Token vazio no header Authorization");
-            return buildErrorResponse(HttpStatus.UNAUTHORIZED, "Token não fornecido");
-        }
-
         try {
+            // Valida a assinatura e obtém as claims antes de qualquer consulta à blacklist
+            Claims claims = jwtUtil.extractAllClaims(token);
+            String username = claims.getSubject();
+            String tokenId = jwtUtil.getTokenId(claims, token);
+
             // Verifica se o token já está na blacklist
-            if (tokenBlacklistService.isTokenBlacklisted(token)) {
+            if (tokenBlacklistService.isTokenBlacklisted(tokenId)) {
                 logger.warn("Token já está revogado");
                 return buildErrorResponse(HttpStatus.BAD_REQUEST, "Token já invalidado");
             }
 
-            // Verifica se o token é válido antes de adicionar à blacklist
-            String username = jwtUtil.getUsernameFromToken(token);
-
             // Calcula o tempo de expiração restante
-            long expirationInSeconds = jwtUtil.getExpirationTimeInSeconds(token);
+            long expirationInSeconds = jwtUtil.getExpirationTimeInSeconds(claims);
 
             if (expirationInSeconds <= 0) {
                 logger.warn("Token já expirado: {}", username);
                 return buildErrorResponse(HttpStatus.BAD_REQUEST, "Token já expirado");
             }
 
-            // Adiciona à blacklist
-            tokenBlacklistService.addToBlacklist(token, expirationInSeconds);
+            // Adiciona apenas o jti à blacklist
+            tokenBlacklistService.addToBlacklist(tokenId, expirationInSeconds);
+
+            // Encerra também a sessão de refresh, quando informada
+            if (refreshTokenRequest != null && refreshTokenRequest.refreshToken() != null) {
+                refreshTokenService.revoke(refreshTokenRequest.refreshToken());
+            }
 
             logger.info("Logout realizado com sucesso para: {}. Token expira em {} segundos",
                     username, expirationInSeconds);
@@ -158,6 +206,63 @@ public class AuthUserController {
         }
     }
 
+    // Encerra todas as sessões do usuário incrementando a geração de tokens
+    @PostMapping("/user/logout/all")
+    public ResponseEntity<ApiResponse<String>> logoutAll(
+            @RequestHeader(value = "Authorization", required = false) String authorizationHeader) {
+
+        logger.info("Solicitação de logout de todas as sessões recebida");
+
+        String token = extractBearerToken(authorizationHeader);
+        if (token == null) {
+            logger.warn("Header Authorization ausente, malformado ou sem token");
+            return buildErrorResponse(HttpStatus.UNAUTHORIZED, "Header Authorization inválido");
+        }
+
+        try {
+            Claims claims = jwtUtil.extractAllClaims(token);
+            // Sem userId (ou inválido) lança IllegalArgumentException: 401 no catch abaixo
+            UUID userId = jwtUtil.getUserId(claims);
+
+            if (tokenBlacklistService.isTokenBlacklisted(jwtUtil.getTokenId(claims, token))
+                    || !tokenGenerationService.isCurrent(userId, jwtUtil.getGeneration(claims))) {
+                logger.warn("Token já revogado durante logout global: {}", claims.getSubject());
+                return buildErrorResponse(HttpStatus.BAD_REQUEST, "Token já invalidado");
+            }
+
+            long generation = tokenGenerationService.bumpGeneration(userId);
+            refreshTokenService.revokeAllForUser(userId);
+
+            logger.info("Todas as sessões encerradas para: {} (geração {})", claims.getSubject(), generation);
+
+            return ResponseEntity.ok(ApiResponse.success("Todas as sessões foram encerradas"));
+
+        } catch (ExpiredJwtException e) {
+            logger.warn("Token expirado durante logout global: {}", e.getClaims().getSubject());
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, "Token expirado");
+
+        } catch (MalformedJwtException | SecurityException | IllegalArgumentException e) {
+            logger.warn("Token JWT inválido durante logout global: {}", e.getMessage());
+            return buildErrorResponse(HttpStatus.UNAUTHORIZED, "Token inválido");
+
+        } catch (TokenBlacklistService.RedisOperationException e) {
+            logger.error("Falha na comunicação com Redis durante logout global: {}", e.getMessage(), e);
+            return buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, "Serviço temporariamente indisponível");
+
+        } catch (Exception e) {
+            logger.error("Erro inesperado durante logout global: {}", e.getMessage(), e);
+            return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Erro interno durante logout");
+        }
+    }
+
+    private String extractBearerToken(String authorizationHeader) {
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        String token = authorizationHeader.substring(7).trim(); // Remove "Bearer "
+        return token.isEmpty() ? null : token;
+    }
+
     private <T> ResponseEntity<ApiResponse<T>> buildErrorResponse(HttpStatus status, String message) {
         ApiErrorResponse error = ApiErrorResponse.create(status, message);
         return ResponseEntity.status(status)
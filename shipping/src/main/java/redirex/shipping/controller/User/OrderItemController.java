@@ -5,8 +5,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 import redirex.shipping.dto.request.CreateOrderItemRequest;
@@ -14,7 +12,7 @@ import redirex.shipping.dto.response.ApiErrorResponse;
 import redirex.shipping.dto.response.ApiResponse;
 import redirex.shipping.dto.response.OrderItemResponse;
 import redirex.shipping.exception.OrderCreationFailedException;
-import redirex.shipping.security.JwtUtil;
+import redirex.shipping.security.IdentityContext;
 import redirex.shipping.service.OrderItemService;
 
 import java.time.LocalDateTime;
@@ -27,11 +25,11 @@ public class OrderItemController {
     private static final Logger logger = LoggerFactory.getLogger(OrderItemController.class);
 
     private final OrderItemService orderItemService;
-    private final JwtUtil jwtUtil;
+    private final IdentityContext identityContext;
 
-    public OrderItemController(OrderItemService orderItemService, JwtUtil jwtUtil) {
+    public OrderItemController(OrderItemService orderItemService, IdentityContext identityContext) {
         this.orderItemService = orderItemService;
-        this.jwtUtil = jwtUtil;
+        this.identityContext = identityContext;
     }
 
     @PostMapping("/{userId}/create/order")
@@ -48,17 +46,15 @@ public class OrderItemController {
                 return buildErrorResponse(HttpStatus.BAD_REQUEST, "User ID inconsistency");
             }
 
-            // 2. Obter autenticação do contexto de segurança
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            if (authentication == null || !authentication.isAuthenticated()) {
+            // 2. Obter a identidade já resolvida pelo filtro JWT
+            if (!identityContext.isAuthenticated()) {
                 logger.warn("Unauthenticated user for userId: {}", userId);
                 return buildErrorResponse(HttpStatus.UNAUTHORIZED, "Unauthenticated user");
             }
 
             // 3. Verificar se o usuário autenticado corresponde ao userId
-            String username = authentication.getName(); // Email do usuário autenticado
-            UUID authenticatedUserId = jwtUtil.getUserIdFromUsername(username);
-            if (!Objects.equals(authenticatedUserId, userId)) {
+            UUID authenticatedUserId = identityContext.getId();
+            if (!identityContext.isUser(userId)) {
                 logger.warn("Unauthorized access: authenticatedUserId={}, pathUserId={}", authenticatedUserId, userId);
                 return buildErrorResponse(HttpStatus.FORBIDDEN, "Unauthorized access");
             }
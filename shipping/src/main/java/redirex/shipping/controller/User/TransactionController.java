@@ -1,18 +1,37 @@
 package redirex.shipping.controller.User;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import redirex.shipping.dto.request.CheckoutRequest;
+import redirex.shipping.dto.request.DepositQuoteRequest;
 import redirex.shipping.dto.request.DepositRequestDto;
+import redirex.shipping.dto.response.CheckoutResponse;
+import redirex.shipping.dto.response.DepositQuoteResponse;
 import redirex.shipping.dto.response.OrderItemResponse;
+import redirex.shipping.dto.response.WalletTransactionPageResponse;
 import redirex.shipping.dto.response.WalletTransactionResponse;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.enums.ExportFormatEnum;
+import redirex.shipping.exception.IdempotencyConflictException;
+import redirex.shipping.exception.IdempotencyKeyMismatchException;
+import redirex.shipping.security.ClientIpResolver;
+import redirex.shipping.service.IdempotencyService;
 import redirex.shipping.service.OrderItemService;
 import redirex.shipping.service.UserWalletServiceImpl;
+import redirex.shipping.service.WalletTransactionHistoryService;
+import redirex.shipping.util.TokenHasher;
 
+import java.io.IOException;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @RestController
 public class TransactionController {
@@ -20,44 +39,130 @@ public class TransactionController {
 
     private final UserWalletServiceImpl userWalletService;
     private final OrderItemService orderItemService;
+    private final IdempotencyService idempotencyService;
+    private final WalletTransactionHistoryService walletTransactionHistoryService;
+    private final ClientIpResolver clientIpResolver;
 
-    public TransactionController(UserWalletServiceImpl userWalletService, OrderItemService orderItemService) {
+    public TransactionController(UserWalletServiceImpl userWalletService,
+                                 OrderItemService orderItemService,
+                                 IdempotencyService idempotencyService,
+                                 WalletTransactionHistoryService walletTransactionHistoryService,
+                                 ClientIpResolver clientIpResolver) {
         this.userWalletService = userWalletService;
         this.orderItemService = orderItemService;
+        this.idempotencyService = idempotencyService;
+        this.walletTransactionHistoryService = walletTransactionHistoryService;
+        this.clientIpResolver = clientIpResolver;
     }
 
     @PostMapping("private/v1/api/users/{userId}/deposit")
     public ResponseEntity<WalletTransactionResponse> depositToWallet(
             @PathVariable UUID userId,
-            @Valid @RequestBody DepositRequestDto depositRequestDto) {
+            @Valid @RequestBody DepositRequestDto depositRequestDto,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpRequest) {
 
         logger.info("Processing deposit request for userId: {}", userId);
-        WalletTransactionResponse response = userWalletService.depositToWallet(userId, depositRequestDto);
+        String clientIp = clientIpResolver.resolve(httpRequest);
+        // Só depósitos concluídos são guardados; erro ou pendente liberam a chave (o depósito em si já é idempotente)
+        WalletTransactionResponse response = idempotencyService.execute(
+                userId, "WALLET_DEPOSIT", idempotencyKey, depositRequestDto.fingerprint(),
+                WalletTransactionResponse.class, r -> "success".equals(r.status()),
+                () -> userWalletService.depositToWallet(userId, depositRequestDto, idempotencyKey, clientIp));
 
         if ("error".equals(response.status())) {
             logger.error("Deposit failed for userId: {}. Reason: {}", userId, response.errorMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
+        if ("pending".equals(response.status())) {
+            logger.warn("Deposit pending for userId: {}. DepositId: {}", userId, response.id());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        }
 
         logger.info("Deposit successful for userId: {}", userId);
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
+    // Cotação travada: enviar o quoteId no depósito cobra o valor cotado, mesmo que a cotação mude até lá
+    @PostMapping("private/v1/api/users/{userId}/deposit/quotes")
+    public ResponseEntity<DepositQuoteResponse> issueDepositQuote(
+            @PathVariable UUID userId,
+            @Valid @RequestBody DepositQuoteRequest request) {
+
+        logger.info("Issuing deposit quote for userId: {}", userId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(userWalletService.issueDepositQuote(userId, request));
+    }
+
     @PostMapping("private/v1/api/users/{userId}/orders/{orderId}/payment")
     public ResponseEntity<?> processPayment(
             @PathVariable UUID userId,
-            @PathVariable UUID orderId) {
+            @PathVariable UUID orderId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
 
         try {
             logger.info("Received request to process payment for order ID: {}", orderId);
-            OrderItemResponse response = orderItemService.processOrderPayment(orderId, userId);
+            OrderItemResponse response = idempotencyService.execute(
+                    userId, "ORDER_PAYMENT", idempotencyKey, TokenHasher.sha256(orderId.toString()),
+                    OrderItemResponse.class, r -> true,
+                    () -> orderItemService.processOrderPayment(orderId, userId));
             logger.info("Payment processed successfully for order ID: {}", orderId);
             return ResponseEntity.status(HttpStatus.OK).body(response);
 
+        } catch (IdempotencyConflictException | IdempotencyKeyMismatchException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Payment processing failed for order ID: {}", orderId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Payment processing failed: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // Erros de validação/saldo seguem para o GlobalExceptionHandler; nada é debitado quando o checkout falha
+    @PostMapping("private/v1/api/users/{userId}/orders/checkout")
+    public ResponseEntity<CheckoutResponse> checkout(
+            @PathVariable UUID userId,
+            @Valid @RequestBody CheckoutRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+
+        logger.info("Received checkout request for userId: {} with {} orders", userId, request.orderItemIds().size());
+        CheckoutResponse response = idempotencyService.execute(
+                userId, "ORDER_CHECKOUT", idempotencyKey, checkoutFingerprint(request),
+                CheckoutResponse.class, r -> true,
+                () -> orderItemService.checkout(userId, request));
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("private/v1/api/users/{userId}/wallet/transactions")
+    public ResponseEntity<WalletTransactionPageResponse> listWalletTransactions(
+            @PathVariable UUID userId,
+            @RequestParam(required = false) CurrencyEnum currency,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+
+        return ResponseEntity.ok(walletTransactionHistoryService.listWalletTransactions(userId, currency, cursor, limit));
+    }
+
+    // Escreve direto na resposta enquanto lê do banco; o corpo nunca é montado inteiro em memória
+    @GetMapping("private/v1/api/users/{userId}/wallet/transactions/export")
+    public void exportWalletTransactions(
+            @PathVariable UUID userId,
+            @RequestParam(required = false) CurrencyEnum currency,
+            @RequestParam(defaultValue = "CSV") ExportFormatEnum format,
+            HttpServletResponse response) throws IOException {
+
+        boolean csv = format == ExportFormatEnum.CSV;
+        response.setContentType(csv ? "text/csv" : MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"wallet-transactions." + (csv ? "csv" : "ndjson") + "\"");
+        walletTransactionHistoryService.exportWalletTransactions(userId, currency, format, response.getOutputStream());
+    }
+
+    // Mesmo conjunto de pedidos em qualquer ordem gera o mesmo fingerprint
+    private static String checkoutFingerprint(CheckoutRequest request) {
+        return TokenHasher.sha256(request.orderItemIds().stream()
+                .map(UUID::toString)
+                .sorted()
+                .collect(Collectors.joining(",")));
+    }
+}
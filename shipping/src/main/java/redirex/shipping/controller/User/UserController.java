@@ -5,14 +5,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import redirex.shipping.dto.internal.UserInternalResponse;
 import redirex.shipping.dto.request.UpdateUserRequest;
 import redirex.shipping.dto.response.*;
 import redirex.shipping.dto.request.RegisterUserRequest;
 import redirex.shipping.exception.UnauthorizedAccessException;
-import redirex.shipping.security.JwtUtil;
+import redirex.shipping.security.IdentityContext;
 import redirex.shipping.service.UserServiceImpl;
 
 import java.util.UUID;
@@ -22,11 +21,11 @@ public class UserController {
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
     private final UserServiceImpl userService;
-    private final JwtUtil jwtUtil;
+    private final IdentityContext identityContext;
 
-    public UserController(UserServiceImpl userService, JwtUtil jwtUtil) {
+    public UserController(UserServiceImpl userService, IdentityContext identityContext) {
         this.userService = userService;
-        this.jwtUtil = jwtUtil;
+        this.identityContext = identityContext;
     }
 
     @PostMapping("/public/auth/v1/user/register")
@@ -91,9 +90,7 @@ public class UserController {
     }
 
     private void validateUserAccess(UUID requestedId) {
-        String token = ((String) SecurityContextHolder.getContext().getAuthentication().getCredentials()).substring(7); // Remove "Bearer "
-        UUID userIdFromToken = jwtUtil.getUserIdFromToken(token);
-        if (!userIdFromToken.equals(requestedId)) {
+        if (!identityContext.isUser(requestedId)) {
             throw new UnauthorizedAccessException("You are not authorized to access this user's data");
         }
     }
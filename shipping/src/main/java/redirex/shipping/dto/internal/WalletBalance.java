@@ -0,0 +1,10 @@
+package redirex.shipping.dto.internal;
+
+import java.math.BigDecimal;
+
+// Saldo da carteira junto com o número de sequência do último lançamento aplicado a ele.
+// A sequência só cresce, então serve de versão: entre duas leituras, vale a de sequência maior.
+public record WalletBalance(
+        BigDecimal balance,
+        long sequenceNumber
+) {}
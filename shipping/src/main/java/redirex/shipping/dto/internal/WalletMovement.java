@@ -0,0 +1,26 @@
+package redirex.shipping.dto.internal;
+
+import lombok.Builder;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.enums.WalletTransactionTypeEnum;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Movimento de carteira aplicado atomicamente: delta com sinal (negativo = débito) + dados da transação gerada
+@Builder(toBuilder = true)
+public record WalletMovement(
+        UUID transactionId,
+        UUID userId,
+        CurrencyEnum currency,
+        BigDecimal delta,
+        WalletTransactionTypeEnum type,
+        BigDecimal chargedAmount,
+        CurrencyEnum chargedCurrency,
+        UUID relatedOrderItemId,
+        UUID relatedShipmentId,
+        BigDecimal exchangeRate,
+        BigDecimal transactionFee,
+        BigDecimal originalAmountDeposited,
+        CurrencyEnum originalCurrencyDeposited
+) {}
@@ -0,0 +1,13 @@
+package redirex.shipping.dto.internal;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record WalletMovementResult(
+        UUID transactionId,
+        UUID walletId,
+        BigDecimal balance,
+        long sequenceNumber,
+        LocalDateTime createdAt
+) {}
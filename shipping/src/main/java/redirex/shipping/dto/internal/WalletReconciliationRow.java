@@ -0,0 +1,19 @@
+package redirex.shipping.dto.internal;
+
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record WalletReconciliationRow(
+        UUID walletId,
+        UUID userId,
+        CurrencyEnum currency,
+        BigDecimal storedBalance,
+        BigDecimal computedBalance,
+        long transactionCount
+) {
+    public boolean hasDrift() {
+        return storedBalance.compareTo(computedBalance) != 0;
+    }
+}
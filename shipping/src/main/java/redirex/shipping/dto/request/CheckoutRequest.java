@@ -0,0 +1,13 @@
+package redirex.shipping.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Set;
+import java.util.UUID;
+
+public record CheckoutRequest(
+        @NotEmpty(message = "At least one order ID is required")
+        Set<@NotNull UUID> orderItemIds
+) {
+}
@@ -0,0 +1,17 @@
+package redirex.shipping.dto.request;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.math.BigDecimal;
+
+public record DepositQuoteRequest(
+
+    @NotNull(message = "O valor do depósito não pode ser nulo.")
+    @DecimalMin(value = "0.01", message = "O valor do depósito deve ser maior que zero.")
+    BigDecimal amount, // Valor alvo na moeda da carteira (CNY)
+
+    CurrencyEnum sourceCurrency // Moeda cobrada no cartão (BRL se omitida)
+) {
+}
@@ -6,22 +6,31 @@ import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
+import redirex.shipping.util.TokenHasher;
+
 import java.math.BigDecimal;
+import java.util.UUID;
 
 
 public record DepositRequestDto (
 
-    @NotNull(message = "O valor do depósito não pode ser nulo.")
+    // Obrigatório sem quoteId; com quoteId, se informado, precisa bater com a cotação
     @DecimalMin(value = "0.01", message = "O valor do depósito deve ser maior que zero.")
     BigDecimal amount,
 
     @NotNull(message = "A moeda alvo do depósito não pode ser nula.")
     CurrencyEnum currency, // Representa a moeda alvo (CNY do serviço)
 
-    String sourceCurrency, // Representa a moeda original da transação, se diferente da moeda alvo
+    CurrencyEnum sourceCurrency, // Moeda cobrada no cartão (BRL se omitida); precisa ter cotação para a moeda alvo
 
     @NotBlank(message = "O ID do PaymentMethod do Stripe é obrigatório para o depósito.")
-    String paymentMethodId
+    String paymentMethodId,
+
+    UUID quoteId // Cotação emitida em /deposit/quotes: cobra exatamente o valor cotado
 ) {
 
-        }
\ No newline at end of file
+    // Identifica o corpo para o Idempotency-Key (registro de idempotência e o próprio depósito)
+    public String fingerprint() {
+        return TokenHasher.sha256(amount + "|" + currency + "|" + sourceCurrency + "|" + paymentMethodId + "|" + quoteId);
+    }
+}
\ No newline at end of file
@@ -3,7 +3,9 @@ package redirex.shipping.dto.response;
 public record AuthAdminResponse (
     String fullname,
     String email,
-    String token
+    String token,
+    String refreshToken,
+    long expiresIn
 ) {
 
 }
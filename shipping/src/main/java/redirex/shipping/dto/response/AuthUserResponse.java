@@ -4,7 +4,9 @@ import java.util.UUID;
 
 public record AuthUserResponse (
     String token,
-    UUID userId
+    UUID userId,
+    String refreshToken,
+    long expiresIn
 ) {
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,16 @@
+package redirex.shipping.dto.response;
+
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+public record CheckoutResponse(
+        UUID transactionId,
+        BigDecimal totalAmount,
+        CurrencyEnum currency,
+        BigDecimal remainingBalance,
+        List<OrderItemResponse> orders
+) {
+}
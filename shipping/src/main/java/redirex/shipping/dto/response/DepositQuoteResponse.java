@@ -0,0 +1,26 @@
+package redirex.shipping.dto.response;
+
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.service.quote.DepositQuote;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+public record DepositQuoteResponse(
+        UUID quoteId,
+        BigDecimal targetAmount,
+        CurrencyEnum targetCurrency,
+        BigDecimal fee,
+        BigDecimal chargeAmount,
+        CurrencyEnum chargeCurrency,
+        BigDecimal exchangeRate,
+        Instant expiresAt
+) {
+
+    // A assinatura fica só no servidor
+    public static DepositQuoteResponse from(DepositQuote quote) {
+        return new DepositQuoteResponse(quote.id(), quote.targetAmount(), quote.targetCurrency(), quote.fee(),
+                quote.chargeAmount(), quote.chargeCurrency(), quote.exchangeRate(), quote.expiresAt());
+    }
+}
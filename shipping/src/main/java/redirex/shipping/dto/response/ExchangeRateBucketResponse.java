@@ -0,0 +1,18 @@
+package redirex.shipping.dto.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// open/close são a primeira e a última cotação registradas no intervalo; samples conta as mudanças registradas.
+// meanOfChanges é a média simples das cotações registradas (uma por mudança), não ponderada pelo tempo em que
+// cada cotação valeu.
+public record ExchangeRateBucketResponse(
+        LocalDateTime bucketStart,
+        BigDecimal open,
+        BigDecimal high,
+        BigDecimal low,
+        BigDecimal close,
+        BigDecimal meanOfChanges,
+        long samples
+) {
+}
@@ -0,0 +1,17 @@
+package redirex.shipping.dto.response;
+
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.enums.RateBucketEnum;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record ExchangeRateHistoryResponse(
+        CurrencyEnum fromCurrency,
+        CurrencyEnum toCurrency,
+        RateBucketEnum bucket,
+        LocalDateTime start,
+        LocalDateTime end,
+        List<ExchangeRateBucketResponse> buckets
+) {
+}
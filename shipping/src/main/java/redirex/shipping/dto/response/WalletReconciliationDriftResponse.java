@@ -0,0 +1,22 @@
+package redirex.shipping.dto.response;
+
+import redirex.shipping.entity.WalletReconciliationDriftEntity;
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record WalletReconciliationDriftResponse(
+        UUID walletId,
+        UUID userId,
+        CurrencyEnum currency,
+        BigDecimal storedBalance,
+        BigDecimal computedBalance,
+        BigDecimal difference,
+        long transactionCount
+) {
+    public static WalletReconciliationDriftResponse from(WalletReconciliationDriftEntity drift) {
+        return new WalletReconciliationDriftResponse(drift.getWalletId(), drift.getUserId(), drift.getCurrency(),
+                drift.getStoredBalance(), drift.getComputedBalance(), drift.getDifference(), drift.getTransactionCount());
+    }
+}
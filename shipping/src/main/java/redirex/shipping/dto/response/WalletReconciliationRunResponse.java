@@ -0,0 +1,26 @@
+package redirex.shipping.dto.response;
+
+import redirex.shipping.entity.WalletReconciliationRunEntity;
+import redirex.shipping.enums.ReconciliationStatusEnum;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record WalletReconciliationRunResponse(
+        UUID id,
+        ReconciliationStatusEnum status,
+        boolean full,
+        LocalDateTime changedSince,
+        int partitions,
+        long walletsChecked,
+        long driftCount,
+        String errorMessage,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt
+) {
+    public static WalletReconciliationRunResponse from(WalletReconciliationRunEntity run) {
+        return new WalletReconciliationRunResponse(run.getId(), run.getStatus(), run.getChangedSince() == null,
+                run.getChangedSince(), run.getPartitions(), run.getWalletsChecked(), run.getDriftCount(),
+                run.getErrorMessage(), run.getStartedAt(), run.getFinishedAt());
+    }
+}
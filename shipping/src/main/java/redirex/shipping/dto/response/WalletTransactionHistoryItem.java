@@ -0,0 +1,30 @@
+package redirex.shipping.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.enums.WalletTransactionTypeEnum;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Linha do extrato da carteira, lida direto do banco (sem entidade nem proxies lazy)
+public record WalletTransactionHistoryItem(
+        UUID id,
+        UUID walletId,
+        WalletTransactionTypeEnum type,
+        CurrencyEnum currency,
+        BigDecimal amount,
+        BigDecimal chargedAmount,
+        CurrencyEnum chargedCurrency,
+        BigDecimal exchangeRate,
+        BigDecimal transactionFee,
+        BigDecimal originalAmountDeposited,
+        CurrencyEnum originalCurrencyDeposited,
+        UUID relatedOrderItemId,
+        UUID relatedShipmentId,
+        Long sequenceNumber,
+        @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSSSS")
+        LocalDateTime createdAt
+) {
+}
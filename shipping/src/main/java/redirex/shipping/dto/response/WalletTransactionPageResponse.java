@@ -0,0 +1,10 @@
+package redirex.shipping.dto.response;
+
+import java.util.List;
+
+// nextCursor é opaco para o cliente: basta reenviá-lo para buscar a próxima página (nulo na última)
+public record WalletTransactionPageResponse(
+        List<WalletTransactionHistoryItem> items,
+        String nextCursor
+) {
+}
@@ -37,6 +37,7 @@ public record WalletTransactionResponse(
             BigDecimal fee,
             CurrencyEnum currency,
             BigDecimal chargedAmount,
+            CurrencyEnum chargedCurrency,
             BigDecimal netAmount,
             String transactionDescription,
             LocalDateTime createdAt
@@ -44,7 +45,7 @@ public record WalletTransactionResponse(
         return new WalletTransactionResponse(
                 transactionId,
                 "success",
-                CurrencyEnum.BRL,
+                chargedCurrency,
                 userWalletId,
                 userId,
                 fee,
@@ -66,6 +67,42 @@ public record WalletTransactionResponse(
         );
     }
 
+    // Cobrança sem resposta conclusiva: o depósito será creditado (ou marcado como falho) pela recuperação
+    public static WalletTransactionResponse createDepositPending(
+            UUID depositId,
+            UUID userId,
+            BigDecimal fee,
+            CurrencyEnum currency,
+            BigDecimal chargedAmount,
+            CurrencyEnum chargedCurrency,
+            BigDecimal netAmount,
+            LocalDateTime createdAt
+    ) {
+        return new WalletTransactionResponse(
+                depositId,
+                "pending",
+                chargedCurrency,
+                null,
+                userId,
+                fee,
+                currency,
+                chargedAmount,
+                netAmount,
+                createdAt,
+                "Deposit is being processed.",
+                WalletTransactionTypeEnum.DEPOSIT,
+                null,
+                null,
+                null,
+                null,
+                fee,
+                netAmount.add(fee),
+                currency,
+                createdAt,
+                null
+        );
+    }
+
     public static WalletTransactionResponse createError(
             UUID userId,
             String errorMessage
@@ -0,0 +1,66 @@
+package redirex.shipping.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Agregado por hora de exchange_rate_logs, mantido pelo ExchangeRateLogWriter no mesmo comando que grava
+// as cotações. O histórico por hora e por dia lê daqui em vez de varrer o log.
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(
+        name = "exchange_rate_log_hourly",
+        indexes = {
+                @Index(name = "idx_exchange_rate_log_hourly_pair_bucket", columnList = "from_currency, to_currency, bucket_start", unique = true)
+        }
+)
+public class ExchangeRateHourlyEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "from_currency", nullable = false, length = 3)
+    private CurrencyEnum fromCurrency;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "to_currency", nullable = false, length = 3)
+    private CurrencyEnum toCurrency;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "open_rate", nullable = false, precision = 19, scale = 4)
+    private BigDecimal openRate;
+
+    @Column(name = "open_at", nullable = false)
+    private LocalDateTime openAt;
+
+    @Column(name = "high_rate", nullable = false, precision = 19, scale = 4)
+    private BigDecimal highRate;
+
+    @Column(name = "low_rate", nullable = false, precision = 19, scale = 4)
+    private BigDecimal lowRate;
+
+    @Column(name = "close_rate", nullable = false, precision = 19, scale = 4)
+    private BigDecimal closeRate;
+
+    @Column(name = "close_at", nullable = false)
+    private LocalDateTime closeAt;
+
+    // Soma das cotações registradas no intervalo, para a média das mudanças sem reler o log
+    @Column(name = "rate_sum", nullable = false, precision = 25, scale = 4)
+    private BigDecimal rateSum;
+
+    @Column(nullable = false)
+    private long samples;
+}
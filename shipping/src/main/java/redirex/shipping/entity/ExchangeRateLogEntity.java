@@ -23,7 +23,8 @@ import java.util.UUID;
         indexes = {
                 @Index(name = "idx_exchange_rate_log_from_currency", columnList = "from_currency"),
                 @Index(name = "idx_exchange_rate_log_to_currency", columnList = "to_currency"),
-                @Index(name = "idx_exchange_rate_log_fetched_at", columnList = "fetched_at")
+                @Index(name = "idx_exchange_rate_log_fetched_at", columnList = "fetched_at"),
+                @Index(name = "idx_exchange_rate_log_pair_fetched_at", columnList = "from_currency, to_currency, fetched_at")
         }
 )
 public class ExchangeRateLogEntity implements Serializable {
@@ -0,0 +1,58 @@
+package redirex.shipping.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import redirex.shipping.enums.IdempotencyStatusEnum;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Resultado de uma operação identificada pelo header Idempotency-Key. A chave é única por usuário e operação;
+// repetições com a mesma chave devolvem responseBody sem executar a operação de novo.
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(
+        name = "idempotency_records",
+        indexes = {
+                @Index(name = "idx_idempotency_user_operation_key", columnList = "user_id, operation, idempotency_key", unique = true),
+                @Index(name = "idx_idempotency_expires_at", columnList = "expires_at")
+        }
+)
+public class IdempotencyRecordEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false, length = 40)
+    private String operation;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    // Hash do corpo da requisição original, para recusar a mesma chave com outro conteúdo
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private IdempotencyStatusEnum status;
+
+    @Column(columnDefinition = "TEXT")
+    private String responseBody;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
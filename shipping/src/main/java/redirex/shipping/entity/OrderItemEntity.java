@@ -8,10 +8,12 @@ import org.hibernate.validator.constraints.URL;
 import redirex.shipping.enums.OrderItemStatusEnum;
 import redirex.shipping.enums.ProductCategoryEnum;
 import redirex.shipping.enums.SizeEnum;
+import redirex.shipping.money.CnyMoneyConverter;
+import redirex.shipping.money.Money;
+import redirex.shipping.money.MoneyMin;
 
 import java.io.Serial;
 import java.io.Serializable;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -76,10 +78,12 @@ public class OrderItemEntity implements Serializable {
     @Enumerated(EnumType.STRING)
     private ProductCategoryEnum category;
 
+    // Sempre em CNY (debitado da carteira CNY)
     @NotNull(message = "Product value is required")
-    @DecimalMin(value = "0.0", inclusive = false, message = "Product value must be positive")
+    @MoneyMin(value = "0.0", inclusive = false, message = "Product value must be positive")
+    @Convert(converter = CnyMoneyConverter.class)
     @Column(name = "product_value", nullable = false, precision = 19, scale = 2)
-    private BigDecimal productValue;
+    private Money productValue;
 
     @Pattern(regexp = "\\d{11}", message = "Recipient CPF must be 11 digits")
     @Column(name = "recipient_cpf", nullable = false, length = 11)
@@ -0,0 +1,49 @@
+package redirex.shipping.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Parte de um débito de checkout destinada a cada pedido. O checkout grava um único lançamento em
+// wallet_transactions (sem related_order_item_id) e uma alocação por pedido pago com ele.
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(
+        name = "order_payment_allocations",
+        indexes = {
+                @Index(name = "idx_order_payment_allocation_transaction", columnList = "wallet_transaction_id"),
+                @Index(name = "idx_order_payment_allocation_order_item", columnList = "order_item_id")
+        }
+)
+public class OrderPaymentAllocationEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "wallet_transaction_id", nullable = false)
+    private UUID walletTransactionId;
+
+    @Column(name = "order_item_id", nullable = false)
+    private UUID orderItemId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 3)
+    private CurrencyEnum currency;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
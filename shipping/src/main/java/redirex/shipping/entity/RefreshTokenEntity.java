@@ -0,0 +1,61 @@
+package redirex.shipping.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Refresh token opaco. Só o hash é persistido; tokens rotacionados a partir do mesmo login compartilham a familyId.
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(
+        name = "refresh_tokens",
+        indexes = {
+                @Index(name = "idx_refresh_token_hash", columnList = "token_hash", unique = true),
+                @Index(name = "idx_refresh_token_family_id", columnList = "family_id"),
+                @Index(name = "idx_refresh_token_user_id", columnList = "user_id")
+        }
+)
+public class RefreshTokenEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column(name = "user_type", nullable = false, length = 10)
+    private String userType;
+
+    @Column(name = "family_id", nullable = false)
+    private UUID familyId;
+
+    // Geração de tokens do usuário no momento da emissão (ver TokenGenerationService)
+    @Column(nullable = false)
+    private long generation;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime revokedAt;
+
+    @Column(name = "replaced_by_id")
+    private UUID replacedById;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
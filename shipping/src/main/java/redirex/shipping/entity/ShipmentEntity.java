@@ -6,7 +6,12 @@ import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import redirex.shipping.enums.CouponTypeEnum;
+import redirex.shipping.enums.CurrencyEnum;
 import redirex.shipping.enums.ShipmentEnum;
+import redirex.shipping.money.CnyMoneyConverter;
+import redirex.shipping.money.Money;
+import redirex.shipping.money.MoneyMin;
+import redirex.shipping.money.PricingRounding;
 
 import java.io.Serial;
 import java.io.Serializable;
@@ -77,12 +82,14 @@ public class ShipmentEntity implements Serializable {
     @Column(precision = 19, scale = 4)
     private BigDecimal importTaxes;
 
+    // Em CNY. A coluna mantém 4 casas (o ddl-auto=update arredondaria os dados ao mudar a escala), mas só guarda
+    // valores em fen: os antigos são arredondados explicitamente pelo MoneyColumnScaleMigration
     @NotNull(message = "Total shipping paid is required")
-    @DecimalMin(value = "0.0", message = "Total shipping paid cannot be negative")
-    @Digits(integer = 15, fraction = 4, message = "Total shipping paid format is invalid")
+    @MoneyMin(value = "0.0", message = "Total shipping paid cannot be negative")
+    @Convert(converter = CnyMoneyConverter.class)
     @Column(nullable = false, precision = 19, scale = 4)
     @Builder.Default
-    private BigDecimal totalShippingPaid = BigDecimal.ZERO;
+    private Money totalShippingPaid = Money.zero(CurrencyEnum.CNY);
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "applied_shipping_coupon_id")
@@ -134,44 +141,38 @@ public class ShipmentEntity implements Serializable {
             throw new IllegalArgumentException("Coupon is not applicable to shipping");
         }
 
-        if (coupon.getMinPurchaseValue() != null &&
-                (totalShippingPaid == null || totalShippingPaid.compareTo(coupon.getMinPurchaseValue()) < 0)) {
+        CurrencyEnum currency = totalShippingPaid != null ? totalShippingPaid.currency() : CurrencyEnum.CNY;
+        if (coupon.getMinPurchaseValue() != null && (totalShippingPaid == null
+                || totalShippingPaid.compareTo(Money.of(coupon.getMinPurchaseValue(), currency, PricingRounding.INPUT)) < 0)) {
             throw new IllegalArgumentException("Shipping cost does not meet minimum purchase value");
         }
 
-        BigDecimal discount = BigDecimal.ZERO;
+        Money discount;
         if (coupon.getDiscountAmount() != null) {
-            discount = coupon.getDiscountAmount();
+            discount = Money.of(coupon.getDiscountAmount(), currency, PricingRounding.INPUT);
         } else if (coupon.getDiscountPercentage() != null) {
-            BigDecimal discountPercentage = coupon.getDiscountPercentage();
-            discount = totalShippingPaid.multiply(
-                    discountPercentage.divide(new BigDecimal("100"), 4, BigDecimal.ROUND_HALF_UP)
-            );
-            if (coupon.getMaxDiscountValue() != null && discount.compareTo(coupon.getMaxDiscountValue()) > 0) {
-                discount = coupon.getMaxDiscountValue();
+            discount = totalShippingPaid.percentage(coupon.getDiscountPercentage(), PricingRounding.DISCOUNT);
+            if (coupon.getMaxDiscountValue() != null) {
+                discount = discount.min(Money.of(coupon.getMaxDiscountValue(), currency, PricingRounding.INPUT));
             }
         } else {
             throw new IllegalArgumentException("Coupon has no valid discount defined");
         }
 
-        BigDecimal newTotal = totalShippingPaid.subtract(discount);
-        if (newTotal.compareTo(BigDecimal.ZERO) < 0) {
-            newTotal = BigDecimal.ZERO;
-        }
-        this.totalShippingPaid = newTotal;
+        this.totalShippingPaid = totalShippingPaid.minus(discount).max(Money.zero(currency));
 
         this.appliedShippingCoupon = userCoupon;
         userCoupon.setUsed(true);
         userCoupon.setUsedAt(now);
     }
 
-    public void removeCoupon(BigDecimal originalTotalShippingPaid) {
+    public void removeCoupon(Money originalTotalShippingPaid) {
         if (appliedShippingCoupon != null) {
             appliedShippingCoupon.setUsed(false);
             appliedShippingCoupon.setUsedAt(null);
             this.appliedShippingCoupon = null;
         }
-        this.totalShippingPaid = originalTotalShippingPaid != null ? originalTotalShippingPaid : BigDecimal.ZERO;
+        this.totalShippingPaid = originalTotalShippingPaid != null ? originalTotalShippingPaid : Money.zero(CurrencyEnum.CNY);
     }
 
     @Override
@@ -47,6 +47,10 @@ public class UserWalletEntity implements Serializable {
     @Column(nullable = false, precision = 19, scale = 4)
     private BigDecimal balance;
 
+    // Último número de sequência do ledger refletido em balance (ver WalletTransactionEntity.sequenceNumber)
+    @Column(name = "ledger_sequence")
+    private Long ledgerSequence;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,43 @@
+package redirex.shipping.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Saldo consolidado de uma carteira até sequenceNumber (inclusive). No modo ledger o saldo atual é
+// o último snapshot + os lançamentos com sequência maior; novos snapshots são gravados pelo WalletLedgerCompactor.
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(
+        name = "wallet_balance_snapshots",
+        indexes = {
+                @Index(name = "idx_wallet_snapshot_wallet_sequence", columnList = "wallet_id, sequence_number", unique = true)
+        }
+)
+public class WalletBalanceSnapshotEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private UUID walletId;
+
+    @Column(name = "sequence_number", nullable = false)
+    private long sequenceNumber;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal balance;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,84 @@
+package redirex.shipping.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.enums.DepositStatusEnum;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Depósito via Stripe. Gravado como PENDING antes da cobrança; o id é usado como chave de idempotência
+// no Stripe e como id da WalletTransactionEntity gerada, então o crédito acontece no máximo uma vez.
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(
+        name = "wallet_deposits",
+        indexes = {
+                @Index(name = "idx_wallet_deposit_status_updated_at", columnList = "status, updated_at"),
+                @Index(name = "idx_wallet_deposit_user_id", columnList = "user_id")
+        }
+)
+public class WalletDepositEntity {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 3)
+    private CurrencyEnum currency;
+
+    // Valor pedido pelo usuário, antes da taxa
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal targetAmount;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal feeAmount;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal netAmount;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal chargedAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 3)
+    private CurrencyEnum chargedCurrency;
+
+    @Column(nullable = false, precision = 19, scale = 8)
+    private BigDecimal exchangeRate;
+
+    @Column(nullable = false)
+    private String paymentMethodId;
+
+    // Hash do corpo da requisição com Idempotency-Key: a mesma chave com outro corpo não retoma este depósito
+    @Column(length = 64)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private DepositStatusEnum status;
+
+    // Chamadas ao Stripe já feitas para este depósito
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(length = 500)
+    private String failureReason;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,62 @@
+package redirex.shipping.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Carteira cujo saldo gravado não bate com a soma dos seus lançamentos em uma execução da conciliação
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(
+        name = "wallet_reconciliation_drifts",
+        indexes = {
+                @Index(name = "idx_wallet_reconciliation_drift_run_id", columnList = "run_id"),
+                @Index(name = "idx_wallet_reconciliation_drift_wallet_id", columnList = "wallet_id")
+        }
+)
+public class WalletReconciliationDriftEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "run_id", nullable = false)
+    private UUID runId;
+
+    @Column(name = "wallet_id", nullable = false)
+    private UUID walletId;
+
+    @Column(nullable = false)
+    private UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 3)
+    private CurrencyEnum currency;
+
+    // Saldo da carteira (coluna balance ou, no modo ledger, snapshot + lançamentos posteriores)
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal storedBalance;
+
+    // Soma de todos os lançamentos da carteira
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal computedBalance;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal difference;
+
+    @Column(nullable = false)
+    private long transactionCount;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
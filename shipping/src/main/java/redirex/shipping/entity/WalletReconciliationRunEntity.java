@@ -0,0 +1,52 @@
+package redirex.shipping.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import redirex.shipping.enums.ReconciliationStatusEnum;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Execução da conciliação de saldos. O startedAt da última execução concluída é o checkpoint
+// da próxima: execuções incrementais só olham carteiras alteradas desde então.
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(
+        name = "wallet_reconciliation_runs",
+        indexes = {
+                @Index(name = "idx_wallet_reconciliation_run_status_started_at", columnList = "status, started_at")
+        }
+)
+public class WalletReconciliationRunEntity {
+
+    @Id
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ReconciliationStatusEnum status;
+
+    // Nulo em execuções completas
+    private LocalDateTime changedSince;
+
+    @Column(nullable = false)
+    private int partitions;
+
+    @Column(nullable = false)
+    private long walletsChecked;
+
+    @Column(nullable = false)
+    private long driftCount;
+
+    @Column(length = 500)
+    private String errorMessage;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+}
@@ -22,8 +22,11 @@ import java.util.UUID;
         name = "wallet_transactions",
         indexes = {
                 @Index(name = "idx_wallet_transaction_user_wallet_id", columnList = "user_wallet_id"),
+                // Keyset do extrato: WHERE user_wallet_id = ? AND (created_at, id) < (?, ?) ORDER BY created_at, id
+                @Index(name = "idx_wallet_transaction_wallet_created_at", columnList = "user_wallet_id, created_at, id"),
                 @Index(name = "idx_wallet_transaction_related_order_item_id", columnList = "related_order_item_id"),
-                @Index(name = "idx_wallet_transaction_related_shipment_id", columnList = "related_shipment_id")
+                @Index(name = "idx_wallet_transaction_related_shipment_id", columnList = "related_shipment_id"),
+                @Index(name = "idx_wallet_transaction_wallet_sequence", columnList = "user_wallet_id, sequence_number", unique = true)
         }
 )
 public class WalletTransactionEntity implements Serializable {
@@ -67,6 +70,10 @@ public class WalletTransactionEntity implements Serializable {
     @Column(nullable = false, precision = 19, scale = 4)
     private BigDecimal amount;
 
+    // Posição do lançamento no ledger da carteira (1, 2, 3...). Nulo em lançamentos anteriores ao ledger.
+    @Column(name = "sequence_number", updatable = false)
+    private Long sequenceNumber;
+
     @Column(name = "related_order_item_id")
     private UUID relatedOrderItemId;
 
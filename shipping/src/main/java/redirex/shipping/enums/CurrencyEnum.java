@@ -1,5 +1,16 @@
 package redirex.shipping.enums;
 
 public enum CurrencyEnum {
-        BRL, CNY
+        BRL(2), CNY(2), USD(2);
+
+        // Casas decimais da unidade mínima (centavo, fen, cent)
+        private final int fractionDigits;
+
+        CurrencyEnum(int fractionDigits) {
+                this.fractionDigits = fractionDigits;
+        }
+
+        public int fractionDigits() {
+                return fractionDigits;
+        }
 }
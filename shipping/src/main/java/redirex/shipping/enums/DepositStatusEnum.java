@@ -0,0 +1,7 @@
+package redirex.shipping.enums;
+
+public enum DepositStatusEnum {
+    PENDING,
+    SUCCEEDED,
+    FAILED
+}
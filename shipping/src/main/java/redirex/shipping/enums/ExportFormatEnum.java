@@ -0,0 +1,6 @@
+package redirex.shipping.enums;
+
+public enum ExportFormatEnum {
+    CSV,
+    NDJSON
+}
@@ -0,0 +1,8 @@
+package redirex.shipping.enums;
+
+public enum IdempotencyStatusEnum {
+    IN_PROGRESS,
+    COMPLETED,
+    // Terminou sem resposta guardável (erro, depósito pendente): a mesma chave pode repetir, com o mesmo corpo
+    RETRYABLE
+}
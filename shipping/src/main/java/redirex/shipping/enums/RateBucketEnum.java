@@ -0,0 +1,26 @@
+package redirex.shipping.enums;
+
+import java.time.temporal.ChronoUnit;
+
+// Granularidade do histórico de cotações; unit é o argumento do date_trunc do Postgres
+public enum RateBucketEnum {
+    MINUTE("minute", ChronoUnit.MINUTES),
+    HOUR("hour", ChronoUnit.HOURS),
+    DAY("day", ChronoUnit.DAYS);
+
+    private final String unit;
+    private final ChronoUnit chronoUnit;
+
+    RateBucketEnum(String unit, ChronoUnit chronoUnit) {
+        this.unit = unit;
+        this.chronoUnit = chronoUnit;
+    }
+
+    public String unit() {
+        return unit;
+    }
+
+    public ChronoUnit chronoUnit() {
+        return chronoUnit;
+    }
+}
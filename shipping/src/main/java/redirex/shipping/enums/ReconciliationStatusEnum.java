@@ -0,0 +1,7 @@
+package redirex.shipping.enums;
+
+public enum ReconciliationStatusEnum {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,8 @@
+package redirex.shipping.enums;
+
+// Chaves dos limites de velocidade de depósito
+public enum VelocityDimensionEnum {
+    USER,
+    PAYMENT_METHOD,
+    IP
+}
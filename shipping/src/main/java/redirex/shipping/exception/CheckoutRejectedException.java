@@ -0,0 +1,9 @@
+package redirex.shipping.exception;
+
+// Algum pedido do checkout não pode ser pago (não existe, é de outro usuário ou não está aguardando pagamento).
+// Nada é debitado nem alterado.
+public class CheckoutRejectedException extends RuntimeException {
+    public CheckoutRejectedException(String message) {
+        super(message);
+    }
+}
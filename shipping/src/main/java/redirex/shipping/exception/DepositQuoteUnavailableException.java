@@ -0,0 +1,8 @@
+package redirex.shipping.exception;
+
+// Não foi possível emitir uma cotação de depósito (Redis indisponível).
+public class DepositQuoteUnavailableException extends RuntimeException {
+    public DepositQuoteUnavailableException(String message) {
+        super(message);
+    }
+}
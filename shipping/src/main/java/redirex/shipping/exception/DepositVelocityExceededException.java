@@ -0,0 +1,17 @@
+package redirex.shipping.exception;
+
+import redirex.shipping.enums.VelocityDimensionEnum;
+
+// Depósito recusado antes do Stripe: tentativas ou valor na janela acima do limite configurado.
+public class DepositVelocityExceededException extends RuntimeException {
+    private final VelocityDimensionEnum dimension;
+
+    public DepositVelocityExceededException(VelocityDimensionEnum dimension, String message) {
+        super(message);
+        this.dimension = dimension;
+    }
+
+    public VelocityDimensionEnum getDimension() {
+        return dimension;
+    }
+}
@@ -0,0 +1,8 @@
+package redirex.shipping.exception;
+
+// Não foi possível gravar os limites de velocidade de depósito (Redis indisponível).
+public class DepositVelocityUnavailableException extends RuntimeException {
+    public DepositVelocityUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,8 @@
+package redirex.shipping.exception;
+
+// Nenhuma cotação dentro do limite de defasagem (fonte fora do ar há mais tempo que o permitido).
+public class ExchangeRateUnavailableException extends RuntimeException {
+    public ExchangeRateUnavailableException(String message) {
+        super(message);
+    }
+}
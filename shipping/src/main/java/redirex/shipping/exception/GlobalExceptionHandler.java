@@ -24,6 +24,61 @@ public class GlobalExceptionHandler {
         return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyConflictException(IdempotencyConflictException ex) {
+        return buildResponse(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyKeyMismatchException(IdempotencyKeyMismatchException ex) {
+        return buildResponse(HttpStatus.UNPROCESSABLE_ENTITY, ex.getMessage());
+    }
+
+    @ExceptionHandler(ReconciliationInProgressException.class)
+    public ResponseEntity<Map<String, Object>> handleReconciliationInProgressException(ReconciliationInProgressException ex) {
+        return buildResponse(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    @ExceptionHandler(CheckoutRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handleCheckoutRejectedException(CheckoutRejectedException ex) {
+        return buildResponse(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    @ExceptionHandler(DepositVelocityExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleDepositVelocityExceededException(DepositVelocityExceededException ex) {
+        return buildResponse(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage());
+    }
+
+    @ExceptionHandler(DepositVelocityUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleDepositVelocityUnavailableException(DepositVelocityUnavailableException ex) {
+        return buildResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+    }
+
+    @ExceptionHandler(ExchangeRateUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleExchangeRateUnavailableException(ExchangeRateUnavailableException ex) {
+        return buildResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidDepositQuoteException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidDepositQuoteException(InvalidDepositQuoteException ex) {
+        return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler(DepositQuoteUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleDepositQuoteUnavailableException(DepositQuoteUnavailableException ex) {
+        return buildResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidHistoryRangeException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidHistoryRangeException(InvalidHistoryRangeException ex) {
+        return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidCursorException(InvalidCursorException ex) {
+        return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
     @ExceptionHandler(IllegalStatusTransitionException.class)
     public ResponseEntity<Map<String, Object>> handleIllegalStatusTransitionException(IllegalStatusTransitionException ex) {
         return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
@@ -0,0 +1,8 @@
+package redirex.shipping.exception;
+
+// Outra requisição com a mesma chave de idempotência ainda está em andamento.
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package redirex.shipping.exception;
+
+// A chave de idempotência já foi usada com outro corpo de requisição.
+public class IdempotencyKeyMismatchException extends RuntimeException {
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
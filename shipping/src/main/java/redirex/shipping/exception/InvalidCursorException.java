@@ -0,0 +1,8 @@
+package redirex.shipping.exception;
+
+// Cursor de paginação malformado ou adulterado pelo cliente.
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package redirex.shipping.exception;
+
+// Cotação de depósito inexistente, expirada, de outro usuário ou que não confere com o pedido.
+public class InvalidDepositQuoteException extends RuntimeException {
+    public InvalidDepositQuoteException(String message) {
+        super(message);
+    }
+}
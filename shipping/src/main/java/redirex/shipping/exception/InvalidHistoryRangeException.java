@@ -0,0 +1,8 @@
+package redirex.shipping.exception;
+
+// Intervalo de consulta do histórico inválido ou com intervalos demais para a granularidade pedida.
+public class InvalidHistoryRangeException extends RuntimeException {
+    public InvalidHistoryRangeException(String message) {
+        super(message);
+    }
+}
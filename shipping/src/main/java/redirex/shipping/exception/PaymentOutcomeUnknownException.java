@@ -0,0 +1,9 @@
+package redirex.shipping.exception;
+
+// A cobrança pode ou não ter acontecido (timeout, erro de rede, 5xx do Stripe). O depósito continua
+// pendente e é resolvido pela recuperação, repetindo a chamada com a mesma chave de idempotência.
+public class PaymentOutcomeUnknownException extends StripePaymentException {
+    public PaymentOutcomeUnknownException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
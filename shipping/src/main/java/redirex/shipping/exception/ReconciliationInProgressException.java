@@ -0,0 +1,8 @@
+package redirex.shipping.exception;
+
+// Já existe uma conciliação de carteiras em andamento.
+public class ReconciliationInProgressException extends RuntimeException {
+    public ReconciliationInProgressException(String message) {
+        super(message);
+    }
+}
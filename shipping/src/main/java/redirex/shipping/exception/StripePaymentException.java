@@ -5,5 +5,7 @@ public class StripePaymentException extends RuntimeException {
         super(message);
     }
 
-    public StripePaymentException(String message, Throwable cause) {}
+    public StripePaymentException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
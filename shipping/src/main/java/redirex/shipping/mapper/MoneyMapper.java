@@ -0,0 +1,21 @@
+package redirex.shipping.mapper;
+
+import org.mapstruct.Mapper;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.money.Money;
+import redirex.shipping.money.PricingRounding;
+
+import java.math.BigDecimal;
+
+// Os DTOs continuam expondo BigDecimal; os campos Money mapeados hoje são todos em CNY.
+@Mapper(componentModel = "spring")
+public interface MoneyMapper {
+
+    default BigDecimal toAmount(Money money) {
+        return money != null ? money.toBigDecimal() : null;
+    }
+
+    default Money toCnyMoney(BigDecimal amount) {
+        return amount != null ? Money.of(amount, CurrencyEnum.CNY, PricingRounding.INPUT) : null;
+    }
+}
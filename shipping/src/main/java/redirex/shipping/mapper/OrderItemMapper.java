@@ -10,6 +10,7 @@ import redirex.shipping.entity.OrderItemEntity;
 
 @Mapper(
         componentModel = "spring",
+        uses = MoneyMapper.class,
         nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE
 )
 public interface OrderItemMapper {
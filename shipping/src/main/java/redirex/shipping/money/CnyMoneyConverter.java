@@ -0,0 +1,11 @@
+package redirex.shipping.money;
+
+import jakarta.persistence.Converter;
+import redirex.shipping.enums.CurrencyEnum;
+
+@Converter
+public class CnyMoneyConverter extends MoneyConverter {
+    public CnyMoneyConverter() {
+        super(CurrencyEnum.CNY);
+    }
+}
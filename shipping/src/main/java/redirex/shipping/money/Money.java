@@ -0,0 +1,168 @@
+package redirex.shipping.money;
+
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+// Valor monetário em unidades mínimas (centavos, fen) de uma moeda. Somas, percentuais e conversões
+// são feitas em long, com o arredondamento sempre explícito; BigDecimal só aparece nas bordas
+// (entrada da API, colunas do banco, respostas).
+public record Money(long minorUnits, CurrencyEnum currency) implements Comparable<Money>, Serializable {
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L
+    };
+    private static final long BASIS_POINTS = 10_000L;
+
+    public Money {
+        Objects.requireNonNull(currency, "currency");
+    }
+
+    public static Money zero(CurrencyEnum currency) {
+        return new Money(0L, currency);
+    }
+
+    public static Money ofMinor(long minorUnits, CurrencyEnum currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    // Exato: falha (ArithmeticException) se o valor tiver mais casas do que a moeda
+    public static Money of(BigDecimal amount, CurrencyEnum currency) {
+        return of(amount, currency, RoundingPolicy.UNNECESSARY);
+    }
+
+    public static Money of(BigDecimal amount, CurrencyEnum currency, RoundingPolicy rounding) {
+        Objects.requireNonNull(amount, "amount");
+        BigDecimal scaled = amount.setScale(currency.fractionDigits(), rounding.mode());
+        return new Money(scaled.unscaledValue().longValueExact(), currency);
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money negate() {
+        return new Money(Math.negateExact(minorUnits), currency);
+    }
+
+    public Money times(long factor) {
+        return new Money(Math.multiplyExact(minorUnits, factor), currency);
+    }
+
+    // Percentual em pontos-base (500 = 5%)
+    public Money percentage(long basisPoints, RoundingPolicy rounding) {
+        return scale(basisPoints, BASIS_POINTS, currency, rounding);
+    }
+
+    // Percentual como número decimal (12.5 = 12,5%)
+    public Money percentage(BigDecimal percent, RoundingPolicy rounding) {
+        long[] rate = unscaled(percent);
+        return scale(rate[0], Math.multiplyExact(rate[1], 100L), currency, rounding);
+    }
+
+    // Converte para target multiplicando pela taxa (1 unidade desta moeda = rate unidades de target)
+    public Money multiplyByRate(BigDecimal rate, CurrencyEnum target, RoundingPolicy rounding) {
+        long[] parts = unscaled(rate);
+        return convert(parts[0], parts[1], target, rounding);
+    }
+
+    // Converte para target dividindo pela taxa (1 unidade de target = rate unidades desta moeda)
+    public Money divideByRate(BigDecimal rate, CurrencyEnum target, RoundingPolicy rounding) {
+        long[] parts = unscaled(rate);
+        if (parts[0] == 0) {
+            throw new ArithmeticException("Exchange rate cannot be zero");
+        }
+        return convert(parts[1], parts[0], target, rounding);
+    }
+
+    public Money min(Money other) {
+        return compareTo(other) <= 0 ? this : other;
+    }
+
+    public Money max(Money other) {
+        return compareTo(other) >= 0 ? this : other;
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, currency.fractionDigits());
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency;
+    }
+
+    // numerator/denominator já na escala da taxa; ajusta a diferença de casas entre as moedas
+    private Money convert(long numerator, long denominator, CurrencyEnum target, RoundingPolicy rounding) {
+        int digits = target.fractionDigits() - currency.fractionDigits();
+        if (digits > 0) {
+            numerator = Math.multiplyExact(numerator, POWERS_OF_TEN[digits]);
+        } else if (digits < 0) {
+            denominator = Math.multiplyExact(denominator, POWERS_OF_TEN[-digits]);
+        }
+        return scale(numerator, denominator, target, rounding);
+    }
+
+    private Money scale(long numerator, long denominator, CurrencyEnum target, RoundingPolicy rounding) {
+        long product;
+        try {
+            product = Math.multiplyExact(minorUnits, numerator);
+        } catch (ArithmeticException overflow) {
+            // Fora do alcance de long: mesmo resultado, pelo caminho lento
+            BigDecimal exact = BigDecimal.valueOf(minorUnits).multiply(BigDecimal.valueOf(numerator));
+            return new Money(exact.divide(BigDecimal.valueOf(denominator), 0, rounding.mode()).longValueExact(), target);
+        }
+        return new Money(rounding.divide(product, denominator), target);
+    }
+
+    // {valor sem escala, 10^escala}
+    private static long[] unscaled(BigDecimal value) {
+        Objects.requireNonNull(value, "value");
+        int scale = value.scale();
+        if (scale < 0) {
+            return new long[]{value.setScale(0).longValueExact(), 1L};
+        }
+        if (scale >= POWERS_OF_TEN.length) {
+            value = value.stripTrailingZeros();
+            scale = Math.max(value.scale(), 0);
+            if (scale >= POWERS_OF_TEN.length) {
+                throw new ArithmeticException("Too many decimal places: " + value);
+            }
+            value = value.setScale(scale);
+        }
+        return new long[]{value.unscaledValue().longValueExact(), POWERS_OF_TEN[scale]};
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (currency != other.currency) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " and " + other.currency);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package redirex.shipping.money;
+
+import jakarta.persistence.AttributeConverter;
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.math.BigDecimal;
+
+// Money <-> coluna numeric existente. A moeda vem da subclasse (a coluna guarda só o valor).
+// A leitura é exata: um valor com mais casas que a moeda falha em vez de ser arredondado e regravado
+// no próximo save (colunas antigas são convertidas pelo MoneyColumnScaleMigration).
+public abstract class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    private final CurrencyEnum currency;
+
+    protected MoneyConverter(CurrencyEnum currency) {
+        this.currency = currency;
+    }
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        if (money == null) {
+            return null;
+        }
+        if (money.currency() != currency) {
+            throw new IllegalArgumentException("Expected " + currency + " amount, got " + money);
+        }
+        return money.toBigDecimal();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal value) {
+        return value != null ? Money.of(value, currency) : null;
+    }
+}
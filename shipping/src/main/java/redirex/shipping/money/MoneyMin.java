@@ -0,0 +1,28 @@
+package redirex.shipping.money;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Equivalente a @DecimalMin para campos Money (o Bean Validation não sabe comparar o record)
+@Documented
+@Constraint(validatedBy = MoneyMinValidator.class)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.RECORD_COMPONENT})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MoneyMin {
+
+    String value();
+
+    boolean inclusive() default true;
+
+    String message() default "Amount is below the minimum";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,28 @@
+package redirex.shipping.money;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+import java.math.BigDecimal;
+
+public class MoneyMinValidator implements ConstraintValidator<MoneyMin, Money> {
+
+    private BigDecimal min;
+    private boolean inclusive;
+
+    @Override
+    public void initialize(MoneyMin constraint) {
+        this.min = new BigDecimal(constraint.value());
+        this.inclusive = constraint.inclusive();
+    }
+
+    // null fica com @NotNull, como no @DecimalMin
+    @Override
+    public boolean isValid(Money value, ConstraintValidatorContext context) {
+        if (value == null) {
+            return true;
+        }
+        int comparison = value.toBigDecimal().compareTo(min);
+        return inclusive ? comparison >= 0 : comparison > 0;
+    }
+}
@@ -0,0 +1,24 @@
+package redirex.shipping.money;
+
+// Regras de arredondamento dos fluxos de preço. Trocar uma regra aqui muda todos os pontos que a usam.
+public final class PricingRounding {
+
+    // Taxas cobradas pelo serviço (ex.: taxa de depósito)
+    public static final RoundingPolicy FEE = RoundingPolicy.HALF_UP;
+
+    // Valor cobrado do cliente na conversão de moeda: para cima, para sempre cobrir o crédito na carteira
+    public static final RoundingPolicy FX_CHARGE = RoundingPolicy.CEILING;
+
+    // Cotações derivadas (ex.: CNY por BRL = 1 / PTAX), guardadas com RATE_SCALE casas
+    public static final RoundingPolicy FX_RATE = RoundingPolicy.HALF_EVEN;
+    public static final int RATE_SCALE = 4;
+
+    // Descontos percentuais de cupons
+    public static final RoundingPolicy DISCOUNT = RoundingPolicy.HALF_UP;
+
+    // Valores vindos de fora (preço raspado, valores de cupom) e a migração das colunas antigas com 4 casas
+    public static final RoundingPolicy INPUT = RoundingPolicy.HALF_UP;
+
+    private PricingRounding() {
+    }
+}
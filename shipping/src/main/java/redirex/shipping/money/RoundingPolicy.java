@@ -0,0 +1,45 @@
+package redirex.shipping.money;
+
+import java.math.RoundingMode;
+
+// Arredondamento usado por Money. Toda divisão de valores monetários passa por divide(),
+// então a mesma regra produz o mesmo centavo em qualquer ponto do código.
+public enum RoundingPolicy {
+    HALF_UP(RoundingMode.HALF_UP),
+    HALF_EVEN(RoundingMode.HALF_EVEN),
+    CEILING(RoundingMode.CEILING),
+    FLOOR(RoundingMode.FLOOR),
+    // Falha se o resultado não for exato
+    UNNECESSARY(RoundingMode.UNNECESSARY);
+
+    private final RoundingMode mode;
+
+    RoundingPolicy(RoundingMode mode) {
+        this.mode = mode;
+    }
+
+    public RoundingMode mode() {
+        return mode;
+    }
+
+    // Divisão inteira arredondada, sem BigDecimal
+    public long divide(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        // Sinal do resultado exato (o quociente truncado pode ser zero)
+        long sign = (dividend ^ divisor) < 0 ? -1 : 1;
+        long absRemainder = Math.abs(remainder);
+        long halfwayGap = Math.abs(divisor) - absRemainder;
+        return switch (this) {
+            case FLOOR -> Math.floorDiv(dividend, divisor);
+            case CEILING -> Math.ceilDiv(dividend, divisor);
+            case HALF_UP -> absRemainder >= halfwayGap ? quotient + sign : quotient;
+            case HALF_EVEN -> absRemainder > halfwayGap || (absRemainder == halfwayGap && (quotient & 1) != 0)
+                    ? quotient + sign : quotient;
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary: " + dividend + "/" + divisor);
+        };
+    }
+}
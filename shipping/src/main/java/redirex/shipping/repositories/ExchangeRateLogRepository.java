@@ -5,5 +5,5 @@ import redirex.shipping.entity.ExchangeRateLogEntity;
 
 import java.util.UUID;
 
-public interface ExchangeRateLogRepository extends JpaRepository<ExchangeRateLogEntity, UUID> {
-}
\ No newline at end of file
+public interface ExchangeRateLogRepository extends JpaRepository<ExchangeRateLogEntity, UUID>, ExchangeRateLogRepositoryCustom {
+}
@@ -0,0 +1,16 @@
+package redirex.shipping.repositories;
+
+import redirex.shipping.dto.response.ExchangeRateBucketResponse;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.enums.RateBucketEnum;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ExchangeRateLogRepositoryCustom {
+
+    // OHLC e média por intervalo em [start, end), agregados no banco; start e end devem estar alinhados ao
+    // intervalo. Intervalos sem mudança de cotação não aparecem (vale o close do intervalo anterior).
+    List<ExchangeRateBucketResponse> findBuckets(CurrencyEnum from, CurrencyEnum to, RateBucketEnum bucket,
+                                                 LocalDateTime start, LocalDateTime end);
+}
@@ -0,0 +1,77 @@
+package redirex.shipping.repositories;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import redirex.shipping.dto.response.ExchangeRateBucketResponse;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.enums.RateBucketEnum;
+
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Histórico de cotações agregado pelo Postgres: só os intervalos saem do banco, nunca as linhas. Por hora e por
+// dia lê o agregado exchange_rate_log_hourly (no máximo 24 linhas por dia e par); por minuto lê o log pelo
+// índice (from_currency, to_currency, fetched_at), com o período limitado pelo serviço.
+class ExchangeRateLogRepositoryCustomImpl implements ExchangeRateLogRepositoryCustom {
+
+    private static final String LOG_BUCKETS_SQL = """
+            SELECT date_trunc(:unit, fetched_at) AS bucket_start,
+                   (array_agg(rate ORDER BY fetched_at))[1] AS open,
+                   max(rate) AS high,
+                   min(rate) AS low,
+                   (array_agg(rate ORDER BY fetched_at DESC))[1] AS close,
+                   round(avg(rate), 4) AS mean_of_changes,
+                   count(*) AS samples
+              FROM exchange_rate_logs
+             WHERE from_currency = :from AND to_currency = :to
+               AND fetched_at >= CAST(:start AS timestamp) AND fetched_at < CAST(:end AS timestamp)
+             GROUP BY 1
+             ORDER BY 1
+            """;
+
+    private static final String HOURLY_BUCKETS_SQL = """
+            SELECT date_trunc(:unit, bucket_start) AS bucket_start,
+                   (array_agg(open_rate ORDER BY open_at))[1] AS open,
+                   max(high_rate) AS high,
+                   min(low_rate) AS low,
+                   (array_agg(close_rate ORDER BY close_at DESC))[1] AS close,
+                   round(sum(rate_sum) / sum(samples), 4) AS mean_of_changes,
+                   sum(samples) AS samples
+              FROM exchange_rate_log_hourly
+             WHERE from_currency = :from AND to_currency = :to
+               AND bucket_start >= CAST(:start AS timestamp) AND bucket_start < CAST(:end AS timestamp)
+             GROUP BY 1
+             ORDER BY 1
+            """;
+
+    private static final RowMapper<ExchangeRateBucketResponse> BUCKET_ROW_MAPPER = (rs, rowNum) ->
+            new ExchangeRateBucketResponse(
+                    rs.getObject("bucket_start", LocalDateTime.class),
+                    rs.getBigDecimal("open"),
+                    rs.getBigDecimal("high"),
+                    rs.getBigDecimal("low"),
+                    rs.getBigDecimal("close"),
+                    rs.getBigDecimal("mean_of_changes"),
+                    rs.getLong("samples"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    ExchangeRateLogRepositoryCustomImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<ExchangeRateBucketResponse> findBuckets(CurrencyEnum from, CurrencyEnum to, RateBucketEnum bucket,
+                                                        LocalDateTime start, LocalDateTime end) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", from.name(), Types.VARCHAR)
+                .addValue("to", to.name(), Types.VARCHAR)
+                .addValue("unit", bucket.unit(), Types.VARCHAR)
+                .addValue("start", start, Types.TIMESTAMP)
+                .addValue("end", end, Types.TIMESTAMP);
+        String sql = bucket == RateBucketEnum.MINUTE ? LOG_BUCKETS_SQL : HOURLY_BUCKETS_SQL;
+        return jdbcTemplate.query(sql, params, BUCKET_ROW_MAPPER);
+    }
+}
@@ -0,0 +1,41 @@
+package redirex.shipping.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import redirex.shipping.entity.IdempotencyRecordEntity;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecordEntity, UUID> {
+
+    Optional<IdempotencyRecordEntity> findByUserIdAndOperationAndIdempotencyKey(UUID userId, String operation, String idempotencyKey);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecordEntity r SET r.status = redirex.shipping.enums.IdempotencyStatusEnum.COMPLETED, " +
+            "r.responseBody = :responseBody WHERE r.id = :id")
+    int complete(@Param("id") UUID id, @Param("responseBody") String responseBody);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecordEntity r SET r.status = redirex.shipping.enums.IdempotencyStatusEnum.RETRYABLE " +
+            "WHERE r.id = :id AND r.status = redirex.shipping.enums.IdempotencyStatusEnum.IN_PROGRESS")
+    int markRetryable(@Param("id") UUID id);
+
+    // Libera a chave para uma nova reserva: repetição permitida ou registro vencido ainda não purgado.
+    // Só quem remove a linha pode reservar de novo; um concorrente recebe 0.
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecordEntity r WHERE r.id = :id AND " +
+            "(r.status = redirex.shipping.enums.IdempotencyStatusEnum.RETRYABLE OR r.expiresAt < :now)")
+    int deleteReclaimable(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    // Remove registros expirados e reservas IN_PROGRESS abandonadas (nó caiu no meio da operação)
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecordEntity r WHERE r.expiresAt < :now OR " +
+            "(r.status = redirex.shipping.enums.IdempotencyStatusEnum.IN_PROGRESS AND r.createdAt < :staleInProgressBefore)")
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("staleInProgressBefore") LocalDateTime staleInProgressBefore);
+}
@@ -1,16 +1,21 @@
 package redirex.shipping.repositories;
 
-import io.lettuce.core.dynamic.annotation.Param;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import redirex.shipping.entity.AdminEntity;
 import redirex.shipping.entity.OrderItemEntity;
 import redirex.shipping.entity.OrderItemStatusHistoryEntity;
 import redirex.shipping.entity.UserEntity;
 import redirex.shipping.enums.OrderItemStatusEnum;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -29,4 +34,24 @@ public interface OrderItemRepository extends JpaRepository<OrderItemEntity, UUID
 
     @Query("SELECT o FROM OrderItemEntity o WHERE o.user = :user AND o.status <> :status")
     List<OrderItemEntity> findByUserAndStatusNot(@Param("user") UserEntity user, @Param("status") OrderItemStatusEnum status);
-}
\ No newline at end of file
+
+    // Pedidos do checkout com lock de linha até o fim da transação; ordenados por id para que checkouts
+    // concorrentes com pedidos em comum travem na mesma ordem
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM OrderItemEntity o WHERE o.id IN :ids AND o.user.id = :userId ORDER BY o.id")
+    List<OrderItemEntity> findAllForCheckout(@Param("userId") UUID userId, @Param("ids") Collection<UUID> ids);
+
+    // Um único UPDATE para todos os pedidos pagos no checkout (o warehouse já vem do pedido)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE OrderItemEntity o
+               SET o.status = :paidStatus, o.paidProductAt = :paidAt, o.arrivedAtWarehouseAt = :paidAt,
+                   o.adminAssigned = :admin
+             WHERE o.id IN :ids AND o.status = :expectedStatus
+            """)
+    int markPaid(@Param("ids") Collection<UUID> ids,
+                 @Param("expectedStatus") OrderItemStatusEnum expectedStatus,
+                 @Param("paidStatus") OrderItemStatusEnum paidStatus,
+                 @Param("paidAt") LocalDateTime paidAt,
+                 @Param("admin") AdminEntity admin);
+}
@@ -1,6 +1,8 @@
 package redirex.shipping.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import redirex.shipping.entity.UserEntity;
 import redirex.shipping.entity.UserWalletEntity;
 import redirex.shipping.enums.CurrencyEnum;
@@ -9,8 +11,11 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-public interface UserWalletRepository extends JpaRepository<UserWalletEntity, UUID> {
+public interface UserWalletRepository extends JpaRepository<UserWalletEntity, UUID>, UserWalletRepositoryCustom {
     Optional<UserWalletEntity> findByUserIdAndCurrency(UserEntity userId, CurrencyEnum currency);
     List<UserWalletEntity> findByUserId(UserEntity userId);
     boolean existsByUserIdAndCurrency(UserEntity userId, CurrencyEnum currency);
+
+    @Query("SELECT w.walletId FROM UserWalletEntity w WHERE w.userId.id = :userId AND w.currency = :currency")
+    Optional<UUID> findWalletId(@Param("userId") UUID userId, @Param("currency") CurrencyEnum currency);
 }
\ No newline at end of file
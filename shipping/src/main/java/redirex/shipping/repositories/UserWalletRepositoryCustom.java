@@ -0,0 +1,36 @@
+package redirex.shipping.repositories;
+
+import redirex.shipping.dto.internal.WalletBalance;
+import redirex.shipping.dto.internal.WalletMovement;
+import redirex.shipping.dto.internal.WalletMovementResult;
+import redirex.shipping.dto.internal.WalletReconciliationRow;
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public interface UserWalletRepositoryCustom {
+
+    // Grava o lançamento e atualiza o saldo (sem deixá-lo negativo) de forma atômica.
+    // Vazio quando a carteira não existe ou o saldo não cobre o débito.
+    Optional<WalletMovementResult> applyMovement(WalletMovement movement);
+
+    // Saldo atual (com a sequência do último lançamento): a coluna balance ou, no modo ledger,
+    // o último snapshot + lançamentos posteriores
+    Optional<WalletBalance> currentBalance(UUID userId, CurrencyEnum currency);
+
+    // Grava um snapshot para as carteiras com pelo menos minEntries lançamentos desde o último
+    int compactSnapshots(int minEntries);
+
+    // Se há lançamentos do modo ledger ainda fora da coluna balance (uma busca por índice por carteira)
+    boolean hasLedgerEntriesPendingSync();
+
+    // Leva para a coluna balance os lançamentos feitos no modo ledger (volta para o modo coluna)
+    int syncBalanceColumns();
+
+    // Saldo gravado x soma dos lançamentos de cada carteira com id em [lower, upper]; com changedSince,
+    // só as carteiras alteradas desde então. Lido com cursor do servidor: chamar dentro de uma transação.
+    void reconcileRange(UUID lower, UUID upper, LocalDateTime changedSince, Consumer<WalletReconciliationRow> action);
+}
@@ -0,0 +1,293 @@
+package redirex.shipping.repositories;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import redirex.shipping.dto.internal.WalletBalance;
+import redirex.shipping.dto.internal.WalletMovement;
+import redirex.shipping.dto.internal.WalletMovementResult;
+import redirex.shipping.dto.internal.WalletReconciliationRow;
+import redirex.shipping.enums.CurrencyEnum;
+
+import javax.sql.DataSource;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Movimentos de saldo em SQL. Todo movimento vira um lançamento imutável em wallet_transactions com
+// número de sequência por carteira. Dois modos (wallet.ledger.enabled, o mesmo em todos os nós):
+//  - coluna (padrão): UPDATE condicional em user_wallets + INSERT do lançamento no mesmo statement;
+//    o lock de linha do UPDATE serializa débitos concorrentes da mesma carteira.
+//  - ledger: user_wallets não é mais atualizada; o saldo é o último snapshot + os lançamentos seguintes
+//    e os débitos da mesma carteira são serializados por um advisory lock da transação.
+class UserWalletRepositoryCustomImpl implements UserWalletRepositoryCustom {
+
+    private static final String INSERT_TRANSACTION_COLUMNS = """
+            INSERT INTO wallet_transactions (
+                id, user_id, user_wallet_id, currency, amount, type,
+                charged_amount, charged_currency, related_order_item_id, related_shipment_id,
+                exchange_rate, transaction_fee, original_amount_deposited, original_currency_deposited,
+                sequence_number, created_at)
+            SELECT CAST(:transactionId AS uuid), CAST(:userId AS uuid), %1$s,
+                   CAST(:currency AS varchar), CAST(:delta AS numeric), CAST(:type AS varchar),
+                   CAST(:chargedAmount AS numeric), CAST(:chargedCurrency AS varchar),
+                   CAST(:relatedOrderItemId AS uuid), CAST(:relatedShipmentId AS uuid),
+                   CAST(:exchangeRate AS numeric), CAST(:transactionFee AS numeric),
+                   CAST(:originalAmountDeposited AS numeric), CAST(:originalCurrencyDeposited AS varchar),
+                   %2$s, LOCALTIMESTAMP
+            """;
+
+    private static final String APPLY_MOVEMENT_SQL = """
+            WITH updated AS (
+                UPDATE user_wallets
+                   SET balance = balance + CAST(:delta AS numeric),
+                       ledger_sequence = COALESCE(ledger_sequence, 0) + 1,
+                       updated_at = LOCALTIMESTAMP
+                 WHERE user_id = CAST(:userId AS uuid)
+                   AND currency = CAST(:currency AS varchar)
+                   AND balance + CAST(:delta AS numeric) >= 0
+             RETURNING wallet_id, balance, ledger_sequence
+            ), inserted AS (
+            %s
+                  FROM updated u
+             RETURNING id, user_wallet_id, sequence_number, created_at
+            )
+            SELECT i.id, i.user_wallet_id, u.balance, i.sequence_number, i.created_at
+              FROM updated u
+              JOIN inserted i ON i.user_wallet_id = u.wallet_id
+            """.formatted(INSERT_TRANSACTION_COLUMNS.formatted("u.wallet_id", "u.ledger_sequence"));
+
+    // Saldo derivado por carteira. Sem snapshot, a base é a própria linha de user_wallets
+    // (balance e ledger_sequence são sempre gravados juntos, então formam um ponto consistente).
+    private static final String DERIVED_BALANCE_CTE = """
+            latest AS (
+                SELECT w.wallet_id,
+                       COALESCE(s.sequence_number, w.ledger_sequence, 0) AS base_sequence,
+                       COALESCE(s.balance, w.balance) AS base_balance
+                  FROM user_wallets w
+                  LEFT JOIN LATERAL (
+                        SELECT sequence_number, balance
+                          FROM wallet_balance_snapshots
+                         WHERE wallet_id = w.wallet_id
+                         ORDER BY sequence_number DESC
+                         LIMIT 1) s ON TRUE
+                 WHERE %s
+            ), derived AS (
+                SELECT l.wallet_id,
+                       l.base_balance + COALESCE(SUM(t.amount), 0) AS balance,
+                       COALESCE(MAX(t.sequence_number), l.base_sequence) AS last_sequence,
+                       COUNT(t.id) AS pending_entries
+                  FROM latest l
+                  LEFT JOIN wallet_transactions t
+                         ON t.user_wallet_id = l.wallet_id AND t.sequence_number > l.base_sequence
+                 GROUP BY l.wallet_id, l.base_sequence, l.base_balance
+            )
+            """;
+
+    private static final String WALLET_FILTER =
+            "w.user_id = CAST(:userId AS uuid) AND w.currency = CAST(:currency AS varchar)";
+
+    // Lock exclusivo da carteira até o fim da transação; precisa vir em um statement próprio
+    // para que o INSERT seguinte enxergue os lançamentos de quem segurava o lock antes.
+    private static final String LOCK_WALLET_SQL = """
+            SELECT wallet_id, pg_advisory_xact_lock(hashtextextended(CAST(wallet_id AS text), 0))
+              FROM user_wallets w
+             WHERE %s
+            """.formatted(WALLET_FILTER);
+
+    private static final String APPEND_ENTRY_SQL = ("WITH " + DERIVED_BALANCE_CTE + """
+            , inserted AS (
+            %s
+                  FROM derived d
+                 WHERE d.balance + CAST(:delta AS numeric) >= 0
+             RETURNING id, user_wallet_id, sequence_number, created_at
+            )
+            SELECT i.id, i.user_wallet_id, d.balance + CAST(:delta AS numeric) AS balance,
+                   i.sequence_number, i.created_at
+              FROM inserted i
+              JOIN derived d ON d.wallet_id = i.user_wallet_id
+            """).formatted("w.wallet_id = CAST(:walletId AS uuid)",
+            INSERT_TRANSACTION_COLUMNS.formatted("d.wallet_id", "d.last_sequence + 1"));
+
+    private static final String COLUMN_BALANCE_SQL = """
+            SELECT w.balance, COALESCE(w.ledger_sequence, 0) AS sequence_number FROM user_wallets w WHERE %s
+            """.formatted(WALLET_FILTER);
+
+    private static final String DERIVED_BALANCE_SQL = ("WITH " + DERIVED_BALANCE_CTE + """
+            SELECT balance, last_sequence AS sequence_number FROM derived
+            """).formatted(WALLET_FILTER);
+
+    // ON CONFLICT: outro nó pode ter compactado a mesma carteira no mesmo ponto
+    private static final String COMPACT_SNAPSHOTS_SQL = ("WITH " + DERIVED_BALANCE_CTE + """
+            INSERT INTO wallet_balance_snapshots (id, wallet_id, sequence_number, balance, created_at)
+            SELECT gen_random_uuid(), d.wallet_id, d.last_sequence, d.balance, LOCALTIMESTAMP
+              FROM derived d
+             WHERE d.pending_entries >= :minEntries
+            ON CONFLICT DO NOTHING
+            """).formatted("TRUE");
+
+    private static final String SYNC_BALANCE_COLUMNS_SQL = ("WITH " + DERIVED_BALANCE_CTE + """
+            UPDATE user_wallets w
+               SET balance = d.balance,
+                   ledger_sequence = d.last_sequence,
+                   updated_at = LOCALTIMESTAMP
+              FROM derived d
+             WHERE d.wallet_id = w.wallet_id
+               AND d.last_sequence > COALESCE(w.ledger_sequence, 0)
+            """).formatted("TRUE");
+
+    // No modo coluna ledger_sequence acompanha todo lançamento; um lançamento além dele só pode vir do modo ledger.
+    // Usa idx_wallet_transaction_wallet_sequence e para no primeiro encontrado.
+    private static final String LEDGER_PENDING_SYNC_SQL = """
+            SELECT EXISTS (
+                SELECT 1
+                  FROM user_wallets w
+                 WHERE EXISTS (SELECT 1 FROM wallet_transactions t
+                                WHERE t.user_wallet_id = w.wallet_id
+                                  AND t.sequence_number > COALESCE(w.ledger_sequence, 0)))
+            """;
+
+    // Conciliação: saldo gravado x soma de todos os lançamentos, para as carteiras de uma faixa de ids.
+    // A faixa inteira é lida em um único statement, então saldo e lançamentos vêm do mesmo snapshot.
+    private static final String RECONCILE_RANGE_FILTER =
+            "w.wallet_id BETWEEN CAST(:lower AS uuid) AND CAST(:upper AS uuid) AND %s";
+
+    // Incremental: carteiras com saldo ou lançamentos alterados desde o checkpoint
+    private static final String RECONCILE_CHANGED_FILTER = """
+            (w.updated_at > CAST(:since AS timestamp)
+                 OR EXISTS (SELECT 1 FROM wallet_transactions c
+                             WHERE c.user_wallet_id = w.wallet_id AND c.created_at > CAST(:since AS timestamp)))""";
+
+    private static final String RECONCILE_COLUMN_SQL = """
+            SELECT w.wallet_id, w.user_id, w.currency, w.balance AS stored_balance,
+                   COALESCE(SUM(t.amount), 0) AS computed_balance, COUNT(t.id) AS transaction_count
+              FROM user_wallets w
+              LEFT JOIN wallet_transactions t ON t.user_wallet_id = w.wallet_id
+             WHERE %s
+             GROUP BY w.wallet_id, w.user_id, w.currency, w.balance
+            """;
+
+    // No modo ledger o saldo "gravado" é o derivado do último snapshot, que é o que pode divergir
+    private static final String RECONCILE_LEDGER_SQL = "WITH " + DERIVED_BALANCE_CTE + """
+            SELECT w.wallet_id, w.user_id, w.currency, d.balance AS stored_balance,
+                   COALESCE(SUM(t.amount), 0) AS computed_balance, COUNT(t.id) AS transaction_count
+              FROM derived d
+              JOIN user_wallets w ON w.wallet_id = d.wallet_id
+              LEFT JOIN wallet_transactions t ON t.user_wallet_id = w.wallet_id
+             GROUP BY w.wallet_id, w.user_id, w.currency, d.balance
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+    private final boolean ledgerEnabled;
+
+    UserWalletRepositoryCustomImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                   DataSource dataSource,
+                                   @Value("${wallet.ledger.enabled:false}") boolean ledgerEnabled,
+                                   @Value("${wallet.reconciliation.fetch-size:500}") int reconciliationFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(reconciliationFetchSize);
+        this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+        this.ledgerEnabled = ledgerEnabled;
+    }
+
+    @Override
+    public Optional<WalletMovementResult> applyMovement(WalletMovement movement) {
+        MapSqlParameterSource params = movementParams(movement);
+        if (!ledgerEnabled) {
+            return queryMovement(APPLY_MOVEMENT_SQL, params);
+        }
+
+        List<UUID> wallets = jdbcTemplate.query(LOCK_WALLET_SQL, params,
+                (rs, rowNum) -> rs.getObject("wallet_id", UUID.class));
+        if (wallets.isEmpty()) {
+            return Optional.empty();
+        }
+        params.addValue("walletId", wallets.get(0), Types.OTHER);
+        return queryMovement(APPEND_ENTRY_SQL, params);
+    }
+
+    @Override
+    public Optional<WalletBalance> currentBalance(UUID userId, CurrencyEnum currency) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId, Types.OTHER)
+                .addValue("currency", currency.name(), Types.VARCHAR);
+        List<WalletBalance> balances = jdbcTemplate.query(ledgerEnabled ? DERIVED_BALANCE_SQL : COLUMN_BALANCE_SQL,
+                params, (rs, rowNum) -> new WalletBalance(rs.getBigDecimal("balance"), rs.getLong("sequence_number")));
+        return balances.stream().findFirst();
+    }
+
+    @Override
+    public int compactSnapshots(int minEntries) {
+        return jdbcTemplate.update(COMPACT_SNAPSHOTS_SQL, new MapSqlParameterSource("minEntries", minEntries));
+    }
+
+    @Override
+    public boolean hasLedgerEntriesPendingSync() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(LEDGER_PENDING_SYNC_SQL, new MapSqlParameterSource(), Boolean.class));
+    }
+
+    @Override
+    public int syncBalanceColumns() {
+        return jdbcTemplate.update(SYNC_BALANCE_COLUMNS_SQL, new MapSqlParameterSource());
+    }
+
+    @Override
+    public void reconcileRange(UUID lower, UUID upper, LocalDateTime changedSince,
+                               Consumer<WalletReconciliationRow> action) {
+        String filter = RECONCILE_RANGE_FILTER.formatted(changedSince != null ? RECONCILE_CHANGED_FILTER : "TRUE");
+        String sql = (ledgerEnabled ? RECONCILE_LEDGER_SQL : RECONCILE_COLUMN_SQL).formatted(filter);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("lower", lower, Types.OTHER)
+                .addValue("upper", upper, Types.OTHER);
+        if (changedSince != null) {
+            params.addValue("since", changedSince, Types.TIMESTAMP);
+        }
+        RowCallbackHandler handler = rs -> action.accept(new WalletReconciliationRow(
+                rs.getObject("wallet_id", UUID.class),
+                rs.getObject("user_id", UUID.class),
+                CurrencyEnum.valueOf(rs.getString("currency")),
+                rs.getBigDecimal("stored_balance"),
+                rs.getBigDecimal("computed_balance"),
+                rs.getLong("transaction_count")));
+        streamingJdbcTemplate.query(sql, params, handler);
+    }
+
+    private Optional<WalletMovementResult> queryMovement(String sql, MapSqlParameterSource params) {
+        List<WalletMovementResult> rows = jdbcTemplate.query(sql, params, (rs, rowNum) ->
+                new WalletMovementResult(
+                        rs.getObject("id", UUID.class),
+                        rs.getObject("user_wallet_id", UUID.class),
+                        rs.getBigDecimal("balance"),
+                        rs.getLong("sequence_number"),
+                        rs.getObject("created_at", LocalDateTime.class)));
+        return rows.stream().findFirst();
+    }
+
+    private MapSqlParameterSource movementParams(WalletMovement movement) {
+        return new MapSqlParameterSource()
+                .addValue("transactionId", movement.transactionId(), Types.OTHER)
+                .addValue("userId", movement.userId(), Types.OTHER)
+                .addValue("currency", name(movement.currency()), Types.VARCHAR)
+                .addValue("delta", movement.delta(), Types.NUMERIC)
+                .addValue("type", movement.type().name(), Types.VARCHAR)
+                .addValue("chargedAmount", movement.chargedAmount(), Types.NUMERIC)
+                .addValue("chargedCurrency", name(movement.chargedCurrency()), Types.VARCHAR)
+                .addValue("relatedOrderItemId", movement.relatedOrderItemId(), Types.OTHER)
+                .addValue("relatedShipmentId", movement.relatedShipmentId(), Types.OTHER)
+                .addValue("exchangeRate", movement.exchangeRate(), Types.NUMERIC)
+                .addValue("transactionFee", movement.transactionFee(), Types.NUMERIC)
+                .addValue("originalAmountDeposited", movement.originalAmountDeposited(), Types.NUMERIC)
+                .addValue("originalCurrencyDeposited", name(movement.originalCurrencyDeposited()), Types.VARCHAR);
+    }
+
+    private static String name(CurrencyEnum currency) {
+        return currency != null ? currency.name() : null;
+    }
+}
@@ -0,0 +1,40 @@
+package redirex.shipping.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import redirex.shipping.entity.WalletDepositEntity;
+import redirex.shipping.enums.DepositStatusEnum;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface WalletDepositRepository extends JpaRepository<WalletDepositEntity, UUID> {
+
+    List<WalletDepositEntity> findTop100ByStatusAndAttemptsLessThanAndUpdatedAtBeforeOrderByUpdatedAtAsc(
+            DepositStatusEnum status, int maxAttempts, LocalDateTime updatedBefore);
+
+    // Lock da transação por depósito: serializa a gravação de requisições concorrentes com a mesma chave
+    @Query(value = "SELECT true FROM pg_advisory_xact_lock(hashtextextended(CAST(:id AS text), 0))", nativeQuery = true)
+    boolean lockId(@Param("id") UUID id);
+
+    // Transição condicional: só um dos concorrentes (requisição ou recuperação) consegue resolver o depósito
+    @Modifying
+    @Query("UPDATE WalletDepositEntity d SET d.status = :to, d.failureReason = :reason, d.updatedAt = :now " +
+            "WHERE d.id = :id AND d.status = :from")
+    int transition(@Param("id") UUID id,
+                   @Param("from") DepositStatusEnum from,
+                   @Param("to") DepositStatusEnum to,
+                   @Param("reason") String reason,
+                   @Param("now") LocalDateTime now);
+
+    // Reserva o depósito para uma nova chamada ao Stripe; falha se outro nó já o reservou
+    @Modifying
+    @Query("UPDATE WalletDepositEntity d SET d.attempts = d.attempts + 1, d.updatedAt = :now " +
+            "WHERE d.id = :id AND d.status = redirex.shipping.enums.DepositStatusEnum.PENDING AND d.updatedAt = :seenUpdatedAt")
+    int claimAttempt(@Param("id") UUID id,
+                     @Param("seenUpdatedAt") LocalDateTime seenUpdatedAt,
+                     @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,12 @@
+package redirex.shipping.repositories;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import redirex.shipping.entity.WalletReconciliationDriftEntity;
+
+import java.util.UUID;
+
+public interface WalletReconciliationDriftRepository extends JpaRepository<WalletReconciliationDriftEntity, UUID> {
+    Page<WalletReconciliationDriftEntity> findByRunId(UUID runId, Pageable pageable);
+}
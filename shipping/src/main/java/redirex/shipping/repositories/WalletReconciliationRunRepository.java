@@ -0,0 +1,24 @@
+package redirex.shipping.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import redirex.shipping.entity.WalletReconciliationRunEntity;
+import redirex.shipping.enums.ReconciliationStatusEnum;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface WalletReconciliationRunRepository extends JpaRepository<WalletReconciliationRunEntity, UUID> {
+
+    Optional<WalletReconciliationRunEntity> findTopByStatusOrderByStartedAtDesc(ReconciliationStatusEnum status);
+
+    // Lock da transação que serializa o início de execuções entre os nós; false se outro nó está iniciando
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtextextended('wallet_reconciliation_start', 0))", nativeQuery = true)
+    boolean tryLockRunStart();
+
+    boolean existsByStatusAndStartedAtAfter(ReconciliationStatusEnum status, LocalDateTime startedAfter);
+
+    List<WalletReconciliationRunEntity> findTop20ByOrderByStartedAtDesc();
+}
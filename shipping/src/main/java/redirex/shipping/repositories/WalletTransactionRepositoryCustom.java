@@ -0,0 +1,25 @@
+package redirex.shipping.repositories;
+
+import redirex.shipping.dto.response.WalletTransactionHistoryItem;
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public interface WalletTransactionRepositoryCustom {
+
+    // Página do extrato, do mais recente para o mais antigo, começando logo depois de (createdAt, id).
+    // Sem cursor (ambos nulos) devolve a primeira página.
+    List<WalletTransactionHistoryItem> findHistoryPage(UUID walletId, LocalDateTime createdAt, UUID id, int limit);
+
+    // Percorre o extrato inteiro em ordem cronológica com um cursor do servidor, sem carregar tudo em memória.
+    // Precisa rodar dentro de uma transação (o driver do Postgres só usa o fetch size com autocommit desligado).
+    void streamHistory(UUID walletId, Consumer<WalletTransactionHistoryItem> action);
+
+    // Grava as alocações por pedido de um débito de checkout em um único batch
+    void insertAllocations(UUID transactionId, CurrencyEnum currency, Map<UUID, BigDecimal> amountsByOrderItem);
+}
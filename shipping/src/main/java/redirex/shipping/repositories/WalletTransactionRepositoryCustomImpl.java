@@ -0,0 +1,128 @@
+package redirex.shipping.repositories;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import redirex.shipping.dto.response.WalletTransactionHistoryItem;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.enums.WalletTransactionTypeEnum;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Extrato da carteira via keyset em (created_at, id), servido pelo índice (user_wallet_id, created_at, id):
+// o custo de cada página não depende de quantas vieram antes, ao contrário de OFFSET.
+class WalletTransactionRepositoryCustomImpl implements WalletTransactionRepositoryCustom {
+
+    private static final String HISTORY_COLUMNS = """
+            SELECT id, user_wallet_id, type, currency, amount, charged_amount, charged_currency,
+                   exchange_rate, transaction_fee, original_amount_deposited, original_currency_deposited,
+                   related_order_item_id, related_shipment_id, sequence_number, created_at
+              FROM wallet_transactions
+             WHERE user_wallet_id = CAST(:walletId AS uuid)
+            """;
+
+    private static final String FIRST_PAGE_SQL = HISTORY_COLUMNS + """
+             ORDER BY created_at DESC, id DESC
+             LIMIT :limit
+            """;
+
+    // Comparação de linha: o Postgres usa o índice composto como condição de acesso, não como filtro
+    private static final String NEXT_PAGE_SQL = HISTORY_COLUMNS + """
+               AND (created_at, id) < (CAST(:createdAt AS timestamp), CAST(:id AS uuid))
+             ORDER BY created_at DESC, id DESC
+             LIMIT :limit
+            """;
+
+    private static final String STREAM_SQL = HISTORY_COLUMNS + """
+             ORDER BY created_at, id
+            """;
+
+    private static final String INSERT_ALLOCATION_SQL = """
+            INSERT INTO order_payment_allocations (id, wallet_transaction_id, order_item_id, currency, amount, created_at)
+            VALUES (gen_random_uuid(), CAST(:transactionId AS uuid), CAST(:orderItemId AS uuid),
+                    CAST(:currency AS varchar), CAST(:amount AS numeric), LOCALTIMESTAMP)
+            """;
+
+    private static final RowMapper<WalletTransactionHistoryItem> HISTORY_ROW_MAPPER =
+            WalletTransactionRepositoryCustomImpl::mapHistoryItem;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+
+    WalletTransactionRepositoryCustomImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                          DataSource dataSource,
+                                          @Value("${wallet.history.export-fetch-size:500}") int exportFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(exportFetchSize);
+        this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+    }
+
+    @Override
+    public List<WalletTransactionHistoryItem> findHistoryPage(UUID walletId, LocalDateTime createdAt, UUID id, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("walletId", walletId, Types.OTHER)
+                .addValue("limit", limit, Types.INTEGER);
+        if (createdAt == null || id == null) {
+            return jdbcTemplate.query(FIRST_PAGE_SQL, params, HISTORY_ROW_MAPPER);
+        }
+        params.addValue("createdAt", createdAt, Types.TIMESTAMP)
+                .addValue("id", id, Types.OTHER);
+        return jdbcTemplate.query(NEXT_PAGE_SQL, params, HISTORY_ROW_MAPPER);
+    }
+
+    @Override
+    public void streamHistory(UUID walletId, Consumer<WalletTransactionHistoryItem> action) {
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("walletId", walletId, Types.OTHER);
+        RowCallbackHandler handler = rs -> action.accept(mapHistoryItem(rs, rs.getRow()));
+        streamingJdbcTemplate.query(STREAM_SQL, params, handler);
+    }
+
+    @Override
+    public void insertAllocations(UUID transactionId, CurrencyEnum currency, Map<UUID, BigDecimal> amountsByOrderItem) {
+        SqlParameterSource[] batch = amountsByOrderItem.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("transactionId", transactionId, Types.OTHER)
+                        .addValue("orderItemId", entry.getKey(), Types.OTHER)
+                        .addValue("currency", currency.name(), Types.VARCHAR)
+                        .addValue("amount", entry.getValue(), Types.NUMERIC))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(INSERT_ALLOCATION_SQL, batch);
+    }
+
+    private static WalletTransactionHistoryItem mapHistoryItem(ResultSet rs, int rowNum) throws SQLException {
+        return new WalletTransactionHistoryItem(
+                rs.getObject("id", UUID.class),
+                rs.getObject("user_wallet_id", UUID.class),
+                WalletTransactionTypeEnum.valueOf(rs.getString("type")),
+                currency(rs.getString("currency")),
+                rs.getBigDecimal("amount"),
+                rs.getBigDecimal("charged_amount"),
+                currency(rs.getString("charged_currency")),
+                rs.getBigDecimal("exchange_rate"),
+                rs.getBigDecimal("transaction_fee"),
+                rs.getBigDecimal("original_amount_deposited"),
+                currency(rs.getString("original_currency_deposited")),
+                rs.getObject("related_order_item_id", UUID.class),
+                rs.getObject("related_shipment_id", UUID.class),
+                rs.getObject("sequence_number", Long.class),
+                rs.getObject("created_at", LocalDateTime.class));
+    }
+
+    private static CurrencyEnum currency(String value) {
+        return value != null ? CurrencyEnum.valueOf(value) : null;
+    }
+}
@@ -0,0 +1,27 @@
+package redirex.shipping.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// IP do cliente para rate limit e limites de velocidade. X-Forwarded-For só é considerado atrás de um proxy confiável.
+@Component
+public class ClientIpResolver {
+
+    private final boolean trustForwardedFor;
+
+    public ClientIpResolver(@Value("${security.rate-limit.trust-forwarded-for:false}") boolean trustForwardedFor) {
+        this.trustForwardedFor = trustForwardedFor;
+    }
+
+    public String resolve(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                int comma = forwardedFor.indexOf(',');
+                return (comma > 0 ? forwardedFor.substring(0, comma) : forwardedFor).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -5,6 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -18,7 +19,7 @@ import java.util.UUID;
 
 @Slf4j
 @Service
-public class CustomUnifiedUserDetailsService implements UserDetailsService {
+public class CustomUnifiedUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
     private final AdminRepository adminRepository;
@@ -65,6 +66,29 @@ public class CustomUnifiedUserDetailsService implements UserDetailsService {
                 );
     }
 
+    // Chamado pelo DaoAuthenticationProvider após um login válido quando o hash usa um custo BCrypt desatualizado
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        CustomUserDetails details = (CustomUserDetails) user;
+
+        if ("ADMIN".equals(details.getUserType())) {
+            adminRepository.findById(details.getId()).ifPresent(admin -> {
+                admin.setPassword(newPassword);
+                adminRepository.save(admin);
+            });
+        } else {
+            userRepository.findById(details.getId()).ifPresent(entity -> {
+                entity.setPassword(newPassword);
+                userRepository.save(entity);
+            });
+        }
+        log.info("Hash de senha atualizado para o custo BCrypt configurado: {}", details.getEmail());
+
+        return new CustomUserDetails(details.getId(), details.getEmail(), newPassword,
+                details.getAuthorities(), details.getUserType());
+    }
+
     @Getter
     public static class CustomUserDetails implements UserDetails {
         private final UUID id;
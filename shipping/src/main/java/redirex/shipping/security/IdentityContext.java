@@ -0,0 +1,124 @@
+package redirex.shipping.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+import redirex.shipping.entity.AdminEntity;
+import redirex.shipping.entity.UserEntity;
+import redirex.shipping.exception.ResourceNotFoundException;
+import redirex.shipping.exception.UnauthorizedAccessException;
+import redirex.shipping.repositories.AdminRepository;
+import redirex.shipping.repositories.UserRepository;
+import redirex.shipping.security.CustomUnifiedUserDetailsService.CustomUserDetails;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+// Identidade do usuário autenticado na requisição atual, preenchida uma vez pelo JwtAuthenticationFilter.
+// As entidades só são carregadas quando alguém realmente precisa delas, e no máximo uma vez por requisição.
+@Component
+@RequestScope
+public class IdentityContext {
+
+    private final UserRepository userRepository;
+    private final AdminRepository adminRepository;
+
+    private CustomUserDetails principal;
+    private Set<String> roles = Set.of();
+    private UserEntity user;
+    private AdminEntity admin;
+
+    public IdentityContext(UserRepository userRepository, AdminRepository adminRepository) {
+        this.userRepository = userRepository;
+        this.adminRepository = adminRepository;
+    }
+
+    void populate(CustomUserDetails userDetails) {
+        this.principal = userDetails;
+        this.roles = userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public boolean isAuthenticated() {
+        return resolvePrincipal() != null;
+    }
+
+    public UUID getId() {
+        return requirePrincipal().getId();
+    }
+
+    public String getEmail() {
+        return requirePrincipal().getEmail();
+    }
+
+    public String getUserType() {
+        return requirePrincipal().getUserType();
+    }
+
+    public Set<String> getRoles() {
+        requirePrincipal();
+        return roles;
+    }
+
+    public boolean hasRole(String role) {
+        return isAuthenticated() && roles.contains(role);
+    }
+
+    public boolean isAdmin() {
+        return hasRole("ROLE_ADMIN");
+    }
+
+    public boolean isUser(UUID id) {
+        return isAuthenticated() && "USER".equals(principal.getUserType()) && principal.getId().equals(id);
+    }
+
+    public boolean isAdmin(UUID id) {
+        return isAuthenticated() && "ADMIN".equals(principal.getUserType()) && principal.getId().equals(id);
+    }
+
+    public CustomUserDetails getPrincipal() {
+        return requirePrincipal();
+    }
+
+    // Carregado sob demanda e reaproveitado pelo restante da requisição
+    public UserEntity getUser() {
+        if (user == null) {
+            UUID id = requirePrincipal().getId();
+            user = userRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
+        }
+        return user;
+    }
+
+    public AdminEntity getAdmin() {
+        if (admin == null) {
+            UUID id = requirePrincipal().getId();
+            admin = adminRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Admin não encontrado"));
+        }
+        return admin;
+    }
+
+    private CustomUserDetails requirePrincipal() {
+        CustomUserDetails current = resolvePrincipal();
+        if (current == null) {
+            throw new UnauthorizedAccessException("Usuário não autenticado");
+        }
+        return current;
+    }
+
+    // Fallback para autenticações que não passaram pelo filtro JWT (ex.: testes com SecurityContext montado à mão)
+    private CustomUserDetails resolvePrincipal() {
+        if (principal == null) {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null && auth.isAuthenticated() && auth.getPrincipal() instanceof CustomUserDetails details) {
+                populate(details);
+            }
+        }
+        return principal;
+    }
+}
@@ -1,5 +1,6 @@
 package redirex.shipping.security;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.SecurityException;
@@ -10,6 +11,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -18,6 +20,7 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import redirex.shipping.service.TokenBlacklistService;
+import redirex.shipping.service.TokenGenerationService;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -42,14 +45,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final CustomUnifiedUserDetailsService userDetailsService;
     private final TokenBlacklistService tokenBlacklistService;
+    private final TokenGenerationService tokenGenerationService;
+    private final IdentityContext identityContext;
+
+    // Quando ativo, o principal é montado a partir dos claims do token, sem consulta ao banco
+    @Value("${jwt.stateless-principal.enabled:false}")
+    private boolean statelessPrincipalEnabled;
 
     @Autowired
     public JwtAuthenticationFilter(JwtUtil jwtUtil,
                                    CustomUnifiedUserDetailsService userDetailsService,
-                                   TokenBlacklistService tokenBlacklistService) {
+                                   TokenBlacklistService tokenBlacklistService,
+                                   TokenGenerationService tokenGenerationService,
+                                   IdentityContext identityContext) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
         this.tokenBlacklistService = tokenBlacklistService;
+        this.tokenGenerationService = tokenGenerationService;
+        this.identityContext = identityContext;
     }
 
     @Override
@@ -72,6 +85,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String authHeader = request.getHeader("Authorization");
         String jwtToken = null;
         String username = null;
+        Claims claims = null;
 
         // Extrai o token JWT do header
         if (authHeader == null || !authHeader.startsWith(BEARER_PREFIX)) {
@@ -98,16 +112,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             logger.debug("Token JWT recebido ({} caracteres) para: {}", jwtToken.length(), requestPath);
 
-            // Verifica se o token está na blacklist
-            if (tokenBlacklistService.isTokenBlacklisted(jwtToken)) {
+            // Verifica o token uma única vez e reaproveita os claims no restante da requisição
+            claims = jwtUtil.extractAllClaims(jwtToken);
+            username = claims.getSubject();
+            logger.debug("Username extraído do token: {}", username);
+
+            // Verifica se o token (pelo jti) está na blacklist
+            if (tokenBlacklistService.isTokenBlacklisted(jwtUtil.getTokenId(claims, jwtToken))) {
                 logger.warn("Token revogado tentou acessar: {}", requestPath);
                 sendUnauthorizedError(response, "Token revogado");
                 return;
             }
 
-            // Extrai username do token
-            username = jwtUtil.getUsernameFromToken(jwtToken);
-            logger.debug("Username extraído do token: {}", username);
+            // Mudanças de conta (papel, email, senha, exclusão) incrementam a geração e revogam tokens antigos
+            if (!tokenGenerationService.isCurrent(jwtUtil.getUserId(claims), jwtUtil.getGeneration(claims))) {
+                logger.warn("Token de geração antiga tentou acessar: {}", requestPath);
+                sendUnauthorizedError(response, "Token revogado");
+                return;
+            }
 
         } catch (ExpiredJwtException e) {
             logger.warn("Token expirado tentou acessar {}: {}", requestPath, e.getMessage());
@@ -121,6 +143,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             logger.warn("Assinatura JWT inválida: {}", e.getMessage());
             sendUnauthorizedError(response, "Assinatura inválida");
             return;
+        } catch (TokenBlacklistService.RedisOperationException e) {
+            // Redis indisponível com política fail-closed e sem snapshot local para decidir
+            logger.error("Não foi possível verificar revogação do token: {}", e.getMessage());
+            sendServiceUnavailableError(response, "Serviço de autenticação temporariamente indisponível");
+            return;
         } catch (Exception e) {
             logger.error("Erro ao processar token JWT: {}", e.getMessage());
             sendUnauthorizedError(response, "Token inválido");
@@ -130,11 +157,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Processa a autenticação
         try {
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                logger.debug("Carregando UserDetails para: {}", username);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = resolveUserDetails(claims, username);
 
                 // Valida o token
-                if (jwtUtil.validateToken(jwtToken, userDetails)) {
+                if (jwtUtil.validateToken(claims, userDetails)) {
                     logger.debug("Token válido para: {}", username);
                     setAuthenticationInContext(userDetails, request);
                     logger.debug("Autenticação configurada no contexto para: {}", username);
@@ -157,7 +183,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private boolean isPublicEndpoint(String path) {
+    private UserDetails resolveUserDetails(Claims claims, String username) {
+        if (statelessPrincipalEnabled && jwtUtil.hasPrincipalClaims(claims)) {
+            logger.debug("Montando UserDetails a partir dos claims para: {}", username);
+            return jwtUtil.buildUserDetails(claims);
+        }
+        logger.debug("Carregando UserDetails para: {}", username);
+        return userDetailsService.loadUserByUsername(username);
+    }
+
+    // Visível no pacote para os benchmarks em shipping/benchmarks
+    boolean isPublicEndpoint(String path) {
         return PUBLIC_ENDPOINTS.stream().anyMatch(path::startsWith) ||
                 path.equals("/public/auth/v1/user/login") ||
                 path.equals("/public/auth/v1/user/register");
@@ -170,6 +206,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         );
         authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
         SecurityContextHolder.getContext().setAuthentication(authToken);
+        if (userDetails instanceof CustomUnifiedUserDetailsService.CustomUserDetails customUserDetails) {
+            identityContext.populate(customUserDetails);
+        }
         logger.debug("Autenticação definida no contexto para: {}", userDetails.getUsername());
     }
 
@@ -185,6 +224,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         response.getWriter().write(jsonResponse);
     }
 
+    private void sendServiceUnavailableError(HttpServletResponse response, String message) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", "5");
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+
+        String jsonResponse = String.format(
+                "{\"error\": \"Service Unavailable\", \"message\": \"%s\", \"status\": 503, \"timestamp\": \"%s\"}",
+                message, java.time.LocalDateTime.now()
+        );
+        response.getWriter().write(jsonResponse);
+    }
+
     private void sendInternalError(HttpServletResponse response, String message) throws IOException {
         response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
         response.setContentType("application/json");
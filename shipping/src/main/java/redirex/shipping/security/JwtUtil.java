@@ -1,7 +1,11 @@
 package redirex.shipping.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.Keys;
@@ -11,6 +15,7 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
@@ -18,14 +23,19 @@ import redirex.shipping.entity.AdminEntity;
 import redirex.shipping.entity.UserEntity;
 import redirex.shipping.repositories.AdminRepository;
 import redirex.shipping.repositories.UserRepository;
+import redirex.shipping.security.CustomUnifiedUserDetailsService.CustomUserDetails;
+import redirex.shipping.service.TokenGenerationService;
+import redirex.shipping.util.TokenHasher;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
@@ -33,21 +43,43 @@ import java.util.function.Function;
 public class JwtUtil {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
 
+    public static final String CLAIM_USER_ID = "userId";
+    public static final String CLAIM_USER_TYPE = "userType";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_GENERATION = "gen";
+
     private final UserRepository userRepository;
     private final AdminRepository adminRepository;
+    private final TokenGenerationService tokenGenerationService;
 
     @Value("${jwt.secret:}")
     private String secretKey;
 
-    @Value("${jwt.expiration:86400}")
+    @Value("${jwt.expiration:900}")
     private long expiration;
 
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private long claimsCacheMaxSize;
+
     // Chave fixa para garantir consistência
     private SecretKey signingKey;
 
+    // Parser imutável e thread-safe, criado uma única vez
+    private JwtParser jwtParser;
+
+    // Claims já verificados, indexados pelo hash do token e expirando junto com o próprio token
+    private Cache<String, Claims> verifiedClaimsCache;
+
     @PostConstruct
     public void init() {
         this.signingKey = initializeSigningKey();
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verifiedClaimsCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new ClaimsExpiry())
+                .build();
         logger.info("JwtUtil inicializado com chave de {} bits", signingKey.getEncoded().length * 8);
     }
 
@@ -107,12 +139,24 @@ public class JwtUtil {
 
     public String generateToken(String email, UUID userId) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("userId", userId.toString());
+        claims.put(CLAIM_USER_ID, userId.toString());
         claims.put("email", email);
         claims.put("type", "ACCESS");
         return createToken(claims, email);
     }
 
+    // Gera o token com tudo que o filtro precisa para montar o principal sem consultar o banco
+    public String generateToken(CustomUserDetails userDetails) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_USER_ID, userDetails.getId().toString());
+        claims.put("email", userDetails.getEmail());
+        claims.put("type", "ACCESS");
+        claims.put(CLAIM_USER_TYPE, userDetails.getUserType());
+        claims.put(CLAIM_ROLE, userDetails.getAuthorities().iterator().next().getAuthority());
+        claims.put(CLAIM_GENERATION, tokenGenerationService.currentGeneration(userDetails.getId()));
+        return createToken(claims, userDetails.getEmail());
+    }
+
     private String createToken(Map<String, Object> claims, String subject) {
         logger.debug("Gerando token JWT para: {}", subject);
 
@@ -122,6 +166,7 @@ public class JwtUtil {
 
             String token = Jwts.builder()
                     .setClaims(claims)
+                    .setId(UUID.randomUUID().toString())
                     .setSubject(subject)
                     .setIssuedAt(now)
                     .setExpiration(expiryDate)
@@ -143,7 +188,7 @@ public class JwtUtil {
 
     public UUID getUserIdFromToken(String token) {
         try {
-            String userIdStr = extractClaim(token, claims -> claims.get("userId", String.class));
+            String userIdStr = extractClaim(token, claims -> claims.get(CLAIM_USER_ID, String.class));
             if (userIdStr == null) {
                 logger.error("UserId não encontrado no token JWT");
                 throw new IllegalArgumentException("Token não contém userId");
@@ -155,6 +200,43 @@ public class JwtUtil {
         }
     }
 
+    // Identificador usado na blacklist: o jti, ou o hash do token para tokens emitidos antes do jti
+    public String getTokenId(Claims claims, String token) {
+        String jti = claims.getId();
+        return jti != null ? jti : TokenHasher.sha256(token);
+    }
+
+    // Tokens sem o claim "gen" (emitidos antes da revogação por geração) pertencem à geração 0
+    public long getGeneration(Claims claims) {
+        Long generation = claims.get(CLAIM_GENERATION, Long.class);
+        return generation != null ? generation : 0L;
+    }
+
+    public UUID getUserId(Claims claims) {
+        String userIdStr = claims.get(CLAIM_USER_ID, String.class);
+        if (userIdStr == null) {
+            throw new IllegalArgumentException("Token não contém userId");
+        }
+        return UUID.fromString(userIdStr);
+    }
+
+    public boolean hasPrincipalClaims(Claims claims) {
+        return claims.get(CLAIM_USER_ID) != null
+                && claims.get(CLAIM_USER_TYPE) != null
+                && claims.get(CLAIM_ROLE) != null;
+    }
+
+    // Monta o principal a partir de claims já verificados
+    public CustomUserDetails buildUserDetails(Claims claims) {
+        return new CustomUserDetails(
+                getUserId(claims),
+                claims.getSubject(),
+                null,
+                Collections.singletonList(new SimpleGrantedAuthority(claims.get(CLAIM_ROLE, String.class))),
+                claims.get(CLAIM_USER_TYPE, String.class)
+        );
+    }
+
     public long getExpirationTimeInSeconds(String token) {
         try {
             Date expirationDate = extractClaim(token, Claims::getExpiration);
@@ -166,22 +248,56 @@ public class JwtUtil {
         }
     }
 
+    // Validade (em segundos) dos access tokens emitidos
+    public long getAccessTokenExpiration() {
+        return expiration;
+    }
+
+    public long getExpirationTimeInSeconds(Claims claims) {
+        long remainingSeconds = (claims.getExpiration().getTime() - System.currentTimeMillis()) / 1000;
+        return Math.max(0, remainingSeconds);
+    }
+
     public boolean isTokenExpired(String token) {
         try {
-            return extractClaim(token, Claims::getExpiration).before(new Date());
+            return isTokenExpired(extractAllClaims(token));
         } catch (Exception e) {
             logger.error("Erro ao verificar expiração do token: {}", e.getMessage());
             return true;
         }
     }
 
+    public boolean isTokenExpired(Claims claims) {
+        Date expirationDate = claims.getExpiration();
+        return expirationDate == null || expirationDate.before(new Date());
+    }
+
     public Boolean validateToken(String token, UserDetails userDetails) {
         try {
-            final String username = getUsernameFromToken(token);
+            return validateToken(extractAllClaims(token), userDetails);
+        } catch (ExpiredJwtException e) {
+            logger.warn("Token JWT expirado para: {}", e.getClaims().getSubject());
+            return false;
+        } catch (MalformedJwtException e) {
+            logger.warn("Token JWT malformado: {}", e.getMessage());
+            return false;
+        } catch (SecurityException e) {
+            logger.warn("Assinatura JWT inválida: {}", e.getMessage());
+            return false;
+        } catch (Exception e) {
+            logger.error("Erro inesperado ao validar token: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    // Valida claims já verificados, sem analisar o token novamente
+    public Boolean validateToken(Claims claims, UserDetails userDetails) {
+        try {
+            final String username = claims.getSubject();
             logger.debug("Validando token para usuário: {} vs {}", username, userDetails.getUsername());
 
-            boolean usernameMatches = username.equals(userDetails.getUsername());
-            boolean notExpired = !isTokenExpired(token);
+            boolean usernameMatches = username != null && username.equals(userDetails.getUsername());
+            boolean notExpired = !isTokenExpired(claims);
 
             if (!usernameMatches) {
                 logger.warn("Username não corresponde: token={}, userDetails={}", username, userDetails.getUsername());
@@ -200,15 +316,6 @@ public class JwtUtil {
 
             return isValid;
 
-        } catch (ExpiredJwtException e) {
-            logger.warn("Token JWT expirado para: {}", e.getClaims().getSubject());
-            return false;
-        } catch (MalformedJwtException e) {
-            logger.warn("Token JWT malformado: {}", e.getMessage());
-            return false;
-        } catch (SecurityException e) {
-            logger.warn("Assinatura JWT inválida: {}", e.getMessage());
-            return false;
         } catch (Exception e) {
             logger.error("Erro inesperado ao validar token: {}", e.getMessage());
             return false;
@@ -228,13 +335,24 @@ public class JwtUtil {
         }
     }
 
-    private Claims extractAllClaims(String token) {
+    // Retorna os claims do token, verificando a assinatura apenas na primeira vez que o token é visto
+    public Claims extractAllClaims(String token) {
+        String cacheKey = TokenHasher.sha256(token);
+        Claims cached = verifiedClaimsCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = parseAndVerify(token);
+        if (claims.getExpiration() != null) {
+            verifiedClaimsCache.put(cacheKey, claims);
+        }
+        return claims;
+    }
+
+    private Claims parseAndVerify(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(signingKey)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return jwtParser.parseClaimsJws(token).getBody();
         } catch (ExpiredJwtException e) {
             logger.warn("Token JWT expirado: {}", e.getMessage());
             throw e;
@@ -270,4 +388,23 @@ public class JwtUtil {
                 });
         return admin.getId();
     }
-}
\ No newline at end of file
+
+    // Cada entrada expira no "exp" do próprio token
+    private static final class ClaimsExpiry implements Expiry<String, Claims> {
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
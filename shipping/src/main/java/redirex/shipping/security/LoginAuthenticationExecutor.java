@@ -0,0 +1,87 @@
+package redirex.shipping.security;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import redirex.shipping.exception.LoginThrottledException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Executa a autenticação (consulta + BCrypt) em um pool dedicado e limitado.
+// Quando o pool e a fila estão cheios a tentativa é recusada na hora, sem ocupar CPU nem threads do Tomcat.
+@Component
+public class LoginAuthenticationExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(LoginAuthenticationExecutor.class);
+
+    private final AuthenticationManager authenticationManager;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    public LoginAuthenticationExecutor(AuthenticationManager authenticationManager,
+                                       @Value("${security.login.threads:0}") int threads,
+                                       @Value("${security.login.queue-capacity:64}") int queueCapacity,
+                                       @Value("${security.login.timeout-ms:5000}") long timeoutMs) {
+        this.authenticationManager = authenticationManager;
+        this.timeoutMs = timeoutMs;
+
+        // BCrypt é CPU-bound: por padrão uma thread por núcleo
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        logger.info("Pool de autenticação configurado: {} threads, fila de {}", poolSize, queueCapacity);
+    }
+
+    public Authentication authenticate(Authentication authenticationRequest) {
+        Future<Authentication> future;
+        try {
+            future = executor.submit(() -> authenticationManager.authenticate(authenticationRequest));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Fila de autenticação cheia, recusando login de {}", authenticationRequest.getName());
+            throw new LoginThrottledException("Muitas tentativas de login simultâneas", e);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Falha na autenticação", cause);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            logger.warn("Autenticação de {} excedeu {} ms", authenticationRequest.getName(), timeoutMs);
+            throw new LoginThrottledException("Tempo de autenticação excedido", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new LoginThrottledException("Autenticação interrompida", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
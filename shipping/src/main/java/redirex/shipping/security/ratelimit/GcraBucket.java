@@ -0,0 +1,32 @@
+package redirex.shipping.security.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket implementado como GCRA: o estado é um único "theoretical arrival time" (TAT)
+// atualizado com CAS, sem locks e sem thread de reposição.
+final class GcraBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    GcraBucket(int capacity, long periodNanos) {
+        this.emissionIntervalNanos = Math.max(1L, periodNanos / capacity);
+        this.burstToleranceNanos = emissionIntervalNanos * (capacity - 1L);
+    }
+
+    // Retorna 0 se a requisição foi aceita, ou quantos nanossegundos faltam para haver um token disponível
+    long tryAcquire(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long base = tat == Long.MIN_VALUE ? nowNanos : Math.max(tat, nowNanos);
+            long allowAt = base - burstToleranceNanos;
+            if (nowNanos < allowAt) {
+                return allowAt - nowNanos;
+            }
+            if (theoreticalArrival.compareAndSet(tat, base + emissionIntervalNanos)) {
+                return 0L;
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package redirex.shipping.security.ratelimit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import redirex.shipping.security.ClientIpResolver;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Rate limit dos endpoints públicos sensíveis (login, cadastro, recuperação de senha).
+// Cada nó aplica buckets locais por IP, por email e por rota; opcionalmente um orçamento global por rota no Redis.
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final int MAX_INSPECTED_BODY_BYTES = 16 * 1024;
+
+    enum LimitType { IP, EMAIL, ROUTE, GLOBAL }
+
+    private final RedisRateLimiter redisRateLimiter;
+    private final ObjectMapper objectMapper;
+    private final ClientIpResolver clientIpResolver;
+
+    private final boolean enabled;
+    private final Set<String> protectedPaths;
+
+    private final int ipCapacity;
+    private final long ipPeriodNanos;
+    private final int emailCapacity;
+    private final long emailPeriodNanos;
+    private final int routeCapacity;
+    private final long routePeriodNanos;
+
+    private final boolean globalEnabled;
+    private final int globalCapacity;
+    private final long globalWindowMillis;
+
+    private final Cache<String, GcraBucket> ipBuckets;
+    private final Cache<String, GcraBucket> emailBuckets;
+    private final Cache<String, GcraBucket> routeBuckets;
+
+    private final Counter allowedCounter;
+    private final Map<LimitType, Counter> rejectedCounters = new EnumMap<>(LimitType.class);
+
+    public RateLimitFilter(RedisRateLimiter redisRateLimiter,
+                           ObjectMapper objectMapper,
+                           ClientIpResolver clientIpResolver,
+                           MeterRegistry meterRegistry,
+                           @Value("${security.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${security.rate-limit.paths:/public/auth/v1/user/login,/public/auth/v1/user/register,/public/auth/v1/user/refresh,/public/admin/auth/login,/public/user/account/change/password/redirex,/public/user/account/verify/reset/code/redirex,/public/user/account/reset/password/redirex}") Set<String> protectedPaths,
+                           @Value("${security.rate-limit.ip.capacity:30}") int ipCapacity,
+                           @Value("${security.rate-limit.ip.period-seconds:60}") long ipPeriodSeconds,
+                           @Value("${security.rate-limit.email.capacity:5}") int emailCapacity,
+                           @Value("${security.rate-limit.email.period-seconds:60}") long emailPeriodSeconds,
+                           @Value("${security.rate-limit.route.capacity:100}") int routeCapacity,
+                           @Value("${security.rate-limit.route.period-seconds:1}") long routePeriodSeconds,
+                           @Value("${security.rate-limit.global.enabled:false}") boolean globalEnabled,
+                           @Value("${security.rate-limit.global.capacity:1000}") int globalCapacity,
+                           @Value("${security.rate-limit.global.period-seconds:60}") long globalPeriodSeconds,
+                           @Value("${security.rate-limit.max-tracked-keys:100000}") long maxTrackedKeys) {
+        this.redisRateLimiter = redisRateLimiter;
+        this.objectMapper = objectMapper;
+        this.clientIpResolver = clientIpResolver;
+        this.enabled = enabled;
+        this.protectedPaths = Set.copyOf(protectedPaths);
+        this.ipCapacity = ipCapacity;
+        this.ipPeriodNanos = TimeUnit.SECONDS.toNanos(ipPeriodSeconds);
+        this.emailCapacity = emailCapacity;
+        this.emailPeriodNanos = TimeUnit.SECONDS.toNanos(emailPeriodSeconds);
+        this.routeCapacity = routeCapacity;
+        this.routePeriodNanos = TimeUnit.SECONDS.toNanos(routePeriodSeconds);
+        this.globalEnabled = globalEnabled;
+        this.globalCapacity = globalCapacity;
+        this.globalWindowMillis = TimeUnit.SECONDS.toMillis(globalPeriodSeconds);
+
+        // Um bucket ocioso por mais de um período está cheio de novo e pode ser descartado
+        this.ipBuckets = buildBucketCache(ipPeriodSeconds, maxTrackedKeys);
+        this.emailBuckets = buildBucketCache(emailPeriodSeconds, maxTrackedKeys);
+        this.routeBuckets = buildBucketCache(routePeriodSeconds, this.protectedPaths.size() + 1L);
+
+        this.allowedCounter = Counter.builder("ratelimit.requests")
+                .tag("result", "allowed")
+                .register(meterRegistry);
+        for (LimitType type : LimitType.values()) {
+            rejectedCounters.put(type, Counter.builder("ratelimit.requests")
+                    .tag("result", "rejected")
+                    .tag("limit", type.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        // Sobre os caches, não sobre o filtro: não expõe this antes do fim do construtor
+        Cache<String, GcraBucket> trackedIps = this.ipBuckets;
+        Cache<String, GcraBucket> trackedEmails = this.emailBuckets;
+        Gauge.builder("ratelimit.tracked.keys", () -> trackedIps.estimatedSize() + trackedEmails.estimatedSize())
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+                || !"POST".equalsIgnoreCase(request.getMethod())
+                || !protectedPaths.contains(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getServletPath();
+        long now = System.nanoTime();
+
+        long waitNanos = acquire(ipBuckets, clientIpResolver.resolve(request), ipCapacity, ipPeriodNanos, now);
+        if (waitNanos > 0) {
+            reject(response, LimitType.IP, path, waitNanos);
+            return;
+        }
+
+        waitNanos = acquire(routeBuckets, path, routeCapacity, routePeriodNanos, now);
+        if (waitNanos > 0) {
+            reject(response, LimitType.ROUTE, path, waitNanos);
+            return;
+        }
+
+        // Lê o corpo independente do Content-Length declarado (chunked vem com -1); acima do limite, recusa
+        if (request.getContentLengthLong() > MAX_INSPECTED_BODY_BYTES) {
+            rejectOversizedBody(response, path);
+            return;
+        }
+        byte[] body = request.getInputStream().readNBytes(MAX_INSPECTED_BODY_BYTES + 1);
+        if (body.length > MAX_INSPECTED_BODY_BYTES) {
+            rejectOversizedBody(response, path);
+            return;
+        }
+        CachedBodyHttpServletRequest cachedRequest = new CachedBodyHttpServletRequest(request, body);
+
+        String email = body.length > 0 ? extractEmail(body) : null;
+        if (email != null) {
+            waitNanos = acquire(emailBuckets, email, emailCapacity, emailPeriodNanos, now);
+            if (waitNanos > 0) {
+                reject(response, LimitType.EMAIL, path, waitNanos);
+                return;
+            }
+        }
+
+        if (globalEnabled) {
+            long waitMillis = redisRateLimiter.tryAcquire(path, globalCapacity, globalWindowMillis);
+            if (waitMillis > 0) {
+                reject(response, LimitType.GLOBAL, path, TimeUnit.MILLISECONDS.toNanos(waitMillis));
+                return;
+            }
+        }
+
+        allowedCounter.increment();
+        filterChain.doFilter(cachedRequest, response);
+    }
+
+    private long acquire(Cache<String, GcraBucket> buckets, String key, int capacity, long periodNanos, long now) {
+        return buckets.get(key, k -> new GcraBucket(capacity, periodNanos)).tryAcquire(now);
+    }
+
+    private String extractEmail(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+            if (email != null && email.isTextual() && !email.asText().isBlank()) {
+                return email.asText().trim().toLowerCase(Locale.ROOT);
+            }
+        } catch (IOException e) {
+            // Corpo inválido: a validação do controller responde; aqui só não há email para limitar
+            logger.debug("Corpo não-JSON em endpoint com rate limit: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    private void reject(HttpServletResponse response, LimitType type, String path, long waitNanos) throws IOException {
+        rejectedCounters.get(type).increment();
+        long retryAfterSeconds = Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        logger.warn("Rate limit ({}) excedido em {}", type, path);
+
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+
+        String jsonResponse = String.format(
+                "{\"error\": \"Too Many Requests\", \"message\": \"%s\", \"status\": 429, \"timestamp\": \"%s\"}",
+                "Muitas requisições, tente novamente em " + retryAfterSeconds + "s", java.time.LocalDateTime.now()
+        );
+        response.getWriter().write(jsonResponse);
+    }
+
+    private void rejectOversizedBody(HttpServletResponse response, String path) throws IOException {
+        logger.warn("Corpo acima de {} bytes em {}", MAX_INSPECTED_BODY_BYTES, path);
+        response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+
+        String jsonResponse = String.format(
+                "{\"error\": \"Payload Too Large\", \"message\": \"%s\", \"status\": 413, \"timestamp\": \"%s\"}",
+                "Corpo da requisição acima de " + MAX_INSPECTED_BODY_BYTES + " bytes", java.time.LocalDateTime.now()
+        );
+        response.getWriter().write(jsonResponse);
+    }
+
+    private static Cache<String, GcraBucket> buildBucketCache(long periodSeconds, long maxSize) {
+        return Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofSeconds(Math.max(1L, periodSeconds)))
+                .maximumSize(maxSize)
+                .build();
+    }
+}
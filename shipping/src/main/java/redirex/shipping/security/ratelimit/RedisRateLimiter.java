@@ -0,0 +1,51 @@
+package redirex.shipping.security.ratelimit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+// Orçamento global (compartilhado entre os nós) em janela fixa no Redis.
+// INCR + PEXPIRE rodam atomicamente em um script Lua; o retorno traz o contador e o TTL restante da janela.
+@Component
+public class RedisRateLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(RedisRateLimiter.class);
+    private static final String KEY_PREFIX = "rate_limit:";
+
+    // O Redis devolve a tabela Lua como lista de inteiros
+    @SuppressWarnings("unchecked")
+    private static final RedisScript<List<Long>> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "local count = redis.call('INCR', KEYS[1]) " +
+            "if count == 1 then redis.call('PEXPIRE', KEYS[1], ARGV[1]) end " +
+            "return {count, redis.call('PTTL', KEYS[1])}",
+            (Class<List<Long>>) (Class<?>) List.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public RedisRateLimiter(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    // Retorna 0 se a requisição cabe no orçamento, ou os milissegundos até a janela reiniciar.
+    // Falhas no Redis liberam a requisição: o limite local continua valendo.
+    public long tryAcquire(String bucket, int capacity, long windowMillis) {
+        try {
+            List<Long> result = redisTemplate.execute(INCREMENT_SCRIPT,
+                    Collections.singletonList(KEY_PREFIX + bucket), String.valueOf(windowMillis));
+            if (result == null || result.size() < 2) {
+                return 0L;
+            }
+            long count = result.get(0);
+            long ttlMillis = result.get(1);
+            return count <= capacity ? 0L : Math.max(ttlMillis, 1L);
+        } catch (Exception e) {
+            logger.warn("Falha ao consultar orçamento global de rate limit para {}: {}", bucket, e.getMessage());
+            return 0L;
+        }
+    }
+}
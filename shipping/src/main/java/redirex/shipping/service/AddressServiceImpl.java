@@ -6,7 +6,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import redirex.shipping.dto.request.AddressRequest;
 import redirex.shipping.dto.response.AddressResponse;
@@ -16,7 +15,7 @@ import redirex.shipping.exception.AddressCreatedException;
 import redirex.shipping.exception.ResourceNotFoundException;
 import redirex.shipping.mapper.AddressMapper;
 import redirex.shipping.repositories.AddressRepository;
-import redirex.shipping.repositories.UserRepository;
+import redirex.shipping.security.IdentityContext;
 
 import java.time.LocalDateTime;
 
@@ -25,12 +24,12 @@ public class AddressServiceImpl implements AddressService {
     private static final Logger logger = LoggerFactory.getLogger(AddressServiceImpl.class);
     private final AddressRepository addressRepository;
     private final AddressMapper addressMapper;
-    private final UserRepository userRepository;
+    private final IdentityContext identityContext;
 
-    public AddressServiceImpl(AddressRepository addressRepository, AddressMapper addressMapper, UserRepository userRepository) {
+    public AddressServiceImpl(AddressRepository addressRepository, AddressMapper addressMapper, IdentityContext identityContext) {
         this.addressRepository = addressRepository;
         this.addressMapper = addressMapper;
-        this.userRepository = userRepository;
+        this.identityContext = identityContext;
     }
 
     @Override
@@ -40,17 +39,15 @@ public class AddressServiceImpl implements AddressService {
         logger.info("Creating address for zipcode: {}", dto.zipcode());
         validateAddressDoesNotExist(dto.zipcode());
 
-        UserEntity user = getAuthenticatedUser();
-
         // Verifica se o userId do DTO corresponde ao usuário autenticado
-        if (!user.getId().equals(dto.userId())) {
+        if (!identityContext.getId().equals(dto.userId())) {
             logger.warn("Tentativa de criar endereço para outro usuário. Autenticado: {}, Solicitado: {}",
-                    user.getId(), dto.userId());
+                    identityContext.getId(), dto.userId());
             throw new AccessDeniedException("Não é permitido criar endereço para outro usuário");
         }
 
         AddressEntity address = addressMapper.toEntity(dto);
-        address.setUser(user);
+        address.setUser(getAuthenticatedUser());
         address.setCreatedAt(LocalDateTime.now());
 
         AddressEntity saved = addressRepository.save(address);
@@ -66,8 +63,7 @@ public class AddressServiceImpl implements AddressService {
         AddressEntity address = addressRepository.findByZipcode(zipcode)
                 .orElseThrow(() -> new ResourceNotFoundException("Endereço não encontrado"));
 
-        UserEntity user = getAuthenticatedUser();
-        if (!address.getUser().getId().equals(user.getId()) && !isAdmin(user)) {
+        if (!address.getUser().getId().equals(identityContext.getId()) && !identityContext.isAdmin()) {
             throw new AccessDeniedException("Usuário não tem permissão para alterar este endereço");
         }
 
@@ -90,8 +86,7 @@ public class AddressServiceImpl implements AddressService {
         AddressEntity address = addressRepository.findByZipcode(zipcode)
                 .orElseThrow(() -> new ResourceNotFoundException("Endereço não encontrado"));
 
-        UserEntity user = getAuthenticatedUser();
-        if (!address.getUser().getId().equals(user.getId()) && !isAdmin(user)) {
+        if (!address.getUser().getId().equals(identityContext.getId()) && !identityContext.isAdmin()) {
             throw new AccessDeniedException("Usuário não tem permissão para deletar este endereço");
         }
 
@@ -99,14 +94,9 @@ public class AddressServiceImpl implements AddressService {
         logger.info("Address deleted successfully: {}", zipcode);
     }
 
+    // Entidade carregada no máximo uma vez por requisição pelo IdentityContext
     private UserEntity getAuthenticatedUser() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
-    }
-
-    private boolean isAdmin(UserEntity user) {
-        return user.getRole().equals("ROLE_ADMIN");
+        return identityContext.getUser();
     }
 
     private void validateAddressDoesNotExist(String zipcode) {
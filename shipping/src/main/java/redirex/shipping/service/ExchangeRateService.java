@@ -1,11 +1,20 @@
 package redirex.shipping.service;
 
+import redirex.shipping.dto.response.ExchangeRateHistoryResponse;
 import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.enums.RateBucketEnum;
+
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 public interface ExchangeRateService {
 
     BigDecimal getExchangeRate(CurrencyEnum fromCurrency, CurrencyEnum toCurrency);
 
+    boolean isSupported(CurrencyEnum fromCurrency, CurrencyEnum toCurrency);
+
     void logExchangeRate(CurrencyEnum fromCurrency, CurrencyEnum toCurrency, BigDecimal rate, String source);
-}
\ No newline at end of file
+
+    ExchangeRateHistoryResponse getExchangeRateHistory(CurrencyEnum fromCurrency, CurrencyEnum toCurrency,
+                                                       RateBucketEnum bucket, LocalDateTime start, LocalDateTime end);
+}
@@ -1,53 +1,79 @@
 package redirex.shipping.service;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
-import redirex.shipping.entity.ExchangeRateLogEntity;
+import redirex.shipping.dto.response.ExchangeRateHistoryResponse;
 import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.enums.RateBucketEnum;
+import redirex.shipping.exception.InvalidHistoryRangeException;
 import redirex.shipping.repositories.ExchangeRateLogRepository;
+import redirex.shipping.service.rates.ExchangeRateLogWriter;
+import redirex.shipping.service.rates.ExchangeRateProvider;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @Service
 @Slf4j
 public class ExchangeRateServiceImpl implements ExchangeRateService {
 
+    private final ExchangeRateProvider exchangeRateProvider;
+    private final ExchangeRateLogWriter exchangeRateLogWriter;
     private final ExchangeRateLogRepository exchangeRateLogRepository;
+    private final long maxHistoryBuckets;
 
-    private static final BigDecimal BRL_TO_CNY_RATE = new BigDecimal("1.200");
-
-    public ExchangeRateServiceImpl(ExchangeRateLogRepository exchangeRateLogRepository) {
+    public ExchangeRateServiceImpl(ExchangeRateProvider exchangeRateProvider,
+                                   ExchangeRateLogWriter exchangeRateLogWriter,
+                                   ExchangeRateLogRepository exchangeRateLogRepository,
+                                   @Value("${exchange-rate.history.max-buckets:10000}") long maxHistoryBuckets) {
+        this.exchangeRateProvider = exchangeRateProvider;
+        this.exchangeRateLogWriter = exchangeRateLogWriter;
         this.exchangeRateLogRepository = exchangeRateLogRepository;
+        this.maxHistoryBuckets = maxHistoryBuckets;
     }
 
+    // Lido da matriz do snapshot em memória (qualquer par com cotação); a cotação é atualizada (e registrada)
+    // em background pelo ExchangeRateProvider
     @Override
-    @Cacheable(value = "exchangeRates", key = "#fromCurrency + '-' + #toCurrency")
     public BigDecimal getExchangeRate(CurrencyEnum fromCurrency, CurrencyEnum toCurrency) {
-        if (fromCurrency == toCurrency) {
-            return BigDecimal.ONE;
-        }
-
-        if (fromCurrency != CurrencyEnum.BRL || toCurrency != CurrencyEnum.CNY) {
-            throw new IllegalArgumentException("Apenas a cotação de BRL para CNY é suportada");
-        }
+        return exchangeRateProvider.getRate(fromCurrency, toCurrency);
+    }
 
-        BigDecimal rate = BRL_TO_CNY_RATE;
-        logExchangeRate(fromCurrency, toCurrency, rate, "MANUAL");
-        return rate;
+    @Override
+    public boolean isSupported(CurrencyEnum fromCurrency, CurrencyEnum toCurrency) {
+        return exchangeRateProvider.supports(fromCurrency, toCurrency);
     }
 
+    // Assíncrono e deduplicado: só entra uma linha quando a cotação do par muda
     @Override
     public void logExchangeRate(CurrencyEnum fromCurrency, CurrencyEnum toCurrency, BigDecimal rate, String source) {
-        ExchangeRateLogEntity logEntity = ExchangeRateLogEntity.builder()
-                .fromCurrency(fromCurrency)
-                .toCurrency(toCurrency)
-                .rate(rate)
-                .source(source)
-                .fetchedAt(LocalDateTime.now())
-                .build();
-        exchangeRateLogRepository.save(logEntity);
-        log.info("Cotação salva: {} -> {} = {}, fonte: {}", fromCurrency, toCurrency, rate, source);
+        exchangeRateLogWriter.submit(fromCurrency, toCurrency, rate, source);
+    }
+
+    @Override
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ExchangeRateHistoryResponse getExchangeRateHistory(CurrencyEnum fromCurrency, CurrencyEnum toCurrency,
+                                                              RateBucketEnum bucket, LocalDateTime start, LocalDateTime end) {
+        if (!start.isBefore(end)) {
+            throw new InvalidHistoryRangeException("O início do período deve ser anterior ao fim");
+        }
+        // Alinha o período a intervalos inteiros: o primeiro e o último não ficam parciais
+        ChronoUnit unit = bucket.chronoUnit();
+        LocalDateTime alignedStart = start.truncatedTo(unit);
+        LocalDateTime alignedEnd = end.truncatedTo(unit);
+        if (alignedEnd.isBefore(end)) {
+            alignedEnd = alignedEnd.plus(1, unit);
+        }
+        // Limita o tamanho da resposta: um ano cabe por hora ou por dia, não por minuto
+        long buckets = unit.between(alignedStart, alignedEnd);
+        if (buckets > maxHistoryBuckets) {
+            throw new InvalidHistoryRangeException("Período longo demais para a granularidade " + bucket
+                    + " (máximo de " + maxHistoryBuckets + " intervalos)");
+        }
+        return new ExchangeRateHistoryResponse(fromCurrency, toCurrency, bucket, alignedStart, alignedEnd,
+                exchangeRateLogRepository.findBuckets(fromCurrency, toCurrency, bucket, alignedStart, alignedEnd));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,208 @@
+package redirex.shipping.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import redirex.shipping.entity.IdempotencyRecordEntity;
+import redirex.shipping.enums.IdempotencyStatusEnum;
+import redirex.shipping.exception.IdempotencyConflictException;
+import redirex.shipping.exception.IdempotencyKeyMismatchException;
+import redirex.shipping.repositories.IdempotencyRecordRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Executa uma operação no máximo uma vez por (usuário, operação, Idempotency-Key).
+// A tabela idempotency_records (chave única) é a fonte da verdade; o Redis guarda as respostas
+// concluídas para que as repetições não precisem ir ao banco.
+@Service
+public class IdempotencyService {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+    public static final String HEADER = "Idempotency-Key";
+    private static final String REDIS_KEY_PREFIX = "idempotency:";
+    private static final String REDIS_VALUE_SEPARATOR = "|";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.in-progress-timeout-seconds:600}")
+    private long inProgressTimeoutSeconds;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              RedisTemplate<String, String> redisTemplate,
+                              RedisCircuitBreaker circuitBreaker,
+                              ObjectMapper objectMapper,
+                              TransactionTemplate transactionTemplate) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Sem chave, a operação roda normalmente. Só respostas aceitas por "storable" são guardadas; as demais
+    // (erros, depósitos pendentes) deixam a chave RETRYABLE: a repetição executa de novo, mas só com o mesmo corpo.
+    public <T> T execute(UUID userId, String operation, String idempotencyKey, String requestHash,
+                         Class<T> responseType, Predicate<T> storable, Supplier<T> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must not exceed " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String redisKey = REDIS_KEY_PREFIX + operation + ":" + userId + ":" + idempotencyKey;
+        String cached = circuitBreaker.execute(() -> redisTemplate.opsForValue().get(redisKey), () -> null);
+        if (cached != null) {
+            int separator = cached.indexOf(REDIS_VALUE_SEPARATOR);
+            checkRequestHash(cached.substring(0, separator), requestHash);
+            logger.debug("Idempotent replay from Redis: {} {}", operation, idempotencyKey);
+            return deserialize(cached.substring(separator + 1), responseType);
+        }
+
+        IdempotencyRecordEntity record = reserve(userId, operation, idempotencyKey, requestHash);
+        if (record.getStatus() == IdempotencyStatusEnum.COMPLETED) {
+            checkRequestHash(record.getRequestHash(), requestHash);
+            cache(redisKey, record.getRequestHash(), record.getResponseBody());
+            logger.debug("Idempotent replay from database: {} {}", operation, idempotencyKey);
+            return deserialize(record.getResponseBody(), responseType);
+        }
+
+        T response;
+        try {
+            response = action.get();
+        } catch (IdempotencyKeyMismatchException e) {
+            // A operação já existe com outro corpo (ex.: depósito de uma chave purgada): esta requisição não conta
+            release(record);
+            throw e;
+        } catch (RuntimeException e) {
+            markRetryable(record);
+            throw e;
+        }
+
+        if (response == null || !storable.test(response)) {
+            markRetryable(record);
+            return response;
+        }
+        String body = serialize(response);
+        transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.complete(record.getId(), body));
+        cache(redisKey, requestHash, body);
+        return response;
+    }
+
+    // Insere a reserva IN_PROGRESS; se a chave já existe, devolve o registro concluído, reserva de novo
+    // (RETRYABLE com o mesmo corpo, ou vencido) ou recusa (em andamento, ou corpo diferente)
+    private IdempotencyRecordEntity reserve(UUID userId, String operation, String idempotencyKey, String requestHash) {
+        Supplier<IdempotencyRecordEntity> reservation = () -> IdempotencyRecordEntity.builder()
+                .userId(userId)
+                .operation(operation)
+                .idempotencyKey(idempotencyKey)
+                .requestHash(requestHash)
+                .status(IdempotencyStatusEnum.IN_PROGRESS)
+                .expiresAt(LocalDateTime.now().plusHours(ttlHours))
+                .build();
+        try {
+            return transactionTemplate.execute(status -> idempotencyRecordRepository.saveAndFlush(reservation.get()));
+        } catch (DataIntegrityViolationException e) {
+            IdempotencyRecordEntity existing = idempotencyRecordRepository
+                    .findByUserIdAndOperationAndIdempotencyKey(userId, operation, idempotencyKey)
+                    .orElseThrow(() -> new IdempotencyConflictException(
+                            "A request with this " + HEADER + " is being processed. Retry later."));
+            // Vencido mas ainda não purgado: a chave vale como nova
+            if (existing.getExpiresAt().isBefore(LocalDateTime.now())) {
+                return reclaim(existing, reservation);
+            }
+            checkRequestHash(existing.getRequestHash(), requestHash);
+            return switch (existing.getStatus()) {
+                case COMPLETED -> existing;
+                case RETRYABLE -> reclaim(existing, reservation);
+                case IN_PROGRESS -> throw new IdempotencyConflictException(
+                        "A request with this " + HEADER + " is being processed. Retry later.");
+            };
+        }
+    }
+
+    private IdempotencyRecordEntity reclaim(IdempotencyRecordEntity existing, Supplier<IdempotencyRecordEntity> reservation) {
+        return transactionTemplate.execute(status -> {
+            if (idempotencyRecordRepository.deleteReclaimable(existing.getId(), LocalDateTime.now()) == 0) {
+                throw new IdempotencyConflictException("A request with this " + HEADER + " is being processed. Retry later.");
+            }
+            return idempotencyRecordRepository.saveAndFlush(reservation.get());
+        });
+    }
+
+    private void release(IdempotencyRecordEntity record) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.deleteById(record.getId()));
+        } catch (Exception e) {
+            // A reserva expira pelo purge; até lá a chave responde 409
+            logger.error("Failed to release idempotency key {}", record.getIdempotencyKey(), e);
+        }
+    }
+
+    // O registro fica (com o hash do corpo) para que a repetição com a mesma chave e outro corpo receba 422
+    private void markRetryable(IdempotencyRecordEntity record) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.markRetryable(record.getId()));
+        } catch (Exception e) {
+            // A reserva expira pelo purge; até lá a chave responde 409
+            logger.error("Failed to release idempotency key {}", record.getIdempotencyKey(), e);
+        }
+    }
+
+    private void checkRequestHash(String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash)) {
+            throw new IdempotencyKeyMismatchException(HEADER + " was already used with a different request");
+        }
+    }
+
+    private void cache(String redisKey, String requestHash, String body) {
+        circuitBreaker.execute(() -> {
+            redisTemplate.opsForValue().set(redisKey, requestHash + REDIS_VALUE_SEPARATOR + body, Duration.ofHours(ttlHours));
+            return null;
+        }, () -> null);
+    }
+
+    private String serialize(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize idempotent response", e);
+        }
+    }
+
+    private <T> T deserialize(String body, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(body, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to deserialize idempotent response", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer deleted = transactionTemplate.execute(status ->
+                idempotencyRecordRepository.deleteExpired(now, now.minusSeconds(inProgressTimeoutSeconds)));
+        if (deleted != null && deleted > 0) {
+            logger.info("Removidos {} registros de idempotência expirados", deleted);
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package redirex.shipping.service;
 
 import jakarta.validation.Valid;
+import redirex.shipping.dto.request.CheckoutRequest;
 import redirex.shipping.dto.request.CreateOrderItemRequest;
+import redirex.shipping.dto.response.CheckoutResponse;
 import redirex.shipping.dto.response.OrderItemResponse;
 
 import java.util.UUID;
@@ -9,4 +11,5 @@ import java.util.UUID;
 public interface OrderItemService {
     OrderItemResponse createOrderItem(UUID userId, @Valid CreateOrderItemRequest request);
     OrderItemResponse processOrderPayment(UUID orderItemId, UUID userId);
+    CheckoutResponse checkout(UUID userId, CheckoutRequest request);
 }
\ No newline at end of file
@@ -3,21 +3,28 @@ package redirex.shipping.service;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import redirex.shipping.dto.internal.WalletMovementResult;
+import redirex.shipping.dto.request.CheckoutRequest;
 import redirex.shipping.dto.request.CreateOrderItemRequest;
+import redirex.shipping.dto.response.CheckoutResponse;
 import redirex.shipping.dto.response.OrderItemResponse;
 import redirex.shipping.entity.*;
 import redirex.shipping.enums.CurrencyEnum;
 import redirex.shipping.enums.OrderItemStatusEnum;
+import redirex.shipping.exception.CheckoutRejectedException;
 import redirex.shipping.exception.InsufficientBalanceException;
 import redirex.shipping.exception.OrderCreationFailedException;
 import redirex.shipping.exception.PaymentProcessingException;
 import redirex.shipping.exception.ResourceNotFoundException;
+import redirex.shipping.money.Money;
+import redirex.shipping.money.PricingRounding;
 import redirex.shipping.repositories.OrderItemRepository;
 import redirex.shipping.repositories.UserRepository;
 import redirex.shipping.repositories.WarehouseRepository;
@@ -25,7 +32,12 @@ import redirex.shipping.service.admin.OrderDistributionService;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderItemServiceImpl implements OrderItemService {
@@ -41,6 +53,9 @@ public class OrderItemServiceImpl implements OrderItemService {
     private final WebScrapingService webScrapingService;
     private static final int MAX_RETRY_ATTEMPTS = 3;
 
+    @Value("${orders.checkout.max-items:50}")
+    private int checkoutMaxItems;
+
     public OrderItemServiceImpl(OrderItemRepository orderItemRepository,
                                 WarehouseRepository warehouseRepository,
                                 UserRepository userRepository,
@@ -86,10 +101,13 @@ public class OrderItemServiceImpl implements OrderItemService {
             productPrice = request.productValue();
         }
 
-        productPrice = productPrice.setScale(2, java.math.RoundingMode.HALF_UP);
+        Money productValue = Money.of(productPrice, CurrencyEnum.CNY, PricingRounding.INPUT);
+        if (!productValue.isPositive()) {
+            throw new IllegalArgumentException("Product price must be positive");
+        }
 
         // Criar entidade
-        OrderItemEntity orderItem = mapRequestToEntity(request, user, warehouse, productPrice);
+        OrderItemEntity orderItem = mapRequestToEntity(request, user, warehouse, productValue);
 
         try {
             orderItem = orderItemRepository.save(orderItem);
@@ -130,7 +148,7 @@ public class OrderItemServiceImpl implements OrderItemService {
         }
 
         try {
-            BigDecimal paymentAmount = orderItem.getProductValue().setScale(2, java.math.RoundingMode.HALF_UP);
+            Money paymentAmount = orderItem.getProductValue();
 
             processPaymentWithRetry(
                     orderItem.getUser(),
@@ -158,24 +176,90 @@ public class OrderItemServiceImpl implements OrderItemService {
         return mapEntityToResponse(orderItem);
     }
 
+    // Paga vários pedidos com um único débito na carteira. Tudo ou nada: qualquer pedido inválido ou saldo
+    // insuficiente aborta o checkout inteiro, sem marcar pedidos como PAYMENT_FAILED.
+    @Override
+    @Transactional
+    @PreAuthorize("@permissionService.isOwnerOrAdmin(#userId)")
+    public CheckoutResponse checkout(UUID userId, CheckoutRequest request) {
+        Set<UUID> orderItemIds = request.orderItemIds();
+        if (orderItemIds == null || orderItemIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one order ID is required");
+        }
+        if (orderItemIds.size() > checkoutMaxItems) {
+            throw new IllegalArgumentException("Checkout accepts at most " + checkoutMaxItems + " orders");
+        }
+
+        // Uma consulta valida existência, dono e status e trava os pedidos até o commit
+        List<OrderItemEntity> orderItems = orderItemRepository.findAllForCheckout(userId, orderItemIds);
+        if (orderItems.size() != orderItemIds.size()) {
+            Set<UUID> found = orderItems.stream().map(OrderItemEntity::getId).collect(Collectors.toSet());
+            List<UUID> missing = orderItemIds.stream().filter(id -> !found.contains(id)).toList();
+            logger.warn("Checkout rejected for user {}: orders not found {}", userId, missing);
+            throw new CheckoutRejectedException("Orders not found: " + missing);
+        }
+        List<UUID> notPayable = orderItems.stream()
+                .filter(item -> item.getStatus() != OrderItemStatusEnum.CREATING_ORDER)
+                .map(OrderItemEntity::getId)
+                .toList();
+        if (!notPayable.isEmpty()) {
+            logger.warn("Checkout rejected for user {}: orders not in a payable state {}", userId, notPayable);
+            throw new CheckoutRejectedException("Orders are not in a payable state: " + notPayable);
+        }
+
+        Map<UUID, Money> amounts = new LinkedHashMap<>();
+        for (OrderItemEntity item : orderItems) {
+            amounts.put(item.getId(), item.getProductValue());
+        }
+        WalletMovementResult payment = userWalletService.debitForOrders(userId, amounts);
+
+        LocalDateTime paidAt = LocalDateTime.now();
+        AdminEntity assignedAdmin = orderDistributionService.assignToLeastBusyAdmin();
+        int updated = orderItemRepository.markPaid(orderItemIds, OrderItemStatusEnum.CREATING_ORDER,
+                OrderItemStatusEnum.PAID, paidAt, assignedAdmin);
+        if (updated != orderItems.size()) {
+            // Não deveria acontecer com as linhas travadas; o rollback desfaz o débito
+            throw new IllegalStateException("Expected to mark " + orderItems.size() + " orders as paid, updated " + updated);
+        }
+
+        // As entidades carregadas ficaram desatualizadas com o UPDATE em lote; reflete o novo estado só na resposta
+        Money total = null;
+        for (OrderItemEntity item : orderItems) {
+            item.setStatus(OrderItemStatusEnum.PAID);
+            item.setPaidProductAt(paidAt);
+            item.setArrivedAtWarehouseAt(paidAt);
+            total = total == null ? item.getProductValue() : total.plus(item.getProductValue());
+        }
+
+        logger.info("Checkout paid for user {}: {} orders, total {}, transactionId {}",
+                userId, orderItems.size(), total, payment.transactionId());
+        return new CheckoutResponse(
+                payment.transactionId(),
+                total.toBigDecimal(),
+                total.currency(),
+                payment.balance(),
+                orderItems.stream().map(this::mapEntityToResponse).toList()
+        );
+    }
+
     @Retryable(
             value = {Exception.class},
             exclude = {InsufficientBalanceException.class},
             maxAttempts = MAX_RETRY_ATTEMPTS,
             backoff = @Backoff(delay = 1000, multiplier = 2)
     )
-    private void processPaymentWithRetry(UserEntity user, BigDecimal amount, UUID orderItemId)
+    private void processPaymentWithRetry(UserEntity user, Money amount, UUID orderItemId)
             throws InsufficientBalanceException {
         try {
             userWalletService.debitFromWallet(
                     user.getId(),
-                    CurrencyEnum.CNY,
-                    amount,
+                    amount.currency(),
+                    amount.toBigDecimal(),
                     "ORDER_PAYMENT",
                     "Payment of the order: " + orderItemId,
                     orderItemId,
                     null,
-                    amount
+                    amount.toBigDecimal()
             );
         } catch (InsufficientBalanceException ex) {
             throw ex;
@@ -194,7 +278,7 @@ public class OrderItemServiceImpl implements OrderItemService {
     private OrderItemEntity mapRequestToEntity(CreateOrderItemRequest request,
                                                UserEntity user,
                                                WarehouseEntity warehouse,
-                                               BigDecimal productPrice) {
+                                               Money productPrice) {
         return OrderItemEntity.builder()
                 .user(user)
                 .productUrl(request.productUrl())
@@ -223,7 +307,7 @@ public class OrderItemServiceImpl implements OrderItemService {
                 entity.getSize(),
                 entity.getCategory(),
                 entity.getQuantity(),
-                entity.getProductValue(),
+                entity.getProductValue().toBigDecimal(),
                 entity.getStatus(),
                 entity.getCreatedAt(),
                 entity.getPaidProductAt(),
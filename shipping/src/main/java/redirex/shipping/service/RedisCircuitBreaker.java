@@ -0,0 +1,142 @@
+package redirex.shipping.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Circuit breaker das chamadas ao Redis feitas no caminho de autenticação (blacklist e geração de tokens).
+// Depois de N falhas seguidas o circuito abre e as chamadas vão direto para o fallback, sem esperar o timeout
+// do cliente Redis; passado o intervalo configurado, uma única chamada de teste decide se ele fecha de novo.
+@Component
+public class RedisCircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(RedisCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    // Comportamento quando não há informação local para decidir
+    public enum FailurePolicy { FAIL_OPEN, FAIL_CLOSED }
+
+    // Decisão de allowRequest: PROBE só para a thread que venceu o CAS OPEN -> HALF_OPEN
+    private enum Admission { DENIED, NORMAL, PROBE }
+
+    private final int failureThreshold;
+    private final long openDurationMs;
+    private final FailurePolicy failurePolicy;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openedAt = new AtomicLong();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+
+    public RedisCircuitBreaker(MeterRegistry meterRegistry,
+                               @Value("${security.redis-breaker.failure-threshold:5}") int failureThreshold,
+                               @Value("${security.redis-breaker.open-duration-ms:10000}") long openDurationMs,
+                               @Value("${security.redis-breaker.failure-policy:FAIL_CLOSED}") FailurePolicy failurePolicy) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+        this.failurePolicy = failurePolicy;
+
+        Gauge.builder("redis.circuit.state", state, s -> s.get().ordinal())
+                .description("0=CLOSED, 1=OPEN, 2=HALF_OPEN")
+                .register(meterRegistry);
+        Gauge.builder("redis.circuit.rejected", rejectedCalls, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    public <T> T execute(Supplier<T> call, Supplier<T> fallback) {
+        return execute(call, cause -> fallback.get());
+    }
+
+    // O fallback recebe a falha do Redis, ou CircuitOpenException quando o circuito nem deixou chamar
+    public <T> T execute(Supplier<T> call, Function<RuntimeException, T> fallback) {
+        Admission admission = allowRequest();
+        if (admission == Admission.DENIED) {
+            rejectedCalls.incrementAndGet();
+            return fallback.apply(new CircuitOpenException());
+        }
+        try {
+            T result = call.get();
+            onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            onFailure(e);
+            return fallback.apply(e);
+        } finally {
+            // Um Error na chamada de teste não passa por onSuccess/onFailure: sem isto o circuito ficaria em HALF_OPEN
+            if (admission == Admission.PROBE && state.compareAndSet(State.HALF_OPEN, State.OPEN)) {
+                openedAt.set(System.currentTimeMillis());
+            }
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public FailurePolicy getFailurePolicy() {
+        return failurePolicy;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+    public long getOpenedAt() {
+        return openedAt.get();
+    }
+
+    private Admission allowRequest() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return Admission.NORMAL;
+        }
+        if (current == State.OPEN && System.currentTimeMillis() - openedAt.get() >= openDurationMs
+                // Só a thread que vence o CAS faz a chamada de teste
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            return Admission.PROBE;
+        }
+        return Admission.DENIED;
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        State previous = state.getAndSet(State.CLOSED);
+        if (previous != State.CLOSED) {
+            logger.info("Circuito do Redis fechado, voltando a consultar o Redis");
+        }
+    }
+
+    private void onFailure(RuntimeException e) {
+        int failures = consecutiveFailures.incrementAndGet();
+        State current = state.get();
+        if (current == State.HALF_OPEN || (current == State.CLOSED && failures >= failureThreshold)) {
+            if (state.compareAndSet(current, State.OPEN)) {
+                openedAt.set(System.currentTimeMillis());
+                logger.warn("Circuito do Redis aberto após {} falhas (política {}): {}",
+                        failures, failurePolicy, e.getMessage());
+            }
+        } else {
+            logger.debug("Falha no Redis ({} seguidas): {}", failures, e.getMessage());
+        }
+    }
+
+    public static class CircuitOpenException extends RuntimeException {
+        CircuitOpenException() {
+            // Sem stack trace: é lançada a cada chamada enquanto o circuito está aberto
+            super("Redis circuit breaker is open", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package redirex.shipping.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import redirex.shipping.entity.RefreshTokenEntity;
+import redirex.shipping.exception.InvalidRefreshTokenException;
+import redirex.shipping.repositories.RefreshTokenRepository;
+import redirex.shipping.security.CustomUnifiedUserDetailsService;
+import redirex.shipping.security.CustomUnifiedUserDetailsService.CustomUserDetails;
+import redirex.shipping.util.TokenHasher;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+// Refresh tokens opacos com rotação: cada uso gera um novo token e invalida o anterior.
+// Reapresentar um token já rotacionado indica vazamento e revoga toda a família.
+@Service
+public class RefreshTokenService {
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final CustomUnifiedUserDetailsService userDetailsService;
+    private final TokenGenerationService tokenGenerationService;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+    @Value("${jwt.refresh-expiration:1209600}")
+    private long refreshExpiration;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               CustomUnifiedUserDetailsService userDetailsService,
+                               TokenGenerationService tokenGenerationService) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userDetailsService = userDetailsService;
+        this.tokenGenerationService = tokenGenerationService;
+    }
+
+    // Emite o primeiro token de uma nova família (login)
+    @Transactional
+    public String issue(CustomUserDetails userDetails) {
+        return createToken(userDetails, UUID.randomUUID()).rawToken();
+    }
+
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public RotationResult rotate(String rawToken, String expectedUserType) {
+        RefreshTokenEntity current = refreshTokenRepository.findByTokenHashForUpdate(TokenHasher.sha256(rawToken))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Refresh token inválido"));
+
+        LocalDateTime now = LocalDateTime.now();
+
+        if (current.getRevokedAt() != null) {
+            int revoked = refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            logger.warn("Reuso de refresh token detectado para {} (família {}); {} tokens revogados",
+                    current.getEmail(), current.getFamilyId(), revoked);
+            throw new InvalidRefreshTokenException("Refresh token inválido");
+        }
+
+        if (!current.getExpiresAt().isAfter(now)) {
+            throw new InvalidRefreshTokenException("Refresh token expirado");
+        }
+
+        if (!current.getUserType().equals(expectedUserType)) {
+            logger.warn("Refresh token de {} apresentado no endpoint de {}", current.getUserType(), expectedUserType);
+            throw new InvalidRefreshTokenException("Refresh token inválido");
+        }
+
+        // Logout global, troca de senha ou de perfil incrementam a geração e invalidam também os refresh tokens
+        if (!tokenGenerationService.isCurrent(current.getUserId(), current.getGeneration())) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            throw new InvalidRefreshTokenException("Refresh token revogado");
+        }
+
+        CustomUserDetails userDetails;
+        try {
+            userDetails = (CustomUserDetails) userDetailsService.loadUserByUsername(current.getEmail());
+        } catch (UsernameNotFoundException e) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            throw new InvalidRefreshTokenException("Refresh token inválido");
+        }
+
+        if (!userDetails.getId().equals(current.getUserId())) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            throw new InvalidRefreshTokenException("Refresh token inválido");
+        }
+
+        IssuedToken next = createToken(userDetails, current.getFamilyId());
+        current.setRevokedAt(now);
+        current.setReplacedById(next.entity().getId());
+        refreshTokenRepository.save(current);
+
+        logger.debug("Refresh token rotacionado para {} (família {})", current.getEmail(), current.getFamilyId());
+        return new RotationResult(userDetails, next.rawToken());
+    }
+
+    // Revoga a família do token informado (logout de uma sessão)
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHashForUpdate(TokenHasher.sha256(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now()));
+    }
+
+    @Transactional
+    public int revokeAllForUser(UUID userId) {
+        return refreshTokenRepository.revokeAllByUserId(userId, LocalDateTime.now());
+    }
+
+    public long getRefreshExpiration() {
+        return refreshExpiration;
+    }
+
+    // Tokens revogados são mantidos até expirarem para que o reuso continue sendo detectado
+    @Scheduled(fixedDelayString = "${security.refresh-token.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpiredBefore(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("Removidos {} refresh tokens expirados", deleted);
+        }
+    }
+
+    private IssuedToken createToken(CustomUserDetails userDetails, UUID familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String rawToken = encoder.encodeToString(bytes);
+
+        RefreshTokenEntity entity = RefreshTokenEntity.builder()
+                .tokenHash(TokenHasher.sha256(rawToken))
+                .userId(userDetails.getId())
+                .email(userDetails.getEmail())
+                .userType(userDetails.getUserType())
+                .familyId(familyId)
+                .generation(tokenGenerationService.currentGeneration(userDetails.getId()))
+                .expiresAt(LocalDateTime.now().plusSeconds(refreshExpiration))
+                .build();
+
+        return new IssuedToken(refreshTokenRepository.save(entity), rawToken);
+    }
+
+    private record IssuedToken(RefreshTokenEntity entity, String rawToken) {
+    }
+
+    public record RotationResult(CustomUserDetails userDetails, String refreshToken) {
+    }
+}
@@ -4,5 +4,8 @@ import redirex.shipping.enums.CurrencyEnum;
 import redirex.shipping.exception.StripePaymentException;
 
 public interface StripeService {
-    boolean processPayment(String paymentMethodId, Long amountInCents, CurrencyEnum currency) throws StripePaymentException;
+    // idempotencyKey: repetir a chamada com a mesma chave devolve o resultado da primeira, sem nova cobrança.
+    // Lança PaymentOutcomeUnknownException quando não dá para saber se a cobrança aconteceu.
+    boolean processPayment(String paymentMethodId, Long amountInCents, CurrencyEnum currency, String idempotencyKey)
+            throws StripePaymentException;
 }
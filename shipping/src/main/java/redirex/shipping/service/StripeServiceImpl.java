@@ -1,21 +1,24 @@
 package redirex.shipping.service;
 
 import com.stripe.Stripe;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.ApiException;
+import com.stripe.exception.RateLimitException;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.PaymentIntentCreateParams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.exception.PaymentOutcomeUnknownException;
 import redirex.shipping.exception.StripePaymentException;
 
 import jakarta.annotation.PostConstruct;
 
 @Service
-@Profile("!test")
 public class StripeServiceImpl implements StripeService {
 
     private static final Logger logger = LoggerFactory.getLogger(StripeServiceImpl.class);
@@ -29,9 +32,10 @@ public class StripeServiceImpl implements StripeService {
     }
 
     @Override
-    public boolean processPayment(String paymentMethodId, Long amountInCents, CurrencyEnum currency) throws StripePaymentException {
-        logger.info("Attempting to process Stripe payment. PaymentMethodID: {}, Amount: {} {}, Currency: {}",
-                paymentMethodId, amountInCents, currency.name().toLowerCase(), currency.name());
+    public boolean processPayment(String paymentMethodId, Long amountInCents, CurrencyEnum currency, String idempotencyKey)
+            throws StripePaymentException {
+        logger.info("Attempting to process Stripe payment. PaymentMethodID: {}, Amount: {} {}, Currency: {}, IdempotencyKey: {}",
+                paymentMethodId, amountInCents, currency.name().toLowerCase(), currency.name(), idempotencyKey);
 
         try {
             PaymentIntentCreateParams params =
@@ -43,7 +47,11 @@ public class StripeServiceImpl implements StripeService {
                             .setConfirm(true)
                             .build();
 
-            PaymentIntent paymentIntent = PaymentIntent.create(params);
+            RequestOptions options = RequestOptions.builder()
+                    .setIdempotencyKey(idempotencyKey)
+                    .build();
+
+            PaymentIntent paymentIntent = PaymentIntent.create(params, options);
 
             logger.info("PaymentIntent created with ID: {} and status: {}", paymentIntent.getId(), paymentIntent.getStatus());
 
@@ -68,6 +76,12 @@ public class StripeServiceImpl implements StripeService {
                 }
             }
 
+        } catch (StripePaymentException e) {
+            throw e;
+        } catch (ApiConnectionException | ApiException | RateLimitException e) {
+            // Sem resposta conclusiva do Stripe: a recuperação repete com a mesma chave de idempotência
+            logger.warn("Stripe payment outcome unknown for PaymentMethodID: {}: {}", paymentMethodId, e.getMessage());
+            throw new PaymentOutcomeUnknownException("Stripe payment outcome unknown: " + e.getMessage(), e);
         } catch (StripeException e) {
             logger.error("Stripe API error during payment processing for PaymentMethodID: {}: {}", paymentMethodId, e.getMessage(), e);
             throw new StripePaymentException("Stripe API error: " + e.getMessage(), e);
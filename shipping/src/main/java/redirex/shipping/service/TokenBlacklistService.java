@@ -2,44 +2,171 @@ package redirex.shipping.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import redirex.shipping.util.TokenHasher;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
+// Blacklist de tokens (pelo jti) com cópia local em memória. O Redis continua sendo a fonte da verdade;
+// cada nó mantém o conjunto de revogados sincronizado via pub/sub e o reconstrói na inicialização.
 @Service
-public class TokenBlacklistService {
+public class TokenBlacklistService implements MessageListener {
     private static final Logger logger = LoggerFactory.getLogger(TokenBlacklistService.class);
-    private static final String BLACKLIST_KEY_PREFIX = "blacklist_token:";
+    private static final String BLACKLIST_KEY_PREFIX = "blacklist_jti:";
+    // Formato antigo (token inteiro na chave), migrado para o formato por jti durante a sincronização
+    private static final String LEGACY_BLACKLIST_KEY_PREFIX = "blacklist_token:";
+    private static final String EVENT_SEPARATOR = "|";
+    public static final String EVENTS_CHANNEL = "token_blacklist_events";
 
     private final RedisTemplate<String, String> redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
 
-    public TokenBlacklistService(RedisTemplate<String, String> redisTemplate) {
+    // jti -> instante (epoch millis) em que a revogação deixa de importar
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    @Value("${security.blacklist.near-cache.enabled:true}")
+    private boolean nearCacheEnabled;
+
+    // Só responde localmente depois da primeira sincronização completa com o Redis
+    private volatile boolean synced = false;
+
+    public TokenBlacklistService(RedisTemplate<String, String> redisTemplate, RedisCircuitBreaker circuitBreaker) {
         this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
     }
 
-    public void addToBlacklist(String token, long ttlInSeconds) {
+    public void addToBlacklist(String tokenId, long ttlInSeconds) {
+        long expiresAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlInSeconds);
+        // Mesmo com o Redis fora, o token já fica revogado neste nó
+        revokedTokens.put(tokenId, expiresAt);
+        circuitBreaker.execute(() -> {
+            redisTemplate.opsForValue().set(buildRedisKey(tokenId), "1", ttlInSeconds, TimeUnit.SECONDS);
+            redisTemplate.convertAndSend(EVENTS_CHANNEL, tokenId + EVENT_SEPARATOR + expiresAt);
+            logger.debug("Token blacklisted: {}", tokenId);
+            return null;
+        }, cause -> {
+            logger.error("Error adding token to blacklist: {}", tokenId);
+            throw new RedisOperationException("Failed to blacklist token", cause);
+        });
+    }
+
+    public boolean isTokenBlacklisted(String tokenId) {
+        if (nearCacheEnabled && synced) {
+            return isRevokedLocally(tokenId);
+        }
+        return circuitBreaker.execute(
+                () -> Boolean.TRUE.equals(redisTemplate.hasKey(buildRedisKey(tokenId))),
+                cause -> isBlacklistedDegraded(tokenId, cause));
+    }
+
+    // Redis indisponível: responde pelo último snapshot local e, sem ele, aplica a política configurada
+    private boolean isBlacklistedDegraded(String tokenId, RuntimeException cause) {
+        if (isRevokedLocally(tokenId)) {
+            return true;
+        }
+        if (synced || circuitBreaker.getFailurePolicy() == RedisCircuitBreaker.FailurePolicy.FAIL_OPEN) {
+            return false;
+        }
+        throw new RedisOperationException("Failed to check token blacklist status", cause);
+    }
+
+    // Eventos publicados por qualquer nó (inclusive este) ao revogar um token
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf(EVENT_SEPARATOR);
+        if (separator <= 0) {
+            logger.warn("Ignoring malformed blacklist event: {}", body);
+            return;
+        }
         try {
-            String key = buildRedisKey(token);
-            redisTemplate.opsForValue().set(key, "revoked", ttlInSeconds, TimeUnit.SECONDS);
-            logger.debug("Token blacklisted: {}", token);
-        } catch (Exception e) {
-            logger.error("Error adding token to blacklist: {}", token, e);
-            throw new RedisOperationException("Failed to blacklist token", e);
+            revokedTokens.put(body.substring(0, separator), Long.parseLong(body.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring malformed blacklist event: {}", body);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialSync() {
+        if (nearCacheEnabled) {
+            resyncFromRedis();
         }
     }
 
-    public boolean isTokenBlacklisted(String token) {
+    // Cobre eventos de pub/sub perdidos durante desconexões
+    @Scheduled(fixedDelayString = "${security.blacklist.resync-interval-ms:300000}",
+            initialDelayString = "${security.blacklist.resync-interval-ms:300000}")
+    public void resyncFromRedis() {
+        if (!nearCacheEnabled) {
+            return;
+        }
         try {
-            return redisTemplate.hasKey(buildRedisKey(token));
+            migrateLegacyEntries();
+
+            long now = System.currentTimeMillis();
+            int loaded = 0;
+            ScanOptions options = ScanOptions.scanOptions().match(BLACKLIST_KEY_PREFIX + "*").count(1000).build();
+            try (Cursor<String> cursor = redisTemplate.scan(options)) {
+                while (cursor.hasNext()) {
+                    String key = cursor.next();
+                    Long ttlMillis = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+                    if (ttlMillis == null || ttlMillis == -2) {
+                        continue;
+                    }
+                    long expiresAt = ttlMillis < 0 ? Long.MAX_VALUE : now + ttlMillis;
+                    revokedTokens.put(key.substring(BLACKLIST_KEY_PREFIX.length()), expiresAt);
+                    loaded++;
+                }
+            }
+            synced = true;
+            logger.info("Token blacklist near-cache synced from Redis: {} revoked tokens", loaded);
         } catch (Exception e) {
-            logger.error("Error checking token blacklist status: {}", token, e);
-            throw new RedisOperationException("Failed to check token blacklist status", e);
+            logger.error("Failed to sync token blacklist near-cache from Redis", e);
         }
     }
 
-    private String buildRedisKey(String token) {
-        return BLACKLIST_KEY_PREFIX + token;
+    // Converte chaves "blacklist_token:<token>" em "blacklist_jti:<hash do token>", preservando o TTL.
+    // Tokens antigos não têm jti e são identificados pelo hash (ver JwtUtil.getTokenId).
+    private void migrateLegacyEntries() {
+        ScanOptions options = ScanOptions.scanOptions().match(LEGACY_BLACKLIST_KEY_PREFIX + "*").count(1000).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String legacyKey = cursor.next();
+                Long ttlSeconds = redisTemplate.getExpire(legacyKey, TimeUnit.SECONDS);
+                if (ttlSeconds != null && ttlSeconds > 0) {
+                    String tokenId = TokenHasher.sha256(legacyKey.substring(LEGACY_BLACKLIST_KEY_PREFIX.length()));
+                    redisTemplate.opsForValue().set(buildRedisKey(tokenId), "1", ttlSeconds, TimeUnit.SECONDS);
+                }
+                redisTemplate.delete(legacyKey);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${security.blacklist.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    private boolean isRevokedLocally(String tokenId) {
+        Long expiresAt = revokedTokens.get(tokenId);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    private String buildRedisKey(String tokenId) {
+        return BLACKLIST_KEY_PREFIX + tokenId;
     }
 
     public static class RedisOperationException extends RuntimeException {
@@ -47,4 +174,4 @@ public class TokenBlacklistService {
             super(message, cause);
         }
     }
-}
\ No newline at end of file
+}
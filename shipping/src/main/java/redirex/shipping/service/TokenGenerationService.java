@@ -0,0 +1,142 @@
+package redirex.shipping.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+// Mantém a "geração" de tokens de cada usuário. Tokens emitidos com geração anterior à atual são considerados revogados.
+// Incrementar a geração revoga todas as sessões do usuário em O(1), sem listar os tokens emitidos.
+@Service
+public class TokenGenerationService implements MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(TokenGenerationService.class);
+    private static final String GENERATION_KEY_PREFIX = "token_generation:";
+    private static final String EVENT_SEPARATOR = "|";
+    public static final String EVENTS_CHANNEL = "token_generation_events";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final Cache<UUID, Long> localGenerations;
+    // Último valor conhecido de cada usuário, sem TTL: usado apenas quando o Redis está indisponível
+    private final Cache<UUID, Long> lastKnownGenerations;
+
+    public TokenGenerationService(RedisTemplate<String, String> redisTemplate,
+                                  RedisCircuitBreaker circuitBreaker,
+                                  @Value("${security.token-generation.cache-ttl-seconds:30}") long cacheTtlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.localGenerations = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .maximumSize(100_000)
+                .build();
+        this.lastKnownGenerations = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .build();
+    }
+
+    public long currentGeneration(UUID userId) {
+        Long cached = localGenerations.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        return circuitBreaker.execute(() -> {
+            String value = redisTemplate.opsForValue().get(buildRedisKey(userId));
+            long generation = value != null ? Long.parseLong(value) : 0L;
+            remember(userId, generation);
+            return generation;
+        }, cause -> currentGenerationDegraded(userId, cause));
+    }
+
+    private long currentGenerationDegraded(UUID userId, RuntimeException cause) {
+        Long lastKnown = lastKnownGenerations.getIfPresent(userId);
+        if (lastKnown != null) {
+            return lastKnown;
+        }
+        if (circuitBreaker.getFailurePolicy() == RedisCircuitBreaker.FailurePolicy.FAIL_OPEN) {
+            return 0L;
+        }
+        logger.error("Error reading token generation for user: {}", userId);
+        throw new TokenBlacklistService.RedisOperationException("Failed to read token generation", cause);
+    }
+
+    public boolean isCurrent(UUID userId, long tokenGeneration) {
+        return tokenGeneration >= currentGeneration(userId);
+    }
+
+    // Invalida todos os tokens já emitidos para o usuário
+    public long bumpGeneration(UUID userId) {
+        return circuitBreaker.execute(() -> {
+            Long generation = redisTemplate.opsForValue().increment(buildRedisKey(userId));
+            long newGeneration = generation != null ? generation : 0L;
+            remember(userId, newGeneration);
+            redisTemplate.convertAndSend(EVENTS_CHANNEL, userId + EVENT_SEPARATOR + newGeneration);
+            logger.info("Token generation for user {} bumped to {}", userId, newGeneration);
+            return newGeneration;
+        }, cause -> {
+            logger.error("Error bumping token generation for user: {}", userId);
+            throw new TokenBlacklistService.RedisOperationException("Failed to bump token generation", cause);
+        });
+    }
+
+    // Para alterações de cadastro: só revoga depois do commit, e uma falha do Redis não desfaz a alteração
+    public void bumpGenerationAfterCommit(UUID userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bumpQuietly(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bumpQuietly(userId);
+            }
+        });
+    }
+
+    private void bumpQuietly(UUID userId) {
+        try {
+            bumpGeneration(userId);
+        } catch (RuntimeException e) {
+            logger.error("Sessions of user {} were not revoked after a credentials change: {}", userId, e.getMessage());
+        }
+    }
+
+    // Propaga o incremento para os outros nós sem esperar o TTL do cache local
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(EVENT_SEPARATOR);
+        if (separator <= 0) {
+            logger.warn("Ignoring malformed token generation event: {}", body);
+            return;
+        }
+        try {
+            UUID userId = UUID.fromString(body.substring(0, separator));
+            long generation = Long.parseLong(body.substring(separator + 1));
+            localGenerations.asMap().merge(userId, generation, Math::max);
+            lastKnownGenerations.asMap().merge(userId, generation, Math::max);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring malformed token generation event: {}", body);
+        }
+    }
+
+    private void remember(UUID userId, long generation) {
+        localGenerations.put(userId, generation);
+        lastKnownGenerations.put(userId, generation);
+    }
+
+    private String buildRedisKey(UUID userId) {
+        return GENERATION_KEY_PREFIX + userId;
+    }
+}
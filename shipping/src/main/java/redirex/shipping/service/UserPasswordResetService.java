@@ -22,13 +22,16 @@ public class UserPasswordResetService {
     private final UserRepository userRepository;
     private final PasswordResetTokenRepository tokenRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenGenerationService tokenGenerationService;
 
     public UserPasswordResetService(UserRepository userRepository,
                                     PasswordResetTokenRepository tokenRepository,
-                                    PasswordEncoder passwordEncoder) {
+                                    PasswordEncoder passwordEncoder,
+                                    TokenGenerationService tokenGenerationService) {
         this.userRepository = userRepository;
         this.tokenRepository = tokenRepository;
         this.passwordEncoder = passwordEncoder;
+        this.tokenGenerationService = tokenGenerationService;
     }
 
     // Gera o codigo de 6 dígitos e salva na tabela password_reset_tokens
@@ -80,6 +83,9 @@ public class UserPasswordResetService {
         token.setUsed(true);
         tokenRepository.save(token);
 
+        // Sessões abertas com a senha antiga deixam de valer depois do commit; uma falha do Redis não desfaz a troca
+        tokenGenerationService.bumpGenerationAfterCommit(user.getId());
+
         logger.info("Password reset successfully for user: {}", user.getEmail());
     }
 
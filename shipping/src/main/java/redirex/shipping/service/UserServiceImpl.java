@@ -8,6 +8,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import redirex.shipping.dto.internal.UserInternalResponse;
+import redirex.shipping.dto.internal.WalletBalance;
 import redirex.shipping.dto.request.UpdateUserRequest;
 import redirex.shipping.dto.response.DeleteUserResponse;
 import redirex.shipping.dto.response.UserRegisterResponse;
@@ -43,8 +44,9 @@ public class UserServiceImpl implements UserService {
     private final UserEmailService userEmailService;
     private final OrderItemRepository orderItemRepository;
     private final UserWalletRepository userWalletRepository;
+    private final TokenGenerationService tokenGenerationService;
 
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder, UserWalletServiceImpl userWalletService, WelcomeCouponService welcomeCouponService, UserCouponRepository userCouponRepository, UserMapper userMapper, WarehouseService warehouseService, WarehouseRepository warehouseRepository, UserEmailService userEmailService, OrderItemRepository orderItemRepository, UserWalletRepository userWalletRepository) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder, UserWalletServiceImpl userWalletService, WelcomeCouponService welcomeCouponService, UserCouponRepository userCouponRepository, UserMapper userMapper, WarehouseService warehouseService, WarehouseRepository warehouseRepository, UserEmailService userEmailService, OrderItemRepository orderItemRepository, UserWalletRepository userWalletRepository, TokenGenerationService tokenGenerationService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.userWalletService = userWalletService;
@@ -56,6 +58,7 @@ public class UserServiceImpl implements UserService {
         this.userEmailService = userEmailService;
         this.orderItemRepository = orderItemRepository;
         this.userWalletRepository = userWalletRepository;
+        this.tokenGenerationService = tokenGenerationService;
     }
 
     @Override
@@ -132,7 +135,8 @@ public class UserServiceImpl implements UserService {
         logger.info("Updating user profile for ID: {}", userId);
         UserEntity user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User with ID " + userId + " not found"));
-        if (!request.email().equals(user.getEmail())) {
+        boolean emailChanged = !request.email().equals(user.getEmail());
+        if (emailChanged) {
             validateEmailNotExists(request.email());
         }
 
@@ -143,6 +147,10 @@ public class UserServiceImpl implements UserService {
         user.setOccupation(request.occupation());
 
         user = userRepository.save(user);
+        // Só a troca de e-mail (identidade no token) encerra as sessões; telefone, ocupação etc. não
+        if (emailChanged) {
+            tokenGenerationService.bumpGenerationAfterCommit(user.getId());
+        }
         logger.info("User profile updated successfully: {}", user.getEmail());
         return userMapper.toResponseUpdateUser(user);
     }
@@ -170,6 +178,8 @@ public class UserServiceImpl implements UserService {
         }
 
         userRepository.delete(user);
+        // Revoga as sessões só depois do commit: uma falha do Redis não desfaz a exclusão
+        tokenGenerationService.bumpGenerationAfterCommit(user.getId());
         logger.info("User deleted successfully: {}", user.getEmail());
     }
 
@@ -178,10 +188,14 @@ public class UserServiceImpl implements UserService {
             UserWalletEntity wallet = userWalletRepository.findById(user.getWallet().getWalletId())
                     .orElseThrow(() -> new ResourceNotFoundException("Wallet not found for user: " + user.getId()));
 
-            if (wallet.getBalance().compareTo(BigDecimal.ZERO) > 0) {
+            // No modo ledger a coluna balance fica parada: o saldo vem de currentBalance
+            BigDecimal balance = userWalletRepository.currentBalance(user.getId(), wallet.getCurrency())
+                    .map(WalletBalance::balance)
+                    .orElse(BigDecimal.ZERO);
+            if (balance.compareTo(BigDecimal.ZERO) > 0) {
                 throw new UserHasBalanceException(
                         "Cannot delete user with ID " + user.getId() +
-                                " because they have a balance of " + wallet.getBalance() +
+                                " because they have a balance of " + balance +
                                 " in their wallet. Please transfer or withdraw the balance before deletion."
                 );
             }
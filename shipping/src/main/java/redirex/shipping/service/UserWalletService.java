@@ -1,17 +1,19 @@
 package redirex.shipping.service;
 
+import redirex.shipping.dto.internal.WalletMovementResult;
 import redirex.shipping.dto.request.DepositRequestDto;
 import redirex.shipping.dto.response.WalletTransactionResponse;
 import redirex.shipping.entity.UserWalletEntity;
-import redirex.shipping.entity.WalletTransactionEntity;
 import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.money.Money;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface UserWalletService {
-    WalletTransactionResponse depositToWallet(UUID userId, DepositRequestDto depositRequestDto);
+    WalletTransactionResponse depositToWallet(UUID userId, DepositRequestDto depositRequestDto, String idempotencyKey, String clientIp);
 
         /**
          *
@@ -27,8 +29,9 @@ public interface UserWalletService {
         void debitFromWallet(UUID userId, CurrencyEnum currency, BigDecimal amount,
                              String transactionType, String description, UUID orderItemId,
                              UUID shipmentId, BigDecimal chargedAmount);
+    // Debita o total dos pedidos de uma vez e grava a parte de cada pedido (checkout)
+    WalletMovementResult debitForOrders(UUID userId, Map<UUID, Money> amountsByOrderItem);
     void refundToWallet(UUID userId, CurrencyEnum currency, BigDecimal amount, String description, UUID orderItemId);
     BigDecimal getUserWalletBalance(UUID userId, CurrencyEnum currency);
     List<UserWalletEntity> listUserWallets(UUID userId);
-    List<WalletTransactionEntity> listWalletTransactions(UUID userId, CurrencyEnum currency);
 }
\ No newline at end of file
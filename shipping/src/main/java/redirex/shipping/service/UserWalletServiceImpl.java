@@ -2,26 +2,39 @@ package redirex.shipping.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import redirex.shipping.dto.internal.WalletBalance;
+import redirex.shipping.dto.internal.WalletMovement;
+import redirex.shipping.dto.internal.WalletMovementResult;
+import redirex.shipping.dto.request.DepositQuoteRequest;
 import redirex.shipping.dto.request.DepositRequestDto;
+import redirex.shipping.dto.response.DepositQuoteResponse;
 import redirex.shipping.dto.response.WalletTransactionResponse;
 import redirex.shipping.entity.UserEntity;
 import redirex.shipping.entity.UserWalletEntity;
-import redirex.shipping.entity.WalletTransactionEntity;
 import redirex.shipping.enums.CurrencyEnum;
 import redirex.shipping.enums.WalletTransactionTypeEnum;
+import redirex.shipping.exception.DepositVelocityExceededException;
+import redirex.shipping.exception.ExchangeRateUnavailableException;
+import redirex.shipping.exception.IdempotencyKeyMismatchException;
 import redirex.shipping.exception.InsufficientBalanceException;
+import redirex.shipping.exception.InvalidDepositQuoteException;
 import redirex.shipping.exception.ResourceNotFoundException;
-import redirex.shipping.exception.StripePaymentException;
+import redirex.shipping.money.Money;
+import redirex.shipping.money.PricingRounding;
 import redirex.shipping.repositories.UserRepository;
 import redirex.shipping.repositories.UserWalletRepository;
 import redirex.shipping.repositories.WalletTransactionRepository;
+import redirex.shipping.service.quote.DepositPricing;
+import redirex.shipping.service.quote.DepositQuote;
+import redirex.shipping.service.quote.DepositQuoteStore;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -30,34 +43,40 @@ public class UserWalletServiceImpl implements UserWalletService {
     private static final Logger logger = LoggerFactory.getLogger(UserWalletServiceImpl.class);
 
     private final UserWalletRepository userWalletRepository;
-    private final WalletTransactionRepository walletTransactionRepository;
     private final UserRepository userRepository;
-    private final StripeService stripeService;
+    private final WalletDepositService walletDepositService;
     private final ExchangeRateService exchangeRateService;
+    private final WalletBalanceCache walletBalanceCache;
+    private final WalletTransactionRepository walletTransactionRepository;
+    private final DepositQuoteStore depositQuoteStore;
 
-    private static final List<CurrencyEnum> SUPPORTED_CURRENCIES = List.of(CurrencyEnum.CNY);
-    private static final BigDecimal TRANSACTION_FEE_PERCENTAGE = new BigDecimal("0.05");
-    private static final int BRL_SCALE = 2;
-    private static final String DEPOSIT_SUCCESS_STATUS = "success";
-    private static final String PAYMENT_FAILED_ERROR = "payment_failed";
+    // Moeda das carteiras. A moeda de cobrança do depósito pode ser qualquer uma com cotação para ela.
+    private static final CurrencyEnum WALLET_CURRENCY = CurrencyEnum.CNY;
+    private static final CurrencyEnum DEFAULT_FUNDING_CURRENCY = CurrencyEnum.BRL;
+    // 5% sobre o valor alvo do depósito
+    private static final long TRANSACTION_FEE_BASIS_POINTS = 500;
 
     public UserWalletServiceImpl(UserWalletRepository userWalletRepository,
-                                 WalletTransactionRepository walletTransactionRepository,
                                  UserRepository userRepository,
-                                 StripeService stripeService,
-                                 ExchangeRateService exchangeRateService) {
+                                 WalletDepositService walletDepositService,
+                                 ExchangeRateService exchangeRateService,
+                                 WalletBalanceCache walletBalanceCache,
+                                 WalletTransactionRepository walletTransactionRepository,
+                                 DepositQuoteStore depositQuoteStore) {
         this.userWalletRepository = userWalletRepository;
-        this.walletTransactionRepository = walletTransactionRepository;
         this.userRepository = userRepository;
-        this.stripeService = stripeService;
+        this.walletDepositService = walletDepositService;
         this.exchangeRateService = exchangeRateService;
+        this.walletBalanceCache = walletBalanceCache;
+        this.walletTransactionRepository = walletTransactionRepository;
+        this.depositQuoteStore = depositQuoteStore;
     }
 
     @Transactional
     public UserWalletEntity createInitialWallet(UserEntity user, CurrencyEnum currency) {
         logger.info("Creating initial {} wallet for user: {}", currency, user.getEmail());
 
-        if (!SUPPORTED_CURRENCIES.contains(currency)) {
+        if (currency != WALLET_CURRENCY) {
             throw new IllegalArgumentException("Unsupported currency for initial wallet: " + currency + ". Only CNY is supported.");
         }
 
@@ -72,44 +91,105 @@ public class UserWalletServiceImpl implements UserWalletService {
                 .currency(currency)
                 .balance(BigDecimal.ZERO)
                 .build();
-        wallet = userWalletRepository.save(wallet);
+        // Flush imediato: os movimentos de saldo são aplicados via JDBC e precisam enxergar a linha
+        wallet = userWalletRepository.saveAndFlush(wallet);
 
         logger.info("Initial {} wallet created for user: {}", currency, user.getEmail());
         return wallet;
     }
 
+    // Sem @Transactional: a chamada ao Stripe não pode segurar uma conexão do pool (ver WalletDepositService)
     @Override
-    @Transactional
-    public WalletTransactionResponse depositToWallet(UUID userId, DepositRequestDto depositRequestDto) {
-        logger.info("Attempting deposit for userId: {} with target CNY amount: {}", userId, depositRequestDto.amount());
+    public WalletTransactionResponse depositToWallet(UUID userId, DepositRequestDto depositRequestDto, String idempotencyKey,
+                                                     String clientIp) {
+        logger.info("Attempting deposit for userId: {} with target CNY amount: {} (quote: {})",
+                userId, depositRequestDto.amount(), depositRequestDto.quoteId());
 
         try {
-            validateDepositRequest(depositRequestDto);
-
+            validatePaymentMethod(depositRequestDto);
             UserEntity user = getUserEntity(userId);
-            UserWalletEntity wallet = getUserWallet(user, CurrencyEnum.CNY);
-
-            BigDecimal brlToCnyRate = getValidExchangeRate();
-            BigDecimal amountToChargeInBRL = calculateAmountInBRL(depositRequestDto.amount(), brlToCnyRate);
-
-            processStripePayment(depositRequestDto.paymentMethodId(), amountToChargeInBRL);
-            return completeDepositTransaction(user, wallet, depositRequestDto.amount(), amountToChargeInBRL, brlToCnyRate);
-
+            UserWalletEntity wallet = getUserWallet(user, WALLET_CURRENCY);
+
+            // Só avaliado se a chave ainda não tem depósito: uma repetição devolve o depósito existente mesmo
+            // depois de a cotação expirar. Com cotação, o preço vem dela.
+            return walletDepositService.deposit(
+                    userId,
+                    depositRequestDto.paymentMethodId(),
+                    clientIp,
+                    idempotencyKey,
+                    depositRequestDto.fingerprint(),
+                    () -> {
+                        if (depositRequestDto.quoteId() != null) {
+                            return getValidQuote(userId, depositRequestDto).pricing();
+                        }
+                        validateTargetAmount(depositRequestDto.amount());
+                        return price(Money.of(depositRequestDto.amount(), wallet.getCurrency()),
+                                resolveFundingCurrency(depositRequestDto.sourceCurrency(), wallet.getCurrency()));
+                    });
+
+        } catch (DepositVelocityExceededException | InvalidDepositQuoteException | IdempotencyKeyMismatchException
+                 | ExchangeRateUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Deposit failed for userId: {}", userId, e);
             return WalletTransactionResponse.createError(userId, "Deposit failed: " + e.getMessage());
         }
     }
 
-    private void validateDepositRequest(DepositRequestDto depositRequestDto) {
-        if (depositRequestDto.amount() == null || depositRequestDto.amount().compareTo(BigDecimal.valueOf(50)) <= 0) {
-            throw new IllegalArgumentException("Target deposit amount (CNY) must be greater than zero.");
+    // Trava cotação, taxa e valor cobrado por wallet.deposit.quote.ttl-seconds; o depósito com o quoteId cobra exatamente isso
+    @PreAuthorize("@permissionService.isOwnerOrAdmin(#userId)")
+    public DepositQuoteResponse issueDepositQuote(UUID userId, DepositQuoteRequest request) {
+        DepositPricing pricing;
+        try {
+            validateTargetAmount(request.amount());
+            Money targetAmount = Money.of(request.amount(), WALLET_CURRENCY);
+            pricing = price(targetAmount, resolveFundingCurrency(request.sourceCurrency(), WALLET_CURRENCY));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidDepositQuoteException(e.getMessage());
+        }
+        return DepositQuoteResponse.from(depositQuoteStore.issue(userId, pricing));
+    }
+
+    private DepositQuote getValidQuote(UUID userId, DepositRequestDto depositRequestDto) {
+        DepositQuote quote = depositQuoteStore.find(depositRequestDto.quoteId())
+                .filter(found -> found.userId().equals(userId))
+                .orElseThrow(() -> new InvalidDepositQuoteException(
+                        "Deposit quote " + depositRequestDto.quoteId() + " not found or expired. Request a new quote."));
+        if (depositRequestDto.currency() != null && depositRequestDto.currency() != quote.targetCurrency()) {
+            throw new InvalidDepositQuoteException("Deposit quote is for a " + quote.targetCurrency() + " deposit.");
+        }
+        if (depositRequestDto.amount() != null && depositRequestDto.amount().compareTo(quote.targetAmount()) != 0) {
+            throw new InvalidDepositQuoteException("Deposit amount does not match the quoted amount of "
+                    + quote.targetAmount() + " " + quote.targetCurrency() + ".");
         }
+        if (depositRequestDto.sourceCurrency() != null && depositRequestDto.sourceCurrency() != quote.chargeCurrency()) {
+            throw new InvalidDepositQuoteException("Deposit quote is charged in " + quote.chargeCurrency() + ".");
+        }
+        return quote;
+    }
+
+    private void validatePaymentMethod(DepositRequestDto depositRequestDto) {
         if (depositRequestDto.paymentMethodId() == null || depositRequestDto.paymentMethodId().isBlank()) {
             throw new IllegalArgumentException("Stripe PaymentMethod ID is required for deposit.");
         }
     }
 
+    private void validateTargetAmount(BigDecimal amount) {
+        if (amount == null || amount.compareTo(BigDecimal.valueOf(50)) <= 0) {
+            throw new IllegalArgumentException("Target deposit amount (CNY) must be greater than zero.");
+        }
+        if (Math.max(amount.stripTrailingZeros().scale(), 0) > WALLET_CURRENCY.fractionDigits()) {
+            throw new IllegalArgumentException("Target deposit amount (CNY) cannot have more than "
+                    + WALLET_CURRENCY.fractionDigits() + " decimal places.");
+        }
+    }
+
+    private DepositPricing price(Money targetAmount, CurrencyEnum fundingCurrency) {
+        BigDecimal exchangeRate = getValidExchangeRate(fundingCurrency, targetAmount.currency());
+        return new DepositPricing(targetAmount, calculateFee(targetAmount),
+                calculateAmountToCharge(targetAmount, exchangeRate, fundingCurrency), exchangeRate);
+    }
+
     private UserEntity getUserEntity(UUID userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> {
@@ -122,125 +202,65 @@ public class UserWalletServiceImpl implements UserWalletService {
         return userWalletRepository.findByUserIdAndCurrency(user, currency)
                 .orElseGet(() -> {
                     logger.info("CNY wallet not found for user {}, creating one.", user.getEmail());
-                    return createInitialWallet(user, CurrencyEnum.CNY);
+                    return createInitialWallet(user, WALLET_CURRENCY);
                 });
     }
 
-    private BigDecimal getValidExchangeRate() {
-        BigDecimal brlToCnyRate = exchangeRateService.getExchangeRate(CurrencyEnum.BRL, CurrencyEnum.CNY);
-        if (brlToCnyRate == null || brlToCnyRate.compareTo(BigDecimal.ZERO) <= 0) {
-            logger.error("Invalid BRL to CNY exchange rate: {}", brlToCnyRate);
-            throw new IllegalStateException("Could not retrieve a valid BRL to CNY exchange rate.");
+    // Sem moeda informada, cobra em BRL
+    private CurrencyEnum resolveFundingCurrency(CurrencyEnum sourceCurrency, CurrencyEnum walletCurrency) {
+        CurrencyEnum fundingCurrency = sourceCurrency != null ? sourceCurrency : DEFAULT_FUNDING_CURRENCY;
+        // Só o formato do par; sem cotação no momento, getExchangeRate responde com indisponibilidade (503)
+        if (!exchangeRateService.isSupported(fundingCurrency, walletCurrency)) {
+            throw new IllegalArgumentException("Deposits in " + walletCurrency + " cannot be funded in "
+                    + fundingCurrency + ".");
         }
-        return brlToCnyRate;
+        return fundingCurrency;
     }
 
-    private BigDecimal calculateAmountInBRL(BigDecimal targetCNYAmount, BigDecimal exchangeRate) {
-        return targetCNYAmount.divide(exchangeRate, BRL_SCALE, RoundingMode.CEILING);
-    }
-
-    private void processStripePayment(String paymentMethodId, BigDecimal amountToChargeInBRL) {
-        long amountToChargeInBRLCents = amountToChargeInBRL.multiply(new BigDecimal("100")).longValue();
-
-        logger.info("Processing Stripe payment, amountInCents (BRL): {}", amountToChargeInBRLCents);
-        boolean paymentSuccessful = stripeService.processPayment(paymentMethodId, amountToChargeInBRLCents, CurrencyEnum.BRL);
-
-        if (!paymentSuccessful) {
-            logger.error("Stripe payment (BRL) was not successful");
-            throw new StripePaymentException("Stripe payment processing in BRL failed for an unknown reason.");
+    private BigDecimal getValidExchangeRate(CurrencyEnum fundingCurrency, CurrencyEnum walletCurrency) {
+        BigDecimal exchangeRate = exchangeRateService.getExchangeRate(fundingCurrency, walletCurrency);
+        if (exchangeRate == null || exchangeRate.compareTo(BigDecimal.ZERO) <= 0) {
+            logger.error("Invalid {} to {} exchange rate: {}", fundingCurrency, walletCurrency, exchangeRate);
+            throw new IllegalStateException("Could not retrieve a valid " + fundingCurrency + " to "
+                    + walletCurrency + " exchange rate.");
         }
-
-        logger.info("Stripe payment successful. Charged: {} BRL", amountToChargeInBRL);
+        return exchangeRate;
     }
 
-    @Transactional
-    protected WalletTransactionResponse completeDepositTransaction(
-            UserEntity user,
-            UserWalletEntity wallet,
-            BigDecimal targetCNYAmount,
-            BigDecimal amountToChargeInBRL,
-            BigDecimal exchangeRate
-    ) {
-        BigDecimal feeInCNY = calculateFee(targetCNYAmount);
-        BigDecimal netAmountInCNY = targetCNYAmount.subtract(feeInCNY);
-
-        updateWalletBalance(wallet, netAmountInCNY);
-        WalletTransactionEntity transaction = createAndSaveTransaction(
-                user, wallet, netAmountInCNY, feeInCNY, targetCNYAmount, amountToChargeInBRL
-        );
-
-        logger.info("Deposit completed for userId: {}. Net amount credited: {} {}, Fee: {} {}. Charged in BRL: {}",
-                user.getId(), netAmountInCNY, wallet.getCurrency(), feeInCNY, wallet.getCurrency(), amountToChargeInBRL);
-
-        return createSuccessResponse(transaction, wallet, user.getId(), feeInCNY, amountToChargeInBRL, netAmountInCNY);
+    private Money calculateAmountToCharge(Money targetAmount, BigDecimal exchangeRate, CurrencyEnum fundingCurrency) {
+        return targetAmount.divideByRate(exchangeRate, fundingCurrency, PricingRounding.FX_CHARGE);
     }
 
-    private BigDecimal calculateFee(BigDecimal amount) {
-        return amount.multiply(TRANSACTION_FEE_PERCENTAGE).setScale(2, RoundingMode.HALF_UP);
+    private Money calculateFee(Money amount) {
+        return amount.percentage(TRANSACTION_FEE_BASIS_POINTS, PricingRounding.FEE);
     }
 
-    private void updateWalletBalance(UserWalletEntity wallet, BigDecimal amount) {
-        wallet.setBalance(wallet.getBalance().add(amount));
-        userWalletRepository.save(wallet);
+    // Aplica o movimento em um único statement: o saldo só muda se continuar >= 0 e a transação
+    // é gravada junto. Sem linha de retorno, descobre o motivo para devolver o erro adequado.
+    private WalletMovementResult applyMovement(WalletMovement movement) {
+        WalletMovement withId = movement.transactionId() != null
+                ? movement
+                : movement.toBuilder().transactionId(UUID.randomUUID()).build();
+
+        WalletMovementResult result = userWalletRepository.applyMovement(withId).orElseThrow(() -> {
+            BigDecimal balance = userWalletRepository.currentBalance(movement.userId(), movement.currency())
+                    .map(WalletBalance::balance)
+                    .orElseThrow(() -> new ResourceNotFoundException(
+                            movement.currency() + " Wallet not found for userId: " + movement.userId()));
+            logger.warn("Insufficient balance. UserId: {}, WalletBalance: {}, Delta: {}",
+                    movement.userId(), balance, movement.delta());
+            return new InsufficientBalanceException("Insufficient balance in wallet: " + balance + " " + movement.currency());
+        });
+        walletBalanceCache.recordMovement(movement.userId(), movement.currency(), result);
+        return result;
     }
 
-    private WalletTransactionEntity createAndSaveTransaction(
-            UserEntity user,
-            UserWalletEntity wallet,
-            BigDecimal netAmountInCNY,
-            BigDecimal feeInCNY,
-            BigDecimal targetCNYAmount,
-            BigDecimal amountToChargeInBRL
-    ) {
-        String transactionDescription = createTransactionDescription(amountToChargeInBRL, targetCNYAmount);
-
-        WalletTransactionEntity transaction = WalletTransactionEntity.builder()
-                .userId(user)
-                .userWallet(wallet)
-                .currency(wallet.getCurrency())
-                .amount(netAmountInCNY)
-                .type(WalletTransactionTypeEnum.DEPOSIT)
-                .transactionFee(feeInCNY)
-                .originalAmountDeposited(targetCNYAmount)
-                .originalCurrencyDeposited(wallet.getCurrency())
-                .createdAt(LocalDateTime.now())
-                .chargedAmount(amountToChargeInBRL)
-                .chargedCurrency(CurrencyEnum.BRL)
-                .build();
-
-        return walletTransactionRepository.save(transaction);
-    }
-
-    private String createTransactionDescription(BigDecimal amountInBRL, BigDecimal targetInCNY) {
-        return String.format("Stripe Deposit. Charged %.2f BRL for %.2f CNY target.", amountInBRL, targetInCNY);
-    }
-
-    private WalletTransactionResponse createSuccessResponse(
-            WalletTransactionEntity transaction,
-            UserWalletEntity wallet,
-            UUID userId,
-            BigDecimal feeInCNY,
-            BigDecimal amountToChargeInBRL,
-            BigDecimal netAmountInCNY
-    ) {
-        return WalletTransactionResponse.createDepositSuccess(
-                transaction.getId(),
-                wallet.getWalletId(),
-                userId,
-                feeInCNY,
-                wallet.getCurrency(),
-                amountToChargeInBRL,
-                netAmountInCNY,
-                createTransactionDescription(amountToChargeInBRL, netAmountInCNY.add(feeInCNY)),
-                transaction.getCreatedAt()
-        );
-    }
     @Override
     @Transactional
     public void debitFromWallet(UUID userId, CurrencyEnum currency, BigDecimal amount,
                                 String transactionType, String description, UUID orderItemId,
                                 UUID shipmentId, BigDecimal chargedAmount) {
-        if (currency != CurrencyEnum.CNY) {
+        if (currency != WALLET_CURRENCY) {
             throw new IllegalArgumentException("Debit operations only supported for CNY currency. Requested: " + currency);
         }
 
@@ -265,36 +285,59 @@ public class UserWalletServiceImpl implements UserWalletService {
             throw new IllegalArgumentException("OrderItemId is required for order payment.");
         }
 
-        UserEntity user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found for userId: " + userId));
-        UserWalletEntity wallet = userWalletRepository.findByUserIdAndCurrency(user, currency)
-                .orElseThrow(() -> new ResourceNotFoundException("CNY Wallet not found for userId: " + userId));
-
-        if (wallet.getBalance().compareTo(amount) < 0) {
-            logger.warn("Insufficient balance for order payment. UserId: {}, WalletBalance: {}, Amount: {}", userId, wallet.getBalance(), amount);
-            throw new InsufficientBalanceException("Insufficient balance in wallet: " + wallet.getBalance() + " " + currency);
-        }
-
-        wallet.setBalance(wallet.getBalance().subtract(amount));
-        userWalletRepository.save(wallet);
-
-        WalletTransactionEntity transaction = WalletTransactionEntity.builder()
-                .userWallet(wallet)
-                .userId(user)
-                .type(WalletTransactionTypeEnum.valueOf(transactionType))
+        applyMovement(WalletMovement.builder()
+                .userId(userId)
                 .currency(currency)
-                .amount(amount.negate())
+                .delta(amount.negate())
+                .type(WalletTransactionTypeEnum.valueOf(transactionType))
                 .relatedOrderItemId(orderItemId)
-                .relatedShipmentId(null)
-                .chargedAmount(chargedAmount)
-                .build();
-
-        walletTransactionRepository.save(transaction);
+                .chargedAmount(chargedAmount != null ? chargedAmount : amount)
+                .chargedCurrency(currency)
+                .build());
 
         logger.info("Order payment debited for userId: {}, amount: {} {}, orderItemId: {}",
                 userId, amount, currency, orderItemId);
     }
 
+    // Checkout: um único débito pelo total, com uma alocação por pedido apontando para o lançamento
+    @Override
+    @Transactional
+    public WalletMovementResult debitForOrders(UUID userId, Map<UUID, Money> amountsByOrderItem)
+            throws InsufficientBalanceException {
+        if (amountsByOrderItem == null || amountsByOrderItem.isEmpty()) {
+            throw new IllegalArgumentException("At least one order is required for checkout payment.");
+        }
+
+        Money total = null;
+        Map<UUID, BigDecimal> allocations = new LinkedHashMap<>();
+        for (Map.Entry<UUID, Money> entry : amountsByOrderItem.entrySet()) {
+            Money amount = entry.getValue();
+            if (!amount.isPositive()) {
+                throw new IllegalArgumentException("Order payment amount must be positive. OrderItemId: " + entry.getKey());
+            }
+            total = total == null ? amount : total.plus(amount);
+            allocations.put(entry.getKey(), amount.toBigDecimal());
+        }
+        if (total.currency() != WALLET_CURRENCY) {
+            throw new IllegalArgumentException("Debit operations only supported for CNY currency. Requested: " + total.currency());
+        }
+
+        BigDecimal totalAmount = total.toBigDecimal();
+        WalletMovementResult result = applyMovement(WalletMovement.builder()
+                .userId(userId)
+                .currency(total.currency())
+                .delta(totalAmount.negate())
+                .type(WalletTransactionTypeEnum.ORDER_PAYMENT)
+                .chargedAmount(totalAmount)
+                .chargedCurrency(total.currency())
+                .build());
+        walletTransactionRepository.insertAllocations(result.transactionId(), total.currency(), allocations);
+
+        logger.info("Checkout debited for userId: {}, amount: {}, orders: {}, transactionId: {}",
+                userId, total, allocations.size(), result.transactionId());
+        return result;
+    }
+
     @Transactional
     public void debitForShipment(UUID userId, CurrencyEnum currency, BigDecimal amount, String transactionType, String description,
                                  UUID shipmentId, BigDecimal chargedAmount) throws InsufficientBalanceException {
@@ -305,30 +348,15 @@ public class UserWalletServiceImpl implements UserWalletService {
             throw new IllegalArgumentException("ShipmentId is required for shipment payment.");
         }
 
-        UserEntity user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found for userId: " + userId));
-        UserWalletEntity wallet = userWalletRepository.findByUserIdAndCurrency(user, currency)
-                .orElseThrow(() -> new ResourceNotFoundException("CNY Wallet not found for userId: " + userId));
-
-        if (wallet.getBalance().compareTo(amount) < 0) {
-            logger.warn("Insufficient balance for shipment payment. UserId: {}, WalletBalance: {}, Amount: {}", userId, wallet.getBalance(), amount);
-            throw new InsufficientBalanceException("Insufficient balance in wallet: " + wallet.getBalance() + " " + currency);
-        }
-
-        wallet.setBalance(wallet.getBalance().subtract(amount));
-        userWalletRepository.save(wallet);
-
-        WalletTransactionEntity transaction = WalletTransactionEntity.builder()
-                .userId(user)
-                .userWallet(wallet)
+        applyMovement(WalletMovement.builder()
+                .userId(userId)
                 .currency(currency)
-                .amount(amount.negate())
+                .delta(amount.negate())
                 .type(WalletTransactionTypeEnum.valueOf(transactionType))
-                .relatedOrderItemId(null)
                 .relatedShipmentId(shipmentId)
-                .chargedAmount(chargedAmount)
-                .build();
-        walletTransactionRepository.save(transaction);
+                .chargedAmount(chargedAmount != null ? chargedAmount : amount)
+                .chargedCurrency(currency)
+                .build());
 
         logger.info("Shipment payment debited for userId: {}, amount: {} {}, shipmentId: {}",
                 userId, amount, currency, shipmentId);
@@ -340,28 +368,24 @@ public class UserWalletServiceImpl implements UserWalletService {
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Refund amount must be positive.");
         }
-        if (currency != CurrencyEnum.CNY) {
+        if (currency != WALLET_CURRENCY) {
             throw new IllegalArgumentException("Unsupported currency for refund: " + currency + ". Only CNY is supported.");
         }
 
-        UserEntity user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found for userId: " + userId));
-        UserWalletEntity wallet = userWalletRepository.findByUserIdAndCurrency(user, currency)
-                .orElseThrow(() -> new IllegalArgumentException("CNY Wallet not found for userId: " + userId + ". Please ensure a wallet exists."));
-
-        wallet.setBalance(wallet.getBalance().add(amount));
-        userWalletRepository.save(wallet);
-
-        WalletTransactionEntity transaction = WalletTransactionEntity.builder()
-                .userId(user)
-                .userWallet(wallet)
+        WalletMovement refund = WalletMovement.builder()
+                .userId(userId)
                 .currency(currency)
-                .amount(amount)
+                .delta(amount)
                 .type(WalletTransactionTypeEnum.REFUND)
                 .relatedOrderItemId(orderItemId)
-                .createdAt(LocalDateTime.now())
+                .chargedAmount(amount)
+                .chargedCurrency(currency)
                 .build();
-        walletTransactionRepository.save(transaction);
+        try {
+            applyMovement(refund);
+        } catch (ResourceNotFoundException e) {
+            throw new IllegalArgumentException("CNY Wallet not found for userId: " + userId + ". Please ensure a wallet exists.");
+        }
 
         logger.info("Refund credited to userId: {}, amount: {} {}, orderItemId: {}",
                 userId, amount, currency, orderItemId != null ? orderItemId : "N/A");
@@ -369,15 +393,13 @@ public class UserWalletServiceImpl implements UserWalletService {
 
     @Override
     public BigDecimal getUserWalletBalance(UUID userId, CurrencyEnum currency) {
-        if (currency != CurrencyEnum.CNY) {
+        if (currency != WALLET_CURRENCY) {
             logger.warn("Attempt to get balance for unsupported currency: {} for userId: {}", currency, userId);
             throw new IllegalArgumentException("Balance check only supported for CNY currency. Requested: " + currency);
         }
-        UserEntity user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found for userId: " + userId));
-        UserWalletEntity wallet = userWalletRepository.findByUserIdAndCurrency(user, currency)
+        // Servido pelo read model; o banco só é consultado quando o saldo não está em cache
+        return walletBalanceCache.getBalance(userId, currency)
                 .orElseThrow(() -> new IllegalArgumentException("CNY Wallet not found for userId: " + userId));
-        return wallet.getBalance();
     }
 
     @Override
@@ -386,20 +408,4 @@ public class UserWalletServiceImpl implements UserWalletService {
                 .orElseThrow(() -> new IllegalArgumentException("User not found for userId: " + userId));
         return userWalletRepository.findByUserId(user);
     }
-
-    @Override
-    public List<WalletTransactionEntity> listWalletTransactions(UUID userId, CurrencyEnum currencyFilter) {
-        UserEntity user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found for userId: " + userId));
-
-        if (currencyFilter != null) {
-            if (currencyFilter != CurrencyEnum.CNY) {
-                throw new IllegalArgumentException("Transaction listing only supported for CNY currency. Requested: " + currencyFilter);
-            }
-            UserWalletEntity wallet = userWalletRepository.findByUserIdAndCurrency(user, currencyFilter)
-                    .orElseThrow(() -> new IllegalArgumentException("CNY Wallet not found for userId: " + userId + " and currency " + currencyFilter));
-            return walletTransactionRepository.findByUserWallet(wallet);
-        }
-        return walletTransactionRepository.findAllByUserId(user.getId());
-    }
-}
\ No newline at end of file
+}
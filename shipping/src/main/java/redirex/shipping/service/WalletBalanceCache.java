@@ -0,0 +1,188 @@
+package redirex.shipping.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import redirex.shipping.dto.internal.WalletBalance;
+import redirex.shipping.dto.internal.WalletMovementResult;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.repositories.UserWalletRepository;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+
+// Read model do saldo das carteiras: Caffeine local e, opcionalmente, uma segunda camada no Redis.
+// Cada movimento publica (após o commit) o novo saldo com a sua sequência; todos os nós aplicam o valor
+// de sequência maior, então leituras atrasadas ou eventos fora de ordem nunca sobrescrevem um saldo mais novo.
+@Service
+public class WalletBalanceCache implements MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(WalletBalanceCache.class);
+    private static final String BALANCE_KEY_PREFIX = "wallet_balance:";
+    private static final String EVENT_SEPARATOR = "|";
+    public static final String EVENTS_CHANNEL = "wallet_balance_events";
+
+    // Só grava se a sequência for maior que a já guardada (valor no formato "sequência|saldo")
+    private static final RedisScript<Long> COMPARE_AND_SET_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[1]) " +
+            "if current then " +
+            "  local separator = string.find(current, '|', 1, true) " +
+            "  if separator and tonumber(string.sub(current, 1, separator - 1)) >= tonumber(ARGV[1]) then return 0 end " +
+            "end " +
+            "redis.call('SET', KEYS[1], ARGV[1] .. '|' .. ARGV[2], 'EX', ARGV[3]) " +
+            "return 1",
+            Long.class);
+
+    private final UserWalletRepository userWalletRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final Cache<BalanceKey, WalletBalance> localBalances;
+    private final boolean redisTierEnabled;
+    private final long redisTtlSeconds;
+
+    public WalletBalanceCache(UserWalletRepository userWalletRepository,
+                              RedisTemplate<String, String> redisTemplate,
+                              RedisCircuitBreaker circuitBreaker,
+                              @Value("${wallet.balance-cache.local-ttl-seconds:600}") long localTtlSeconds,
+                              @Value("${wallet.balance-cache.maximum-size:100000}") long maximumSize,
+                              @Value("${wallet.balance-cache.redis.enabled:false}") boolean redisTierEnabled,
+                              @Value("${wallet.balance-cache.redis.ttl-seconds:3600}") long redisTtlSeconds) {
+        this.userWalletRepository = userWalletRepository;
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        // O TTL local só limita o tempo de um saldo desatualizado se algum evento de pub/sub se perder
+        this.localBalances = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .maximumSize(maximumSize)
+                .build();
+        this.redisTierEnabled = redisTierEnabled;
+        this.redisTtlSeconds = redisTtlSeconds;
+    }
+
+    // Vazio quando a carteira não existe
+    public Optional<BigDecimal> getBalance(UUID userId, CurrencyEnum currency) {
+        BalanceKey key = new BalanceKey(userId, currency);
+        WalletBalance cached = localBalances.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached.balance());
+        }
+
+        // Dentro de uma transação de escrita a leitura pode enxergar lançamentos ainda não confirmados
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return userWalletRepository.currentBalance(userId, currency).map(WalletBalance::balance);
+        }
+
+        WalletBalance loaded = localBalances.get(key, this::load);
+        return Optional.ofNullable(loaded).map(WalletBalance::balance);
+    }
+
+    // Registra o saldo resultante de um movimento. Em transação, só vale depois do commit.
+    public void recordMovement(UUID userId, CurrencyEnum currency, WalletMovementResult result) {
+        WalletBalance balance = new WalletBalance(result.balance(), result.sequenceNumber());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(userId, currency, balance);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(userId, currency, balance);
+            }
+        });
+    }
+
+    // Eventos publicados por qualquer nó (inclusive este) após um movimento confirmado
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|");
+        if (parts.length != 4) {
+            logger.warn("Ignoring malformed wallet balance event: {}", body);
+            return;
+        }
+        try {
+            BalanceKey key = new BalanceKey(UUID.fromString(parts[0]), CurrencyEnum.valueOf(parts[1]));
+            apply(key, new WalletBalance(new BigDecimal(parts[3]), Long.parseLong(parts[2])));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring malformed wallet balance event: {}", body);
+        }
+    }
+
+    // Eventos podem ter se perdido enquanto a assinatura estava fora
+    public void invalidateAll() {
+        localBalances.invalidateAll();
+    }
+
+    private void publish(UUID userId, CurrencyEnum currency, WalletBalance balance) {
+        BalanceKey key = new BalanceKey(userId, currency);
+        apply(key, balance);
+        circuitBreaker.execute(() -> {
+            if (redisTierEnabled) {
+                storeInRedis(key, balance);
+            }
+            redisTemplate.convertAndSend(EVENTS_CHANNEL, userId + EVENT_SEPARATOR + currency + EVENT_SEPARATOR
+                    + balance.sequenceNumber() + EVENT_SEPARATOR + balance.balance().toPlainString());
+            return null;
+        }, () -> {
+            // Os outros nós ficam com o saldo anterior até o TTL local expirar
+            logger.warn("Could not publish wallet balance update for userId: {}", userId);
+            return null;
+        });
+    }
+
+    private void apply(BalanceKey key, WalletBalance balance) {
+        localBalances.asMap().merge(key, balance,
+                (current, incoming) -> incoming.sequenceNumber() >= current.sequenceNumber() ? incoming : current);
+    }
+
+    private WalletBalance load(BalanceKey key) {
+        if (redisTierEnabled) {
+            WalletBalance shared = circuitBreaker.execute(() -> readFromRedis(key), () -> null);
+            if (shared != null) {
+                return shared;
+            }
+        }
+        WalletBalance balance = userWalletRepository.currentBalance(key.userId(), key.currency()).orElse(null);
+        if (balance != null && redisTierEnabled) {
+            circuitBreaker.execute(() -> {
+                storeInRedis(key, balance);
+                return null;
+            }, () -> null);
+        }
+        return balance;
+    }
+
+    private WalletBalance readFromRedis(BalanceKey key) {
+        String value = redisTemplate.opsForValue().get(buildRedisKey(key));
+        if (value == null) {
+            return null;
+        }
+        int separator = value.indexOf(EVENT_SEPARATOR);
+        return new WalletBalance(new BigDecimal(value.substring(separator + 1)), Long.parseLong(value.substring(0, separator)));
+    }
+
+    private void storeInRedis(BalanceKey key, WalletBalance balance) {
+        redisTemplate.execute(COMPARE_AND_SET_SCRIPT, Collections.singletonList(buildRedisKey(key)),
+                String.valueOf(balance.sequenceNumber()), balance.balance().toPlainString(), String.valueOf(redisTtlSeconds));
+    }
+
+    private String buildRedisKey(BalanceKey key) {
+        return BALANCE_KEY_PREFIX + key.userId() + ":" + key.currency();
+    }
+
+    private record BalanceKey(UUID userId, CurrencyEnum currency) {
+    }
+}
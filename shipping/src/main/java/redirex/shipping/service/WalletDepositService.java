@@ -0,0 +1,295 @@
+package redirex.shipping.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import redirex.shipping.dto.internal.WalletMovement;
+import redirex.shipping.dto.internal.WalletMovementResult;
+import redirex.shipping.dto.response.WalletTransactionResponse;
+import redirex.shipping.entity.WalletDepositEntity;
+import redirex.shipping.enums.DepositStatusEnum;
+import redirex.shipping.enums.WalletTransactionTypeEnum;
+import redirex.shipping.exception.IdempotencyKeyMismatchException;
+import redirex.shipping.exception.PaymentOutcomeUnknownException;
+import redirex.shipping.exception.ResourceNotFoundException;
+import redirex.shipping.exception.StripePaymentException;
+import redirex.shipping.money.Money;
+import redirex.shipping.money.PricingRounding;
+import redirex.shipping.repositories.UserWalletRepository;
+import redirex.shipping.repositories.WalletDepositRepository;
+import redirex.shipping.repositories.WalletTransactionRepository;
+import redirex.shipping.service.quote.DepositPricing;
+import redirex.shipping.service.velocity.DepositVelocityEngine;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+// Depósito em três fases, sem conexão do pool presa durante a chamada ao Stripe:
+//  1. grava o depósito PENDING e faz commit;
+//  2. chama o Stripe fora de transação, usando o id do depósito como chave de idempotência;
+//  3. credita a carteira e marca SUCCEEDED em uma transação curta, ou marca FAILED.
+// Depósitos que ficaram em PENDING (timeout, queda do nó) são resolvidos por recoverPendingDeposits.
+@Service
+public class WalletDepositService {
+    private static final Logger logger = LoggerFactory.getLogger(WalletDepositService.class);
+    private static final String IDEMPOTENCY_KEY_PREFIX = "wallet-deposit-";
+
+    private final WalletDepositRepository walletDepositRepository;
+    private final UserWalletRepository userWalletRepository;
+    private final WalletTransactionRepository walletTransactionRepository;
+    private final StripeService stripeService;
+    private final TransactionTemplate transactionTemplate;
+    private final WalletBalanceCache walletBalanceCache;
+    private final DepositVelocityEngine depositVelocityEngine;
+
+    // Maior que o timeout do cliente Stripe, para não disputar com a requisição ainda em andamento
+    @Value("${wallet.deposit.recovery.stale-after-seconds:300}")
+    private long staleAfterSeconds;
+
+    @Value("${wallet.deposit.recovery.max-attempts:5}")
+    private int maxAttempts;
+
+    public WalletDepositService(WalletDepositRepository walletDepositRepository,
+                                UserWalletRepository userWalletRepository,
+                                WalletTransactionRepository walletTransactionRepository,
+                                StripeService stripeService,
+                                TransactionTemplate transactionTemplate,
+                                WalletBalanceCache walletBalanceCache,
+                                DepositVelocityEngine depositVelocityEngine) {
+        this.walletDepositRepository = walletDepositRepository;
+        this.userWalletRepository = userWalletRepository;
+        this.walletTransactionRepository = walletTransactionRepository;
+        this.stripeService = stripeService;
+        this.transactionTemplate = transactionTemplate;
+        this.walletBalanceCache = walletBalanceCache;
+        this.depositVelocityEngine = depositVelocityEngine;
+    }
+
+    // pricing só é chamado quando a chave ainda não tem depósito; os erros de validação dele sobem sem gravar nada
+    public WalletTransactionResponse deposit(UUID userId,
+                                             String paymentMethodId,
+                                             String clientIp,
+                                             String idempotencyKey,
+                                             String requestHash,
+                                             Supplier<DepositPricing> pricing) {
+        UUID depositId = depositIdFor(userId, idempotencyKey);
+        // Fase 1. Repetição com a mesma chave: devolve o estado do depósito existente, sem nova cobrança
+        // e sem contar de novo na velocidade de depósitos.
+        WalletDepositEntity existing = walletDepositRepository.findById(depositId).orElse(null);
+        if (existing != null) {
+            return replay(existing, requestHash);
+        }
+
+        DepositPricing price = pricing.get();
+        Money targetAmount = price.targetAmount();
+        // Só tentativas que criam um depósito contam, e antes de qualquer chamada ao Stripe
+        depositVelocityEngine.checkAndRecord(userId, paymentMethodId, clientIp, targetAmount);
+
+        LocalDateTime now = now();
+        WalletDepositEntity deposit = WalletDepositEntity.builder()
+                .id(depositId)
+                .userId(userId)
+                .currency(targetAmount.currency())
+                .targetAmount(targetAmount.toBigDecimal())
+                .feeAmount(price.fee().toBigDecimal())
+                .netAmount(targetAmount.minus(price.fee()).toBigDecimal())
+                .chargedAmount(price.chargeAmount().toBigDecimal())
+                .chargedCurrency(price.chargeAmount().currency())
+                .exchangeRate(price.exchangeRate())
+                .paymentMethodId(paymentMethodId)
+                .requestHash(requestHash)
+                .status(DepositStatusEnum.PENDING)
+                .attempts(1)
+                .updatedAt(now)
+                .build();
+        existing = transactionTemplate.execute(status -> {
+            // Sem o lock, duas requisições com a mesma chave passariam pela leitura e o save (merge, o id já vem
+            // definido) da segunda sobrescreveria o depósito da primeira
+            walletDepositRepository.lockId(depositId);
+            WalletDepositEntity found = walletDepositRepository.findById(depositId).orElse(null);
+            if (found == null) {
+                walletDepositRepository.save(deposit);
+            }
+            return found;
+        });
+        if (existing != null) {
+            return replay(existing, requestHash);
+        }
+        logger.info("Deposit {} registered as PENDING for userId: {}", deposit.getId(), userId);
+
+        return settle(deposit);
+    }
+
+    private WalletTransactionResponse replay(WalletDepositEntity existing, String requestHash) {
+        // O registro de idempotência pode ter sido purgado: o depósito guarda o próprio hash
+        if (existing.getRequestHash() != null && !existing.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyMismatchException("Idempotency-Key was already used with a different request");
+        }
+        logger.info("Deposit {} already registered for idempotency key, status {}", existing.getId(), existing.getStatus());
+        return resolvedResponse(existing);
+    }
+
+    // Com Idempotency-Key o id do depósito é derivado da chave: repetições caem no mesmo depósito
+    // e chegam ao Stripe com a mesma chave de idempotência.
+    private static UUID depositIdFor(UUID userId, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return UUID.randomUUID();
+        }
+        return UUID.nameUUIDFromBytes((userId + ":" + idempotencyKey).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Fases 2 e 3. Também usado pela recuperação, que repete a chamada com a mesma chave.
+    private WalletTransactionResponse settle(WalletDepositEntity deposit) {
+        boolean paid;
+        try {
+            paid = stripeService.processPayment(
+                    deposit.getPaymentMethodId(),
+                    // Mesmo arredondamento usado ao calcular a cobrança: o Stripe recebe exatamente esses centavos
+                    Money.of(deposit.getChargedAmount(), deposit.getChargedCurrency(), PricingRounding.FX_CHARGE)
+                            .minorUnits(),
+                    deposit.getChargedCurrency(),
+                    IDEMPOTENCY_KEY_PREFIX + deposit.getId());
+        } catch (PaymentOutcomeUnknownException e) {
+            logger.warn("Deposit {} left PENDING: {}", deposit.getId(), e.getMessage());
+            return pendingResponse(deposit);
+        } catch (StripePaymentException e) {
+            markFailed(deposit, e.getMessage());
+            throw e;
+        }
+
+        if (!paid) {
+            String reason = "Stripe payment processing in " + deposit.getChargedCurrency() + " failed for an unknown reason.";
+            markFailed(deposit, reason);
+            throw new StripePaymentException(reason);
+        }
+        return complete(deposit);
+    }
+
+    private WalletTransactionResponse complete(WalletDepositEntity deposit) {
+        WalletMovementResult result = transactionTemplate.execute(status -> {
+            if (walletDepositRepository.transition(deposit.getId(), DepositStatusEnum.PENDING,
+                    DepositStatusEnum.SUCCEEDED, null, now()) == 0) {
+                return null;
+            }
+            WalletMovementResult applied = userWalletRepository.applyMovement(WalletMovement.builder()
+                            .transactionId(deposit.getId())
+                            .userId(deposit.getUserId())
+                            .currency(deposit.getCurrency())
+                            .delta(deposit.getNetAmount())
+                            .type(WalletTransactionTypeEnum.DEPOSIT)
+                            .transactionFee(deposit.getFeeAmount())
+                            .exchangeRate(deposit.getExchangeRate())
+                            .originalAmountDeposited(deposit.getTargetAmount())
+                            .originalCurrencyDeposited(deposit.getCurrency())
+                            .chargedAmount(deposit.getChargedAmount())
+                            .chargedCurrency(deposit.getChargedCurrency())
+                            .build())
+                    .orElseThrow(() -> new ResourceNotFoundException(
+                            deposit.getCurrency() + " Wallet not found for userId: " + deposit.getUserId()));
+            walletBalanceCache.recordMovement(deposit.getUserId(), deposit.getCurrency(), applied);
+            return applied;
+        });
+
+        if (result == null) {
+            // Resolvido em paralelo (requisição x recuperação): responde com o que foi gravado
+            return resolvedResponse(deposit);
+        }
+
+        logger.info("Deposit completed for userId: {}. Net amount credited: {} {}, Fee: {} {}. Charged: {} {}",
+                deposit.getUserId(), deposit.getNetAmount(), deposit.getCurrency(), deposit.getFeeAmount(),
+                deposit.getCurrency(), deposit.getChargedAmount(), deposit.getChargedCurrency());
+        return successResponse(deposit, result.walletId(), result.createdAt());
+    }
+
+    private void markFailed(WalletDepositEntity deposit, String reason) {
+        String truncated = reason != null && reason.length() > 500 ? reason.substring(0, 500) : reason;
+        transactionTemplate.executeWithoutResult(status -> walletDepositRepository.transition(
+                deposit.getId(), DepositStatusEnum.PENDING, DepositStatusEnum.FAILED, truncated, now()));
+        logger.warn("Deposit {} marked FAILED: {}", deposit.getId(), reason);
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.deposit.recovery.interval-ms:60000}",
+            initialDelayString = "${wallet.deposit.recovery.interval-ms:60000}")
+    public void recoverPendingDeposits() {
+        LocalDateTime staleBefore = now().minusSeconds(staleAfterSeconds);
+        List<WalletDepositEntity> stale = walletDepositRepository
+                .findTop100ByStatusAndAttemptsLessThanAndUpdatedAtBeforeOrderByUpdatedAtAsc(
+                        DepositStatusEnum.PENDING, maxAttempts, staleBefore);
+
+        for (WalletDepositEntity deposit : stale) {
+            Integer claimed = transactionTemplate.execute(status ->
+                    walletDepositRepository.claimAttempt(deposit.getId(), deposit.getUpdatedAt(), now()));
+            if (claimed == null || claimed == 0) {
+                continue;
+            }
+            try {
+                WalletTransactionResponse response = settle(deposit);
+                logger.info("Recovered deposit {}: {}", deposit.getId(), response.status());
+            } catch (StripePaymentException e) {
+                logger.info("Recovered deposit {}: FAILED", deposit.getId());
+            } catch (Exception e) {
+                logger.error("Failed to recover deposit {}", deposit.getId(), e);
+            }
+            if (deposit.getAttempts() + 1 >= maxAttempts) {
+                logger.error("Deposit {} still unresolved after {} attempts; manual review required",
+                        deposit.getId(), maxAttempts);
+            }
+        }
+    }
+
+    private WalletTransactionResponse resolvedResponse(WalletDepositEntity deposit) {
+        WalletDepositEntity current = walletDepositRepository.findById(deposit.getId()).orElse(deposit);
+        if (current.getStatus() == DepositStatusEnum.SUCCEEDED) {
+            return walletTransactionRepository.findById(deposit.getId())
+                    .map(transaction -> successResponse(deposit, transaction.getUserWallet().getWalletId(),
+                            transaction.getCreatedAt()))
+                    .orElseGet(() -> pendingResponse(deposit));
+        }
+        if (current.getStatus() == DepositStatusEnum.FAILED) {
+            throw new StripePaymentException("Deposit failed: " + current.getFailureReason());
+        }
+        return pendingResponse(deposit);
+    }
+
+    private WalletTransactionResponse successResponse(WalletDepositEntity deposit, UUID walletId, LocalDateTime createdAt) {
+        return WalletTransactionResponse.createDepositSuccess(
+                deposit.getId(),
+                walletId,
+                deposit.getUserId(),
+                deposit.getFeeAmount(),
+                deposit.getCurrency(),
+                deposit.getChargedAmount(),
+                deposit.getChargedCurrency(),
+                deposit.getNetAmount(),
+                String.format("Stripe Deposit. Charged %.2f %s for %.2f %s target.",
+                        deposit.getChargedAmount(), deposit.getChargedCurrency(),
+                        deposit.getTargetAmount(), deposit.getCurrency()),
+                createdAt
+        );
+    }
+
+    private WalletTransactionResponse pendingResponse(WalletDepositEntity deposit) {
+        return WalletTransactionResponse.createDepositPending(
+                deposit.getId(),
+                deposit.getUserId(),
+                deposit.getFeeAmount(),
+                deposit.getCurrency(),
+                deposit.getChargedAmount(),
+                deposit.getChargedCurrency(),
+                deposit.getNetAmount(),
+                deposit.getCreatedAt() != null ? deposit.getCreatedAt() : deposit.getUpdatedAt()
+        );
+    }
+
+    // Truncado para a precisão do Postgres: o valor lido de volta precisa bater na reserva otimista
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+}
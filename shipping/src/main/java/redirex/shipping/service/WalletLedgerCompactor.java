@@ -0,0 +1,59 @@
+package redirex.shipping.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import redirex.shipping.repositories.UserWalletRepository;
+
+// Mantém curto o trecho do ledger que precisa ser somado para obter o saldo de cada carteira,
+// gravando snapshots periódicos (ver UserWalletRepositoryCustomImpl).
+@Service
+public class WalletLedgerCompactor {
+    private static final Logger logger = LoggerFactory.getLogger(WalletLedgerCompactor.class);
+
+    private final UserWalletRepository userWalletRepository;
+    private final boolean ledgerEnabled;
+    private final int snapshotMinEntries;
+
+    public WalletLedgerCompactor(UserWalletRepository userWalletRepository,
+                                 @Value("${wallet.ledger.enabled:false}") boolean ledgerEnabled,
+                                 @Value("${wallet.ledger.snapshot-min-entries:50}") int snapshotMinEntries) {
+        this.userWalletRepository = userWalletRepository;
+        this.ledgerEnabled = ledgerEnabled;
+        this.snapshotMinEntries = snapshotMinEntries;
+    }
+
+    // Ao voltar do modo ledger para o modo coluna, a coluna balance precisa refletir os lançamentos
+    // feitos nesse meio tempo antes de receber o primeiro UPDATE. O UPDATE em massa só roda se houver
+    // algo a levar; nos demais starts fica só a verificação.
+    @PostConstruct
+    public void syncBalanceColumns() {
+        if (ledgerEnabled || !userWalletRepository.hasLedgerEntriesPendingSync()) {
+            return;
+        }
+        int synced = userWalletRepository.syncBalanceColumns();
+        if (synced > 0) {
+            logger.info("Saldo de {} carteiras sincronizado a partir do ledger", synced);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.ledger.compaction-interval-ms:60000}",
+            initialDelayString = "${wallet.ledger.compaction-interval-ms:60000}")
+    public void compact() {
+        // No modo coluna não há o que compactar: o saldo é a própria coluna
+        if (!ledgerEnabled) {
+            return;
+        }
+        try {
+            int snapshots = userWalletRepository.compactSnapshots(snapshotMinEntries);
+            if (snapshots > 0) {
+                logger.info("Gravados {} snapshots de saldo de carteira", snapshots);
+            }
+        } catch (Exception e) {
+            logger.error("Falha ao compactar o ledger das carteiras", e);
+        }
+    }
+}
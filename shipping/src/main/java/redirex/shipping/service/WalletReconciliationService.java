@@ -0,0 +1,278 @@
+package redirex.shipping.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import redirex.shipping.dto.internal.WalletReconciliationRow;
+import redirex.shipping.dto.response.WalletReconciliationDriftResponse;
+import redirex.shipping.dto.response.WalletReconciliationRunResponse;
+import redirex.shipping.entity.WalletReconciliationDriftEntity;
+import redirex.shipping.entity.WalletReconciliationRunEntity;
+import redirex.shipping.enums.ReconciliationStatusEnum;
+import redirex.shipping.exception.ReconciliationInProgressException;
+import redirex.shipping.exception.ResourceNotFoundException;
+import redirex.shipping.repositories.UserWalletRepository;
+import redirex.shipping.repositories.WalletReconciliationDriftRepository;
+import redirex.shipping.repositories.WalletReconciliationRunRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Confere se o saldo de cada carteira bate com a soma dos seus lançamentos.
+// O espaço de ids (UUID) é dividido em faixas, processadas em paralelo por um pool limitado; cada faixa
+// é somada no banco e lida com cursor, e as divergências são gravadas em lotes. Execuções incrementais
+// só olham carteiras alteradas desde a última execução concluída (menos uma margem de segurança).
+@Service
+public class WalletReconciliationService {
+    private static final Logger logger = LoggerFactory.getLogger(WalletReconciliationService.class);
+    private static final int DRIFT_BATCH_SIZE = 500;
+
+    private final UserWalletRepository userWalletRepository;
+    private final WalletReconciliationRunRepository runRepository;
+    private final WalletReconciliationDriftRepository driftRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ExecutorService coordinator;
+    private final ExecutorService workers;
+    private final int partitions;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private final Counter walletsCheckedCounter;
+    private final Counter driftCounter;
+    private final Timer runTimer;
+    private final AtomicLong lastRunDrift = new AtomicLong();
+    private final MeterRegistry meterRegistry;
+
+    // Cobre lançamentos gravados antes do início da execução anterior, mas confirmados depois dele
+    @Value("${wallet.reconciliation.checkpoint-overlap-minutes:10}")
+    private long checkpointOverlapMinutes;
+
+    // Execução em andamento em outro nó; depois disso, é considerada abandonada
+    @Value("${wallet.reconciliation.stale-after-minutes:120}")
+    private long staleAfterMinutes;
+
+    public WalletReconciliationService(UserWalletRepository userWalletRepository,
+                                       WalletReconciliationRunRepository runRepository,
+                                       WalletReconciliationDriftRepository driftRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${wallet.reconciliation.partitions:16}") int partitions,
+                                       @Value("${wallet.reconciliation.parallelism:4}") int parallelism) {
+        this.userWalletRepository = userWalletRepository;
+        this.runRepository = runRepository;
+        this.driftRepository = driftRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.partitions = Math.max(1, Math.min(partitions, 256));
+        this.coordinator = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("wallet-reconciliation").factory());
+        this.workers = Executors.newFixedThreadPool(Math.max(1, parallelism),
+                Thread.ofPlatform().name("wallet-reconciliation-", 0).factory());
+        this.meterRegistry = meterRegistry;
+
+        this.walletsCheckedCounter = Counter.builder("wallet.reconciliation.wallets.checked").register(meterRegistry);
+        this.driftCounter = Counter.builder("wallet.reconciliation.drift.found").register(meterRegistry);
+        this.runTimer = Timer.builder("wallet.reconciliation.duration").register(meterRegistry);
+        Gauge.builder("wallet.reconciliation.last.drift", lastRunDrift, AtomicLong::get)
+                .description("Carteiras divergentes na última execução concluída")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    // Só cria a execução na thread do agendador (única, compartilhada pelos outros @Scheduled); as partições
+    // rodam no coordinator, como no triggerRun
+    @Scheduled(cron = "${wallet.reconciliation.cron:0 0 3 * * *}")
+    public void scheduledRun() {
+        WalletReconciliationRunEntity run = startRun(false);
+        if (run != null) {
+            coordinator.submit(() -> execute(run));
+        }
+    }
+
+    // Dispara em background e devolve a execução criada (status RUNNING)
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public WalletReconciliationRunResponse triggerRun(boolean full) {
+        WalletReconciliationRunEntity run = startRun(full);
+        if (run == null) {
+            throw new ReconciliationInProgressException("A wallet reconciliation run is already in progress");
+        }
+        coordinator.submit(() -> execute(run));
+        return WalletReconciliationRunResponse.from(run);
+    }
+
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public List<WalletReconciliationRunResponse> listRuns() {
+        return runRepository.findTop20ByOrderByStartedAtDesc().stream()
+                .map(WalletReconciliationRunResponse::from)
+                .toList();
+    }
+
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public Page<WalletReconciliationDriftResponse> listDrifts(UUID runId, Pageable pageable) {
+        if (!runRepository.existsById(runId)) {
+            throw new ResourceNotFoundException("Reconciliation run not found: " + runId);
+        }
+        return driftRepository.findByRunId(runId, pageable).map(WalletReconciliationDriftResponse::from);
+    }
+
+    // Nulo se já houver uma execução em andamento (neste nó ou, recentemente, em outro)
+    private WalletReconciliationRunEntity startRun(boolean full) {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            // Verificação e INSERT sob o mesmo advisory lock: dois nós não criam execuções sobrepostas
+            WalletReconciliationRunEntity run = transactionTemplate.execute(status -> {
+                LocalDateTime now = now();
+                if (!runRepository.tryLockRunStart() || runRepository.existsByStatusAndStartedAtAfter(
+                        ReconciliationStatusEnum.RUNNING, now.minusMinutes(staleAfterMinutes))) {
+                    return null;
+                }
+                LocalDateTime changedSince = full ? null : runRepository
+                        .findTopByStatusOrderByStartedAtDesc(ReconciliationStatusEnum.COMPLETED)
+                        .map(last -> last.getStartedAt().minusMinutes(checkpointOverlapMinutes))
+                        .orElse(null);
+                return runRepository.save(WalletReconciliationRunEntity.builder()
+                        .id(UUID.randomUUID())
+                        .status(ReconciliationStatusEnum.RUNNING)
+                        .changedSince(changedSince)
+                        .partitions(partitions)
+                        .startedAt(now)
+                        .build());
+            });
+            if (run == null) {
+                running.set(false);
+            }
+            return run;
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    private void execute(WalletReconciliationRunEntity run) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        AtomicLong checked = new AtomicLong();
+        AtomicLong drifted = new AtomicLong();
+        logger.info("Wallet reconciliation {} started ({})", run.getId(),
+                run.getChangedSince() == null ? "full" : "changed since " + run.getChangedSince());
+        try {
+            List<Future<?>> tasks = new ArrayList<>(partitions);
+            for (int i = 0; i < partitions; i++) {
+                int partition = i;
+                tasks.add(workers.submit(() -> reconcilePartition(run, partition, checked, drifted)));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+            finish(run, ReconciliationStatusEnum.COMPLETED, checked.get(), drifted.get(), null);
+            lastRunDrift.set(drifted.get());
+            logger.info("Wallet reconciliation {} completed: {} wallets checked, {} with drift",
+                    run.getId(), checked.get(), drifted.get());
+        } catch (Exception e) {
+            logger.error("Wallet reconciliation {} failed", run.getId(), e);
+            finish(run, ReconciliationStatusEnum.FAILED, checked.get(), drifted.get(), e.getMessage());
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            sample.stop(runTimer);
+            running.set(false);
+        }
+    }
+
+    private void reconcilePartition(WalletReconciliationRunEntity run, int partition,
+                                    AtomicLong checked, AtomicLong drifted) {
+        UUID lower = partitionBound(partition, false);
+        UUID upper = partitionBound(partition, true);
+        List<WalletReconciliationDriftEntity> batch = new ArrayList<>();
+        AtomicInteger partitionChecked = new AtomicInteger();
+
+        readOnlyTransactionTemplate.executeWithoutResult(status ->
+                userWalletRepository.reconcileRange(lower, upper, run.getChangedSince(), row -> {
+                    partitionChecked.incrementAndGet();
+                    if (row.hasDrift()) {
+                        drifted.incrementAndGet();
+                        batch.add(toDrift(run.getId(), row));
+                        if (batch.size() >= DRIFT_BATCH_SIZE) {
+                            saveDrifts(batch);
+                        }
+                    }
+                }));
+        saveDrifts(batch);
+
+        checked.addAndGet(partitionChecked.get());
+        walletsCheckedCounter.increment(partitionChecked.get());
+    }
+
+    // Gravado em transação própria (não na transação somente leitura do cursor)
+    private void saveDrifts(List<WalletReconciliationDriftEntity> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<WalletReconciliationDriftEntity> toSave = List.copyOf(batch);
+        batch.clear();
+        transactionTemplate.executeWithoutResult(status -> driftRepository.saveAll(toSave));
+        driftCounter.increment(toSave.size());
+    }
+
+    private void finish(WalletReconciliationRunEntity run, ReconciliationStatusEnum status,
+                        long checked, long drifted, String errorMessage) {
+        run.setStatus(status);
+        run.setWalletsChecked(checked);
+        run.setDriftCount(drifted);
+        run.setErrorMessage(errorMessage != null && errorMessage.length() > 500 ? errorMessage.substring(0, 500) : errorMessage);
+        run.setFinishedAt(now());
+        runRepository.save(run);
+    }
+
+    private static WalletReconciliationDriftEntity toDrift(UUID runId, WalletReconciliationRow row) {
+        return WalletReconciliationDriftEntity.builder()
+                .runId(runId)
+                .walletId(row.walletId())
+                .userId(row.userId())
+                .currency(row.currency())
+                .storedBalance(row.storedBalance())
+                .computedBalance(row.computedBalance())
+                .difference(row.storedBalance().subtract(row.computedBalance()))
+                .transactionCount(row.transactionCount())
+                .build();
+    }
+
+    // Faixas pelo primeiro byte do id: a ordem de uuid no Postgres é a mesma dos bytes
+    private UUID partitionBound(int partition, boolean upper) {
+        int firstByte = upper ? (partition + 1) * 256 / partitions - 1 : partition * 256 / partitions;
+        long mostSignificantBits = ((long) firstByte << 56) | (upper ? 0x00FF_FFFF_FFFF_FFFFL : 0L);
+        return new UUID(mostSignificantBits, upper ? -1L : 0L);
+    }
+
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+}
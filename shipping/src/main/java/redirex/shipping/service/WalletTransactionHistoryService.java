@@ -0,0 +1,130 @@
+package redirex.shipping.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import redirex.shipping.dto.response.WalletTransactionHistoryItem;
+import redirex.shipping.dto.response.WalletTransactionPageResponse;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.enums.ExportFormatEnum;
+import redirex.shipping.exception.ResourceNotFoundException;
+import redirex.shipping.repositories.UserWalletRepository;
+import redirex.shipping.repositories.WalletTransactionRepository;
+import redirex.shipping.util.WalletTransactionCursor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+// Extrato da carteira: páginas por cursor (keyset) e exportação em streaming (CSV ou NDJSON).
+// Nenhum dos dois carrega entidades; a memória usada não cresce com o tamanho do histórico.
+@Service
+public class WalletTransactionHistoryService {
+    private static final Logger logger = LoggerFactory.getLogger(WalletTransactionHistoryService.class);
+    private static final String CSV_HEADER = "id,wallet_id,type,currency,amount,charged_amount,charged_currency,"
+            + "exchange_rate,transaction_fee,original_amount_deposited,original_currency_deposited,"
+            + "related_order_item_id,related_shipment_id,sequence_number,created_at\n";
+
+    private final UserWalletRepository userWalletRepository;
+    private final WalletTransactionRepository walletTransactionRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    @Value("${wallet.history.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${wallet.history.max-page-size:200}")
+    private int maxPageSize;
+
+    public WalletTransactionHistoryService(UserWalletRepository userWalletRepository,
+                                           WalletTransactionRepository walletTransactionRepository,
+                                           ObjectMapper objectMapper,
+                                           PlatformTransactionManager transactionManager) {
+        this.userWalletRepository = userWalletRepository;
+        this.walletTransactionRepository = walletTransactionRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    @PreAuthorize("@permissionService.isOwnerOrAdmin(#userId)")
+    public WalletTransactionPageResponse listWalletTransactions(UUID userId, CurrencyEnum currency, String cursor, Integer limit) {
+        UUID walletId = resolveWalletId(userId, currency);
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        WalletTransactionCursor after = cursor != null && !cursor.isBlank() ? WalletTransactionCursor.decode(cursor) : null;
+
+        // Um item a mais só para saber se existe próxima página
+        List<WalletTransactionHistoryItem> rows = walletTransactionRepository.findHistoryPage(walletId,
+                after != null ? after.createdAt() : null, after != null ? after.id() : null, pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new WalletTransactionPageResponse(rows, null);
+        }
+
+        List<WalletTransactionHistoryItem> page = rows.subList(0, pageSize);
+        WalletTransactionHistoryItem last = page.get(pageSize - 1);
+        return new WalletTransactionPageResponse(List.copyOf(page),
+                new WalletTransactionCursor(last.createdAt(), last.id()).encode());
+    }
+
+    // Escreve o extrato inteiro em out, linha a linha, na mesma thread da requisição
+    @PreAuthorize("@permissionService.isOwnerOrAdmin(#userId)")
+    public void exportWalletTransactions(UUID userId, CurrencyEnum currency, ExportFormatEnum format, OutputStream out) {
+        UUID walletId = resolveWalletId(userId, currency);
+        logger.info("Exporting wallet transactions for userId: {} as {}", userId, format);
+        try {
+            if (format == ExportFormatEnum.CSV) {
+                out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+            }
+            readOnlyTransactionTemplate.executeWithoutResult(status ->
+                    walletTransactionRepository.streamHistory(walletId, item -> writeItem(item, format, out)));
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeItem(WalletTransactionHistoryItem item, ExportFormatEnum format, OutputStream out) {
+        try {
+            if (format == ExportFormatEnum.NDJSON) {
+                out.write(objectMapper.writeValueAsBytes(item));
+                out.write('\n');
+            } else {
+                out.write(toCsvLine(item).getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            // Cliente desconectou: interrompe a leitura e libera a conexão
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Nenhuma coluna do extrato contém vírgula, aspas ou quebra de linha (UUIDs, enums, números e datas)
+    private static String toCsvLine(WalletTransactionHistoryItem item) {
+        return String.join(",",
+                csv(item.id()), csv(item.walletId()), csv(item.type()), csv(item.currency()),
+                csv(item.amount()), csv(item.chargedAmount()), csv(item.chargedCurrency()),
+                csv(item.exchangeRate()), csv(item.transactionFee()), csv(item.originalAmountDeposited()),
+                csv(item.originalCurrencyDeposited()), csv(item.relatedOrderItemId()), csv(item.relatedShipmentId()),
+                csv(item.sequenceNumber()), csv(item.createdAt())) + "\n";
+    }
+
+    private static String csv(Object value) {
+        return Objects.toString(value, "");
+    }
+
+    // Apenas carteiras CNY existem hoje; sem moeda informada o extrato é o da carteira CNY
+    private UUID resolveWalletId(UUID userId, CurrencyEnum currency) {
+        CurrencyEnum walletCurrency = currency != null ? currency : CurrencyEnum.CNY;
+        return userWalletRepository.findWalletId(userId, walletCurrency)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Wallet not found for userId: " + userId + " and currency " + walletCurrency));
+    }
+}
@@ -18,6 +18,7 @@ import redirex.shipping.exception.ResourceNotFoundException;
 import redirex.shipping.exception.UserRegistrationException;
 import redirex.shipping.mapper.AdminMapper;
 import redirex.shipping.repositories.AdminRepository;
+import redirex.shipping.service.TokenGenerationService;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -30,6 +31,7 @@ public class AdminServiceImpl implements AdminService {
     private final AdminRepository adminRepository;
     private final PasswordEncoder passwordEncoder;
     private final AdminMapper adminMapper;
+    private final TokenGenerationService tokenGenerationService;
 
     @Override
     @Transactional
@@ -69,20 +71,27 @@ public class AdminServiceImpl implements AdminService {
         }
 
         adminEntity.setFullname(updateAdminRequestDto.fullname());
+        boolean credentialsChanged = false;
 
         if (updateAdminRequestDto.email() != null &&
                 !updateAdminRequestDto.email().isBlank() &&
                 !updateAdminRequestDto.email().equals(adminEntity.getEmail())) {
             validateEmailNotExists(updateAdminRequestDto.email());
             adminEntity.setEmail(updateAdminRequestDto.email());
+            credentialsChanged = true;
         }
 
         if (updateAdminRequestDto.password() != null &&
                 !updateAdminRequestDto.password().isBlank()) {
             adminEntity.setPassword(passwordEncoder.encode(updateAdminRequestDto.password()));
+            credentialsChanged = true;
         }
 
         adminEntity = adminRepository.save(adminEntity);
+        // Só troca de e-mail ou senha encerra as sessões
+        if (credentialsChanged) {
+            tokenGenerationService.bumpGenerationAfterCommit(adminEntity.getId());
+        }
         logger.info("Admin updated with email: {}", adminEntity.getEmail());
         return adminMapper.toUpdateResponse(adminEntity);
     }
@@ -0,0 +1,9 @@
+package redirex.shipping.service.quote;
+
+import redirex.shipping.money.Money;
+
+import java.math.BigDecimal;
+
+// Preço de um depósito: valor alvo (moeda da carteira), taxa, valor cobrado no cartão e a cotação usada
+public record DepositPricing(Money targetAmount, Money fee, Money chargeAmount, BigDecimal exchangeRate) {
+}
@@ -0,0 +1,59 @@
+package redirex.shipping.service.quote;
+
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.money.Money;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+// Preço travado de um depósito, guardado no Redis até expiresAt. signature é o HMAC dos demais campos,
+// conferido ao usar a cotação: um valor alterado no Redis não é aceito.
+public record DepositQuote(
+        UUID id,
+        UUID userId,
+        BigDecimal targetAmount,
+        CurrencyEnum targetCurrency,
+        BigDecimal fee,
+        BigDecimal chargeAmount,
+        CurrencyEnum chargeCurrency,
+        BigDecimal exchangeRate,
+        Instant expiresAt,
+        String signature
+) {
+
+    static DepositQuote unsigned(UUID id, UUID userId, DepositPricing pricing, Instant expiresAt) {
+        return new DepositQuote(id, userId,
+                pricing.targetAmount().toBigDecimal(), pricing.targetAmount().currency(),
+                pricing.fee().toBigDecimal(),
+                pricing.chargeAmount().toBigDecimal(), pricing.chargeAmount().currency(),
+                pricing.exchangeRate(), expiresAt, null);
+    }
+
+    DepositQuote withSignature(String signature) {
+        return new DepositQuote(id, userId, targetAmount, targetCurrency, fee, chargeAmount, chargeCurrency,
+                exchangeRate, expiresAt, signature);
+    }
+
+    // Forma canônica assinada; números sem zeros à direita para não depender da escala após o JSON
+    String signedPayload() {
+        return id + "|" + userId
+                + "|" + targetAmount.stripTrailingZeros().toPlainString() + "|" + targetCurrency
+                + "|" + fee.stripTrailingZeros().toPlainString()
+                + "|" + chargeAmount.stripTrailingZeros().toPlainString() + "|" + chargeCurrency
+                + "|" + exchangeRate.stripTrailingZeros().toPlainString()
+                + "|" + expiresAt.toEpochMilli();
+    }
+
+    public boolean isExpired(Instant now) {
+        return !now.isBefore(expiresAt);
+    }
+
+    public DepositPricing pricing() {
+        return new DepositPricing(
+                Money.of(targetAmount, targetCurrency),
+                Money.of(fee, targetCurrency),
+                Money.of(chargeAmount, chargeCurrency),
+                exchangeRate);
+    }
+}
@@ -0,0 +1,120 @@
+package redirex.shipping.service.quote;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import redirex.shipping.exception.DepositQuoteUnavailableException;
+import redirex.shipping.service.RedisCircuitBreaker;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+// Cotações de depósito no Redis, com TTL igual à validade. Sem Redis não há cotação: a emissão falha (503)
+// e o depósito com quoteId é recusado; depósitos sem cotação continuam usando a cotação do momento.
+@Component
+public class DepositQuoteStore {
+    private static final Logger logger = LoggerFactory.getLogger(DepositQuoteStore.class);
+    private static final String KEY_PREFIX = "deposit_quote:";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_LENGTH = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec signingKey;
+    private final Duration ttl;
+
+    public DepositQuoteStore(RedisTemplate<String, String> redisTemplate,
+                             RedisCircuitBreaker circuitBreaker,
+                             ObjectMapper objectMapper,
+                             @Value("${wallet.deposit.quote.signing-secret:}") String signingSecret,
+                             @Value("${wallet.deposit.quote.ttl-seconds:120}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.objectMapper = objectMapper;
+        // Segredo próprio, sem reaproveitar o do JWT: vazar ou trocar um não afeta o outro
+        if (signingSecret == null || signingSecret.length() < MIN_SECRET_LENGTH) {
+            throw new IllegalStateException("wallet.deposit.quote.signing-secret must be set to at least "
+                    + MIN_SECRET_LENGTH + " characters");
+        }
+        this.signingKey = new SecretKeySpec(signingSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+    }
+
+    public DepositQuote issue(UUID userId, DepositPricing pricing) {
+        DepositQuote unsigned = DepositQuote.unsigned(UUID.randomUUID(), userId, pricing, Instant.now().plus(ttl));
+        DepositQuote quote = unsigned.withSignature(sign(unsigned.signedPayload()));
+        String body = serialize(quote);
+        Boolean stored = circuitBreaker.execute(() -> {
+            redisTemplate.opsForValue().set(KEY_PREFIX + quote.id(), body, ttl);
+            return true;
+        }, () -> false);
+        if (!Boolean.TRUE.equals(stored)) {
+            throw new DepositQuoteUnavailableException("Deposit quotes are temporarily unavailable");
+        }
+        logger.info("Deposit quote {} issued for userId: {} ({} {} for {} {}, expires {})", quote.id(), userId,
+                quote.chargeAmount(), quote.chargeCurrency(), quote.targetAmount(), quote.targetCurrency(), quote.expiresAt());
+        return quote;
+    }
+
+    // Vazio se não existir, tiver expirado ou a assinatura não conferir
+    public Optional<DepositQuote> find(UUID quoteId) {
+        String body = circuitBreaker.execute(() -> redisTemplate.opsForValue().get(KEY_PREFIX + quoteId), () -> null);
+        if (body == null) {
+            return Optional.empty();
+        }
+        DepositQuote quote = deserialize(body);
+        if (quote == null || quote.signature() == null || !quoteId.equals(quote.id())) {
+            logger.warn("Malformed deposit quote {} in Redis", quoteId);
+            return Optional.empty();
+        }
+        byte[] expected = sign(quote.signedPayload()).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, quote.signature().getBytes(StandardCharsets.US_ASCII))) {
+            logger.warn("Deposit quote {} failed signature verification", quoteId);
+            return Optional.empty();
+        }
+        if (quote.isExpired(Instant.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(quote);
+    }
+
+    private String sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return ENCODER.encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " not available", e);
+        }
+    }
+
+    private String serialize(DepositQuote quote) {
+        try {
+            return objectMapper.writeValueAsString(quote);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize deposit quote", e);
+        }
+    }
+
+    private DepositQuote deserialize(String body) {
+        try {
+            return objectMapper.readValue(body, DepositQuote.class);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+}
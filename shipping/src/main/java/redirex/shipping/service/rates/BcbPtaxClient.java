@@ -0,0 +1,81 @@
+package redirex.shipping.service.rates;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.Comparator;
+import java.util.List;
+
+// Cliente da API PTAX do Banco Central (Olinda). Busca os boletins dos últimos dias para cobrir fins de semana
+// e feriados e usa o mais recente.
+@Component
+public class BcbPtaxClient {
+
+    private static final String PERIOD_URI = "/olinda/servico/PTAX/versao/v1/odata/"
+            + "CotacaoMoedaPeriodo(moeda=@moeda,dataInicial=@dataInicial,dataFinalCotacao=@dataFinalCotacao)"
+            + "?@moeda='{currency}'&@dataInicial='{start}'&@dataFinalCotacao='{end}'&$format=json";
+    private static final ZoneId BCB_ZONE = ZoneId.of("America/Sao_Paulo");
+    private static final DateTimeFormatter REQUEST_DATE = DateTimeFormatter.ofPattern("MM-dd-yyyy");
+    // Ex.: "2024-05-10 13:04:27.467" (a quantidade de casas dos milissegundos varia)
+    private static final DateTimeFormatter QUOTE_TIMESTAMP = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd HH:mm:ss")
+            .optionalStart()
+            .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true)
+            .optionalEnd()
+            .toFormatter();
+
+    private final WebClient bacenWebClient;
+    private final int lookbackDays;
+    private final Duration timeout;
+
+    public BcbPtaxClient(@Qualifier("bacenWebClient") WebClient bacenWebClient,
+                         @Value("${exchange-rate.ptax.lookback-days:7}") int lookbackDays,
+                         @Value("${exchange-rate.ptax.timeout-ms:10000}") long timeoutMillis) {
+        this.bacenWebClient = bacenWebClient;
+        this.lookbackDays = lookbackDays;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+    }
+
+    public Mono<PtaxQuote> fetchLatest(CurrencyEnum currency) {
+        LocalDate today = LocalDate.now(BCB_ZONE);
+        return bacenWebClient.get()
+                .uri(PERIOD_URI, currency.name(), today.minusDays(lookbackDays).format(REQUEST_DATE), today.format(REQUEST_DATE))
+                .retrieve()
+                .bodyToMono(PtaxResponse.class)
+                .timeout(timeout)
+                .flatMap(response -> latest(currency, response));
+    }
+
+    private Mono<PtaxQuote> latest(CurrencyEnum currency, PtaxResponse response) {
+        if (response.value() == null) {
+            return Mono.error(new IllegalStateException("Empty PTAX response for " + currency));
+        }
+        return response.value().stream()
+                .filter(entry -> entry.cotacaoVenda() != null && entry.cotacaoVenda().signum() > 0 && entry.dataHoraCotacao() != null)
+                .map(entry -> new PtaxQuote(currency, entry.cotacaoVenda(),
+                        LocalDateTime.parse(entry.dataHoraCotacao(), QUOTE_TIMESTAMP), entry.tipoBoletim()))
+                .max(Comparator.comparing(PtaxQuote::quotedAt))
+                .map(Mono::just)
+                .orElseGet(() -> Mono.error(new IllegalStateException(
+                        "No PTAX quote for " + currency + " in the last " + lookbackDays + " days")));
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record PtaxResponse(List<PtaxEntry> value) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record PtaxEntry(BigDecimal cotacaoCompra, BigDecimal cotacaoVenda, String dataHoraCotacao, String tipoBoletim) {}
+}
@@ -0,0 +1,52 @@
+package redirex.shipping.service.rates;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+
+// Cotações de referência do BCE pela API Frankfurter, para moedas que a PTAX não publica (ex.: CNY).
+// Devolve quantas unidades da moeda valem 1 USD; a conversão para BRL usa a PTAX do USD.
+@Component
+public class CrossRateClient {
+
+    private static final String LATEST_URI = "/latest?from={base}&to={currency}";
+
+    private final WebClient crossRateWebClient;
+    private final Duration timeout;
+
+    public CrossRateClient(@Qualifier("crossRateWebClient") WebClient crossRateWebClient,
+                           @Value("${exchange-rate.cross.timeout-ms:10000}") long timeoutMillis) {
+        this.crossRateWebClient = crossRateWebClient;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+    }
+
+    public Mono<CrossRate> fetchPerUsd(CurrencyEnum currency) {
+        return crossRateWebClient.get()
+                .uri(LATEST_URI, CurrencyEnum.USD.name(), currency.name())
+                .retrieve()
+                .bodyToMono(LatestResponse.class)
+                .timeout(timeout)
+                .flatMap(response -> {
+                    BigDecimal perUsd = response.rates() != null ? response.rates().get(currency.name()) : null;
+                    if (perUsd == null || perUsd.signum() <= 0) {
+                        return Mono.error(new IllegalStateException("No cross rate for USD -> " + currency));
+                    }
+                    return Mono.just(new CrossRate(currency, perUsd, response.date()));
+                });
+    }
+
+    // unitsPerUsd unidades de currency por 1 USD, na data de referência do BCE
+    public record CrossRate(CurrencyEnum currency, BigDecimal unitsPerUsd, LocalDate date) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record LatestResponse(String base, LocalDate date, Map<String, BigDecimal> rates) {}
+}
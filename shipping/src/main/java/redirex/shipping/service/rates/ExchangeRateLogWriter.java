@@ -0,0 +1,222 @@
+package redirex.shipping.service.rates;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Registro de cotações fora do caminho de preço: submit só enfileira (fila limitada; cheia, descarta e conta)
+// e um flush periódico grava o lote com um INSERT de várias linhas, que também atualiza o agregado por hora.
+// Cotação igual à última registrada do mesmo par é ignorada, então a tabela guarda uma linha por mudança de cotação.
+@Component
+public class ExchangeRateLogWriter {
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateLogWriter.class);
+    private static final CurrencyEnum[] CURRENCIES = CurrencyEnum.values();
+    private static final String INSERT_PREFIX =
+            "WITH inserted AS (INSERT INTO exchange_rate_logs (id, from_currency, to_currency, rate, source, fetched_at) VALUES ";
+    private static final String INSERT_ROW = "(gen_random_uuid(), ?, ?, ?, ?, ?)";
+    // Agregado por hora (exchange_rate_log_hourly) atualizado no mesmo comando, somando ao que já existe
+    private static final String HOURLY_UPSERT = """
+            INSERT INTO exchange_rate_log_hourly AS h
+                   (id, from_currency, to_currency, bucket_start, open_rate, open_at, high_rate, low_rate,
+                    close_rate, close_at, rate_sum, samples)
+            SELECT gen_random_uuid(), from_currency, to_currency, date_trunc('hour', fetched_at),
+                   (array_agg(rate ORDER BY fetched_at))[1], min(fetched_at), max(rate), min(rate),
+                   (array_agg(rate ORDER BY fetched_at DESC))[1], max(fetched_at), sum(rate), count(*)
+              FROM %s
+             GROUP BY from_currency, to_currency, date_trunc('hour', fetched_at)
+            ON CONFLICT (from_currency, to_currency, bucket_start) DO UPDATE SET
+                   open_rate = CASE WHEN EXCLUDED.open_at < h.open_at THEN EXCLUDED.open_rate ELSE h.open_rate END,
+                   open_at = LEAST(h.open_at, EXCLUDED.open_at),
+                   high_rate = GREATEST(h.high_rate, EXCLUDED.high_rate),
+                   low_rate = LEAST(h.low_rate, EXCLUDED.low_rate),
+                   close_rate = CASE WHEN EXCLUDED.close_at >= h.close_at THEN EXCLUDED.close_rate ELSE h.close_rate END,
+                   close_at = GREATEST(h.close_at, EXCLUDED.close_at),
+                   rate_sum = h.rate_sum + EXCLUDED.rate_sum,
+                   samples = h.samples + EXCLUDED.samples
+            """;
+    private static final String INSERT_SUFFIX = " RETURNING from_currency, to_currency, rate, fetched_at)\n"
+            + HOURLY_UPSERT.formatted("inserted");
+    // Linhas do log anteriores ao agregado de cada par (instalações que já tinham histórico)
+    private static final String HOURLY_BACKFILL_SQL = HOURLY_UPSERT.formatted("""
+            (SELECT l.from_currency, l.to_currency, l.rate, l.fetched_at
+               FROM exchange_rate_logs l
+               LEFT JOIN (SELECT from_currency, to_currency, min(open_at) AS first_at
+                            FROM exchange_rate_log_hourly
+                           GROUP BY from_currency, to_currency) c
+                 ON c.from_currency = l.from_currency AND c.to_currency = l.to_currency
+              WHERE c.first_at IS NULL OR l.fetched_at < c.first_at) pending""");
+    // Última cotação gravada de cada par, para semear a deduplicação depois de um restart
+    private static final String LAST_RATES_SQL = """
+            SELECT DISTINCT ON (from_currency, to_currency) from_currency, to_currency, rate
+              FROM exchange_rate_logs
+             ORDER BY from_currency, to_currency, fetched_at DESC
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<RateLogEntry> queue;
+    private final int batchSize;
+    // Última cotação aceita por par, indexada por ordinal (from * n + to)
+    private final AtomicReferenceArray<BigDecimal> lastLogged = new AtomicReferenceArray<>(CURRENCIES.length * CURRENCIES.length);
+
+    private final Counter writtenCounter;
+    private final Counter deduplicatedCounter;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+
+    public ExchangeRateLogWriter(JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${exchange-rate.log.queue-capacity:1000}") int queueCapacity,
+                                 @Value("${exchange-rate.log.batch-size:200}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+
+        this.writtenCounter = Counter.builder("exchange_rate.log.entries").tag("result", "written").register(meterRegistry);
+        this.deduplicatedCounter = Counter.builder("exchange_rate.log.entries").tag("result", "deduplicated").register(meterRegistry);
+        this.droppedCounter = Counter.builder("exchange_rate.log.entries").tag("result", "dropped").register(meterRegistry);
+        this.failedCounter = Counter.builder("exchange_rate.log.entries").tag("result", "failed").register(meterRegistry);
+        Gauge.builder("exchange_rate.log.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    // Não bloqueia: sem espaço na fila a entrada é descartada
+    public void submit(CurrencyEnum from, CurrencyEnum to, BigDecimal rate, String source) {
+        int pair = pairIndex(from, to);
+        BigDecimal previous = lastLogged.get(pair);
+        if (previous != null && previous.compareTo(rate) == 0) {
+            deduplicatedCounter.increment();
+            return;
+        }
+        // Só quem troca o valor enfileira; outra thread com a mesma cotação cai na deduplicação
+        if (!lastLogged.compareAndSet(pair, previous, rate)) {
+            deduplicatedCounter.increment();
+            return;
+        }
+        if (!queue.offer(new RateLogEntry(from, to, rate, source, LocalDateTime.now()))) {
+            // Libera o par para que a próxima atualização tente de novo
+            lastLogged.compareAndSet(pair, rate, previous);
+            droppedCounter.increment();
+            logger.warn("Exchange rate log queue full; dropped {} -> {} = {}", from, to, rate);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${exchange-rate.log.flush-interval-ms:1000}")
+    public void flush() {
+        List<RateLogEntry> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    // Semeia a deduplicação com a última cotação gravada de cada par, fora do caminho de submit. Roda antes do
+    // initialRefresh do ExchangeRateProvider, que dispara as primeiras gravações; valores já aceitos não são trocados.
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedLastLogged() {
+        try {
+            jdbcTemplate.query(LAST_RATES_SQL, rs -> {
+                CurrencyEnum from = parse(rs.getString("from_currency"));
+                CurrencyEnum to = parse(rs.getString("to_currency"));
+                if (from != null && to != null) {
+                    lastLogged.compareAndSet(pairIndex(from, to), null, rs.getBigDecimal("rate"));
+                }
+            });
+        } catch (Exception e) {
+            logger.warn("Could not load last logged exchange rates: {}", e.getMessage());
+        }
+    }
+
+    // Nós subindo juntos somariam as mesmas linhas duas vezes: só quem pega o lock faz o backfill, e o próximo
+    // a rodar já encontra o agregado cobrindo o log
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillHourly() {
+        try {
+            Integer buckets = transactionTemplate.execute(status -> {
+                Boolean locked = jdbcTemplate.queryForObject(
+                        "SELECT pg_try_advisory_xact_lock(hashtextextended('exchange_rate_hourly_backfill', 0))",
+                        Boolean.class);
+                return Boolean.TRUE.equals(locked) ? jdbcTemplate.update(HOURLY_BACKFILL_SQL) : null;
+            });
+            if (buckets == null) {
+                logger.info("Hourly exchange rate backfill running on another node; skipped");
+            } else if (buckets > 0) {
+                logger.info("Backfilled {} hourly exchange rate buckets", buckets);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not backfill hourly exchange rates: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void write(List<RateLogEntry> batch) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + batch.size() * (INSERT_ROW.length() + 2)
+                + INSERT_SUFFIX.length());
+        sql.append(INSERT_PREFIX);
+        Object[] args = new Object[batch.size() * 5];
+        int position = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            RateLogEntry entry = batch.get(i);
+            sql.append(i == 0 ? "" : ", ").append(INSERT_ROW);
+            args[position++] = entry.from().name();
+            args[position++] = entry.to().name();
+            args[position++] = entry.rate();
+            args[position++] = entry.source();
+            args[position++] = Timestamp.valueOf(entry.fetchedAt());
+        }
+        sql.append(INSERT_SUFFIX);
+        try {
+            jdbcTemplate.update(sql.toString(), args);
+            writtenCounter.increment(batch.size());
+        } catch (Exception e) {
+            failedCounter.increment(batch.size());
+            // Esquece os pares do lote para que a próxima atualização grave de novo
+            for (RateLogEntry entry : batch) {
+                lastLogged.compareAndSet(pairIndex(entry.from(), entry.to()), entry.rate(), null);
+            }
+            logger.error("Failed to write {} exchange rate log entries: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private static CurrencyEnum parse(String value) {
+        try {
+            return CurrencyEnum.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int pairIndex(CurrencyEnum from, CurrencyEnum to) {
+        return from.ordinal() * CURRENCIES.length + to.ordinal();
+    }
+
+    private record RateLogEntry(CurrencyEnum from, CurrencyEnum to, BigDecimal rate, String source, LocalDateTime fetchedAt) {}
+}
@@ -0,0 +1,50 @@
+package redirex.shipping.service.rates;
+
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.money.PricingRounding;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+// Cotação de todos os pares, calculada uma vez por atualização e indexada por ordinal (from * n + to):
+// a leitura é um acesso ao array, sem mapa, chave em string nem divisão. Imutável.
+public final class ExchangeRateMatrix {
+    private static final CurrencyEnum[] CURRENCIES = CurrencyEnum.values();
+    private static final int SIZE = CURRENCIES.length;
+
+    private final BigDecimal[] rates;
+
+    private ExchangeRateMatrix(BigDecimal[] rates) {
+        this.rates = rates;
+    }
+
+    // Triangula pela moeda base: from -> to = (base por unidade de from) / (base por unidade de to).
+    // Pares com alguma moeda sem cotação ficam vazios.
+    public static ExchangeRateMatrix triangulate(CurrencyEnum base, Map<CurrencyEnum, BigDecimal> basePerUnit) {
+        BigDecimal[] perUnit = new BigDecimal[SIZE];
+        basePerUnit.forEach((currency, value) -> perUnit[currency.ordinal()] = value);
+        perUnit[base.ordinal()] = BigDecimal.ONE;
+
+        BigDecimal[] rates = new BigDecimal[SIZE * SIZE];
+        for (int from = 0; from < SIZE; from++) {
+            for (int to = 0; to < SIZE; to++) {
+                if (from == to) {
+                    rates[from * SIZE + to] = BigDecimal.ONE;
+                } else if (perUnit[from] != null && perUnit[to] != null) {
+                    rates[from * SIZE + to] = perUnit[from].divide(perUnit[to],
+                            PricingRounding.RATE_SCALE, PricingRounding.FX_RATE.mode());
+                }
+            }
+        }
+        return new ExchangeRateMatrix(rates);
+    }
+
+    // Quantas unidades de to valem uma unidade de from; null se o par não tiver cotação
+    public BigDecimal rate(CurrencyEnum from, CurrencyEnum to) {
+        return rates[from.ordinal() * SIZE + to.ordinal()];
+    }
+
+    public boolean supports(CurrencyEnum from, CurrencyEnum to) {
+        return rate(from, to) != null;
+    }
+}
@@ -0,0 +1,239 @@
+package redirex.shipping.service.rates;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.exception.ExchangeRateUnavailableException;
+import redirex.shipping.money.PricingRounding;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Cotações em memória, atualizadas em background a partir da PTAX. Moedas que a PTAX não publica
+// (exchange-rate.cross.currencies, ex.: CNY) vêm da cotação contra USD do CrossRateClient, convertida pela PTAX do USD.
+// A leitura só consulta o snapshot atual (sem lock e sem I/O); a atualização começa antes do snapshot vencer.
+// Cada moeda é buscada à parte: a que falhar mantém a última cotação boa, que vale até
+// exchange-rate.max-staleness-seconds, e as demais são publicadas normalmente.
+@Service
+public class ExchangeRateProvider {
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateProvider.class);
+    private static final String SOURCE = "BCB_PTAX";
+    private static final String CROSS_SOURCE = "BCB_PTAX_USD_ECB";
+    // Moeda pela qual as cotações de fora da PTAX são trianguladas
+    private static final CurrencyEnum CROSS_BASE = CurrencyEnum.USD;
+    // Escala intermediária de BRL por unidade nas cotações trianguladas (a matriz arredonda para RATE_SCALE depois)
+    private static final int CROSS_SCALE = 10;
+    // Cotadas contra BRL
+    private static final List<CurrencyEnum> QUOTED_CURRENCIES = Arrays.stream(CurrencyEnum.values())
+            .filter(currency -> currency != CurrencyEnum.BRL)
+            .toList();
+
+    private final BcbPtaxClient ptaxClient;
+    private final CrossRateClient crossRateClient;
+    private final List<CurrencyEnum> ptaxCurrencies;
+    private final List<CurrencyEnum> crossCurrencies;
+    private final ExchangeRateLogWriter exchangeRateLogWriter;
+    private final AtomicReference<ExchangeRateSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private final long ttlMillis;
+    private final Duration refreshAfter;
+    private final long maxStalenessMillis;
+
+    private final Counter refreshSuccessCounter;
+    private final Counter refreshPartialCounter;
+    private final Counter refreshFailureCounter;
+    private final Counter staleReadCounter;
+
+    public ExchangeRateProvider(BcbPtaxClient ptaxClient,
+                                CrossRateClient crossRateClient,
+                                ExchangeRateLogWriter exchangeRateLogWriter,
+                                MeterRegistry meterRegistry,
+                                @Value("${exchange-rate.cross.currencies:CNY}") List<CurrencyEnum> crossCurrencies,
+                                @Value("${exchange-rate.ttl-seconds:900}") long ttlSeconds,
+                                @Value("${exchange-rate.refresh-ahead-seconds:120}") long refreshAheadSeconds,
+                                @Value("${exchange-rate.max-staleness-seconds:86400}") long maxStalenessSeconds) {
+        this.ptaxClient = ptaxClient;
+        this.crossRateClient = crossRateClient;
+        this.crossCurrencies = QUOTED_CURRENCIES.stream()
+                .filter(currency -> currency != CROSS_BASE && crossCurrencies.contains(currency))
+                .toList();
+        this.ptaxCurrencies = QUOTED_CURRENCIES.stream()
+                .filter(currency -> !this.crossCurrencies.contains(currency))
+                .toList();
+        this.exchangeRateLogWriter = exchangeRateLogWriter;
+        this.ttlMillis = Duration.ofSeconds(ttlSeconds).toMillis();
+        this.refreshAfter = Duration.ofSeconds(Math.max(0L, ttlSeconds - refreshAheadSeconds));
+        this.maxStalenessMillis = Duration.ofSeconds(maxStalenessSeconds).toMillis();
+
+        this.refreshSuccessCounter = Counter.builder("exchange_rate.refresh")
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.refreshPartialCounter = Counter.builder("exchange_rate.refresh")
+                .tag("result", "partial")
+                .register(meterRegistry);
+        this.refreshFailureCounter = Counter.builder("exchange_rate.refresh")
+                .tag("result", "failure")
+                .register(meterRegistry);
+        this.staleReadCounter = Counter.builder("exchange_rate.stale.reads")
+                .register(meterRegistry);
+        Gauge.builder("exchange_rate.snapshot.age.seconds", snapshot,
+                        ref -> ref.get() != null ? ref.get().age(Instant.now()).toSeconds() : Double.NaN)
+                .register(meterRegistry);
+    }
+
+    // Quantas unidades de to valem uma unidade de from
+    public BigDecimal getRate(CurrencyEnum from, CurrencyEnum to) {
+        if (from == to) {
+            return BigDecimal.ONE;
+        }
+        ExchangeRateSnapshot current = snapshot.get();
+        if (current == null) {
+            throw new ExchangeRateUnavailableException("Exchange rates are not available yet");
+        }
+        // Em milissegundos: a leitura não aloca (nem Instant, nem Duration). Vale a cotação mais antiga do par,
+        // que pode ser de uma atualização anterior se a moeda falhou nas últimas.
+        long ageMillis = System.currentTimeMillis() - current.refreshedAtMillis(from, to);
+        if (ageMillis > maxStalenessMillis) {
+            logger.error("Exchange rate {} -> {} is {}s old, above the staleness bound", from, to, ageMillis / 1000);
+            throw new ExchangeRateUnavailableException("Exchange rates are temporarily unavailable");
+        }
+        if (ageMillis > ttlMillis) {
+            staleReadCounter.increment();
+        }
+        BigDecimal rate = current.rate(from, to);
+        if (rate == null) {
+            throw new ExchangeRateUnavailableException("No exchange rate available for " + from + " -> " + to);
+        }
+        return rate;
+    }
+
+    // Se o par tem fonte de cotação configurada (PTAX ou triangulação em USD), independente do snapshot atual:
+    // uma cotação ainda não obtida ou vencida é indisponibilidade (getRate, 503), não um par inválido
+    public boolean supports(CurrencyEnum from, CurrencyEnum to) {
+        return from == to || (isQuoted(from) && isQuoted(to));
+    }
+
+    private boolean isQuoted(CurrencyEnum currency) {
+        return currency == CurrencyEnum.BRL || ptaxCurrencies.contains(currency) || crossCurrencies.contains(currency);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialRefresh() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${exchange-rate.check-interval-ms:30000}",
+            initialDelayString = "${exchange-rate.check-interval-ms:30000}")
+    public void refreshIfDue() {
+        ExchangeRateSnapshot current = snapshot.get();
+        // Moeda ainda sem cotação (falhou desde a subida): tenta de novo a cada verificação
+        if (current == null || current.quotes().size() < QUOTED_CURRENCIES.size()
+                || current.age(Instant.now()).compareTo(refreshAfter) >= 0) {
+            refresh();
+        }
+    }
+
+    // Dispara a busca sem bloquear quem chamou; no máximo uma em andamento
+    public void refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        ExchangeRateSnapshot previous = snapshot.get();
+        Flux.fromIterable(ptaxCurrencies)
+                .flatMap(currency -> ptaxClient.fetchLatest(currency)
+                        .onErrorResume(error -> skip(currency, error)))
+                .collectMap(PtaxQuote::currency)
+                .flatMap(ptax -> fetchCrossQuotes(ptax, previous).map(cross -> {
+                    Map<CurrencyEnum, PtaxQuote> fresh = new EnumMap<>(CurrencyEnum.class);
+                    fresh.putAll(ptax);
+                    fresh.putAll(cross);
+                    return fresh;
+                }))
+                // A deduplicação do log consulta o banco na primeira vez: fora das threads do Netty
+                .publishOn(Schedulers.boundedElastic())
+                .doFinally(signal -> refreshing.set(false))
+                .subscribe(fresh -> publish(previous, fresh), this::onRefreshFailure);
+    }
+
+    // BRL por unidade = (BRL por USD na PTAX) / (unidades por USD). Sem USD nesta atualização, usa a última boa.
+    private Mono<Map<CurrencyEnum, PtaxQuote>> fetchCrossQuotes(Map<CurrencyEnum, PtaxQuote> ptax,
+                                                                ExchangeRateSnapshot previous) {
+        PtaxQuote base = ptax.containsKey(CROSS_BASE) ? ptax.get(CROSS_BASE)
+                : previous != null ? previous.quotes().get(CROSS_BASE) : null;
+        if (crossCurrencies.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        if (base == null) {
+            logger.warn("No {} quote to triangulate {}; keeping the last good rates", CROSS_BASE, crossCurrencies);
+            return Mono.just(Map.of());
+        }
+        return Flux.fromIterable(crossCurrencies)
+                .flatMap(currency -> crossRateClient.fetchPerUsd(currency)
+                        .map(cross -> new PtaxQuote(currency,
+                                base.brlPerUnit().divide(cross.unitsPerUsd(), CROSS_SCALE, PricingRounding.FX_RATE.mode()),
+                                base.quotedAt(), base.bulletin() + " / ECB " + cross.date()))
+                        .onErrorResume(error -> skip(currency, error)))
+                .collectMap(PtaxQuote::currency);
+    }
+
+    private Mono<PtaxQuote> skip(CurrencyEnum currency, Throwable error) {
+        logger.warn("Exchange rate refresh for {} failed ({}); keeping the last good rate", currency, error.getMessage());
+        return Mono.empty();
+    }
+
+    private void publish(ExchangeRateSnapshot previous, Map<CurrencyEnum, PtaxQuote> fresh) {
+        if (fresh.isEmpty()) {
+            onRefreshFailure(new IllegalStateException("no currency could be refreshed"));
+            return;
+        }
+        Instant now = Instant.now();
+        Map<CurrencyEnum, PtaxQuote> quotes = new EnumMap<>(CurrencyEnum.class);
+        Map<CurrencyEnum, Instant> refreshedAt = new EnumMap<>(CurrencyEnum.class);
+        if (previous != null) {
+            quotes.putAll(previous.quotes());
+            refreshedAt.putAll(previous.refreshedAt());
+        }
+        quotes.putAll(fresh);
+        for (CurrencyEnum currency : fresh.keySet()) {
+            // Triangulada com o USD da última atualização boa: só é tão recente quanto ele
+            boolean staleBase = crossCurrencies.contains(currency) && !fresh.containsKey(CROSS_BASE);
+            refreshedAt.put(currency, staleBase ? refreshedAt.getOrDefault(CROSS_BASE, now) : now);
+        }
+        ExchangeRateSnapshot next = ExchangeRateSnapshot.of(quotes, refreshedAt, now);
+        snapshot.set(next);
+        (fresh.size() == QUOTED_CURRENCIES.size() ? refreshSuccessCounter : refreshPartialCounter).increment();
+
+        for (CurrencyEnum currency : fresh.keySet()) {
+            BigDecimal rate = next.rate(CurrencyEnum.BRL, currency);
+            logger.info("Exchange rate refreshed: BRL -> {} = {} ({} {})", currency, rate,
+                    fresh.get(currency).bulletin(), fresh.get(currency).quotedAt());
+            exchangeRateLogWriter.submit(CurrencyEnum.BRL, currency, rate,
+                    crossCurrencies.contains(currency) ? CROSS_SOURCE : SOURCE);
+        }
+    }
+
+    private void onRefreshFailure(Throwable error) {
+        refreshFailureCounter.increment();
+        ExchangeRateSnapshot current = snapshot.get();
+        logger.warn("Exchange rate refresh failed ({}); serving snapshot from {}", error.getMessage(),
+                current != null ? current.fetchedAt() : "none");
+    }
+}
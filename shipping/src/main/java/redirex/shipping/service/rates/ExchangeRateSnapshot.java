@@ -0,0 +1,52 @@
+package redirex.shipping.service.rates;
+
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Cotações da última atualização, com a matriz de todos os pares já calculada. Uma moeda que falhou na atualização
+// mantém a última cotação boa, com o instante em que ela foi obtida (refreshedAt). Imutável: cada atualização
+// publica uma instância nova e os leitores usam a que estiver na referência, sem lock.
+public record ExchangeRateSnapshot(Map<CurrencyEnum, PtaxQuote> quotes, Map<CurrencyEnum, Instant> refreshedAt,
+                                   ExchangeRateMatrix rates, Instant fetchedAt) {
+
+    public ExchangeRateSnapshot {
+        quotes = Collections.unmodifiableMap(new EnumMap<>(quotes));
+        refreshedAt = Collections.unmodifiableMap(new EnumMap<>(refreshedAt));
+    }
+
+    // As cotações da PTAX são em BRL por unidade da moeda: os demais pares saem por triangulação em BRL
+    public static ExchangeRateSnapshot of(Map<CurrencyEnum, PtaxQuote> quotes, Map<CurrencyEnum, Instant> refreshedAt,
+                                          Instant fetchedAt) {
+        Map<CurrencyEnum, BigDecimal> brlPerUnit = new EnumMap<>(CurrencyEnum.class);
+        quotes.forEach((currency, quote) -> brlPerUnit.put(currency, quote.brlPerUnit()));
+        return new ExchangeRateSnapshot(quotes, refreshedAt, ExchangeRateMatrix.triangulate(CurrencyEnum.BRL, brlPerUnit),
+                fetchedAt);
+    }
+
+    // Quantas unidades de to valem uma unidade de from; null se faltar a cotação de alguma das moedas
+    public BigDecimal rate(CurrencyEnum from, CurrencyEnum to) {
+        return rates.rate(from, to);
+    }
+
+    // Quando a cotação mais antiga do par foi obtida (BRL, a base, conta como da última atualização)
+    public long refreshedAtMillis(CurrencyEnum from, CurrencyEnum to) {
+        return Math.min(refreshedAtMillis(from), refreshedAtMillis(to));
+    }
+
+    // Idade da cotação mais antiga do snapshot
+    public Duration age(Instant now) {
+        Instant oldest = refreshedAt.values().stream().min(Instant::compareTo).orElse(fetchedAt);
+        return Duration.between(oldest, now);
+    }
+
+    private long refreshedAtMillis(CurrencyEnum currency) {
+        Instant at = refreshedAt.get(currency);
+        return (at != null ? at : fetchedAt).toEpochMilli();
+    }
+}
@@ -0,0 +1,15 @@
+package redirex.shipping.service.rates;
+
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Cotação PTAX de venda: quantos BRL valem uma unidade de currency, no boletim de quotedAt (horário de Brasília).
+// Moedas fora da PTAX são trianguladas pela PTAX do USD (ver ExchangeRateProvider); bulletin indica a origem.
+public record PtaxQuote(
+        CurrencyEnum currency,
+        BigDecimal brlPerUnit,
+        LocalDateTime quotedAt,
+        String bulletin
+) {}
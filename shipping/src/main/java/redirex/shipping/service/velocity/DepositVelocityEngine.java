@@ -0,0 +1,297 @@
+package redirex.shipping.service.velocity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.enums.VelocityDimensionEnum;
+import redirex.shipping.exception.DepositVelocityExceededException;
+import redirex.shipping.exception.DepositVelocityUnavailableException;
+import redirex.shipping.money.Money;
+import redirex.shipping.money.PricingRounding;
+import redirex.shipping.service.RedisCircuitBreaker;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Limites de velocidade de depósito por usuário, cartão (PaymentMethod) e IP, verificados antes do Stripe.
+// Cada nó conta tentativas e valor em janelas deslizantes locais; com wallet.velocity.redis.enabled os mesmos
+// contadores são espelhados no Redis (buckets com TTL) e a decisão usa o total de todos os nós.
+// Tentativas recusadas continuam contando; o valor só é somado quando o depósito segue para o Stripe.
+@Service
+public class DepositVelocityEngine implements MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(DepositVelocityEngine.class);
+    private static final String COUNTER_KEY_PREFIX = "deposit_velocity:";
+    private static final String LIMITS_KEY = "deposit_velocity_limits";
+    public static final String EVENTS_CHANNEL = "deposit_velocity_events";
+
+    // KEYS: buckets de cada chave, do atual para o mais antigo. ARGV: buckets, TTL, valor, grava valor (0/1),
+    // depois (tentativas, valor) máximos de cada chave. Retorna a posição (1..n) da primeira chave acima do limite ou 0.
+    private static final RedisScript<Long> CHECK_AND_RECORD_SCRIPT = new DefaultRedisScript<>(
+            "local buckets = tonumber(ARGV[1]) " +
+            "local amount = tonumber(ARGV[3]) " +
+            "local dims = #KEYS / buckets " +
+            "local violated = 0 " +
+            "for d = 0, dims - 1 do " +
+            "  local base = d * buckets " +
+            "  redis.call('HINCRBY', KEYS[base + 1], 'a', 1) " +
+            "  redis.call('PEXPIRE', KEYS[base + 1], ARGV[2]) " +
+            "  local attempts, total = 0, 0 " +
+            "  for j = 1, buckets do " +
+            "    local v = redis.call('HMGET', KEYS[base + j], 'a', 'm') " +
+            "    attempts = attempts + (tonumber(v[1]) or 0) " +
+            "    total = total + (tonumber(v[2]) or 0) " +
+            "  end " +
+            "  if violated == 0 and (attempts > tonumber(ARGV[5 + d * 2]) or total + amount > tonumber(ARGV[6 + d * 2])) then " +
+            "    violated = d + 1 " +
+            "  end " +
+            "end " +
+            "if violated == 0 and ARGV[4] == '1' then " +
+            "  for d = 0, dims - 1 do redis.call('HINCRBY', KEYS[d * buckets + 1], 'm', ARGV[3]) end " +
+            "end " +
+            "return violated",
+            Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final ObjectMapper objectMapper;
+    private final AtomicReference<DepositVelocityLimits> limits;
+    private final int buckets;
+    private final long bucketMillis;
+    private final boolean redisEnabled;
+    private final Map<VelocityDimensionEnum, Cache<String, VelocityCounters>> counters = new EnumMap<>(VelocityDimensionEnum.class);
+
+    private final Counter allowedCounter;
+    private final Map<VelocityDimensionEnum, Counter> rejectedCounters = new EnumMap<>(VelocityDimensionEnum.class);
+    private final Counter redisFallbackCounter;
+
+    public DepositVelocityEngine(RedisTemplate<String, String> redisTemplate,
+                                 RedisCircuitBreaker circuitBreaker,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${wallet.velocity.enabled:true}") boolean enabled,
+                                 @Value("${wallet.velocity.window-seconds:3600}") long windowSeconds,
+                                 @Value("${wallet.velocity.buckets:12}") int buckets,
+                                 @Value("${wallet.velocity.max-tracked-keys:100000}") long maxTrackedKeys,
+                                 @Value("${wallet.velocity.redis.enabled:false}") boolean redisEnabled,
+                                 @Value("${wallet.velocity.user.max-attempts:10}") long userMaxAttempts,
+                                 @Value("${wallet.velocity.user.max-amount:20000}") BigDecimal userMaxAmount,
+                                 @Value("${wallet.velocity.payment-method.max-attempts:5}") long paymentMethodMaxAttempts,
+                                 @Value("${wallet.velocity.payment-method.max-amount:20000}") BigDecimal paymentMethodMaxAmount,
+                                 @Value("${wallet.velocity.ip.max-attempts:20}") long ipMaxAttempts,
+                                 @Value("${wallet.velocity.ip.max-amount:50000}") BigDecimal ipMaxAmount) {
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.objectMapper = objectMapper;
+        this.limits = new AtomicReference<>(new DepositVelocityLimits(enabled,
+                new DepositVelocityLimits.Threshold(userMaxAttempts, userMaxAmount),
+                new DepositVelocityLimits.Threshold(paymentMethodMaxAttempts, paymentMethodMaxAmount),
+                new DepositVelocityLimits.Threshold(ipMaxAttempts, ipMaxAmount)));
+        this.buckets = buckets;
+        this.bucketMillis = Math.max(1L, TimeUnit.SECONDS.toMillis(windowSeconds) / buckets);
+        this.redisEnabled = redisEnabled;
+
+        this.allowedCounter = Counter.builder("wallet.deposit.velocity.checks")
+                .tag("result", "allowed")
+                .register(meterRegistry);
+        for (VelocityDimensionEnum dimension : VelocityDimensionEnum.values()) {
+            String tag = dimension.name().toLowerCase(Locale.ROOT);
+            // Chave sem uso por uma janela inteira já está zerada e pode ser descartada
+            Cache<String, VelocityCounters> cache = Caffeine.newBuilder()
+                    .expireAfterAccess(Duration.ofSeconds(Math.max(1L, windowSeconds)))
+                    .maximumSize(maxTrackedKeys)
+                    .build();
+            counters.put(dimension, cache);
+            rejectedCounters.put(dimension, Counter.builder("wallet.deposit.velocity.checks")
+                    .tag("result", "rejected")
+                    .tag("limit", tag)
+                    .register(meterRegistry));
+            Gauge.builder("wallet.deposit.velocity.tracked.keys", cache, Cache::estimatedSize)
+                    .tag("limit", tag)
+                    .register(meterRegistry);
+        }
+        this.redisFallbackCounter = Counter.builder("wallet.deposit.velocity.redis.fallback")
+                .register(meterRegistry);
+    }
+
+    // Conta a tentativa e recusa o depósito se alguma chave passar do limite da janela.
+    // clientIp pode ser nulo (chamadas internas): a chave de IP é ignorada.
+    public void checkAndRecord(UUID userId, String paymentMethodId, String clientIp, Money amount) {
+        DepositVelocityLimits current = limits.get();
+        if (!current.enabled()) {
+            return;
+        }
+
+        List<VelocityDimensionEnum> dimensions = new ArrayList<>(3);
+        List<String> keys = new ArrayList<>(3);
+        addKey(dimensions, keys, VelocityDimensionEnum.USER, userId.toString());
+        addKey(dimensions, keys, VelocityDimensionEnum.PAYMENT_METHOD, paymentMethodId);
+        addKey(dimensions, keys, VelocityDimensionEnum.IP, clientIp);
+
+        long now = System.currentTimeMillis();
+        long amountMinor = amount.minorUnits();
+        List<VelocityCounters> local = new ArrayList<>(dimensions.size());
+        VelocityDimensionEnum violated = null;
+        for (int i = 0; i < dimensions.size(); i++) {
+            VelocityDimensionEnum dimension = dimensions.get(i);
+            VelocityCounters windowCounters = counters.get(dimension).get(keys.get(i), k -> newCounters());
+            local.add(windowCounters);
+            long attempts = windowCounters.attempts().add(now, 1L);
+            long total = windowCounters.amount().sum(now) + amountMinor;
+            if (violated == null && exceeds(current.threshold(dimension), attempts, total)) {
+                violated = dimension;
+            }
+        }
+
+        if (redisEnabled) {
+            VelocityDimensionEnum clusterViolated = checkCluster(current, dimensions, keys, now, amountMinor, violated == null);
+            if (violated == null) {
+                violated = clusterViolated;
+            }
+        }
+
+        if (violated != null) {
+            rejectedCounters.get(violated).increment();
+            logger.warn("Deposit velocity limit ({}) exceeded for userId: {}", violated, userId);
+            throw new DepositVelocityExceededException(violated, "Too many deposit attempts. Please try again later.");
+        }
+
+        for (VelocityCounters windowCounters : local) {
+            windowCounters.amount().add(now, amountMinor);
+        }
+        allowedCounter.increment();
+    }
+
+    // Total de todos os nós. Sem Redis, vale a decisão local.
+    private VelocityDimensionEnum checkCluster(DepositVelocityLimits current, List<VelocityDimensionEnum> dimensions,
+                                               List<String> keys, long now, long amountMinor, boolean recordAmount) {
+        long bucket = now / bucketMillis;
+        List<String> redisKeys = new ArrayList<>(dimensions.size() * buckets);
+        List<String> args = new ArrayList<>(4 + dimensions.size() * 2);
+        args.add(String.valueOf(buckets));
+        args.add(String.valueOf(bucketMillis * (buckets + 1)));
+        args.add(String.valueOf(amountMinor));
+        args.add(recordAmount ? "1" : "0");
+        for (int i = 0; i < dimensions.size(); i++) {
+            String prefix = COUNTER_KEY_PREFIX + dimensions.get(i).name().toLowerCase(Locale.ROOT) + ":" + keys.get(i) + ":";
+            for (int j = 0; j < buckets; j++) {
+                redisKeys.add(prefix + (bucket - j));
+            }
+            DepositVelocityLimits.Threshold threshold = current.threshold(dimensions.get(i));
+            args.add(String.valueOf(threshold.maxAttempts()));
+            args.add(String.valueOf(toMinor(threshold.maxAmount())));
+        }
+
+        Long result = circuitBreaker.execute(
+                () -> redisTemplate.execute(CHECK_AND_RECORD_SCRIPT, redisKeys, args.toArray()),
+                () -> {
+                    redisFallbackCounter.increment();
+                    return null;
+                });
+        if (result == null || result <= 0 || result > dimensions.size()) {
+            return null;
+        }
+        return dimensions.get(result.intValue() - 1);
+    }
+
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public DepositVelocityLimits getLimits() {
+        return limits.get();
+    }
+
+    // Grava no Redis e avisa os outros nós; sem Redis a alteração falharia só neste nó, então é recusada
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public DepositVelocityLimits updateLimits(DepositVelocityLimits newLimits) {
+        String json = serialize(newLimits);
+        circuitBreaker.execute(() -> {
+            redisTemplate.opsForValue().set(LIMITS_KEY, json);
+            redisTemplate.convertAndSend(EVENTS_CHANNEL, json);
+            return null;
+        }, cause -> {
+            logger.error("Error storing deposit velocity limits: {}", cause.getMessage());
+            throw new DepositVelocityUnavailableException("Failed to store deposit velocity limits", cause);
+        });
+        limits.set(newLimits);
+        logger.info("Deposit velocity limits updated: {}", newLimits);
+        return newLimits;
+    }
+
+    // Limites gravados pelo admin prevalecem sobre os do application.properties
+    @EventListener(ApplicationReadyEvent.class)
+    public void reloadLimits() {
+        String json = circuitBreaker.execute(() -> redisTemplate.opsForValue().get(LIMITS_KEY), () -> null);
+        if (json != null) {
+            apply(json);
+        }
+    }
+
+    // Alterações feitas em qualquer nó (inclusive este)
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        apply(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void apply(String json) {
+        try {
+            limits.set(objectMapper.readValue(json, DepositVelocityLimits.class));
+        } catch (JsonProcessingException e) {
+            logger.warn("Ignoring malformed deposit velocity limits: {}", json);
+        }
+    }
+
+    private String serialize(DepositVelocityLimits value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize deposit velocity limits", e);
+        }
+    }
+
+    private boolean exceeds(DepositVelocityLimits.Threshold threshold, long attempts, long amountMinor) {
+        return attempts > threshold.maxAttempts() || amountMinor > toMinor(threshold.maxAmount());
+    }
+
+    private static long toMinor(BigDecimal amount) {
+        return Money.of(amount, CurrencyEnum.CNY, PricingRounding.INPUT).minorUnits();
+    }
+
+    private static void addKey(List<VelocityDimensionEnum> dimensions, List<String> keys,
+                               VelocityDimensionEnum dimension, String key) {
+        if (key != null && !key.isBlank()) {
+            dimensions.add(dimension);
+            keys.add(key);
+        }
+    }
+
+    private VelocityCounters newCounters() {
+        return new VelocityCounters(new SlidingWindowCounter(buckets, bucketMillis),
+                new SlidingWindowCounter(buckets, bucketMillis));
+    }
+
+    private record VelocityCounters(SlidingWindowCounter attempts, SlidingWindowCounter amount) {}
+}
@@ -0,0 +1,34 @@
+package redirex.shipping.service.velocity;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import redirex.shipping.enums.VelocityDimensionEnum;
+
+import java.math.BigDecimal;
+
+// Limites por janela (wallet.velocity.window-seconds) para cada chave. Valores em CNY.
+// Alterados em tempo de execução pelo admin; o tamanho da janela só muda com restart.
+public record DepositVelocityLimits(
+        boolean enabled,
+        @NotNull @Valid Threshold user,
+        @NotNull @Valid Threshold paymentMethod,
+        @NotNull @Valid Threshold ip
+) {
+    public record Threshold(
+            @Min(value = 1, message = "Max attempts must be at least 1")
+            long maxAttempts,
+            @NotNull(message = "Max amount is required")
+            @DecimalMin(value = "0.01", message = "Max amount must be positive")
+            BigDecimal maxAmount
+    ) {}
+
+    public Threshold threshold(VelocityDimensionEnum dimension) {
+        return switch (dimension) {
+            case USER -> user;
+            case PAYMENT_METHOD -> paymentMethod;
+            case IP -> ip;
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package redirex.shipping.service.velocity;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Contador em janela deslizante sem locks. A janela é um anel de buckets de tamanho fixo (AtomicLongArray);
+// cada posição guarda no mesmo long o número do bucket (bits altos) e o valor acumulado (bits baixos),
+// então um único CAS troca um bucket vencido pelo atual sem perder incrementos concorrentes.
+public final class SlidingWindowCounter {
+
+    private static final int STAMP_BITS = 20;
+    private static final int VALUE_BITS = Long.SIZE - STAMP_BITS;
+    private static final long STAMP_MASK = (1L << STAMP_BITS) - 1;
+    private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+
+    private final AtomicLongArray slots;
+    private final long bucketMillis;
+
+    public SlidingWindowCounter(int buckets, long bucketMillis) {
+        if (buckets <= 0 || bucketMillis <= 0) {
+            throw new IllegalArgumentException("buckets and bucketMillis must be positive");
+        }
+        this.slots = new AtomicLongArray(buckets);
+        this.bucketMillis = bucketMillis;
+    }
+
+    // Soma delta (>= 0) ao bucket de nowMillis e devolve o total da janela
+    public long add(long nowMillis, long delta) {
+        if (delta < 0) {
+            throw new IllegalArgumentException("delta must not be negative");
+        }
+        long bucket = nowMillis / bucketMillis;
+        int index = (int) Math.floorMod(bucket, (long) slots.length());
+        long stamp = bucket & STAMP_MASK;
+        while (true) {
+            long current = slots.get(index);
+            // Chamada atrasada (relógio lido antes de a posição passar para o bucket de uma volta à frente):
+            // não apaga o bucket mais novo; o incremento dela já estaria fora da janela
+            long ahead = ((current >>> VALUE_BITS) - stamp) & STAMP_MASK;
+            if (ahead == slots.length() && (current & VALUE_MASK) != 0) {
+                break;
+            }
+            long value = (current >>> VALUE_BITS) == stamp ? current & VALUE_MASK : 0L;
+            long next = (stamp << VALUE_BITS) | Math.min(value + delta, VALUE_MASK);
+            if (slots.compareAndSet(index, current, next)) {
+                break;
+            }
+        }
+        return sum(nowMillis);
+    }
+
+    // Total dos buckets ainda dentro da janela; posições com bucket vencido contam zero
+    public long sum(long nowMillis) {
+        long bucket = nowMillis / bucketMillis;
+        int length = slots.length();
+        long total = 0L;
+        for (int i = 0; i < length; i++) {
+            long expected = bucket - i;
+            long slot = slots.get((int) Math.floorMod(expected, (long) length));
+            if ((slot >>> VALUE_BITS) == (expected & STAMP_MASK)) {
+                total += slot & VALUE_MASK;
+            }
+        }
+        return total;
+    }
+}
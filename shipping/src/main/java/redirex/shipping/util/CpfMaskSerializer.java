@@ -7,12 +7,19 @@ import com.fasterxml.jackson.databind.SerializerProvider;
 import java.io.IOException;
 
 public class CpfMaskSerializer extends JsonSerializer<String> {
+    private static final String MASK_PREFIX = "***.***.***-";
+
     @Override
     public void serialize(String value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        // Já mascarado (ex.: resposta guardada pela idempotência e devolvida de novo)
+        if (value != null && value.startsWith(MASK_PREFIX)) {
+            gen.writeString(value);
+            return;
+        }
         if (value == null || value.length() != 11) {
             gen.writeNull();
             return;
         }
-        gen.writeString("***.***.***-" + value.substring(9));
+        gen.writeString(MASK_PREFIX + value.substring(9));
     }
 }
@@ -0,0 +1,183 @@
+package redirex.shipping;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import redirex.shipping.entity.UserEntity;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.exception.ExchangeRateUnavailableException;
+import redirex.shipping.repositories.UserRepository;
+import redirex.shipping.security.CustomUnifiedUserDetailsService.CustomUserDetails;
+import redirex.shipping.service.ExchangeRateService;
+import redirex.shipping.service.StripeService;
+import redirex.shipping.service.UserWalletServiceImpl;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Base dos testes de integração: Postgres e Redis embarcados (um por JVM), profile "test" e os substitutos do
+// IntegrationTestConfiguration (LocalStripeService e LocalRatesServer). Cada teste cria o próprio usuário, então as classes compartilham o banco e o contexto.
+// Ambiente web mock (sem porta): o IdentityContext usado pelo @PreAuthorize é request-scoped.
+@SpringBootTest(properties = {
+        "jwt.secret=0123456789012345678901234567890123456789012345678901234567890123",
+        "mail.host=localhost", "mail.port=25", "mail.username=test", "mail.password=test",
+        "mail.from=test@redirex.local",
+        "cors.allowed-origins=http://localhost", "app.frontend.url=http://localhost",
+        "password.reset.token.timeout.minutes=10",
+        "stripe.api.key=sk_test_local",
+        "spring.jpa.show-sql=false",
+        "logging.level.root=WARN",
+        "logging.level.redirex.shipping=INFO",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+        "logging.level.org.springframework.web=WARN",
+        "logging.level.org.springframework.security=WARN",
+        "logging.level.org.springframework.validation=WARN",
+        // Jobs agendados ficam fora do caminho; os testes chamam os métodos diretamente
+        "wallet.deposit.recovery.interval-ms=3600000",
+        "wallet.deposit.recovery.stale-after-seconds=0",
+        "wallet.ledger.compaction-interval-ms=3600000",
+        "idempotency.purge-interval-ms=3600000",
+        // Os testes repetem cartão e IP; o limite por usuário continua valendo
+        "wallet.velocity.payment-method.max-attempts=100000",
+        "wallet.velocity.payment-method.max-amount=100000000",
+        "wallet.velocity.ip.max-attempts=100000",
+        "wallet.velocity.ip.max-amount=100000000"
+})
+@ActiveProfiles("test")
+@Import(IntegrationTestConfiguration.class)
+public abstract class AbstractIntegrationTest {
+
+    private static final EmbeddedPostgres POSTGRES;
+    private static final RedisServer REDIS;
+    private static final int REDIS_PORT = freePort();
+    private static final AtomicLong SEQUENCE = new AtomicLong(System.nanoTime() % 1_000_000_000L);
+
+    static {
+        try {
+            POSTGRES = EmbeddedPostgres.builder().start();
+            REDIS = new RedisServer(REDIS_PORT);
+            REDIS.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                REDIS.stop();
+                POSTGRES.close();
+            } catch (IOException ignored) {
+                // JVM encerrando
+            }
+        }));
+    }
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected UserWalletServiceImpl userWalletService;
+
+    @Autowired
+    protected ExchangeRateService exchangeRateService;
+
+    // LocalStripeService real, observado: os testes contam as chamadas por chave de idempotência
+    @MockitoSpyBean
+    protected StripeService stripeService;
+
+    @DynamicPropertySource
+    static void infrastructureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.data.redis.host", () -> "localhost");
+        registry.add("spring.data.redis.port", () -> REDIS_PORT);
+        registry.add("spring.data.redis.password", () -> "");
+        // Porta própria por contexto: um segundo contexto na mesma JVM não disputa a do LocalRatesServer
+        int ratesPort = freePort();
+        registry.add("exchange-rate.local.port", () -> ratesPort);
+    }
+
+    // A primeira carga de cotações é assíncrona (ApplicationReadyEvent)
+    @BeforeEach
+    void awaitExchangeRates() throws InterruptedException {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(15));
+        while (true) {
+            try {
+                exchangeRateService.getExchangeRate(CurrencyEnum.BRL, CurrencyEnum.CNY);
+                exchangeRateService.getExchangeRate(CurrencyEnum.USD, CurrencyEnum.CNY);
+                return;
+            } catch (ExchangeRateUnavailableException e) {
+                if (Instant.now().isAfter(deadline)) {
+                    throw e;
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    // Autenticação montada à mão, sem o filtro JWT: o IdentityContext a lê do SecurityContext
+    protected void authenticateAs(UserEntity user) {
+        CustomUserDetails details = new CustomUserDetails(user.getId(), user.getEmail(), user.getPassword(),
+                List.of(new SimpleGrantedAuthority(user.getRole())), "USER");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities()));
+    }
+
+    protected UserEntity createUser() {
+        String suffix = String.format("%011d", SEQUENCE.incrementAndGet());
+        return userRepository.save(UserEntity.builder()
+                .fullname("Integration " + suffix)
+                .email("it" + suffix + "@redirex.local")
+                .password("password123")
+                .cpf(suffix)
+                .phone("41999999999")
+                .occupation("tester")
+                .role("USER")
+                .build());
+    }
+
+    protected UserEntity createUserWithWallet() {
+        UserEntity user = createUser();
+        userWalletService.createInitialWallet(user, CurrencyEnum.CNY);
+        return user;
+    }
+
+    protected BigDecimal balance(UUID userId) {
+        return userWalletService.getUserWalletBalance(userId, CurrencyEnum.CNY);
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package redirex.shipping;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.service.LocalStripeService;
+import redirex.shipping.service.StripeService;
+import redirex.shipping.service.rates.LocalRatesServer;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Substitutos locais dos serviços externos, só no classpath de teste: nenhum profile troca o cliente real
+// de pagamento nem as fontes de cotação no jar de produção.
+@TestConfiguration(proxyBeanMethods = false)
+public class IntegrationTestConfiguration {
+
+    @Bean
+    @Primary
+    public StripeService localStripeService() {
+        return new LocalStripeService();
+    }
+
+    @Bean
+    public LocalRatesServer localRatesServer(@Value("${exchange-rate.local.port:18090}") int port,
+                                             @Value("${exchange-rate.local.brl-per-usd:5.5000}") BigDecimal brlPerUsd,
+                                             @Value("${exchange-rate.local.cny-per-usd:7.2000}") BigDecimal cnyPerUsd,
+                                             @Value("${exchange-rate.local.unavailable:}") List<CurrencyEnum> unavailable) {
+        return new LocalRatesServer(port, brlPerUsd, cnyPerUsd, unavailable);
+    }
+}
@@ -0,0 +1,116 @@
+package redirex.shipping.money;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static redirex.shipping.enums.CurrencyEnum.BRL;
+import static redirex.shipping.enums.CurrencyEnum.CNY;
+
+// Percentuais e conversões em long (scale/unscaled) comparados com o mesmo cálculo em BigDecimal
+class MoneyTest {
+
+    private static final List<Long> AMOUNTS = List.of(0L, 1L, -1L, 5L, -5L, 99L, 150L, -150L, 10_001L, -123_457L,
+            987_654_321L, -987_654_321L);
+    private static final List<String> RATES = List.of("1", "0.5", "1.3542", "5.5000", "7.2", "0.13888889",
+            "0.000001", "12.5");
+
+    @Test
+    void ofIsExactUnlessRoundingIsGiven() {
+        assertThat(Money.of(new BigDecimal("12.30"), CNY).minorUnits()).isEqualTo(1230L);
+        assertThat(Money.of(new BigDecimal("-0.5"), CNY).minorUnits()).isEqualTo(-50L);
+        assertThatThrownBy(() -> Money.of(new BigDecimal("1.005"), CNY)).isInstanceOf(ArithmeticException.class);
+        assertThat(Money.of(new BigDecimal("1.005"), CNY, RoundingPolicy.HALF_EVEN).minorUnits()).isEqualTo(100L);
+        assertThat(Money.of(new BigDecimal("-1.005"), CNY, RoundingPolicy.HALF_UP).minorUnits()).isEqualTo(-101L);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = RoundingPolicy.class, mode = EnumSource.Mode.EXCLUDE, names = "UNNECESSARY")
+    void percentageMatchesBigDecimal(RoundingPolicy policy) {
+        for (long amount : AMOUNTS) {
+            for (long basisPoints : List.of(0L, 1L, 250L, 500L, 333L, 10_000L, 12_345L)) {
+                BigDecimal expected = BigDecimal.valueOf(amount).multiply(BigDecimal.valueOf(basisPoints))
+                        .divide(BigDecimal.valueOf(10_000L), 0, policy.mode());
+                assertThat(Money.ofMinor(amount, BRL).percentage(basisPoints, policy).minorUnits())
+                        .as("%s: %d * %d bp", policy, amount, basisPoints)
+                        .isEqualTo(expected.longValueExact());
+            }
+            for (String percent : List.of("5", "12.5", "0.75", "33.333")) {
+                BigDecimal expected = BigDecimal.valueOf(amount).multiply(new BigDecimal(percent))
+                        .divide(BigDecimal.valueOf(100L), 0, policy.mode());
+                assertThat(Money.ofMinor(amount, BRL).percentage(new BigDecimal(percent), policy).minorUnits())
+                        .as("%s: %d * %s%%", policy, amount, percent)
+                        .isEqualTo(expected.longValueExact());
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = RoundingPolicy.class, mode = EnumSource.Mode.EXCLUDE, names = "UNNECESSARY")
+    void ratesMatchBigDecimal(RoundingPolicy policy) {
+        for (long amount : AMOUNTS) {
+            for (String value : RATES) {
+                BigDecimal rate = new BigDecimal(value);
+                Money money = Money.ofMinor(amount, BRL);
+
+                assertThat(money.multiplyByRate(rate, CNY, policy).minorUnits())
+                        .as("%s: %d * %s", policy, amount, value)
+                        .isEqualTo(BigDecimal.valueOf(amount).multiply(rate)
+                                .setScale(0, policy.mode()).longValueExact());
+                assertThat(money.divideByRate(rate, CNY, policy).minorUnits())
+                        .as("%s: %d / %s", policy, amount, value)
+                        .isEqualTo(BigDecimal.valueOf(amount).divide(rate, 0, policy.mode()).longValueExact());
+            }
+        }
+    }
+
+    @Test
+    void overflowingProductFallsBackToBigDecimal() {
+        long amount = Long.MAX_VALUE / 3;
+        BigDecimal rate = new BigDecimal("2.5");
+
+        Money converted = Money.ofMinor(amount, BRL).multiplyByRate(rate, CNY, RoundingPolicy.HALF_EVEN);
+        assertThat(converted.minorUnits()).isEqualTo(BigDecimal.valueOf(amount).multiply(rate)
+                .setScale(0, RoundingMode.HALF_EVEN).longValueExact());
+        assertThat(converted.currency()).isEqualTo(CNY);
+
+        Money negative = Money.ofMinor(-amount, BRL).percentage(new BigDecimal("99.99"), RoundingPolicy.FLOOR);
+        assertThat(negative.minorUnits()).isEqualTo(BigDecimal.valueOf(-amount).multiply(new BigDecimal("99.99"))
+                .divide(BigDecimal.valueOf(100L), 0, RoundingMode.FLOOR).longValueExact());
+
+        // Resultado fora do alcance de long não é truncado
+        assertThatThrownBy(() -> Money.ofMinor(Long.MAX_VALUE / 2, BRL).multiplyByRate(new BigDecimal("3"), CNY,
+                RoundingPolicy.HALF_UP)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void rateScaleIsNormalized() {
+        Money amount = Money.ofMinor(1_000L, BRL);
+
+        // Zeros à direita além de 12 casas e expoente positivo
+        assertThat(amount.multiplyByRate(new BigDecimal("7.200000000000000000"), CNY, RoundingPolicy.HALF_UP)
+                .minorUnits()).isEqualTo(7_200L);
+        assertThat(amount.multiplyByRate(new BigDecimal("1E+2"), CNY, RoundingPolicy.HALF_UP).minorUnits())
+                .isEqualTo(100_000L);
+        assertThatThrownBy(() -> amount.multiplyByRate(new BigDecimal("0.0000000000001"), CNY, RoundingPolicy.HALF_UP))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> amount.divideByRate(BigDecimal.ZERO, CNY, RoundingPolicy.HALF_UP))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void arithmeticRejectsMixedCurrenciesAndOverflow() {
+        assertThatThrownBy(() -> Money.ofMinor(1L, BRL).plus(Money.ofMinor(1L, CNY)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Money.ofMinor(Long.MAX_VALUE, BRL).plus(Money.ofMinor(1L, BRL)))
+                .isInstanceOf(ArithmeticException.class);
+        assertThat(Money.ofMinor(250L, BRL).minus(Money.ofMinor(300L, BRL)).toBigDecimal())
+                .isEqualByComparingTo("-0.50");
+    }
+}
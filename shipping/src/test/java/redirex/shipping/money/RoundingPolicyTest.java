@@ -0,0 +1,78 @@
+package redirex.shipping.money;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// divide() em long precisa dar o mesmo resultado que BigDecimal.divide(..., 0, mode) para todos os sinais
+class RoundingPolicyTest {
+
+    @ParameterizedTest
+    @EnumSource(value = RoundingPolicy.class, mode = EnumSource.Mode.EXCLUDE, names = "UNNECESSARY")
+    void matchesBigDecimalForSmallValuesOfEverySign(RoundingPolicy policy) {
+        for (long dividend = -50; dividend <= 50; dividend++) {
+            for (long divisor = -12; divisor <= 12; divisor++) {
+                if (divisor != 0) {
+                    assertThat(policy.divide(dividend, divisor))
+                            .as("%s: %d / %d", policy, dividend, divisor)
+                            .isEqualTo(reference(dividend, divisor, policy));
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = RoundingPolicy.class, mode = EnumSource.Mode.EXCLUDE, names = "UNNECESSARY")
+    void matchesBigDecimalForLargeValues(RoundingPolicy policy) {
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            long dividend = random.nextLong() >> random.nextInt(60);
+            long divisor = random.nextLong() >> (1 + random.nextInt(62));
+            if (divisor == 0 || dividend == Long.MIN_VALUE) {
+                continue;
+            }
+            assertThat(policy.divide(dividend, divisor))
+                    .as("%s: %d / %d", policy, dividend, divisor)
+                    .isEqualTo(reference(dividend, divisor, policy));
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "5, 2, 3, 2",
+            "-5, 2, -3, -2",
+            "5, -2, -3, -2",
+            "-5, -2, 3, 2",
+            "7, 2, 4, 4",
+            "-7, 2, -4, -4",
+            "1, 2, 1, 0",
+            "-1, 2, -1, 0",
+            "25, 10, 3, 2",
+            "-35, 10, -4, -4",
+            "9223372036854775807, 2, 4611686018427387904, 4611686018427387904"
+    })
+    void roundsExactHalvesAwayFromZeroOrToEven(long dividend, long divisor, long halfUp, long halfEven) {
+        assertThat(RoundingPolicy.HALF_UP.divide(dividend, divisor)).isEqualTo(halfUp);
+        assertThat(RoundingPolicy.HALF_EVEN.divide(dividend, divisor)).isEqualTo(halfEven);
+    }
+
+    @Test
+    void unnecessaryOnlyAcceptsExactDivision() {
+        assertThat(RoundingPolicy.UNNECESSARY.divide(-1_500, 100)).isEqualTo(-15);
+        assertThatThrownBy(() -> RoundingPolicy.UNNECESSARY.divide(1_501, 100))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    private static long reference(long dividend, long divisor, RoundingPolicy policy) {
+        return BigDecimal.valueOf(dividend)
+                .divide(BigDecimal.valueOf(divisor), 0, policy.mode())
+                .longValueExact();
+    }
+}
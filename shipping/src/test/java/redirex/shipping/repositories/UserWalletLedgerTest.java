@@ -0,0 +1,152 @@
+package redirex.shipping.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import redirex.shipping.AbstractIntegrationTest;
+import redirex.shipping.dto.internal.WalletMovement;
+import redirex.shipping.dto.internal.WalletMovementResult;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.enums.WalletTransactionTypeEnum;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Modo ledger (saldo = último snapshot + lançamentos seguintes) e a volta para o modo coluna. Os dois modos
+// são instanciados aqui sobre o mesmo banco; o contexto da aplicação segue no modo coluna.
+class UserWalletLedgerTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UserWalletRepositoryCustomImpl ledger;
+    private UserWalletRepositoryCustomImpl column;
+
+    @BeforeEach
+    void setUpModes() {
+        ledger = new UserWalletRepositoryCustomImpl(namedParameterJdbcTemplate, dataSource, true, 500);
+        column = new UserWalletRepositoryCustomImpl(namedParameterJdbcTemplate, dataSource, false, 500);
+    }
+
+    @Test
+    void ledgerMovementsDeriveBalanceWithoutTouchingColumn() {
+        UUID userId = createUserWithWallet().getId();
+
+        apply(ledger, userId, "100.00");
+        apply(ledger, userId, "-30.00");
+
+        assertThat(ledger.currentBalance(userId, CurrencyEnum.CNY).orElseThrow().balance()).isEqualByComparingTo("70.00");
+        assertThat(ledger.currentBalance(userId, CurrencyEnum.CNY).orElseThrow().sequenceNumber()).isEqualTo(2);
+        assertThat(columnBalance(userId)).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void ledgerRejectsOverdraft() {
+        UUID userId = createUserWithWallet().getId();
+        apply(ledger, userId, "10.00");
+
+        assertThat(apply(ledger, userId, "-10.01")).isEmpty();
+        assertThat(ledger.currentBalance(userId, CurrencyEnum.CNY).orElseThrow().balance()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    void concurrentLedgerDebitsNeverOverdraw() throws Exception {
+        UUID userId = createUserWithWallet().getId();
+        apply(ledger, userId, "50.00");
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        int succeeded = 0;
+        try {
+            List<Future<Optional<WalletMovementResult>>> debits = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                debits.add(executor.submit(() -> {
+                    start.await();
+                    return apply(ledger, userId, "-10.00");
+                }));
+            }
+            start.countDown();
+            for (Future<Optional<WalletMovementResult>> debit : debits) {
+                succeeded += debit.get().isPresent() ? 1 : 0;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(succeeded).isEqualTo(5);
+        assertThat(ledger.currentBalance(userId, CurrencyEnum.CNY).orElseThrow().balance()).isEqualByComparingTo("0");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(DISTINCT sequence_number) FROM wallet_transactions WHERE user_id = ?", Integer.class, userId))
+                .isEqualTo(6);
+    }
+
+    @Test
+    void snapshotKeepsDerivedBalance() {
+        UUID userId = createUserWithWallet().getId();
+        for (int i = 0; i < 3; i++) {
+            apply(ledger, userId, "10.00");
+        }
+
+        assertThat(ledger.compactSnapshots(3)).isPositive();
+        assertThat(jdbcTemplate.queryForObject("SELECT s.balance FROM wallet_balance_snapshots s"
+                + " JOIN user_wallets w ON w.wallet_id = s.wallet_id WHERE w.user_id = ?", BigDecimal.class, userId))
+                .isEqualByComparingTo("30.00");
+
+        WalletMovementResult next = apply(ledger, userId, "-5.00").orElseThrow();
+        assertThat(next.sequenceNumber()).isEqualTo(4);
+        assertThat(next.balance()).isEqualByComparingTo("25.00");
+        assertThat(ledger.currentBalance(userId, CurrencyEnum.CNY).orElseThrow().balance()).isEqualByComparingTo("25.00");
+    }
+
+    @Test
+    void switchingBackToColumnModeSyncsBalance() {
+        UUID userId = createUserWithWallet().getId();
+        apply(column, userId, "40.00");
+        apply(ledger, userId, "15.00");
+        apply(ledger, userId, "-5.00");
+
+        assertThat(column.hasLedgerEntriesPendingSync()).isTrue();
+        column.syncBalanceColumns();
+
+        assertThat(column.hasLedgerEntriesPendingSync()).isFalse();
+        assertThat(columnBalance(userId)).isEqualByComparingTo("50.00");
+        WalletMovementResult next = apply(column, userId, "-50.00").orElseThrow();
+        assertThat(next.sequenceNumber()).isEqualTo(4);
+        assertThat(column.currentBalance(userId, CurrencyEnum.CNY).orElseThrow().balance()).isEqualByComparingTo("0");
+    }
+
+    private Optional<WalletMovementResult> apply(UserWalletRepositoryCustomImpl mode, UUID userId, String delta) {
+        BigDecimal amount = new BigDecimal(delta);
+        return transactionTemplate.execute(status -> mode.applyMovement(WalletMovement.builder()
+                .transactionId(UUID.randomUUID())
+                .userId(userId)
+                .currency(CurrencyEnum.CNY)
+                .delta(amount)
+                .type(amount.signum() > 0 ? WalletTransactionTypeEnum.DEPOSIT : WalletTransactionTypeEnum.ORDER_PAYMENT)
+                .chargedAmount(amount.abs())
+                .chargedCurrency(CurrencyEnum.CNY)
+                .build()));
+    }
+
+    private BigDecimal columnBalance(UUID userId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM user_wallets WHERE user_id = ? AND currency = 'CNY'",
+                BigDecimal.class, userId);
+    }
+}
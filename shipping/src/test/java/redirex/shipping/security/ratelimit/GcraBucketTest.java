@@ -0,0 +1,108 @@
+package redirex.shipping.security.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// GCRA com tempo controlado pelo teste: rajada de capacity, reposição de um token por intervalo e CAS concorrente
+class GcraBucketTest {
+
+    private static final long PERIOD = 1_000L;
+
+    @Test
+    void allowsBurstUpToCapacityThenReportsWait() {
+        GcraBucket bucket = new GcraBucket(5, PERIOD);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryAcquire(0L)).isZero();
+        }
+        assertThat(bucket.tryAcquire(0L)).isEqualTo(200L);
+        assertThat(bucket.tryAcquire(150L)).isEqualTo(50L);
+    }
+
+    @Test
+    void refillsOneTokenPerEmissionInterval() {
+        GcraBucket bucket = new GcraBucket(5, PERIOD);
+        for (int i = 0; i < 5; i++) {
+            bucket.tryAcquire(0L);
+        }
+
+        assertThat(bucket.tryAcquire(200L)).isZero();
+        assertThat(bucket.tryAcquire(200L)).isEqualTo(200L);
+        assertThat(bucket.tryAcquire(600L)).isZero();
+        assertThat(bucket.tryAcquire(600L)).isZero();
+        assertThat(bucket.tryAcquire(600L)).isPositive();
+    }
+
+    @Test
+    void idleBucketRefillsOnlyUpToCapacity() {
+        GcraBucket bucket = new GcraBucket(3, PERIOD);
+        bucket.tryAcquire(0L);
+
+        long later = 10 * PERIOD;
+        for (int i = 0; i < 3; i++) {
+            assertThat(bucket.tryAcquire(later)).isZero();
+        }
+        assertThat(bucket.tryAcquire(later)).isPositive();
+    }
+
+    @Test
+    void worksWithNegativeNanoTime() {
+        // System.nanoTime() pode ser negativo; Long.MIN_VALUE é só a marca de bucket novo
+        GcraBucket bucket = new GcraBucket(2, PERIOD);
+        long start = -5_000_000_000L;
+
+        assertThat(bucket.tryAcquire(start)).isZero();
+        assertThat(bucket.tryAcquire(start)).isZero();
+        assertThat(bucket.tryAcquire(start)).isEqualTo(500L);
+        assertThat(bucket.tryAcquire(start + 500L)).isZero();
+    }
+
+    @Test
+    void capacityBelowPeriodResolutionStillLimits() {
+        // Período menor que a capacidade: intervalo mínimo de 1ns
+        GcraBucket bucket = new GcraBucket(10, 5L);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(bucket.tryAcquire(0L)).isZero();
+        }
+        assertThat(bucket.tryAcquire(0L)).isEqualTo(1L);
+    }
+
+    @Test
+    void concurrentAcquiresNeverExceedCapacity() throws Exception {
+        int capacity = 50;
+        GcraBucket bucket = new GcraBucket(capacity, PERIOD * capacity);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        int accepted = 0;
+        try {
+            List<Future<Integer>> workers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    int mine = 0;
+                    for (int i = 0; i < 100; i++) {
+                        mine += bucket.tryAcquire(0L) == 0L ? 1 : 0;
+                    }
+                    return mine;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> worker : workers) {
+                accepted += worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(accepted).isEqualTo(capacity);
+    }
+}
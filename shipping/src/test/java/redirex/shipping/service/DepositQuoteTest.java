@@ -0,0 +1,134 @@
+package redirex.shipping.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redirex.shipping.AbstractIntegrationTest;
+import redirex.shipping.dto.request.DepositQuoteRequest;
+import redirex.shipping.dto.request.DepositRequestDto;
+import redirex.shipping.dto.response.DepositQuoteResponse;
+import redirex.shipping.dto.response.WalletTransactionResponse;
+import redirex.shipping.entity.UserEntity;
+import redirex.shipping.entity.WalletDepositEntity;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.exception.InvalidDepositQuoteException;
+import redirex.shipping.money.Money;
+import redirex.shipping.repositories.WalletDepositRepository;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+// Cotação travada de depósito: o depósito com quoteId cobra exatamente o valor cotado, e cotações de outro
+// usuário, divergentes, adulteradas ou vencidas são recusadas (exceto na repetição de um depósito já criado).
+class DepositQuoteTest extends AbstractIntegrationTest {
+
+    private static final String CARD = "pm_card_visa";
+
+    @Autowired
+    private WalletDepositRepository walletDepositRepository;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Test
+    void depositWithQuoteChargesQuotedAmount() {
+        UserEntity user = createUserWithWallet();
+        DepositQuoteResponse quote = issueQuote(user, "100.00");
+
+        WalletTransactionResponse response = deposit(user, quote.quoteId(), null, "quote-deposit");
+
+        assertThat(response.status()).isEqualTo("success");
+        WalletDepositEntity deposit = walletDepositRepository.findById(response.id()).orElseThrow();
+        assertThat(deposit.getChargedAmount()).isEqualByComparingTo(quote.chargeAmount());
+        assertThat(deposit.getExchangeRate()).isEqualByComparingTo(quote.exchangeRate());
+        assertThat(deposit.getFeeAmount()).isEqualByComparingTo(quote.fee());
+        verify(stripeService).processPayment(eq(CARD),
+                eq(Money.of(quote.chargeAmount(), quote.chargeCurrency()).minorUnits()),
+                eq(quote.chargeCurrency()), anyString());
+        assertThat(balance(user.getId())).isEqualByComparingTo("95.00");
+    }
+
+    @Test
+    void quoteOfAnotherUserIsRejected() {
+        UserEntity owner = createUserWithWallet();
+        UserEntity other = createUserWithWallet();
+        DepositQuoteResponse quote = issueQuote(owner, "100.00");
+
+        assertThatThrownBy(() -> deposit(other, quote.quoteId(), null, "quote-other"))
+                .isInstanceOf(InvalidDepositQuoteException.class);
+        assertThat(deposits(other)).isZero();
+    }
+
+    @Test
+    void amountDifferentFromQuoteIsRejected() {
+        UserEntity user = createUserWithWallet();
+        DepositQuoteResponse quote = issueQuote(user, "100.00");
+
+        assertThatThrownBy(() -> deposit(user, quote.quoteId(), new BigDecimal("100.01"), "quote-amount"))
+                .isInstanceOf(InvalidDepositQuoteException.class);
+        assertThat(deposits(user)).isZero();
+    }
+
+    @Test
+    void tamperedQuoteIsRejected() {
+        UserEntity user = createUserWithWallet();
+        DepositQuoteResponse quote = issueQuote(user, "100.00");
+        String key = "deposit_quote:" + quote.quoteId();
+        String body = stringRedisTemplate.opsForValue().get(key);
+        String tampered = body.replaceFirst("\"chargeAmount\":[0-9.]+", "\"chargeAmount\":0.01");
+        assertThat(tampered).isNotEqualTo(body);
+        stringRedisTemplate.opsForValue().set(key, tampered);
+
+        assertThatThrownBy(() -> deposit(user, quote.quoteId(), null, "quote-tampered"))
+                .isInstanceOf(InvalidDepositQuoteException.class);
+        assertThat(deposits(user)).isZero();
+    }
+
+    @Test
+    void expiredQuoteOnlyReplaysExistingDeposit() {
+        UserEntity user = createUserWithWallet();
+        DepositQuoteResponse quote = issueQuote(user, "100.00");
+        WalletTransactionResponse first = deposit(user, quote.quoteId(), null, "quote-expired");
+        stringRedisTemplate.delete("deposit_quote:" + quote.quoteId());
+
+        // Repetição com a mesma chave: devolve o depósito criado, mesmo sem a cotação
+        WalletTransactionResponse retry = deposit(user, quote.quoteId(), null, "quote-expired");
+        assertThat(retry.id()).isEqualTo(first.id());
+        assertThat(retry.status()).isEqualTo("success");
+
+        assertThatThrownBy(() -> deposit(user, quote.quoteId(), null, "quote-expired-new"))
+                .isInstanceOf(InvalidDepositQuoteException.class);
+        assertThat(deposits(user)).isEqualTo(1);
+        assertThat(balance(user.getId())).isEqualByComparingTo("95.00");
+    }
+
+    @Test
+    void quoteBelowMinimumAmountIsRejected() {
+        UserEntity user = createUserWithWallet();
+
+        assertThatThrownBy(() -> issueQuote(user, "10.00"))
+                .isInstanceOf(InvalidDepositQuoteException.class);
+    }
+
+    private DepositQuoteResponse issueQuote(UserEntity user, String amount) {
+        authenticateAs(user);
+        return userWalletService.issueDepositQuote(user.getId(),
+                new DepositQuoteRequest(new BigDecimal(amount), CurrencyEnum.BRL));
+    }
+
+    private WalletTransactionResponse deposit(UserEntity user, UUID quoteId, BigDecimal amount, String idempotencyKey) {
+        return userWalletService.depositToWallet(user.getId(),
+                new DepositRequestDto(amount, CurrencyEnum.CNY, null, CARD, quoteId), idempotencyKey, "10.0.0.1");
+    }
+
+    private int deposits(UserEntity user) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM wallet_deposits WHERE user_id = ?",
+                Integer.class, user.getId());
+    }
+}
@@ -0,0 +1,175 @@
+package redirex.shipping.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redirex.shipping.AbstractIntegrationTest;
+import redirex.shipping.dto.request.DepositRequestDto;
+import redirex.shipping.dto.response.WalletTransactionResponse;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.exception.IdempotencyConflictException;
+import redirex.shipping.exception.IdempotencyKeyMismatchException;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Idempotency-Key nos depósitos, como o TransactionController usa: resposta guardada só para sucesso,
+// chave RETRYABLE (presa ao corpo) para erros e depósitos pendentes.
+class IdempotencyServiceTest extends AbstractIntegrationTest {
+
+    private static final String OPERATION = "WALLET_DEPOSIT";
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private WalletDepositService walletDepositService;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Test
+    void completedDepositIsReplayedWithoutRunningAgain() {
+        UUID userId = createUserWithWallet().getId();
+        DepositRequestDto request = depositRequest("100.00", "pm_card_visa");
+        AtomicInteger runs = new AtomicInteger();
+
+        WalletTransactionResponse first = deposit(userId, "idem-replay", request, runs);
+        WalletTransactionResponse fromRedis = deposit(userId, "idem-replay", request, runs);
+        stringRedisTemplate.delete(redisKey(userId, "idem-replay"));
+        WalletTransactionResponse fromDatabase = deposit(userId, "idem-replay", request, runs);
+
+        assertThat(runs).hasValue(1);
+        assertThat(fromRedis.id()).isEqualTo(first.id());
+        assertThat(fromDatabase.id()).isEqualTo(first.id());
+        assertThat(fromDatabase.status()).isEqualTo("success");
+        assertThat(balance(userId)).isEqualByComparingTo("95.00");
+    }
+
+    @Test
+    void sameKeyWithDifferentBodyIsRejected() {
+        UUID userId = createUserWithWallet().getId();
+        deposit(userId, "idem-mismatch", depositRequest("100.00", "pm_card_visa"), new AtomicInteger());
+
+        assertThatThrownBy(() -> deposit(userId, "idem-mismatch", depositRequest("200.00", "pm_card_visa"),
+                new AtomicInteger()))
+                .isInstanceOf(IdempotencyKeyMismatchException.class);
+        assertThat(balance(userId)).isEqualByComparingTo("95.00");
+    }
+
+    @Test
+    void failedRequestKeepsKeyBoundToItsBody() {
+        UUID userId = createUserWithWallet().getId();
+        DepositRequestDto request = depositRequest("100.00", "pm_card_visa");
+
+        assertThatThrownBy(() -> idempotencyService.execute(userId, OPERATION, "idem-failed", request.fingerprint(),
+                WalletTransactionResponse.class, r -> true, () -> {
+                    throw new IllegalStateException("boom");
+                })).isInstanceOf(IllegalStateException.class);
+
+        // Outro corpo com a mesma chave continua recusado; o mesmo corpo executa de novo
+        assertThatThrownBy(() -> deposit(userId, "idem-failed", depositRequest("150.00", "pm_card_visa"),
+                new AtomicInteger()))
+                .isInstanceOf(IdempotencyKeyMismatchException.class);
+        AtomicInteger runs = new AtomicInteger();
+        assertThat(deposit(userId, "idem-failed", request, runs).status()).isEqualTo("success");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void pendingDepositIsNotStoredAndResolvesAfterRecovery() {
+        UUID userId = createUserWithWallet().getId();
+        DepositRequestDto request = depositRequest("100.00", "pm_card_timeout");
+        AtomicInteger runs = new AtomicInteger();
+
+        WalletTransactionResponse pending = deposit(userId, "idem-pending", request, runs);
+        assertThat(pending.status()).isEqualTo("pending");
+        assertThat(deposit(userId, "idem-pending", request, runs).status()).isEqualTo("pending");
+
+        walletDepositService.recoverPendingDeposits();
+        WalletTransactionResponse resolved = deposit(userId, "idem-pending", request, runs);
+
+        assertThat(resolved.status()).isEqualTo("success");
+        assertThat(resolved.id()).isEqualTo(pending.id());
+        assertThat(balance(userId)).isEqualByComparingTo("95.00");
+        // As repetições do cliente chegam ao depósito existente sem chamar o Stripe; só a recuperação repete a chave
+        verify(stripeService, times(2)).processPayment(anyString(), anyLong(), any(), eq("wallet-deposit-" + pending.id()));
+        assertThat(deposit(userId, "idem-pending", request, runs).id()).isEqualTo(pending.id());
+        assertThat(runs).hasValue(3);
+    }
+
+    @Test
+    void depositBindsKeyToBodyAfterRecordIsPurged() {
+        UUID userId = createUserWithWallet().getId();
+        deposit(userId, "idem-purged", depositRequest("100.00", "pm_card_visa"), new AtomicInteger());
+        jdbcTemplate.update("DELETE FROM idempotency_records WHERE user_id = ?", userId);
+        stringRedisTemplate.delete(redisKey(userId, "idem-purged"));
+
+        assertThatThrownBy(() -> deposit(userId, "idem-purged", depositRequest("300.00", "pm_card_visa"),
+                new AtomicInteger()))
+                .isInstanceOf(IdempotencyKeyMismatchException.class);
+        // A requisição recusada não deixa reserva: a chave não fica presa ao corpo errado
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM idempotency_records WHERE user_id = ?",
+                Integer.class, userId)).isZero();
+        assertThat(balance(userId)).isEqualByComparingTo("95.00");
+    }
+
+    @Test
+    void concurrentRequestWithSameKeyGetsConflict() throws Exception {
+        UUID userId = createUserWithWallet().getId();
+        DepositRequestDto request = depositRequest("100.00", "pm_card_visa");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<WalletTransactionResponse> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute(userId, OPERATION, "idem-busy", request.fingerprint(),
+                        WalletTransactionResponse.class, r -> "success".equals(r.status()), () -> {
+                            started.countDown();
+                            await(release);
+                            return userWalletService.depositToWallet(userId, request, "idem-busy", "10.0.0.1");
+                        }));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> deposit(userId, "idem-busy", request, new AtomicInteger()))
+                .isInstanceOf(IdempotencyConflictException.class);
+        release.countDown();
+        assertThat(first.get(30, TimeUnit.SECONDS).status()).isEqualTo("success");
+    }
+
+    private WalletTransactionResponse deposit(UUID userId, String key, DepositRequestDto request, AtomicInteger runs) {
+        return idempotencyService.execute(userId, OPERATION, key, request.fingerprint(),
+                WalletTransactionResponse.class, r -> "success".equals(r.status()), () -> {
+                    runs.incrementAndGet();
+                    return userWalletService.depositToWallet(userId, request, key, "10.0.0.1");
+                });
+    }
+
+    private static DepositRequestDto depositRequest(String amount, String paymentMethodId) {
+        return new DepositRequestDto(new BigDecimal(amount), CurrencyEnum.CNY, CurrencyEnum.BRL, paymentMethodId, null);
+    }
+
+    private static String redisKey(UUID userId, String key) {
+        return "idempotency:" + OPERATION + ":" + userId + ":" + key;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
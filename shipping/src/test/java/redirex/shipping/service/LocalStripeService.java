@@ -0,0 +1,73 @@
+package redirex.shipping.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.exception.PaymentOutcomeUnknownException;
+import redirex.shipping.exception.StripePaymentException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Substituto local do Stripe para os testes de integração (registrado como @Primary pelo
+// IntegrationTestConfiguration; não existe no jar de produção). O resultado depende do paymentMethodId:
+//  - pm_card_chargeDeclined: cobrança recusada
+//  - pm_card_timeout: primeira chamada sem resposta conclusiva (a cobrança acontece); as seguintes, com a
+//    mesma chave de idempotência, devolvem o sucesso registrado, como faz o Stripe
+//  - qualquer outro: sucesso
+public class LocalStripeService implements StripeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalStripeService.class);
+    static final String DECLINED_PAYMENT_METHOD = "pm_card_chargeDeclined";
+    static final String TIMEOUT_PAYMENT_METHOD = "pm_card_timeout";
+
+    // Chave de idempotência -> resultado já "processado"
+    private final Map<String, Boolean> processed = new ConcurrentHashMap<>();
+
+    @Value("${stripe.local.latency-ms:0}")
+    private long latencyMs;
+
+    @Override
+    public boolean processPayment(String paymentMethodId, Long amountInCents, CurrencyEnum currency, String idempotencyKey)
+            throws StripePaymentException {
+        simulateLatency();
+
+        Boolean previous = processed.get(idempotencyKey);
+        if (previous != null) {
+            logger.info("Local Stripe replaying result for idempotency key {}: {}", idempotencyKey, previous);
+            return succeededOrDecline(previous);
+        }
+
+        if (DECLINED_PAYMENT_METHOD.equals(paymentMethodId)) {
+            processed.put(idempotencyKey, false);
+            return succeededOrDecline(false);
+        }
+
+        processed.put(idempotencyKey, true);
+        if (TIMEOUT_PAYMENT_METHOD.equals(paymentMethodId)) {
+            throw new PaymentOutcomeUnknownException("Local Stripe simulated timeout", null);
+        }
+
+        logger.info("Local Stripe charged {} {} (cents) for idempotency key {}", amountInCents, currency, idempotencyKey);
+        return true;
+    }
+
+    private boolean succeededOrDecline(boolean succeeded) {
+        if (!succeeded) {
+            throw new StripePaymentException("Payment failed: Your card was declined.");
+        }
+        return true;
+    }
+
+    private void simulateLatency() {
+        if (latencyMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
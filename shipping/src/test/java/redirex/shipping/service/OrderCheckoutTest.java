@@ -0,0 +1,158 @@
+package redirex.shipping.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+import redirex.shipping.AbstractIntegrationTest;
+import redirex.shipping.dto.request.CheckoutRequest;
+import redirex.shipping.dto.response.CheckoutResponse;
+import redirex.shipping.entity.OrderItemEntity;
+import redirex.shipping.entity.UserEntity;
+import redirex.shipping.entity.WarehouseEntity;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.enums.OrderItemStatusEnum;
+import redirex.shipping.enums.ProductCategoryEnum;
+import redirex.shipping.exception.CheckoutRejectedException;
+import redirex.shipping.exception.InsufficientBalanceException;
+import redirex.shipping.money.Money;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Checkout de vários pedidos: um único lançamento ORDER_PAYMENT pelo total, uma alocação por pedido,
+// e nada muda (saldo nem status) quando o checkout é recusado.
+class OrderCheckoutTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private OrderItemService orderItemService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void ensureAdmin() {
+        // O checkout atribui os pedidos pagos a um admin
+        if (jdbcTemplate.queryForObject("SELECT count(*) FROM admins WHERE role = 'ROLE_ADMIN'", Integer.class) == 0) {
+            jdbcTemplate.update("INSERT INTO admins (id, fullname, email, password, cpf, role, created_at, updated_at)"
+                            + " VALUES (gen_random_uuid(), 'Checkout Admin', 'checkout-admin@redirex.local', 'x', ?,"
+                            + " 'ROLE_ADMIN', now(), now())", "00000000191");
+        }
+    }
+
+    @Test
+    void checkoutDebitsTotalOnceWithOneAllocationPerOrder() {
+        UserEntity user = createUserWithWallet();
+        userWalletService.refundToWallet(user.getId(), CurrencyEnum.CNY, new BigDecimal("100.00"), "seed", null);
+        List<UUID> orders = createOrders(user, 1234, 1235, 1236);
+        authenticateAs(user);
+
+        CheckoutResponse response = orderItemService.checkout(user.getId(), new CheckoutRequest(new LinkedHashSet<>(orders)));
+
+        assertThat(response.totalAmount()).isEqualByComparingTo("37.05");
+        assertThat(response.remainingBalance()).isEqualByComparingTo("62.95");
+        assertThat(balance(user.getId())).isEqualByComparingTo("62.95");
+        assertThat(jdbcTemplate.queryForList("SELECT amount FROM wallet_transactions WHERE user_id = ?"
+                + " AND type = 'ORDER_PAYMENT'", BigDecimal.class, user.getId()))
+                .singleElement().satisfies(amount -> assertThat(amount).isEqualByComparingTo("-37.05"));
+        assertThat(jdbcTemplate.queryForObject("SELECT sum(amount) FROM order_payment_allocations"
+                + " WHERE wallet_transaction_id = ?", BigDecimal.class, response.transactionId()))
+                .isEqualByComparingTo("37.05");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM order_payment_allocations"
+                + " WHERE wallet_transaction_id = ?", Integer.class, response.transactionId())).isEqualTo(3);
+        assertThat(statuses(user)).containsOnly(OrderItemStatusEnum.PAID.name());
+    }
+
+    @Test
+    void insufficientBalanceLeavesOrdersAndWalletUntouched() {
+        UserEntity user = createUserWithWallet();
+        userWalletService.refundToWallet(user.getId(), CurrencyEnum.CNY, new BigDecimal("20.00"), "seed", null);
+        List<UUID> orders = createOrders(user, 1500, 1500);
+        authenticateAs(user);
+
+        assertThatThrownBy(() -> orderItemService.checkout(user.getId(), new CheckoutRequest(new LinkedHashSet<>(orders))))
+                .isInstanceOf(InsufficientBalanceException.class);
+
+        assertThat(balance(user.getId())).isEqualByComparingTo("20.00");
+        assertThat(statuses(user)).containsOnly(OrderItemStatusEnum.CREATING_ORDER.name());
+        assertThat(orderPayments(user)).isZero();
+    }
+
+    @Test
+    void paidOrdersCannotBeCheckedOutAgain() {
+        UserEntity user = createUserWithWallet();
+        userWalletService.refundToWallet(user.getId(), CurrencyEnum.CNY, new BigDecimal("100.00"), "seed", null);
+        Set<UUID> orders = new LinkedHashSet<>(createOrders(user, 1000, 2000));
+        authenticateAs(user);
+        orderItemService.checkout(user.getId(), new CheckoutRequest(orders));
+
+        assertThatThrownBy(() -> orderItemService.checkout(user.getId(), new CheckoutRequest(orders)))
+                .isInstanceOf(CheckoutRejectedException.class);
+
+        assertThat(balance(user.getId())).isEqualByComparingTo("70.00");
+        assertThat(orderPayments(user)).isEqualTo(1);
+    }
+
+    @Test
+    void ordersOfAnotherUserAreRejected() {
+        UserEntity owner = createUserWithWallet();
+        UserEntity other = createUserWithWallet();
+        userWalletService.refundToWallet(other.getId(), CurrencyEnum.CNY, new BigDecimal("100.00"), "seed", null);
+        Set<UUID> orders = new LinkedHashSet<>(createOrders(owner, 1000));
+        authenticateAs(other);
+
+        assertThatThrownBy(() -> orderItemService.checkout(other.getId(), new CheckoutRequest(orders)))
+                .isInstanceOf(CheckoutRejectedException.class);
+
+        assertThat(balance(other.getId())).isEqualByComparingTo("100.00");
+        assertThat(statuses(owner)).containsOnly(OrderItemStatusEnum.CREATING_ORDER.name());
+    }
+
+    // Pedidos em CREATING_ORDER com os valores em centavos de CNY
+    private List<UUID> createOrders(UserEntity user, long... minorAmounts) {
+        UUID warehouseId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO warehouses (id, user_id) VALUES (?, ?)", warehouseId, user.getId());
+        return transactionTemplate.execute(status -> {
+            UserEntity owner = entityManager.find(UserEntity.class, user.getId());
+            WarehouseEntity warehouse = entityManager.find(WarehouseEntity.class, warehouseId);
+            List<UUID> ids = new ArrayList<>();
+            for (int i = 0; i < minorAmounts.length; i++) {
+                OrderItemEntity item = OrderItemEntity.builder()
+                        .user(owner)
+                        .warehouse(warehouse)
+                        .productUrl("https://shop.example.com/item/" + i)
+                        .productName("Item " + i)
+                        .description("Checkout test item")
+                        .quantity(1)
+                        .category(ProductCategoryEnum.CLOTHING)
+                        .recipientCpf("12345678901")
+                        .productValue(Money.ofMinor(minorAmounts[i], CurrencyEnum.CNY))
+                        .status(OrderItemStatusEnum.CREATING_ORDER)
+                        .build();
+                entityManager.persist(item);
+                ids.add(item.getId());
+            }
+            return ids;
+        });
+    }
+
+    private List<String> statuses(UserEntity user) {
+        return jdbcTemplate.queryForList("SELECT status FROM order_items WHERE user_id = ?", String.class, user.getId());
+    }
+
+    private int orderPayments(UserEntity user) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM wallet_transactions WHERE user_id = ?"
+                + " AND type = 'ORDER_PAYMENT'", Integer.class, user.getId());
+    }
+}
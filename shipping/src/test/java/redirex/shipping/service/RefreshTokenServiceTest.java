@@ -0,0 +1,151 @@
+package redirex.shipping.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import redirex.shipping.AbstractIntegrationTest;
+import redirex.shipping.controller.Admin.AuthAdminController;
+import redirex.shipping.controller.User.AuthUserController;
+import redirex.shipping.dto.request.AuthAdminRequest;
+import redirex.shipping.dto.request.AuthUserRequest;
+import redirex.shipping.dto.request.RefreshTokenRequest;
+import redirex.shipping.dto.response.ApiResponse;
+import redirex.shipping.dto.response.AuthAdminResponse;
+import redirex.shipping.dto.response.AuthUserResponse;
+import redirex.shipping.entity.UserEntity;
+import redirex.shipping.util.TokenHasher;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Refresh tokens pelos controllers de autenticação: rotação, detecção de reuso (revoga a família inteira),
+// refresh de admin e logout de todas as sessões.
+class RefreshTokenServiceTest extends AbstractIntegrationTest {
+
+    private static final String PASSWORD = "password123";
+
+    @Autowired
+    private AuthUserController authUserController;
+
+    @Autowired
+    private AuthAdminController authAdminController;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void rotationReplacesTokenAndReuseRevokesWholeFamily() {
+        UserEntity user = createUserWithPassword();
+        AuthUserResponse login = login(user);
+
+        ResponseEntity<ApiResponse<AuthUserResponse>> rotated = refresh(login.refreshToken());
+        assertThat(rotated.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String next = rotated.getBody().data().refreshToken();
+        assertThat(next).isNotEqualTo(login.refreshToken());
+        assertThat(replacedBy(login.refreshToken())).isEqualTo(tokenId(next));
+
+        // Reapresentar o token já rotacionado revoga também o que o substituiu
+        assertThat(refresh(login.refreshToken()).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(refresh(next).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(activeTokens(user.getId())).isZero();
+    }
+
+    @Test
+    void reuseOnlyRevokesItsOwnFamily() {
+        UserEntity user = createUserWithPassword();
+        AuthUserResponse leaked = login(user);
+        AuthUserResponse other = login(user);
+
+        String rotated = refresh(leaked.refreshToken()).getBody().data().refreshToken();
+        assertThat(refresh(leaked.refreshToken()).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+
+        assertThat(refresh(rotated).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(refresh(other.refreshToken()).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void adminRefreshRotatesAndRejectsUserTokens() {
+        String email = createAdmin();
+        ResponseEntity<ApiResponse<AuthAdminResponse>> login = authAdminController.login(
+                new AuthAdminRequest("Refresh Admin", email, PASSWORD));
+        assertThat(login.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String adminToken = login.getBody().data().refreshToken();
+
+        ResponseEntity<ApiResponse<AuthAdminResponse>> rotated = authAdminController.refresh(
+                new RefreshTokenRequest(adminToken));
+        assertThat(rotated.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(rotated.getBody().data().email()).isEqualTo(email);
+        assertThat(rotated.getBody().data().refreshToken()).isNotEqualTo(adminToken);
+
+        // Cada tipo de token só vale no próprio endpoint
+        String userToken = login(createUserWithPassword()).refreshToken();
+        assertThat(authAdminController.refresh(new RefreshTokenRequest(userToken)).getStatusCode())
+                .isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(refresh(rotated.getBody().data().refreshToken()).getStatusCode())
+                .isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void logoutAllRevokesEveryRefreshTokenAndAccessToken() {
+        UserEntity user = createUserWithPassword();
+        AuthUserResponse first = login(user);
+        AuthUserResponse second = login(user);
+
+        assertThat(authUserController.logoutAll("Bearer " + first.token()).getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        assertThat(activeTokens(user.getId())).isZero();
+        assertThat(refresh(first.refreshToken()).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(refresh(second.refreshToken()).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        // Os access tokens emitidos antes ficaram com a geração antiga
+        assertThat(authUserController.logoutAll("Bearer " + second.token()).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+
+        // Um login novo volta a funcionar normalmente
+        assertThat(refresh(login(user).refreshToken()).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    private UserEntity createUserWithPassword() {
+        UserEntity user = createUser();
+        user.setPassword(passwordEncoder.encode(PASSWORD));
+        return userRepository.save(user);
+    }
+
+    private String createAdmin() {
+        String email = "refresh-admin-" + UUID.randomUUID() + "@redirex.local";
+        jdbcTemplate.update("INSERT INTO admins (id, fullname, email, password, cpf, role, created_at, updated_at)"
+                        + " VALUES (gen_random_uuid(), 'Refresh Admin', ?, ?, ?, 'ROLE_ADMIN', now(), now())",
+                email, passwordEncoder.encode(PASSWORD),
+                String.format("%011d", ThreadLocalRandom.current().nextLong(100_000_000_000L)));
+        return email;
+    }
+
+    private AuthUserResponse login(UserEntity user) {
+        ResponseEntity<ApiResponse<AuthUserResponse>> response = authUserController.login(
+                new AuthUserRequest(user.getEmail(), PASSWORD));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        return response.getBody().data();
+    }
+
+    private ResponseEntity<ApiResponse<AuthUserResponse>> refresh(String refreshToken) {
+        return authUserController.refresh(new RefreshTokenRequest(refreshToken));
+    }
+
+    private UUID tokenId(String rawToken) {
+        return jdbcTemplate.queryForObject("SELECT id FROM refresh_tokens WHERE token_hash = ?", UUID.class,
+                TokenHasher.sha256(rawToken));
+    }
+
+    private UUID replacedBy(String rawToken) {
+        return jdbcTemplate.queryForObject("SELECT replaced_by_id FROM refresh_tokens WHERE token_hash = ?", UUID.class,
+                TokenHasher.sha256(rawToken));
+    }
+
+    private int activeTokens(UUID userId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM refresh_tokens WHERE user_id = ? AND revoked_at IS NULL",
+                Integer.class, userId);
+    }
+}
@@ -0,0 +1,260 @@
+package redirex.shipping.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+import redirex.shipping.AbstractIntegrationTest;
+import redirex.shipping.dto.request.DepositRequestDto;
+import redirex.shipping.dto.response.WalletTransactionResponse;
+import redirex.shipping.entity.WalletDepositEntity;
+import redirex.shipping.enums.CurrencyEnum;
+import redirex.shipping.enums.DepositStatusEnum;
+import redirex.shipping.repositories.WalletDepositRepository;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Depósito em três fases com o LocalStripeService: cobrança única por chave, resultado desconhecido
+// fica PENDING e a recuperação (claimAttempt) conclui depósitos interrompidos entre as fases.
+class WalletDepositServiceTest extends AbstractIntegrationTest {
+
+    private static final String CARD = "pm_card_visa";
+    private static final String DECLINED_CARD = "pm_card_chargeDeclined";
+    private static final String TIMEOUT_CARD = "pm_card_timeout";
+
+    @Autowired
+    private WalletDepositService walletDepositService;
+
+    @Autowired
+    private WalletDepositRepository walletDepositRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void depositCreditsNetAmountOnce() {
+        UUID userId = createUserWithWallet().getId();
+
+        WalletTransactionResponse response = deposit(userId, CARD, "deposit-1");
+
+        assertThat(response.status()).isEqualTo("success");
+        assertThat(response.netAmount()).isEqualByComparingTo("95.00");
+        assertThat(balance(userId)).isEqualByComparingTo("95.00");
+        assertThat(depositStatus(response.id())).isEqualTo(DepositStatusEnum.SUCCEEDED);
+        assertThat(depositTransactions(userId)).isEqualTo(1);
+    }
+
+    @Test
+    void retryWithSameKeyReturnsSameDepositWithoutChargingAgain() {
+        UUID userId = createUserWithWallet().getId();
+
+        WalletTransactionResponse first = deposit(userId, CARD, "deposit-retry");
+        WalletTransactionResponse retry = deposit(userId, CARD, "deposit-retry");
+
+        assertThat(retry.status()).isEqualTo("success");
+        assertThat(retry.id()).isEqualTo(first.id());
+        assertThat(balance(userId)).isEqualByComparingTo("95.00");
+        assertThat(depositTransactions(userId)).isEqualTo(1);
+        verify(stripeService, times(1)).processPayment(eq(CARD), anyLong(), any(), eq(stripeKey(first.id())));
+    }
+
+    @Test
+    void concurrentRetriesWithSameKeyCreditOnce() throws Exception {
+        UUID userId = createUserWithWallet().getId();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<WalletTransactionResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                responses.add(executor.submit(() -> {
+                    start.await();
+                    return deposit(userId, CARD, "deposit-race");
+                }));
+            }
+            start.countDown();
+            // Quem perde a corrida recebe o depósito em andamento ou concluído, nunca um erro
+            for (Future<WalletTransactionResponse> response : responses) {
+                assertThat(response.get().status()).isIn("success", "pending");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        UUID depositId = depositIdFor(userId, "deposit-race");
+        assertThat(depositStatus(depositId)).isEqualTo(DepositStatusEnum.SUCCEEDED);
+        assertThat(balance(userId)).isEqualByComparingTo("95.00");
+        assertThat(depositTransactions(userId)).isEqualTo(1);
+    }
+
+    @Test
+    void declinedDepositIsMarkedFailedAndNotRetried() {
+        UUID userId = createUserWithWallet().getId();
+
+        WalletTransactionResponse response = deposit(userId, DECLINED_CARD, "deposit-declined");
+        WalletTransactionResponse retry = deposit(userId, DECLINED_CARD, "deposit-declined");
+
+        UUID depositId = depositIdFor(userId, "deposit-declined");
+        assertThat(response.status()).isEqualTo("error");
+        assertThat(retry.status()).isEqualTo("error");
+        assertThat(depositStatus(depositId)).isEqualTo(DepositStatusEnum.FAILED);
+        assertThat(balance(userId)).isEqualByComparingTo("0");
+        verify(stripeService, times(1)).processPayment(anyString(), anyLong(), any(), eq(stripeKey(depositId)));
+    }
+
+    @Test
+    void unknownStripeOutcomeLeavesDepositPendingUntilRecovery() {
+        UUID userId = createUserWithWallet().getId();
+
+        WalletTransactionResponse response = deposit(userId, TIMEOUT_CARD, "deposit-timeout");
+
+        assertThat(response.status()).isEqualTo("pending");
+        assertThat(depositStatus(response.id())).isEqualTo(DepositStatusEnum.PENDING);
+        assertThat(balance(userId)).isEqualByComparingTo("0");
+
+        // A repetição do cliente não cobra de novo nem credita: só a recuperação resolve
+        assertThat(deposit(userId, TIMEOUT_CARD, "deposit-timeout").status()).isEqualTo("pending");
+        verify(stripeService, times(1)).processPayment(anyString(), anyLong(), any(), eq(stripeKey(response.id())));
+
+        walletDepositService.recoverPendingDeposits();
+
+        assertThat(depositStatus(response.id())).isEqualTo(DepositStatusEnum.SUCCEEDED);
+        assertThat(walletDepositRepository.findById(response.id()).orElseThrow().getAttempts()).isEqualTo(2);
+        assertThat(balance(userId)).isEqualByComparingTo("95.00");
+        assertThat(deposit(userId, TIMEOUT_CARD, "deposit-timeout").status()).isEqualTo("success");
+        assertThat(depositTransactions(userId)).isEqualTo(1);
+    }
+
+    @Test
+    void recoveryCompletesDepositInterruptedBeforeStripeCall() {
+        UUID userId = createUserWithWallet().getId();
+        // Queda do nó entre as fases 1 e 2: depósito gravado, Stripe nunca chamado
+        WalletDepositEntity deposit = pendingDeposit(userId);
+
+        walletDepositService.recoverPendingDeposits();
+
+        assertThat(depositStatus(deposit.getId())).isEqualTo(DepositStatusEnum.SUCCEEDED);
+        assertThat(balance(userId)).isEqualByComparingTo("95.00");
+        verify(stripeService, times(1)).processPayment(eq(CARD), eq(1000L), eq(CurrencyEnum.BRL),
+                eq(stripeKey(deposit.getId())));
+    }
+
+    @Test
+    void recoveryCompletesDepositInterruptedAfterCharge() {
+        UUID userId = createUserWithWallet().getId();
+        // Queda do nó entre as fases 2 e 3: o Stripe cobrou, a carteira não foi creditada
+        WalletDepositEntity deposit = pendingDeposit(userId);
+        stripeService.processPayment(CARD, 1000L, CurrencyEnum.BRL, stripeKey(deposit.getId()));
+
+        walletDepositService.recoverPendingDeposits();
+        walletDepositService.recoverPendingDeposits();
+
+        assertThat(depositStatus(deposit.getId())).isEqualTo(DepositStatusEnum.SUCCEEDED);
+        assertThat(balance(userId)).isEqualByComparingTo("95.00");
+        assertThat(depositTransactions(userId)).isEqualTo(1);
+    }
+
+    @Test
+    void claimAttemptRejectsStaleReservation() {
+        UUID userId = createUserWithWallet().getId();
+        WalletDepositEntity deposit = pendingDeposit(userId);
+        LocalDateTime seen = deposit.getUpdatedAt();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+        // Dois nós leram o mesmo updatedAt: só o primeiro reserva a nova tentativa
+        assertThat(claim(deposit.getId(), seen, now)).isEqualTo(1);
+        assertThat(claim(deposit.getId(), seen, now.plusSeconds(1))).isZero();
+
+        assertThat(walletDepositRepository.findById(deposit.getId()).orElseThrow().getAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentRecoveryCreditsOnce() throws Exception {
+        UUID userId = createUserWithWallet().getId();
+        WalletDepositEntity deposit = pendingDeposit(userId);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                runs.add(executor.submit(() -> {
+                    start.await();
+                    walletDepositService.recoverPendingDeposits();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> run : runs) {
+                run.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(depositStatus(deposit.getId())).isEqualTo(DepositStatusEnum.SUCCEEDED);
+        assertThat(balance(userId)).isEqualByComparingTo("95.00");
+        assertThat(depositTransactions(userId)).isEqualTo(1);
+    }
+
+    private WalletTransactionResponse deposit(UUID userId, String paymentMethodId, String idempotencyKey) {
+        return userWalletService.depositToWallet(userId,
+                new DepositRequestDto(new BigDecimal("100.00"), CurrencyEnum.CNY, CurrencyEnum.BRL, paymentMethodId, null),
+                idempotencyKey, "10.0.0.1");
+    }
+
+    // Fase 1 concluída, como gravada por WalletDepositService.deposit; updatedAt no passado para a recuperação
+    private WalletDepositEntity pendingDeposit(UUID userId) {
+        return walletDepositRepository.saveAndFlush(WalletDepositEntity.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .currency(CurrencyEnum.CNY)
+                .targetAmount(new BigDecimal("100.00"))
+                .feeAmount(new BigDecimal("5.00"))
+                .netAmount(new BigDecimal("95.00"))
+                .chargedAmount(new BigDecimal("10.00"))
+                .chargedCurrency(CurrencyEnum.BRL)
+                .exchangeRate(new BigDecimal("10.00000000"))
+                .paymentMethodId(CARD)
+                .status(DepositStatusEnum.PENDING)
+                .attempts(1)
+                .updatedAt(LocalDateTime.now().minusMinutes(10).truncatedTo(ChronoUnit.MICROS))
+                .build());
+    }
+
+    private int claim(UUID depositId, LocalDateTime seen, LocalDateTime now) {
+        return transactionTemplate.execute(status -> walletDepositRepository.claimAttempt(depositId, seen, now));
+    }
+
+    private DepositStatusEnum depositStatus(UUID depositId) {
+        return walletDepositRepository.findById(depositId).orElseThrow().getStatus();
+    }
+
+    private int depositTransactions(UUID userId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM wallet_transactions WHERE user_id = ? AND type = 'DEPOSIT'", Integer.class, userId);
+    }
+
+    private static UUID depositIdFor(UUID userId, String idempotencyKey) {
+        return UUID.nameUUIDFromBytes((userId + ":" + idempotencyKey).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String stripeKey(UUID depositId) {
+        return "wallet-deposit-" + depositId;
+    }
+}
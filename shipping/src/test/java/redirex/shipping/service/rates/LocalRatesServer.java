@@ -0,0 +1,127 @@
+package redirex.shipping.service.rates;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redirex.shipping.enums.CurrencyEnum;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.BindException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Substituto local das fontes de cotação para os testes de integração (registrado pelo IntegrationTestConfiguration;
+// application-test.properties aponta os clientes para cá). Responde no formato da PTAX (só USD, como a PTAX não tem CNY) e da API Frankfurter (CNY por USD).
+// Moedas em exchange-rate.local.unavailable, ou marcadas com setAvailable, respondem 503.
+public class LocalRatesServer {
+    private static final Logger logger = LoggerFactory.getLogger(LocalRatesServer.class);
+    private static final Pattern PTAX_CURRENCY = Pattern.compile("@moeda='([A-Z]{3})'");
+    private static final Pattern CROSS_CURRENCY = Pattern.compile("to=([A-Z]{3})");
+    private static final DateTimeFormatter PTAX_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private final int port;
+    private final BigDecimal brlPerUsd;
+    private final BigDecimal cnyPerUsd;
+    private final Set<CurrencyEnum> unavailable = ConcurrentHashMap.newKeySet();
+    private HttpServer server;
+
+    public LocalRatesServer(int port, BigDecimal brlPerUsd, BigDecimal cnyPerUsd, List<CurrencyEnum> unavailable) {
+        this.port = port;
+        this.brlPerUsd = brlPerUsd;
+        this.cnyPerUsd = cnyPerUsd;
+        this.unavailable.addAll(unavailable.isEmpty() ? EnumSet.noneOf(CurrencyEnum.class) : EnumSet.copyOf(unavailable));
+    }
+
+    // Antes do ApplicationReadyEvent, que dispara a primeira atualização de cotações
+    @PostConstruct
+    public void start() throws IOException {
+        try {
+            server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        } catch (BindException e) {
+            // Outro contexto do mesmo processo (ex.: testes) já serve na porta
+            logger.warn("Local rates server port {} already in use; using the running instance", port);
+            return;
+        }
+        server.createContext("/olinda/servico/PTAX/", this::ptax);
+        server.createContext("/latest", this::crossRate);
+        server.start();
+        logger.info("Local rates server listening on port {}", port);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    public void setAvailable(CurrencyEnum currency, boolean available) {
+        if (available) {
+            unavailable.remove(currency);
+        } else {
+            unavailable.add(currency);
+        }
+    }
+
+    private void ptax(HttpExchange exchange) throws IOException {
+        CurrencyEnum currency = currency(PTAX_CURRENCY, exchange);
+        if (currency != null && unavailable.contains(currency)) {
+            respond(exchange, 503, "{}");
+            return;
+        }
+        String quoted = LocalDateTime.now(ZoneId.of("America/Sao_Paulo")).minusMinutes(5).format(PTAX_TIMESTAMP);
+        String value = currency == CurrencyEnum.USD
+                ? "{\"cotacaoCompra\":" + brlPerUsd + ",\"cotacaoVenda\":" + brlPerUsd
+                        + ",\"dataHoraCotacao\":\"" + quoted + "\",\"tipoBoletim\":\"Local\"}"
+                : "";
+        respond(exchange, 200, "{\"value\":[" + value + "]}");
+    }
+
+    private void crossRate(HttpExchange exchange) throws IOException {
+        CurrencyEnum currency = currency(CROSS_CURRENCY, exchange);
+        if (currency != CurrencyEnum.CNY || unavailable.contains(currency)) {
+            respond(exchange, currency == null ? 404 : 503, "{}");
+            return;
+        }
+        respond(exchange, 200, "{\"amount\":1.0,\"base\":\"USD\",\"date\":\"" + LocalDate.now()
+                + "\",\"rates\":{\"CNY\":" + cnyPerUsd + "}}");
+    }
+
+    private static CurrencyEnum currency(Pattern pattern, HttpExchange exchange) {
+        String query = exchange.getRequestURI().getRawQuery();
+        Matcher matcher = pattern.matcher(query != null ? URLDecoder.decode(query, StandardCharsets.UTF_8) : "");
+        if (!matcher.find()) {
+            return null;
+        }
+        try {
+            return CurrencyEnum.valueOf(matcher.group(1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package redirex.shipping.service.velocity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Janela de 4 buckets de 1s com tempo controlado pelo teste: soma, expiração bucket a bucket e reaproveitamento
+// das posições do anel
+class SlidingWindowCounterTest {
+
+    private static final long BUCKET = 1_000L;
+
+    @Test
+    void sumsEveryBucketInsideTheWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(4, BUCKET);
+
+        assertThat(counter.add(0L, 1L)).isEqualTo(1L);
+        assertThat(counter.add(999L, 2L)).isEqualTo(3L);
+        assertThat(counter.add(1_500L, 3L)).isEqualTo(6L);
+        assertThat(counter.add(3_999L, 4L)).isEqualTo(10L);
+        assertThat(counter.sum(3_999L)).isEqualTo(10L);
+    }
+
+    @Test
+    void bucketsExpireOneAtATime() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(4, BUCKET);
+        counter.add(0L, 1L);
+        counter.add(1_000L, 10L);
+        counter.add(2_000L, 100L);
+
+        assertThat(counter.sum(3_999L)).isEqualTo(111L);
+        assertThat(counter.sum(4_000L)).isEqualTo(110L);
+        assertThat(counter.sum(5_000L)).isEqualTo(100L);
+        assertThat(counter.sum(6_000L)).isZero();
+    }
+
+    @Test
+    void reusedSlotStartsFromZero() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(4, BUCKET);
+        counter.add(500L, 7L);
+
+        // Bucket 4 cai na mesma posição do bucket 0: o valor vencido é descartado, não somado
+        assertThat(counter.add(4_500L, 2L)).isEqualTo(2L);
+        assertThat(counter.add(4_600L, 3L)).isEqualTo(5L);
+    }
+
+    @Test
+    void slotLeftFromAnEarlierLapIsIgnored() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(4, BUCKET);
+        counter.add(1_000L, 5L);
+
+        // Nada foi escrito entre os buckets 2 e 8; a posição do bucket 1 ainda guarda o valor de duas voltas atrás
+        assertThat(counter.sum(9_000L)).isZero();
+        assertThat(counter.add(9_000L, 1L)).isEqualTo(1L);
+    }
+
+    @Test
+    void lateAddDoesNotOverwriteNewerBucket() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(4, BUCKET);
+        counter.add(5_000L, 3L);
+
+        // Thread que leu o relógio no bucket 1 e só chegou depois do bucket 5 (mesma posição do anel)
+        counter.add(1_000L, 1L);
+
+        assertThat(counter.sum(5_000L)).isEqualTo(3L);
+    }
+
+    @Test
+    void valueSaturatesInsteadOfCorruptingTheStamp() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(2, BUCKET);
+        long max = (1L << 44) - 1;
+
+        counter.add(0L, max);
+        assertThat(counter.add(0L, 10L)).isEqualTo(max);
+        assertThat(counter.add(1_000L, 1L)).isEqualTo(max + 1);
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThatThrownBy(() -> new SlidingWindowCounter(0, BUCKET)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SlidingWindowCounter(4, 0L)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SlidingWindowCounter(4, BUCKET).add(0L, -1L))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void concurrentAddsAcrossRolloverLoseNothing() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter(4, BUCKET);
+        counter.add(0L, 1_000L);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    // Bucket 4 ocupa a posição vencida do bucket 0: a troca e os incrementos disputam o mesmo CAS
+                    for (int i = 0; i < 10_000; i++) {
+                        counter.add(4_000L + (i % 1_000), 1L);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(counter.sum(4_999L)).isEqualTo(80_000L);
+    }
+}